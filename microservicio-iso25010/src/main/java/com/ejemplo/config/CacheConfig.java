@@ -0,0 +1,43 @@
+package com.ejemplo.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuración de la caché local (Spring Cache sobre Caffeine).
+ * Tamaño máximo y TTL se definen en spring.cache.caffeine.spec; las métricas
+ * de aciertos, fallos y desalojos se publican en Actuator (cache.gets, cache.evictions).
+ * El interceptor de caché se ordena por fuera del transaccional y por dentro de los de
+ * Resilience4j, de modo que los fallbacks no se cachean. Las cachés son transaccionales:
+ * dentro de una transacción abierta, las escrituras e invalidaciones se aplican después del
+ * commit, también cuando PedidoService modifica el stock en su propia transacción.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    /** Productos por ID, usada por ProductoService.obtenerPorId */
+    public static final String PRODUCTOS = "productos";
+
+    /**
+     * Difiere al commit los put y evict hechos dentro de una transacción: una lectura
+     * concurrente no deja en caché un stock anterior al commit ni uno que luego se revierte.
+     * CaffeineCacheManager no admite setTransactionAware, por eso se envuelve el que crea Spring Boot
+     */
+    @Bean
+    public static BeanPostProcessor cacheTransaccional() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof CaffeineCacheManager caffeine
+                        ? new TransactionAwareCacheManagerProxy(caffeine)
+                        : bean;
+            }
+        };
+    }
+}
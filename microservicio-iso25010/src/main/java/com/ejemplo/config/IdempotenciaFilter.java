@@ -0,0 +1,242 @@
+package com.ejemplo.config;
+
+import com.ejemplo.dto.ErrorDTO;
+import com.ejemplo.service.IdempotenciaService;
+import com.ejemplo.service.IdempotenciaService.Reserva;
+import com.ejemplo.service.IdempotenciaService.RespuestaGuardada;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Filtro de idempotencia para operaciones que modifican stock
+ * Cuando la solicitud trae el header Idempotency-Key, la primera ejecución guarda
+ * su respuesta y los reintentos con la misma clave la reciben sin volver a ejecutar
+ * el controlador (y por tanto sin tocar los repositorios)
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Component
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaFilter.class);
+
+    public static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotent-Replayed";
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    // Operaciones protegidas: "MÉTODO patrón-de-ruta" (sin el context-path)
+    private static final List<String[]> OPERACIONES = List.of(
+            new String[] {"POST", "/pedidos"},
+            new String[] {"POST", "/pedidos/checkout"},
+            new String[] {"POST", "/pedidos/async"},
+            new String[] {"PATCH", "/productos/*/stock"},
+            new String[] {"PATCH", "/productos/stock"}
+    );
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransaccionesConfirmadas transaccionesConfirmadas;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (request.getHeader(HEADER_IDEMPOTENCY_KEY) == null) {
+            return true;
+        }
+        String ruta = obtenerRuta(request);
+        return OPERACIONES.stream().noneMatch(operacion ->
+                operacion[0].equalsIgnoreCase(request.getMethod()) && pathMatcher.match(operacion[1], ruta));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String claveCliente = request.getHeader(HEADER_IDEMPOTENCY_KEY).trim();
+        if (claveCliente.isEmpty() || claveCliente.length() > LONGITUD_MAXIMA_CLAVE) {
+            escribirError(response, request, ErrorDTO.badRequest(
+                    "El header " + HEADER_IDEMPOTENCY_KEY + " debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres",
+                    request.getRequestURI()));
+            return;
+        }
+
+        CuerpoEnCacheRequest solicitud = new CuerpoEnCacheRequest(request);
+        String ruta = obtenerRuta(request);
+        String clave = sha256((obtenerUsuario() + '\n' + request.getMethod() + '\n' + ruta + '\n' + claveCliente)
+                .getBytes(StandardCharsets.UTF_8));
+        String huella = sha256(concatenar(request.getQueryString(), solicitud.cuerpo));
+
+        Reserva reserva = idempotenciaService.reservar(clave, huella);
+        switch (reserva.resultado()) {
+            case REPETIDA -> repetirRespuesta(response, reserva.respuesta());
+            case EN_PROCESO -> escribirError(response, request, ErrorDTO.conflict(
+                    "Ya hay una solicitud en proceso con el mismo " + HEADER_IDEMPOTENCY_KEY, request.getRequestURI()));
+            case CONFLICTO -> escribirError(response, request, new ErrorDTO(422, "Unprocessable Entity",
+                    HEADER_IDEMPOTENCY_KEY + " reutilizada con una solicitud distinta", request.getRequestURI()));
+            case NUEVA -> ejecutar(solicitud, response, filterChain, clave, reserva.token(), huella);
+        }
+    }
+
+    private void ejecutar(CuerpoEnCacheRequest solicitud, HttpServletResponse response, FilterChain filterChain,
+                          String clave, String token, String huella) throws ServletException, IOException {
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        boolean terminada = false;
+        transaccionesConfirmadas.iniciar();
+        try {
+            filterChain.doFilter(solicitud, respuesta);
+            terminada = true;
+        } finally {
+            boolean confirmada = transaccionesConfirmadas.terminar();
+            // Un 5xx sin cambios confirmados se libera para que el cliente reintente con la misma clave;
+            // si la operación ya se confirmó, se guarda la respuesta para no repetirla en el reintento
+            if (terminada && (respuesta.getStatus() < 500 || confirmada)) {
+                idempotenciaService.completar(clave, token, huella, respuesta.getStatus(), respuesta.getContentType(),
+                        new String(respuesta.getContentAsByteArray(), StandardCharsets.UTF_8));
+            } else if (!confirmada) {
+                idempotenciaService.liberar(clave, token);
+            } else {
+                log.warn("Solicitud con {} falló tras confirmar sus cambios; la clave queda reservada hasta vencer",
+                        HEADER_IDEMPOTENCY_KEY);
+            }
+            respuesta.copyBodyToResponse();
+        }
+    }
+
+    private void repetirRespuesta(HttpServletResponse response, RespuestaGuardada guardada) throws IOException {
+        log.debug("Repitiendo respuesta guardada para {} (HTTP {})", HEADER_IDEMPOTENCY_KEY, guardada.estadoHttp());
+        response.setStatus(guardada.estadoHttp());
+        response.setHeader(HEADER_REPETIDA, "true");
+        if (guardada.tipoContenido() != null) {
+            response.setContentType(guardada.tipoContenido());
+        }
+        if (guardada.cuerpo() != null) {
+            byte[] cuerpo = guardada.cuerpo().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(cuerpo.length);
+            response.getOutputStream().write(cuerpo);
+        }
+    }
+
+    private void escribirError(HttpServletResponse response, HttpServletRequest request, ErrorDTO error)
+            throws IOException {
+        log.warn("Solicitud con {} rechazada en {}: {}", HEADER_IDEMPOTENCY_KEY, request.getMethod(), error.getMessage());
+        response.setStatus(error.getStatus());
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private String obtenerRuta(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private String obtenerUsuario() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacion != null ? autenticacion.getName() : "anonimo";
+    }
+
+    private static byte[] concatenar(String queryString, byte[] cuerpo) {
+        byte[] query = (queryString != null ? queryString : "").getBytes(StandardCharsets.UTF_8);
+        byte[] resultado = new byte[query.length + 1 + cuerpo.length];
+        System.arraycopy(query, 0, resultado, 0, query.length);
+        resultado[query.length] = '\n';
+        System.arraycopy(cuerpo, 0, resultado, query.length + 1, cuerpo.length);
+        return resultado;
+    }
+
+    private static String sha256(byte[] datos) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Envoltorio que lee el cuerpo una sola vez para calcular la huella
+     * y lo vuelve a entregar al controlador
+     */
+    private static class CuerpoEnCacheRequest extends HttpServletRequestWrapper {
+
+        private final byte[] cuerpo;
+
+        CuerpoEnCacheRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.cuerpo = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Lectura asíncrona no soportada");
+                }
+
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String codificacion = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(codificacion)));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ejemplo.config;
+
+import com.ejemplo.service.RespaldoProductos;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Marca las respuestas servidas desde el respaldo de productos
+ * Si algún fallback del Circuit Breaker respondió con datos respaldados durante la
+ * solicitud, agrega X-Stale-Since (hora de captura, ISO-8601) y Age (segundos) para
+ * que el cliente sepa que los datos pueden estar desactualizados
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@RestControllerAdvice
+public class RespaldoObsoletoAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(RespaldoProductos.ATRIBUTO_OBSOLETO)
+                        instanceof Instant capturado) {
+            HttpHeaders headers = response.getHeaders();
+            headers.set(RespaldoProductos.HEADER_OBSOLETO, capturado.toString());
+            headers.set(HttpHeaders.AGE,
+                    Long.toString(Math.max(0, Duration.between(capturado, Instant.now()).getSeconds())));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ejemplo.config;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * Registra si el hilo actual confirmó alguna transacción de escritura
+ * Spring Boot lo agrega como listener del gestor de transacciones; el filtro de idempotencia
+ * lo consulta para saber si una solicitud que terminó en 5xx ya había aplicado sus cambios
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Component
+public class TransaccionesConfirmadas implements TransactionExecutionListener {
+
+    private final ThreadLocal<boolean[]> confirmadas = new ThreadLocal<>();
+
+    /**
+     * Empieza a registrar los commits del hilo actual
+     */
+    public void iniciar() {
+        confirmadas.set(new boolean[1]);
+    }
+
+    /**
+     * Deja de registrar los commits del hilo actual
+     * @return true si se confirmó alguna transacción de escritura desde iniciar
+     */
+    public boolean terminar() {
+        boolean[] registro = confirmadas.get();
+        confirmadas.remove();
+        return registro != null && registro[0];
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        boolean[] registro = confirmadas.get();
+        if (registro != null && commitFailure == null && transaction.isNewTransaction() && !transaction.isReadOnly()) {
+            registro[0] = true;
+        }
+    }
+}
@@ -2,11 +2,16 @@ package com.ejemplo.controller;
 
 import com.ejemplo.dto.PedidoResponseDTO;
 import com.ejemplo.model.Pedido;
-import com.ejemplo.model.Usuario;
-import com.ejemplo.model.Producto;
-import com.ejemplo.service.ProductoService;
+import com.ejemplo.service.AdmisionVentaFlash;
+import com.ejemplo.service.AutoCancelacionPedidos;
+import com.ejemplo.service.EstadisticasPedidoService;
+import com.ejemplo.service.ExportacionService;
+import com.ejemplo.service.LecturasCompartidas;
+import com.ejemplo.service.PedidoIngresoService;
+import com.ejemplo.service.PedidoIngresoService.SeguimientoPedido;
+import com.ejemplo.service.PedidoService;
 import com.ejemplo.repository.PedidoRepository;
-import com.ejemplo.repository.UsuarioRepository;
+import com.ejemplo.util.CursorPaginacion;
 import com.ejemplo.util.LogSanitizer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -20,13 +25,22 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST para la gestión de pedidos
@@ -44,15 +58,30 @@ public class PedidoController {
     private static final String PEDIDO_NOT_FOUND_MSG = "Pedido no encontrado con ID: ";
 
     private final PedidoRepository pedidoRepository;
-    private final ProductoService productoService;
-    private final UsuarioRepository usuarioRepository;
+    private final PedidoService pedidoService;
+    private final PedidoIngresoService pedidoIngresoService;
+    private final EstadisticasPedidoService estadisticasPedidoService;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final ExportacionService exportacionService;
+    private final AdmisionVentaFlash admisionVentaFlash;
+    private final AutoCancelacionPedidos autoCancelacionPedidos;
 
     public PedidoController(PedidoRepository pedidoRepository, 
-                           ProductoService productoService, 
-                           UsuarioRepository usuarioRepository) {
+                           PedidoService pedidoService,
+                           PedidoIngresoService pedidoIngresoService,
+                           EstadisticasPedidoService estadisticasPedidoService,
+                           LecturasCompartidas lecturasCompartidas,
+                           ExportacionService exportacionService,
+                           AdmisionVentaFlash admisionVentaFlash,
+                           AutoCancelacionPedidos autoCancelacionPedidos) {
         this.pedidoRepository = pedidoRepository;
-        this.productoService = productoService;
-        this.usuarioRepository = usuarioRepository;
+        this.pedidoService = pedidoService;
+        this.pedidoIngresoService = pedidoIngresoService;
+        this.estadisticasPedidoService = estadisticasPedidoService;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.exportacionService = exportacionService;
+        this.admisionVentaFlash = admisionVentaFlash;
+        this.autoCancelacionPedidos = autoCancelacionPedidos;
     }
 
     /**
@@ -97,26 +126,117 @@ public class PedidoController {
     }
 
     /**
-     * Obtiene todos los pedidos
+     * DTO para una línea del carrito de compra
+     */
+    public static class LineaCarritoRequest {
+        @NotNull(message = "El ID del producto es obligatorio")
+        private Long productoId;
+
+        @NotNull(message = "La cantidad es obligatoria")
+        @Min(value = 1, message = "La cantidad debe ser mayor a 0")
+        @Max(value = 100, message = "La cantidad no puede exceder 100 unidades por pedido")
+        private Integer cantidad;
+
+        // Getters y Setters
+        public Long getProductoId() { return productoId; }
+        public void setProductoId(Long productoId) { this.productoId = productoId; }
+        public Integer getCantidad() { return cantidad; }
+        public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
+    }
+
+    /**
+     * DTO para el checkout de un carrito con varias líneas
+     */
+    public static class CheckoutRequest {
+        @NotNull(message = "El ID del usuario es obligatorio")
+        private Long usuarioId;
+
+        @NotEmpty(message = "El carrito debe contener al menos un producto")
+        @Size(max = 50, message = "El carrito no puede exceder 50 líneas")
+        @Valid
+        private List<LineaCarritoRequest> lineas;
+
+        @Size(max = 500, message = "Las observaciones no pueden exceder 500 caracteres")
+        private String observaciones;
+
+        // Getters y Setters
+        public Long getUsuarioId() { return usuarioId; }
+        public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+        public List<LineaCarritoRequest> getLineas() { return lineas; }
+        public void setLineas(List<LineaCarritoRequest> lineas) { this.lineas = lineas; }
+        public String getObservaciones() { return observaciones; }
+        public void setObservaciones(String observaciones) { this.observaciones = observaciones; }
+    }
+
+    /**
+     * Obtiene los pedidos paginados por clave (fechaPedido, id) en orden descendente
+     * El cursor de la página siguiente se devuelve en el header X-Next-Cursor
      */
     @GetMapping
-    @Operation(summary = "Obtener todos los pedidos",description = "Retorna una lista con todos los pedidos del sistema")
+    @Operation(summary = "Obtener todos los pedidos",
+               description = "Retorna una página de pedidos, del más reciente al más antiguo. " +
+                             "Si hay más resultados, el header X-Next-Cursor contiene el cursor de la página siguiente")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de pedidos obtenida exitosamente",
                     content = @Content(mediaType = "application/json",schema = @Schema(implementation = PedidoResponseDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Cursor o límite inválido"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public ResponseEntity<List<PedidoResponseDTO>> obtenerTodos() {
-        logger.info("GET /pedidos - Obteniendo todos los pedidos");
-        List<Pedido> pedidos = pedidoRepository.findAllWithRelations();
+    public ResponseEntity<List<PedidoResponseDTO>> obtenerTodos(
+            @Parameter(description = "Tamaño de página (1-" + CursorPaginacion.LIMITE_MAXIMO + ")")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor opaco recibido en X-Next-Cursor")
+            @RequestParam(required = false) String cursor) {
+        logger.info("GET /pedidos - Obteniendo página de pedidos (limit: {})", limit);
+        int limite = CursorPaginacion.validarLimite(limit);
+
+        // Se pide una fila extra para saber si existe una página siguiente
+        Limit consulta = Limit.of(limite + 1);
+        List<PedidoResponseDTO> pedidos;
+        if (cursor == null || cursor.isBlank()) {
+            pedidos = pedidoRepository.findPrimeraPagina(consulta);
+        } else {
+            String[] clave = CursorPaginacion.decodificar(cursor, 2);
+            try {
+                pedidos = pedidoRepository.findPaginaDespuesDe(
+                        LocalDateTime.parse(clave[0]), Long.valueOf(clave[1]), consulta);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido", e);
+            }
+        }
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pedidos.size() > limite) {
+            pedidos = pedidos.subList(0, limite);
+            PedidoResponseDTO ultimo = pedidos.get(limite - 1);
+            respuesta.header(CursorPaginacion.HEADER_SIGUIENTE,
+                    CursorPaginacion.codificar(ultimo.getFechaPedido(), ultimo.getId()));
+        }
         logger.info("Se encontraron {} pedidos", pedidos.size());
 
-        // Convertir a DTOs para evitar ciclos de serialización
-        List<PedidoResponseDTO> response = pedidos.stream()
-                .map(PedidoResponseDTO::new)
-                .toList();
+        return respuesta.body(pedidos);
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * Exporta todos los pedidos en streaming
+     */
+    @GetMapping(value = "/exportar", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Exportar todos los pedidos", 
+               description = "Retorna todos los pedidos como un arreglo JSON escrito fila por fila mientras se " +
+                             "leen de la base de datos; la memoria usada no depende del número de filas")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Exportación iniciada",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = PedidoResponseDTO.class))),
+        @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN o MANAGER"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        logger.info("GET /pedidos/exportar - Exportando todos los pedidos");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(exportacionService.pedidos());
     }
 
     /**
@@ -135,12 +255,12 @@ public class PedidoController {
             @Parameter(description = "ID único del pedido", required = true, example = "1")
             @PathVariable Long id) {
         logger.info("GET /pedidos/{} - Obteniendo pedido por ID", id);
-        Pedido pedido = pedidoRepository.findByIdWithRelations(id)
+        // Solicitudes concurrentes por el mismo pedido comparten una sola consulta. Se comparte
+        // el DTO armado en la sesión de quien carga, nunca la entidad ligada a esa sesión
+        PedidoResponseDTO response = lecturasCompartidas.ejecutar("obtenerPedidoPorId", id,
+                () -> pedidoRepository.findByIdWithRelations(id).map(PedidoResponseDTO::new))
                 .orElseThrow(() -> new EntityNotFoundException(PEDIDO_NOT_FOUND_MSG + id));
-        logger.info("Pedido encontrado: ID={}, Estado={}", pedido.getId(), pedido.getEstado());
-
-        // Convertir a DTO para evitar ciclos de serialización
-        PedidoResponseDTO response = new PedidoResponseDTO(pedido);
+        logger.info("Pedido encontrado: ID={}, Estado={}", response.getId(), response.getEstado());
         return ResponseEntity.ok(response);
     }
 
@@ -154,6 +274,7 @@ public class PedidoController {
                     content = @Content(mediaType = "application/json",schema = @Schema(implementation = Pedido.class))),
         @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos"),
         @ApiResponse(responseCode = "404", description = "Usuario o producto no encontrado"),
+        @ApiResponse(responseCode = "503", description = "Cola de venta flash del producto llena"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     public ResponseEntity<Pedido> crear(
@@ -161,28 +282,99 @@ public class PedidoController {
             @Valid @RequestBody CrearPedidoRequest request) {
         logger.info("POST /pedidos - Creando nuevo pedido para usuario ID: {}, producto ID: {}",request.getUsuarioId(), request.getProductoId());
 
-        // Obtener usuario y producto
-        Usuario usuario = usuarioRepository.findById(request.getUsuarioId())
-                .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado con ID: " + request.getUsuarioId()));
+        // Validación de usuario, reserva de stock e inserción en una sola transacción; los productos
+        // en venta flash pasan antes por su cola de admisión
+        Pedido pedidoGuardado = admisionVentaFlash.estaActiva(request.getProductoId())
+                ? admisionVentaFlash.crear(request.getUsuarioId(), request.getProductoId(),
+                        request.getCantidad(), request.getObservaciones())
+                : pedidoService.crear(request.getUsuarioId(), request.getProductoId(),
+                        request.getCantidad(), request.getObservaciones());
+        logger.info("Pedido creado exitosamente con ID: {}", pedidoGuardado.getId());
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(pedidoGuardado);
+    }
+
+    /**
+     * Encola un pedido para procesamiento asíncrono
+     */
+    @PostMapping("/async")
+    @Operation(summary = "Crear pedido de forma asíncrona",description = "Valida y encola el pedido; retorna un ID de seguimiento para consultar el resultado")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Pedido aceptado para procesamiento",
+                    content = @Content(mediaType = "application/json",schema = @Schema(implementation = SeguimientoPedido.class))),
+        @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos"),
+        @ApiResponse(responseCode = "503", description = "Cola de pedidos llena"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<SeguimientoPedido> crearAsync(
+            @Parameter(description = "Datos del pedido a crear", required = true)
+            @Valid @RequestBody CrearPedidoRequest request) {
+        logger.info("POST /pedidos/async - Encolando pedido para usuario ID: {}, producto ID: {}",request.getUsuarioId(), request.getProductoId());
+
+        SeguimientoPedido seguimiento = pedidoIngresoService.encolar(request.getUsuarioId(), request.getProductoId(),
+                request.getCantidad(), request.getObservaciones());
+
+        URI ubicacion = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{trackingId}")
+                .buildAndExpand(seguimiento.trackingId())
+                .toUri();
+        return ResponseEntity.accepted().location(ubicacion).body(seguimiento);
+    }
 
-        Producto producto = productoService.obtenerPorId(request.getProductoId());
+    /**
+     * Consulta el resultado de un pedido asíncrono
+     */
+    @GetMapping("/async/{trackingId}")
+    @Operation(summary = "Consultar pedido asíncrono",description = "Retorna el estado de procesamiento de un pedido encolado")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Seguimiento encontrado",
+                    content = @Content(mediaType = "application/json",schema = @Schema(implementation = SeguimientoPedido.class))),
+        @ApiResponse(responseCode = "404", description = "ID de seguimiento desconocido o expirado"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<SeguimientoPedido> obtenerSeguimiento(
+            @Parameter(description = "ID de seguimiento", required = true)
+            @PathVariable String trackingId) {
+        if (logger.isInfoEnabled()) {
+            logger.info("GET /pedidos/async/{} - Consultando seguimiento", LogSanitizer.sanitize(trackingId));
+        }
+        SeguimientoPedido seguimiento = pedidoIngresoService.obtenerSeguimiento(trackingId)
+                .orElseThrow(() -> new EntityNotFoundException("Seguimiento no encontrado: " + trackingId));
+        return ResponseEntity.ok(seguimiento);
+    }
 
-        // Validar stock
-        if (!producto.tieneStock(request.getCantidad())) {
-            throw new IllegalArgumentException("Stock insuficiente. Stock disponible: " + producto.getStock());
+    /**
+     * Procesa un carrito con varios productos en una sola transacción
+     */
+    @PostMapping("/checkout")
+    @Operation(summary = "Checkout de carrito",description = "Crea un pedido por cada línea del carrito reservando todo el stock en una sola transacción")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Pedidos creados exitosamente",
+                    content = @Content(mediaType = "application/json",schema = @Schema(implementation = PedidoResponseDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos o stock insuficiente"),
+        @ApiResponse(responseCode = "404", description = "Usuario o producto no encontrado"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<List<PedidoResponseDTO>> checkout(
+            @Parameter(description = "Carrito de compra", required = true)
+            @Valid @RequestBody CheckoutRequest request) {
+        logger.info("POST /pedidos/checkout - Checkout para usuario ID: {} con {} líneas",
+                request.getUsuarioId(), request.getLineas().size());
+
+        // Las líneas repetidas del mismo producto se suman en una sola reserva
+        Map<Long, Integer> cantidadesPorProducto = new LinkedHashMap<>();
+        for (LineaCarritoRequest linea : request.getLineas()) {
+            cantidadesPorProducto.merge(linea.getProductoId(), linea.getCantidad(), Integer::sum);
         }
 
-        // Crear pedido
-        Pedido pedido = new Pedido(usuario, producto, request.getCantidad(), request.getObservaciones());
-        pedido.setFechaPedido(LocalDateTime.now());
-        
-        // Reducir stock del producto
-        productoService.reducirStock(producto.getId(), request.getCantidad());
-        
-        Pedido pedidoGuardado = pedidoRepository.save(pedido);
-        logger.info("Pedido creado exitosamente con ID: {}", pedidoGuardado.getId());
-        
-        return ResponseEntity.status(HttpStatus.CREATED).body(pedidoGuardado);
+        List<Pedido> pedidos = pedidoService.checkout(request.getUsuarioId(), cantidadesPorProducto,
+                request.getObservaciones());
+
+        List<PedidoResponseDTO> response = pedidos.stream()
+                .map(PedidoResponseDTO::new)
+                .toList();
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     /**
@@ -203,42 +395,8 @@ public class PedidoController {
             @Parameter(description = "Nuevos datos del pedido", required = true)
             @Valid @RequestBody CrearPedidoRequest request) {
         logger.info("PUT /pedidos/{} - Actualizando pedido", id);
-        
-        Pedido pedidoExistente = pedidoRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(PEDIDO_NOT_FOUND_MSG + id));
-
-        // Solo permitir actualización si el pedido está pendiente
-        if (pedidoExistente.getEstado() != Pedido.EstadoPedido.PENDIENTE) {
-            throw new IllegalStateException("Solo se pueden actualizar pedidos en estado PENDIENTE");
-        }
-
-        // Restaurar stock del producto anterior
-        productoService.aumentarStock(pedidoExistente.getProducto().getId(), pedidoExistente.getCantidad());
-
-        // Obtener nuevo producto
-        Producto nuevoProducto = productoService.obtenerPorId(request.getProductoId());
-        
-        // Validar stock del nuevo producto
-        if (!nuevoProducto.tieneStock(request.getCantidad())) {
-            // Restaurar el stock que acabamos de devolver
-            productoService.reducirStock(pedidoExistente.getProducto().getId(), pedidoExistente.getCantidad());
-            throw new IllegalArgumentException("Stock insuficiente para el nuevo producto. Stock disponible: " + nuevoProducto.getStock());
-        }
-
-        // Actualizar pedido
-        pedidoExistente.setProducto(nuevoProducto);
-        pedidoExistente.setCantidad(request.getCantidad());
-        pedidoExistente.setObservaciones(request.getObservaciones());
-        pedidoExistente.setPrecioUnitario(nuevoProducto.getPrecio());
-        pedidoExistente.calcularTotal();
-        pedidoExistente.setFechaActualizacion(LocalDateTime.now());
-
-        // Reducir stock del nuevo producto
-        productoService.reducirStock(nuevoProducto.getId(), request.getCantidad());
-
-        Pedido pedidoActualizado = pedidoRepository.save(pedidoExistente);
-        logger.info("Pedido actualizado exitosamente con ID: {}", pedidoActualizado.getId());
-        
+        Pedido pedidoActualizado = pedidoService.actualizar(id, request.getProductoId(), request.getCantidad(),
+                request.getObservaciones());
         return ResponseEntity.ok(pedidoActualizado);
     }
 
@@ -257,20 +415,7 @@ public class PedidoController {
             @Parameter(description = "ID único del pedido", required = true, example = "1")
             @PathVariable Long id) {
         logger.info("DELETE /pedidos/{} - Eliminando pedido", id);
-        
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(PEDIDO_NOT_FOUND_MSG + id));
-
-        // Solo permitir eliminación si el pedido puede ser cancelado
-        if (!pedido.puedeSerCancelado()) {
-            throw new IllegalStateException("Solo se pueden eliminar pedidos en estado PENDIENTE o CONFIRMADO");
-        }
-
-        // Restaurar stock
-        productoService.aumentarStock(pedido.getProducto().getId(), pedido.getCantidad());
-        
-        pedidoRepository.deleteById(id);
-        logger.info("Pedido eliminado exitosamente con ID: {}", id);
+        pedidoService.eliminar(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -364,22 +509,14 @@ public class PedidoController {
             logger.info("PATCH /pedidos/{}/estado?estado={} - Cambiando estado de pedido", id, LogSanitizer.sanitize(estado));
         }
         
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(PEDIDO_NOT_FOUND_MSG + id));
-
+        Pedido.EstadoPedido nuevoEstado;
         try {
-            Pedido.EstadoPedido nuevoEstado = Pedido.EstadoPedido.valueOf(estado.toUpperCase());
-            pedido.setEstado(nuevoEstado);
-            pedido.setFechaActualizacion(LocalDateTime.now());
-            
-            Pedido pedidoActualizado = pedidoRepository.save(pedido);
-            logger.info("Estado del pedido actualizado a: {}", nuevoEstado);
-            
-            return ResponseEntity.ok(pedidoActualizado);
+            nuevoEstado = Pedido.EstadoPedido.valueOf(estado.toUpperCase());
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Estado inválido: " + estado + 
                 ". Estados válidos: PENDIENTE, CONFIRMADO, EN_PROCESO, ENVIADO, ENTREGADO, CANCELADO");
         }
+        return ResponseEntity.ok(pedidoService.cambiarEstado(id, nuevoEstado));
     }
 
     /**
@@ -398,25 +535,7 @@ public class PedidoController {
             @Parameter(description = "ID único del pedido", required = true, example = "1")
             @PathVariable Long id) {
         logger.info("PATCH /pedidos/{}/cancelar - Cancelando pedido", id);
-        
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(PEDIDO_NOT_FOUND_MSG + id));
-
-        if (!pedido.puedeSerCancelado()) {
-            throw new IllegalStateException("El pedido no puede ser cancelado. Estado actual: " + pedido.getEstado());
-        }
-
-        // Restaurar stock
-        productoService.aumentarStock(pedido.getProducto().getId(), pedido.getCantidad());
-        
-        // Cambiar estado
-        pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
-        pedido.setFechaActualizacion(LocalDateTime.now());
-        
-        Pedido pedidoCancelado = pedidoRepository.save(pedido);
-        logger.info("Pedido cancelado exitosamente con ID: {}", id);
-        
-        return ResponseEntity.ok(pedidoCancelado);
+        return ResponseEntity.ok(pedidoService.cancelar(id));
     }
 
     /**
@@ -431,25 +550,37 @@ public class PedidoController {
     public ResponseEntity<EstadisticasPedidos> obtenerEstadisticas() {
         logger.info("GET /pedidos/estadisticas - Obteniendo estadísticas de pedidos");
         
-        long totalPedidos = pedidoRepository.count();
-        long pedidosPendientes = pedidoRepository.countByEstado(Pedido.EstadoPedido.PENDIENTE);
-        long pedidosConfirmados = pedidoRepository.countByEstado(Pedido.EstadoPedido.CONFIRMADO);
-        long pedidosEntregados = pedidoRepository.countByEstado(Pedido.EstadoPedido.ENTREGADO);
-        long pedidosCancelados = pedidoRepository.countByEstado(Pedido.EstadoPedido.CANCELADO);
-        BigDecimal totalVentas = pedidoRepository.calcularTotalGeneralVentas();
+        // Contadores en memoria: no se consulta la tabla de pedidos
+        EstadisticasPedidoService.Resumen resumen = estadisticasPedidoService.obtener();
         
         EstadisticasPedidos estadisticas = new EstadisticasPedidos(
-            totalPedidos,
-            pedidosPendientes,
-            pedidosConfirmados,
-            pedidosEntregados,
-            pedidosCancelados,
-            totalVentas
+            resumen.total(),
+            resumen.contar(Pedido.EstadoPedido.PENDIENTE),
+            resumen.contar(Pedido.EstadoPedido.CONFIRMADO),
+            resumen.contar(Pedido.EstadoPedido.ENTREGADO),
+            resumen.contar(Pedido.EstadoPedido.CANCELADO),
+            resumen.ventasTotal()
         );
         
-        logger.info("Estadísticas: Total={}, Pendientes={}, Confirmados={}, Entregados={}, Cancelados={}, Ventas={}", 
-                   totalPedidos, pedidosPendientes, pedidosConfirmados, pedidosEntregados, pedidosCancelados, totalVentas);
+        logger.info("Estadísticas: {}", estadisticas);
         return ResponseEntity.ok(estadisticas);
     }
-}
 
+    /**
+     * Obtiene el progreso de la cancelación automática de pedidos antiguos
+     */
+    @GetMapping("/auto-cancelacion")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Progreso de la cancelación automática",
+               description = "Retorna la última ejecución en este nodo de la cancelación automática de pedidos " +
+                             "PENDIENTE/CONFIRMADO antiguos: pedidos cancelados, bloques procesados y retraso")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Progreso obtenido exitosamente"),
+        @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN o MANAGER"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<AutoCancelacionPedidos.EstadoAutoCancelacion> obtenerAutoCancelacion() {
+        logger.info("GET /pedidos/auto-cancelacion - Obteniendo progreso de la cancelación automática");
+        return ResponseEntity.ok(autoCancelacionPedidos.obtener());
+    }
+}
@@ -1,7 +1,29 @@
 package com.ejemplo.controller;
 
+import com.ejemplo.dto.AjusteStockRequest;
+import com.ejemplo.dto.ProductoResumenDTO;
 import com.ejemplo.model.Producto;
+import com.ejemplo.service.AdmisionVentaFlash;
+import com.ejemplo.service.AdmisionVentaFlash.EstadoVentaFlash;
+import com.ejemplo.service.AlertasStockBajo;
+import com.ejemplo.service.AlertasStockBajo.NivelStock;
+import com.ejemplo.service.AutocompletadoProductos;
+import com.ejemplo.service.AutocompletadoProductos.Sugerencia;
+import com.ejemplo.service.ExportacionService;
+import com.ejemplo.service.FacetasCatalogo;
+import com.ejemplo.service.FacetasCatalogo.Faceta;
+import com.ejemplo.service.ImportacionService;
+import com.ejemplo.service.ImportacionService.ResultadoImportacion;
+import com.ejemplo.service.InventarioFraccionado;
+import com.ejemplo.service.InventarioFraccionado.Fraccionamiento;
+import com.ejemplo.service.RankingMasVendidos;
+import com.ejemplo.service.RankingMasVendidos.MasVendido;
+import com.ejemplo.service.TendenciasProductos;
+import com.ejemplo.service.TendenciasProductos.Tendencia;
 import com.ejemplo.service.ProductoService;
+import com.ejemplo.service.ProductoService.FiltroCatalogo;
+import com.ejemplo.service.ProductoService.ResultadoAjusteStock;
+import com.ejemplo.util.CursorPaginacion;
 import com.ejemplo.util.LogSanitizer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,12 +36,22 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Controlador REST para la gestión de productos
@@ -36,9 +68,31 @@ public class ProductoController {
     private static final Logger logger = LoggerFactory.getLogger(ProductoController.class);
 
     private final ProductoService productoService;
+    private final AutocompletadoProductos autocompletadoProductos;
+    private final FacetasCatalogo facetasCatalogo;
+    private final RankingMasVendidos rankingMasVendidos;
+    private final TendenciasProductos tendenciasProductos;
+    private final ExportacionService exportacionService;
+    private final ImportacionService importacionService;
+    private final AlertasStockBajo alertasStockBajo;
+    private final InventarioFraccionado inventarioFraccionado;
+    private final AdmisionVentaFlash admisionVentaFlash;
 
-    public ProductoController(ProductoService productoService) {
+    public ProductoController(ProductoService productoService, AutocompletadoProductos autocompletadoProductos,
+                              FacetasCatalogo facetasCatalogo, RankingMasVendidos rankingMasVendidos,
+                              TendenciasProductos tendenciasProductos, ExportacionService exportacionService,
+                              ImportacionService importacionService, AlertasStockBajo alertasStockBajo,
+                              InventarioFraccionado inventarioFraccionado, AdmisionVentaFlash admisionVentaFlash) {
         this.productoService = productoService;
+        this.autocompletadoProductos = autocompletadoProductos;
+        this.facetasCatalogo = facetasCatalogo;
+        this.rankingMasVendidos = rankingMasVendidos;
+        this.tendenciasProductos = tendenciasProductos;
+        this.exportacionService = exportacionService;
+        this.importacionService = importacionService;
+        this.alertasStockBajo = alertasStockBajo;
+        this.inventarioFraccionado = inventarioFraccionado;
+        this.admisionVentaFlash = admisionVentaFlash;
     }
 
     /**
@@ -46,18 +100,72 @@ public class ProductoController {
      */
     @GetMapping
     @Operation(summary = "Obtener todos los productos", 
-               description = "Retorna una lista con todos los productos del catálogo")
+               description = "Retorna una lista con todos los productos del catálogo." +
+                             " Con limit, cursor o fields retorna en cambio una página ordenada por ID; el header X-Next-Cursor contiene el cursor de la página siguiente")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de productos obtenida exitosamente",
                     content = @Content(mediaType = "application/json", 
                                      schema = @Schema(implementation = Producto.class))),
+        @ApiResponse(responseCode = "400", description = "Cursor, límite o campos inválidos"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public ResponseEntity<List<Producto>> obtenerTodos() {
-        logger.info("GET /productos - Obteniendo todos los productos");
-        List<Producto> productos = productoService.obtenerTodos();
-        logger.info("Se encontraron {} productos", productos.size());
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<List<?>> obtenerTodos(
+            @Parameter(description = "Tamaño de página (1-" + CursorPaginacion.LIMITE_MAXIMO + ")")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor opaco recibido en X-Next-Cursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Campos a incluir separados por coma", example = "id,nombre,precio")
+            @RequestParam(required = false) String fields) {
+        logger.info("GET /productos - Obteniendo productos (limit: {})", limit);
+        return listar(FiltroCatalogo.TODOS, limit, cursor, fields, productoService::obtenerTodos);
+    }
+
+    /**
+     * Exporta todos los productos en streaming
+     */
+    @GetMapping(value = "/exportar", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Exportar todos los productos", 
+               description = "Retorna todos los productos como un arreglo JSON escrito fila por fila mientras se " +
+                             "leen de la base de datos; la memoria usada no depende del número de filas")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Exportación iniciada",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = Producto.class))),
+        @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN o MANAGER"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        logger.info("GET /productos/exportar - Exportando todos los productos");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(exportacionService.productos());
+    }
+
+    /**
+     * Importa productos en lote desde CSV o NDJSON
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Importar productos", 
+               description = "Lee el cuerpo fila por fila (CSV con encabezado o un objeto JSON por línea) y escribe " +
+                             "las filas válidas en lotes. Las filas sin id se crean y las filas con id reemplazan el " +
+                             "producto existente. Las filas inválidas se reportan con su número de línea sin detener " +
+                             "la importación")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Importación terminada con el reporte por fila",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = ResultadoImportacion.class))),
+        @ApiResponse(responseCode = "400", description = "Encabezado CSV inválido"),
+        @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN o MANAGER"),
+        @ApiResponse(responseCode = "415", description = "Formato no soportado"),
+        @ApiResponse(responseCode = "503", description = "Demasiadas importaciones en curso")
+    })
+    public ResponseEntity<ResultadoImportacion> importar(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo,
+            InputStream cuerpo) throws IOException {
+        logger.info("POST /productos/import - Importando productos ({})", LogSanitizer.sanitize(tipo));
+        return ResponseEntity.ok(importacionService.importar(cuerpo, MediaType.parseMediaType(tipo)));
     }
 
     /**
@@ -221,18 +329,24 @@ public class ProductoController {
      */
     @GetMapping("/activos")
     @Operation(summary = "Obtener productos activos", 
-               description = "Retorna todos los productos que están activos en el catálogo")
+               description = "Retorna todos los productos que están activos en el catálogo." +
+                             " Con limit, cursor o fields retorna en cambio una página ordenada por ID; el header X-Next-Cursor contiene el cursor de la página siguiente")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de productos activos obtenida",
                     content = @Content(mediaType = "application/json", 
                                      schema = @Schema(implementation = Producto.class))),
+        @ApiResponse(responseCode = "400", description = "Cursor, límite o campos inválidos"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public ResponseEntity<List<Producto>> obtenerProductosActivos() {
-        logger.info("GET /productos/activos - Obteniendo productos activos");
-        List<Producto> productos = productoService.obtenerProductosActivos();
-        logger.info("Se encontraron {} productos activos", productos.size());
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<List<?>> obtenerProductosActivos(
+            @Parameter(description = "Tamaño de página (1-" + CursorPaginacion.LIMITE_MAXIMO + ")")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor opaco recibido en X-Next-Cursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Campos a incluir separados por coma", example = "id,nombre,precio")
+            @RequestParam(required = false) String fields) {
+        logger.info("GET /productos/activos - Obteniendo productos activos (limit: {})", limit);
+        return listar(FiltroCatalogo.ACTIVOS, limit, cursor, fields, productoService::obtenerProductosActivos);
     }
 
     /**
@@ -240,18 +354,24 @@ public class ProductoController {
      */
     @GetMapping("/con-stock")
     @Operation(summary = "Obtener productos con stock", 
-               description = "Retorna todos los productos que tienen stock disponible")
+               description = "Retorna todos los productos que tienen stock disponible." +
+                             " Con limit, cursor o fields retorna en cambio una página ordenada por ID; el header X-Next-Cursor contiene el cursor de la página siguiente")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de productos con stock obtenida",
                     content = @Content(mediaType = "application/json", 
                                      schema = @Schema(implementation = Producto.class))),
+        @ApiResponse(responseCode = "400", description = "Cursor, límite o campos inválidos"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public ResponseEntity<List<Producto>> obtenerProductosConStock() {
-        logger.info("GET /productos/con-stock - Obteniendo productos con stock");
-        List<Producto> productos = productoService.obtenerProductosConStock();
-        logger.info("Se encontraron {} productos con stock", productos.size());
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<List<?>> obtenerProductosConStock(
+            @Parameter(description = "Tamaño de página (1-" + CursorPaginacion.LIMITE_MAXIMO + ")")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor opaco recibido en X-Next-Cursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Campos a incluir separados por coma", example = "id,nombre,precio")
+            @RequestParam(required = false) String fields) {
+        logger.info("GET /productos/con-stock - Obteniendo productos con stock (limit: {})", limit);
+        return listar(FiltroCatalogo.CON_STOCK, limit, cursor, fields, productoService::obtenerProductosConStock);
     }
 
     /**
@@ -259,18 +379,24 @@ public class ProductoController {
      */
     @GetMapping("/sin-stock")
     @Operation(summary = "Obtener productos sin stock", 
-               description = "Retorna todos los productos que no tienen stock disponible")
+               description = "Retorna todos los productos que no tienen stock disponible." +
+                             " Con limit, cursor o fields retorna en cambio una página ordenada por ID; el header X-Next-Cursor contiene el cursor de la página siguiente")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de productos sin stock obtenida",
                     content = @Content(mediaType = "application/json", 
                                      schema = @Schema(implementation = Producto.class))),
+        @ApiResponse(responseCode = "400", description = "Cursor, límite o campos inválidos"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public ResponseEntity<List<Producto>> obtenerProductosSinStock() {
-        logger.info("GET /productos/sin-stock - Obteniendo productos sin stock");
-        List<Producto> productos = productoService.obtenerProductosSinStock();
-        logger.info("Se encontraron {} productos sin stock", productos.size());
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<List<?>> obtenerProductosSinStock(
+            @Parameter(description = "Tamaño de página (1-" + CursorPaginacion.LIMITE_MAXIMO + ")")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor opaco recibido en X-Next-Cursor")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Campos a incluir separados por coma", example = "id,nombre,precio")
+            @RequestParam(required = false) String fields) {
+        logger.info("GET /productos/sin-stock - Obteniendo productos sin stock (limit: {})", limit);
+        return listar(FiltroCatalogo.SIN_STOCK, limit, cursor, fields, productoService::obtenerProductosSinStock);
     }
 
     /**
@@ -303,7 +429,8 @@ public class ProductoController {
      */
     @GetMapping("/buscar-texto")
     @Operation(summary = "Búsqueda libre de productos", 
-               description = "Busca productos por texto libre en nombre, descripción, categoría o marca")
+               description = "Busca productos por texto libre en nombre, descripción, categoría o marca. " +
+                             "Con difuso=true tolera errores de tipeo comparando cada palabra por similitud")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Búsqueda realizada exitosamente",
                     content = @Content(mediaType = "application/json", 
@@ -313,28 +440,237 @@ public class ProductoController {
     })
     public ResponseEntity<List<Producto>> buscarPorTexto(
             @Parameter(description = "Texto a buscar", required = true, example = "smartphone")
-            @RequestParam String texto) {
-        logger.info("GET /productos/buscar-texto?texto={} - Búsqueda libre de productos", LogSanitizer.sanitize(texto));
-        List<Producto> productos = productoService.buscarPorTexto(texto);
+            @RequestParam String texto,
+            @Parameter(description = "Tolerar errores de tipeo", example = "false")
+            @RequestParam(defaultValue = "false") boolean difuso,
+            @Parameter(description = "Similitud mínima por palabra en modo difuso (0-1]", example = "0.7")
+            @RequestParam(required = false) Double umbral) {
+        logger.info("GET /productos/buscar-texto?texto={}&difuso={} - Búsqueda libre de productos",
+                   LogSanitizer.sanitize(texto), difuso);
+        List<Producto> productos = difuso
+                ? productoService.buscarPorTextoDifuso(texto, umbral)
+                : productoService.buscarPorTexto(texto);
         logger.info("Se encontraron {} productos con texto: {}", productos.size(), LogSanitizer.sanitize(texto));
         return ResponseEntity.ok(productos);
     }
 
+    /**
+     * Sugerencias de productos por prefijo para la caja de búsqueda
+     */
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Autocompletar productos", 
+               description = "Retorna los productos más populares cuyo nombre, alguna palabra del nombre o marca " +
+                             "empieza con el prefijo (sin distinguir mayúsculas ni acentos)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Sugerencias obtenidas exitosamente",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = Sugerencia.class))),
+        @ApiResponse(responseCode = "400", description = "Prefijo o límite inválido"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<List<Sugerencia>> autocompletar(
+            @Parameter(description = "Prefijo escrito por el usuario", required = true, example = "lap")
+            @RequestParam String prefix,
+            @Parameter(description = "Número máximo de sugerencias (1-" + AutocompletadoProductos.LIMITE_MAXIMO + ")")
+            @RequestParam(defaultValue = "" + AutocompletadoProductos.LIMITE_POR_DEFECTO) int limit) {
+        logger.debug("GET /productos/autocomplete?prefix={} - Autocompletando productos", LogSanitizer.sanitize(prefix));
+        return ResponseEntity.ok(autocompletadoProductos.sugerir(prefix, limit));
+    }
+
+    /**
+     * Ranking de productos más vendidos
+     */
+    @GetMapping("/mas-vendidos")
+    @Operation(summary = "Productos más vendidos", 
+               description = "Retorna los productos activos con más unidades vendidas (sin contar pedidos cancelados). " +
+                             "Se responde desde contadores en memoria que se reconcilian cada noche con los pedidos")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Ranking obtenido exitosamente",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = MasVendido.class))),
+        @ApiResponse(responseCode = "400", description = "Límite inválido"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<List<MasVendido>> obtenerMasVendidos(
+            @Parameter(description = "Número máximo de productos (1-" + RankingMasVendidos.LIMITE_MAXIMO + ")")
+            @RequestParam(defaultValue = "" + RankingMasVendidos.LIMITE_POR_DEFECTO) int limit) {
+        logger.debug("GET /productos/mas-vendidos?limit={} - Obteniendo ranking de más vendidos", limit);
+        return ResponseEntity.ok(rankingMasVendidos.obtener(limit));
+    }
+
+    /**
+     * Productos en tendencia por ventana de tiempo
+     */
+    @GetMapping("/tendencias")
+    @Operation(summary = "Productos en tendencia", 
+               description = "Retorna los productos activos con más unidades pedidas en los últimos 5 minutos, " +
+                             "1 hora o 24 horas. Las unidades son estimaciones de resúmenes de memoria fija: " +
+                             "el valor real está entre unidades - error y unidades")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Tendencias obtenidas exitosamente",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = Tendencia.class))),
+        @ApiResponse(responseCode = "400", description = "Ventana o límite inválido"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<List<Tendencia>> obtenerTendencias(
+            @Parameter(description = "Ventana de tiempo: 5m, 1h o 24h", example = "1h")
+            @RequestParam(defaultValue = "1h") String ventana,
+            @Parameter(description = "Número máximo de productos (1-" + TendenciasProductos.LIMITE_MAXIMO + ")")
+            @RequestParam(defaultValue = "" + TendenciasProductos.LIMITE_POR_DEFECTO) int limit) {
+        logger.debug("GET /productos/tendencias?ventana={}&limit={} - Obteniendo tendencias",
+                   LogSanitizer.sanitize(ventana), limit);
+        return ResponseEntity.ok(tendenciasProductos.obtener(TendenciasProductos.Ventana.desdeCodigo(ventana), limit));
+    }
+
+    /**
+     * Productos por debajo de su stock mínimo
+     */
+    @GetMapping("/stock-bajo")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Productos con stock bajo", 
+               description = "Retorna los productos activos cuyo stock está por debajo de su stock mínimo, " +
+                             "ordenados por faltante. Se responde desde un índice en memoria sin recorrer el catálogo")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Productos con stock bajo obtenidos exitosamente",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = NivelStock.class))),
+        @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN o MANAGER")
+    })
+    public ResponseEntity<List<NivelStock>> obtenerStockBajo() {
+        logger.debug("GET /productos/stock-bajo - Obteniendo productos con stock bajo");
+        return ResponseEntity.ok(alertasStockBajo.obtener());
+    }
+
+    /**
+     * Suscripción a los avisos de stock bajo
+     */
+    @GetMapping(value = "/stock-bajo/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Avisos de stock bajo (Server-Sent Events)", 
+               description = "Abre un flujo de eventos: 'estado' con los productos que ya tienen stock bajo y " +
+                             "después 'stock-bajo' o 'stock-repuesto' cada vez que un producto cruza su stock mínimo")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Suscripción abierta"),
+        @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN o MANAGER"),
+        @ApiResponse(responseCode = "503", description = "Se alcanzó el máximo de suscriptores")
+    })
+    public SseEmitter suscribirStockBajo() {
+        logger.info("GET /productos/stock-bajo/eventos - Nueva suscripción a avisos de stock bajo");
+        return alertasStockBajo.suscribir();
+    }
+
+    /**
+     * Fija el stock mínimo de un producto
+     */
+    @PutMapping("/{id}/stock-minimo")
+    @Operation(summary = "Fijar stock mínimo de producto", 
+               description = "Fija el stock por debajo del cual el producto se considera con stock bajo " +
+                             "y se avisa a los suscriptores. Se conserva en memoria hasta reiniciar la aplicación")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stock mínimo actualizado",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = NivelStock.class))),
+        @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+        @ApiResponse(responseCode = "400", description = "Stock mínimo inválido")
+    })
+    public ResponseEntity<NivelStock> fijarStockMinimo(
+            @Parameter(description = "ID único del producto", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Stock mínimo", required = true, example = "10")
+            @RequestParam int minimo) {
+        logger.info("PUT /productos/{}/stock-minimo?minimo={} - Fijando stock mínimo", id, minimo);
+        return ResponseEntity.ok(alertasStockBajo.fijarMinimo(id, minimo));
+    }
+
+    /**
+     * Reparte el stock de un producto en varias fracciones
+     */
+    @PutMapping("/{id}/fracciones")
+    @Operation(summary = "Fraccionar stock de producto", 
+               description = "Reparte el stock del producto en N fracciones para que las reservas concurrentes " +
+                             "no se serialicen sobre una sola fila. Con 1 fracción el producto deja de estar fraccionado")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stock repartido",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = Fraccionamiento.class))),
+        @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+        @ApiResponse(responseCode = "400", description = "Número de fracciones inválido")
+    })
+    public ResponseEntity<Fraccionamiento> fraccionarStock(
+            @Parameter(description = "ID único del producto", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Número de fracciones (1 a " + InventarioFraccionado.MAXIMO_FRACCIONES + ")",
+                      required = true, example = "8")
+            @RequestParam int cantidad) {
+        logger.info("PUT /productos/{}/fracciones?cantidad={} - Fraccionando stock", id, cantidad);
+        return ResponseEntity.ok(inventarioFraccionado.fraccionar(id, cantidad));
+    }
+
+    /**
+     * Productos en venta flash
+     */
+    @GetMapping("/venta-flash")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Productos en venta flash", 
+               description = "Retorna los productos cuyos pedidos pasan por una cola de admisión propia, " +
+                             "con el stock disponible, las solicitudes en cola y los contadores de la venta")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Ventas flash obtenidas exitosamente",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = EstadoVentaFlash.class))),
+        @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN o MANAGER")
+    })
+    public ResponseEntity<List<EstadoVentaFlash>> obtenerVentasFlash() {
+        logger.debug("GET /productos/venta-flash - Obteniendo productos en venta flash");
+        return ResponseEntity.ok(admisionVentaFlash.obtener());
+    }
+
+    /**
+     * Inicia o termina la venta flash de un producto
+     */
+    @PutMapping("/{id}/venta-flash")
+    @Operation(summary = "Iniciar o terminar venta flash", 
+               description = "En venta flash los pedidos del producto entran en una cola FIFO acotada con un único " +
+                             "consumidor y se rechazan al instante cuando el stock se agota. Se conserva en memoria " +
+                             "hasta reiniciar la aplicación")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Venta flash actualizada",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = EstadoVentaFlash.class))),
+        @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+        @ApiResponse(responseCode = "409", description = "Se alcanzó el máximo de productos en venta flash")
+    })
+    public ResponseEntity<EstadoVentaFlash> cambiarVentaFlash(
+            @Parameter(description = "ID único del producto", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "true para iniciar la venta flash, false para terminarla", required = true)
+            @RequestParam boolean activa) {
+        logger.info("PUT /productos/{}/venta-flash?activa={} - Cambiando venta flash", id, activa);
+        return ResponseEntity.ok(admisionVentaFlash.cambiar(id, activa));
+    }
+
     /**
      * Obtiene todas las categorías
      */
     @GetMapping("/categorias")
     @Operation(summary = "Obtener todas las categorías", 
-               description = "Retorna una lista con todas las categorías de productos disponibles")
+               description = "Retorna una lista con todas las categorías de productos disponibles. " +
+                             "Incluye un ETag; con If-None-Match y sin cambios responde 304")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Lista de categorías obtenida exitosamente"),
+        @ApiResponse(responseCode = "200", description = "Lista de categorías obtenida exitosamente",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = Faceta.class))),
+        @ApiResponse(responseCode = "304", description = "Las categorías no cambiaron desde el ETag enviado"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public ResponseEntity<List<String>> obtenerCategorias() {
+    public ResponseEntity<List<?>> obtenerCategorias(
+            @Parameter(description = "Incluir el número de productos por categoría", example = "false")
+            @RequestParam(defaultValue = "false") boolean conteos,
+            @Parameter(description = "ETag recibido en una respuesta anterior")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("GET /productos/categorias - Obteniendo todas las categorías");
-        List<String> categorias = productoService.obtenerCategorias();
-        logger.info("Se encontraron {} categorías", categorias.size());
-        return ResponseEntity.ok(categorias);
+        return responderFaceta(facetasCatalogo.categorias(), conteos, ifNoneMatch);
     }
 
     /**
@@ -342,16 +678,45 @@ public class ProductoController {
      */
     @GetMapping("/marcas")
     @Operation(summary = "Obtener todas las marcas", 
-               description = "Retorna una lista con todas las marcas de productos disponibles")
+               description = "Retorna una lista con todas las marcas de productos disponibles. " +
+                             "Incluye un ETag; con If-None-Match y sin cambios responde 304")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Lista de marcas obtenida exitosamente"),
+        @ApiResponse(responseCode = "200", description = "Lista de marcas obtenida exitosamente",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = Faceta.class))),
+        @ApiResponse(responseCode = "304", description = "Las marcas no cambiaron desde el ETag enviado"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public ResponseEntity<List<String>> obtenerMarcas() {
+    public ResponseEntity<List<?>> obtenerMarcas(
+            @Parameter(description = "Incluir el número de productos por marca", example = "false")
+            @RequestParam(defaultValue = "false") boolean conteos,
+            @Parameter(description = "ETag recibido en una respuesta anterior")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("GET /productos/marcas - Obteniendo todas las marcas");
-        List<String> marcas = productoService.obtenerMarcas();
-        logger.info("Se encontraron {} marcas", marcas.size());
-        return ResponseEntity.ok(marcas);
+        return responderFaceta(facetasCatalogo.marcas(), conteos, ifNoneMatch);
+    }
+
+    /**
+     * Ajusta el stock de varios productos en una sola operación
+     */
+    @PatchMapping("/stock")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Ajustar stock en lote", 
+               description = "Aplica en una sola transacción una lista de ajustes {id, delta} o {id, absoluto} " +
+                             "(también se acepta absolute). Los ajustes que dejarían el stock en negativo o cuyo " +
+                             "producto no existe se reportan y el resto se aplica")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Ajustes aplicados con el reporte de rechazados",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = ResultadoAjusteStock.class))),
+        @ApiResponse(responseCode = "400", description = "Lote vacío, demasiado grande o con ajustes inválidos"),
+        @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN o MANAGER")
+    })
+    public ResponseEntity<ResultadoAjusteStock> ajustarStock(
+            @Parameter(description = "Ajustes de stock", required = true)
+            @RequestBody List<AjusteStockRequest> ajustes) {
+        logger.info("PATCH /productos/stock - Ajustando stock de {} productos", ajustes.size());
+        return ResponseEntity.ok(productoService.ajustarStock(ajustes));
     }
 
     /**
@@ -422,5 +787,85 @@ public class ProductoController {
         logger.info("Producto desactivado exitosamente: {}", LogSanitizer.sanitize(producto.getNombre()));
         return ResponseEntity.ok(producto);
     }
-}
 
+    /**
+     * Sin parámetros de paginación conserva la respuesta original (lista completa de productos);
+     * con limit, cursor o fields resuelve la página por clave con la proyección reducida
+     */
+    private ResponseEntity<List<?>> listar(FiltroCatalogo filtro, Integer limit, String cursor, String fields,
+                                           Supplier<List<Producto>> listaCompleta) {
+        if (limit == null && cursor == null && fields == null) {
+            List<Producto> productos = listaCompleta.get();
+            logger.info("Se encontraron {} productos ({})", productos.size(), filtro);
+            return ResponseEntity.ok(productos);
+        }
+        return paginar(filtro, limit, cursor, fields);
+    }
+
+    /**
+     * Resuelve una página del catálogo: valida parámetros, pide una fila extra para
+     * saber si hay página siguiente y, si se solicitaron, recorta los campos de la respuesta
+     */
+    private ResponseEntity<List<?>> paginar(FiltroCatalogo filtro, Integer limit, String cursor, String fields) {
+        int limite = CursorPaginacion.validarLimite(limit);
+        Set<String> campos = ProductoResumenDTO.parsearCampos(fields);
+        Long despuesDe = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                despuesDe = Long.valueOf(CursorPaginacion.decodificar(cursor, 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido", e);
+            }
+        }
+
+        List<ProductoResumenDTO> productos = productoService.obtenerPagina(filtro, despuesDe, limite + 1);
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (productos.size() > limite) {
+            productos = productos.subList(0, limite);
+            respuesta.header(CursorPaginacion.HEADER_SIGUIENTE,
+                    CursorPaginacion.codificar(productos.get(limite - 1).getId()));
+        }
+        logger.info("Se encontraron {} productos ({})", productos.size(), filtro);
+
+        if (campos == null) {
+            return respuesta.body(productos);
+        }
+        return respuesta.body(productos.stream().map(producto -> producto.aMapa(campos)).toList());
+    }
+
+    /**
+     * Responde una faceta con su ETag: 304 sin cuerpo si el cliente ya tiene la versión vigente
+     * El cliente puede almacenarla pero debe revalidarla en cada uso (Cache-Control: no-cache)
+     */
+    private ResponseEntity<List<?>> responderFaceta(FacetasCatalogo.Vista vista, boolean conteos, String ifNoneMatch) {
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (coincideEtag(ifNoneMatch, vista.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(vista.etag()).cacheControl(cacheControl).build();
+        }
+        logger.info("Se encontraron {} valores", vista.facetas().size());
+        return ResponseEntity.ok()
+                .eTag(vista.etag())
+                .cacheControl(cacheControl)
+                .body(conteos ? vista.facetas() : vista.valores());
+    }
+
+    /**
+     * Compara If-None-Match (lista de ETags, débiles o fuertes, o *) con el ETag vigente
+     */
+    private static boolean coincideEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
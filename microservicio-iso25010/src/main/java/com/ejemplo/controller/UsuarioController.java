@@ -2,6 +2,7 @@ package com.ejemplo.controller;
 
 import com.ejemplo.dto.AssignRolesRequest;
 import com.ejemplo.dto.UsuarioDTO;
+import com.ejemplo.service.ExportacionService;
 import com.ejemplo.service.UsuarioService;
 import com.ejemplo.util.LogSanitizer;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,9 +17,11 @@ import jakarta.validation.constraints.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -37,9 +40,11 @@ public class UsuarioController {
     private static final Logger logger = LoggerFactory.getLogger(UsuarioController.class);
 
     private final UsuarioService usuarioService;
+    private final ExportacionService exportacionService;
 
-    public UsuarioController(UsuarioService usuarioService) {
+    public UsuarioController(UsuarioService usuarioService, ExportacionService exportacionService) {
         this.usuarioService = usuarioService;
+        this.exportacionService = exportacionService;
     }
 
     /**
@@ -71,6 +76,28 @@ public class UsuarioController {
         return ResponseEntity.ok(usuarios);
     }
 
+    /**
+     * Exporta todos los usuarios en streaming
+     */
+    @GetMapping(value = "/exportar", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Exportar todos los usuarios", 
+               description = "Retorna todos los usuarios como un arreglo JSON escrito fila por fila mientras se " +
+                             "leen de la base de datos; la memoria usada no depende del número de filas")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Exportación iniciada",
+                    content = @Content(mediaType = "application/json", 
+                                     schema = @Schema(implementation = UsuarioDTO.class))),
+        @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN o MANAGER"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        logger.info("GET /usuarios/exportar - Exportando todos los usuarios");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(exportacionService.usuarios());
+    }
+
     /**
      * Obtiene un usuario por su ID
      */
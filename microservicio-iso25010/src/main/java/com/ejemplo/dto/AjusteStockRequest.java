@@ -0,0 +1,61 @@
+package com.ejemplo.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+
+/**
+ * DTO de un ajuste de stock dentro de una actualización masiva
+ * Lleva exactamente uno de delta (suma o resta al stock actual) o absoluto (nuevo stock)
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+public class AjusteStockRequest {
+
+    private Long id;
+    private Integer delta;
+
+    // Se acepta también "absolute", el nombre que usa la sincronización del almacén
+    @JsonAlias("absolute")
+    private Integer absoluto;
+
+    public AjusteStockRequest() {
+    }
+
+    public AjusteStockRequest(Long id, Integer delta, Integer absoluto) {
+        this.id = id;
+        this.delta = delta;
+        this.absoluto = absoluto;
+    }
+
+    public static AjusteStockRequest delta(Long id, int delta) {
+        return new AjusteStockRequest(id, delta, null);
+    }
+
+    public static AjusteStockRequest absoluto(Long id, int absoluto) {
+        return new AjusteStockRequest(id, null, absoluto);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public Integer getAbsoluto() {
+        return absoluto;
+    }
+
+    public void setAbsoluto(Integer absoluto) {
+        this.absoluto = absoluto;
+    }
+}
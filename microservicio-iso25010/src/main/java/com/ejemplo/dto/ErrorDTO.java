@@ -75,6 +75,10 @@ public class ErrorDTO {
         return new ErrorDTO(405, "Method Not Allowed", message, path);
     }
 
+    public static ErrorDTO serviceUnavailable(String message, String path) {
+        return new ErrorDTO(503, "Service Unavailable", message, path);
+    }
+
     public static ErrorDTO unsupportedMediaType(String message, String path) {
         return new ErrorDTO(415, "Unsupported Media Type", message, path);
     }
@@ -33,6 +33,29 @@ public class PedidoResponseDTO {
     public PedidoResponseDTO() {
     }
 
+    // Constructor de proyección usado por las consultas paginadas (sin cargar entidades)
+    public PedidoResponseDTO(Long id, Long usuarioId, String usuarioNombre, String usuarioEmail,
+                             Long productoId, String productoNombre, BigDecimal productoPrecio,
+                             Integer cantidad, BigDecimal precioUnitario, BigDecimal total,
+                             Pedido.EstadoPedido estado, String observaciones, LocalDateTime fechaPedido,
+                             LocalDateTime fechaEntrega, LocalDateTime fechaActualizacion) {
+        this.id = id;
+        this.usuarioId = usuarioId;
+        this.usuarioNombre = usuarioNombre;
+        this.usuarioEmail = usuarioEmail;
+        this.productoId = productoId;
+        this.productoNombre = productoNombre;
+        this.productoPrecio = productoPrecio;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+        this.total = total;
+        this.estado = estado != null ? estado.name() : null;
+        this.observaciones = observaciones;
+        this.fechaPedido = fechaPedido;
+        this.fechaEntrega = fechaEntrega;
+        this.fechaActualizacion = fechaActualizacion;
+    }
+
     // Constructor desde entidad Pedido
     public PedidoResponseDTO(Pedido pedido) {
         this.id = pedido.getId();
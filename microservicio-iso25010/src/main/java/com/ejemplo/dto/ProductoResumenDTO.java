@@ -0,0 +1,159 @@
+package com.ejemplo.dto;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DTO reducido de Producto para los listados paginados del catálogo
+ * Se construye directamente desde la consulta (sin cargar la entidad) y omite
+ * la descripción y las fechas de auditoría
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+public class ProductoResumenDTO {
+
+    /**
+     * Campos que se pueden solicitar con el parámetro fields
+     */
+    public static final List<String> CAMPOS = List.of("id", "nombre", "precio", "stock", "categoria", "marca", "activo");
+
+    private Long id;
+    private String nombre;
+    private BigDecimal precio;
+    private Integer stock;
+    private String categoria;
+    private String marca;
+    private Boolean activo;
+
+    // Constructor vacío
+    public ProductoResumenDTO() {
+    }
+
+    // Constructor de proyección usado por las consultas paginadas
+    public ProductoResumenDTO(Long id, String nombre, BigDecimal precio, Integer stock,
+                              String categoria, String marca, Boolean activo) {
+        this.id = id;
+        this.nombre = nombre;
+        this.precio = precio;
+        this.stock = stock;
+        this.categoria = categoria;
+        this.marca = marca;
+        this.activo = activo;
+    }
+
+    /**
+     * Interpreta el parámetro fields (lista separada por comas)
+     * @param fields Valor recibido; nulo o vacío para devolver todos los campos
+     * @return Campos solicitados en orden, o nulo si no se pidió un subconjunto
+     * @throws IllegalArgumentException si algún campo no existe
+     */
+    public static Set<String> parsearCampos(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> campos = new LinkedHashSet<>();
+        for (String campo : fields.split(",")) {
+            String nombreCampo = campo.trim();
+            if (nombreCampo.isEmpty()) {
+                continue;
+            }
+            if (!CAMPOS.contains(nombreCampo)) {
+                throw new IllegalArgumentException("Campo desconocido en fields: " + nombreCampo
+                        + ". Campos permitidos: " + String.join(",", CAMPOS));
+            }
+            campos.add(nombreCampo);
+        }
+        if (campos.isEmpty()) {
+            throw new IllegalArgumentException("El parámetro fields no contiene campos");
+        }
+        return campos;
+    }
+
+    /**
+     * Convierte el DTO en un mapa con solo los campos solicitados
+     * @param campos Campos a incluir (validados con parsearCampos)
+     * @return Mapa ordenado campo → valor
+     */
+    public Map<String, Object> aMapa(Set<String> campos) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        for (String campo : campos) {
+            mapa.put(campo, valor(campo));
+        }
+        return mapa;
+    }
+
+    private Object valor(String campo) {
+        return switch (campo) {
+            case "id" -> id;
+            case "nombre" -> nombre;
+            case "precio" -> precio;
+            case "stock" -> stock;
+            case "categoria" -> categoria;
+            case "marca" -> marca;
+            case "activo" -> activo;
+            default -> throw new IllegalArgumentException("Campo desconocido: " + campo);
+        };
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public BigDecimal getPrecio() {
+        return precio;
+    }
+
+    public void setPrecio(BigDecimal precio) {
+        this.precio = precio;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public String getMarca() {
+        return marca;
+    }
+
+    public void setMarca(String marca) {
+        this.marca = marca;
+    }
+
+    public Boolean getActivo() {
+        return activo;
+    }
+
+    public void setActivo(Boolean activo) {
+        this.activo = activo;
+    }
+}
@@ -61,6 +61,13 @@ public class UsuarioDTO {
         this.nombreCompleto = nombre + " " + apellido;
     }
 
+    // Constructor de proyección usado por la exportación (cuenta los pedidos en la consulta)
+    public UsuarioDTO(Long id, String nombre, String apellido, String email, String telefono, Boolean activo,
+                      LocalDateTime fechaCreacion, LocalDateTime fechaActualizacion, Integer totalPedidos) {
+        this(id, nombre, apellido, email, telefono, activo, fechaCreacion, fechaActualizacion);
+        this.totalPedidos = totalPedidos;
+    }
+
     // Getters y Setters
     public Long getId() {
         return id;
@@ -23,6 +23,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -247,6 +248,23 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorDTO, HttpStatus.FORBIDDEN);
     }
 
+    /**
+     * Maneja rechazos por saturación (cola de trabajo llena) como 503
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorDTO> handleRejectedExecutionException(
+            RejectedExecutionException ex, WebRequest request) {
+
+        logger.warn("Solicitud rechazada por saturación: {}", ex.getMessage());
+
+        ErrorDTO errorDTO = ErrorDTO.serviceUnavailable(
+            ex.getMessage() != null ? ex.getMessage() : "Servicio saturado. Intente nuevamente más tarde",
+            request.getDescription(false).replace("uri=", "")
+        );
+
+        return new ResponseEntity<>(errorDTO, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Maneja excepciones de runtime genéricas
      */
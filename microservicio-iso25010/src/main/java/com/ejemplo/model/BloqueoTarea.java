@@ -0,0 +1,74 @@
+package com.ejemplo.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad BloqueoTarea
+ * Fila de bloqueo consultivo para las tareas programadas que deben ejecutarse en un solo nodo:
+ * el nodo propietario la renueva mientras trabaja y, si cae, otro la toma cuando vence
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "bloqueos_tareas")
+public class BloqueoTarea {
+
+    @Id
+    @Column(name = "nombre", length = 100)
+    private String nombre;
+
+    /**
+     * Identificador del nodo que tiene el bloqueo
+     */
+    @Column(name = "propietario", nullable = false, length = 150)
+    private String propietario;
+
+    @Column(name = "vigente_hasta", nullable = false)
+    private LocalDateTime vigenteHasta;
+
+    // Constructores
+    public BloqueoTarea() {
+    }
+
+    public BloqueoTarea(String nombre, String propietario, LocalDateTime vigenteHasta) {
+        this.nombre = nombre;
+        this.propietario = propietario;
+        this.vigenteHasta = vigenteHasta;
+    }
+
+    // Getters y Setters
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getPropietario() {
+        return propietario;
+    }
+
+    public void setPropietario(String propietario) {
+        this.propietario = propietario;
+    }
+
+    public LocalDateTime getVigenteHasta() {
+        return vigenteHasta;
+    }
+
+    public void setVigenteHasta(LocalDateTime vigenteHasta) {
+        this.vigenteHasta = vigenteHasta;
+    }
+
+    @Override
+    public String toString() {
+        return "BloqueoTarea{" +
+                "nombre='" + nombre + '\'' +
+                ", propietario='" + propietario + '\'' +
+                ", vigenteHasta=" + vigenteHasta +
+                '}';
+    }
+}
@@ -0,0 +1,144 @@
+package com.ejemplo.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad ClaveIdempotencia
+ * Registra las respuestas de operaciones enviadas con el header Idempotency-Key
+ * para que los reintentos del cliente no repitan la operación
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "claves_idempotencia", indexes = {
+    @Index(name = "idx_claves_idempotencia_expiracion", columnList = "fecha_expiracion")
+})
+public class ClaveIdempotencia {
+
+    /**
+     * Hash SHA-256 de usuario + método + ruta + Idempotency-Key
+     */
+    @Id
+    @Column(name = "clave", length = 64)
+    private String clave;
+
+    /**
+     * Hash SHA-256 del cuerpo de la solicitud original
+     */
+    @Column(name = "huella", nullable = false, length = 64)
+    private String huella;
+
+    /**
+     * Identifica la reserva vigente: solo quien la obtuvo puede completarla o liberarla
+     */
+    @Column(name = "token", nullable = false, length = 36)
+    private String token;
+
+    /**
+     * Código HTTP de la respuesta (nulo mientras la solicitud está en proceso)
+     */
+    @Column(name = "estado_http")
+    private Integer estadoHttp;
+
+    @Column(name = "tipo_contenido", length = 100)
+    private String tipoContenido;
+
+    @Lob
+    @Column(name = "cuerpo")
+    private String cuerpo;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_expiracion", nullable = false)
+    private LocalDateTime fechaExpiracion;
+
+    // Constructores
+    public ClaveIdempotencia() {
+    }
+
+    // Métodos de negocio
+    public boolean estaEnProceso() {
+        return estadoHttp == null;
+    }
+
+    public boolean estaExpirada(LocalDateTime ahora) {
+        return fechaExpiracion.isBefore(ahora);
+    }
+
+    // Getters y Setters
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getHuella() {
+        return huella;
+    }
+
+    public void setHuella(String huella) {
+        this.huella = huella;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public Integer getEstadoHttp() {
+        return estadoHttp;
+    }
+
+    public void setEstadoHttp(Integer estadoHttp) {
+        this.estadoHttp = estadoHttp;
+    }
+
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    public void setTipoContenido(String tipoContenido) {
+        this.tipoContenido = tipoContenido;
+    }
+
+    public String getCuerpo() {
+        return cuerpo;
+    }
+
+    public void setCuerpo(String cuerpo) {
+        this.cuerpo = cuerpo;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public LocalDateTime getFechaExpiracion() {
+        return fechaExpiracion;
+    }
+
+    public void setFechaExpiracion(LocalDateTime fechaExpiracion) {
+        this.fechaExpiracion = fechaExpiracion;
+    }
+
+    @Override
+    public String toString() {
+        return "ClaveIdempotencia{" +
+                "clave='" + clave + '\'' +
+                ", estadoHttp=" + estadoHttp +
+                ", fechaExpiracion=" + fechaExpiracion +
+                '}';
+    }
+}
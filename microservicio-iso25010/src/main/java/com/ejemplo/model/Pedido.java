@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
  * @version 1.0.0
  */
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = {
+    @Index(name = "idx_pedidos_fecha_pedido_id", columnList = "fecha_pedido, id")
+})
 public class Pedido {
 
     @Id
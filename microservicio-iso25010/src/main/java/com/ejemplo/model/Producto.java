@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
  * @version 1.0.0
  */
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+    @Index(name = "idx_productos_activo_id", columnList = "activo, id"),
+    @Index(name = "idx_productos_stock_id", columnList = "stock, id")
+})
 public class Producto {
 
     @Id
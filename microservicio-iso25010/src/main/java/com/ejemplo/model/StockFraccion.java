@@ -0,0 +1,88 @@
+package com.ejemplo.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidad StockFraccion
+ * Parte del stock de un producto fraccionado: el stock del producto se reparte entre la
+ * fila de productos (fracción 0) y estas filas (fracciones 1 a N-1), de modo que las
+ * reservas concurrentes de un producto muy demandado no se serializan sobre una sola fila.
+ * El stock del producto es la suma de todas sus fracciones.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Entity
+@Table(name = "producto_stock_fracciones", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_producto_stock_fracciones", columnNames = {"producto_id", "fraccion"})
+})
+public class StockFraccion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    /**
+     * Número de fracción, de 1 a N-1 (la fracción 0 es la columna stock de productos)
+     */
+    @Column(name = "fraccion", nullable = false)
+    private Integer fraccion;
+
+    @Column(name = "stock", nullable = false)
+    private Integer stock;
+
+    // Constructores
+    public StockFraccion() {
+    }
+
+    public StockFraccion(Long productoId, Integer fraccion, Integer stock) {
+        this.productoId = productoId;
+        this.fraccion = fraccion;
+        this.stock = stock;
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public Integer getFraccion() {
+        return fraccion;
+    }
+
+    public void setFraccion(Integer fraccion) {
+        this.fraccion = fraccion;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    @Override
+    public String toString() {
+        return "StockFraccion{" +
+                "productoId=" + productoId +
+                ", fraccion=" + fraccion +
+                ", stock=" + stock +
+                '}';
+    }
+}
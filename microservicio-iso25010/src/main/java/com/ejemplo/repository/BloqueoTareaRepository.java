@@ -0,0 +1,69 @@
+package com.ejemplo.repository;
+
+import com.ejemplo.model.BloqueoTarea;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio para la entidad BloqueoTarea
+ * Cada método se ejecuta en su propia transacción corta
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Repository
+public interface BloqueoTareaRepository extends JpaRepository<BloqueoTarea, String> {
+
+    /**
+     * Crea el bloqueo de una tarea que aún no tiene fila
+     * Falla con violación de clave primaria si otro nodo la creó antes
+     * @param nombre Nombre de la tarea
+     * @param propietario Nodo que toma el bloqueo
+     * @param vigenteHasta Vencimiento del bloqueo
+     * @return Número de filas insertadas
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO bloqueos_tareas (nombre, propietario, vigente_hasta) " +
+                   "VALUES (:nombre, :propietario, :vigenteHasta)", nativeQuery = true)
+    int crear(@Param("nombre") String nombre,
+              @Param("propietario") String propietario,
+              @Param("vigenteHasta") LocalDateTime vigenteHasta);
+
+    /**
+     * Renueva el bloqueo propio o toma uno vencido con un UPDATE condicional
+     * @param nombre Nombre de la tarea
+     * @param propietario Nodo que toma el bloqueo
+     * @param ahora Fecha actual
+     * @param vigenteHasta Nuevo vencimiento del bloqueo
+     * @return 1 si el nodo tiene el bloqueo, 0 si lo tiene otro nodo o la fila no existe
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BloqueoTarea b SET b.propietario = :propietario, b.vigenteHasta = :vigenteHasta " +
+           "WHERE b.nombre = :nombre AND (b.propietario = :propietario OR b.vigenteHasta < :ahora)")
+    int adquirir(@Param("nombre") String nombre,
+                 @Param("propietario") String propietario,
+                 @Param("ahora") LocalDateTime ahora,
+                 @Param("vigenteHasta") LocalDateTime vigenteHasta);
+
+    /**
+     * Libera el bloqueo propio dejándolo vencido
+     * @param nombre Nombre de la tarea
+     * @param propietario Nodo que tiene el bloqueo
+     * @param ahora Fecha actual
+     * @return Número de filas actualizadas
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BloqueoTarea b SET b.vigenteHasta = :ahora WHERE b.nombre = :nombre AND b.propietario = :propietario")
+    int liberar(@Param("nombre") String nombre,
+                @Param("propietario") String propietario,
+                @Param("ahora") LocalDateTime ahora);
+}
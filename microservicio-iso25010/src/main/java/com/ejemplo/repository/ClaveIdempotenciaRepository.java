@@ -0,0 +1,97 @@
+package com.ejemplo.repository;
+
+import com.ejemplo.model.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio para la entidad ClaveIdempotencia
+ * Cada método se ejecuta en su propia transacción corta
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    /**
+     * Reserva una clave insertándola en estado "en proceso"
+     * Falla con violación de clave primaria si otra solicitud ya la reservó
+     * @param clave Clave compuesta (hash)
+     * @param huella Hash del cuerpo de la solicitud
+     * @param token Identificador de esta reserva
+     * @param fechaCreacion Fecha de creación
+     * @param fechaExpiracion Vencimiento de la reserva
+     * @return Número de filas insertadas
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO claves_idempotencia (clave, huella, token, fecha_creacion, fecha_expiracion) " +
+                   "VALUES (:clave, :huella, :token, :fechaCreacion, :fechaExpiracion)", nativeQuery = true)
+    int reservar(@Param("clave") String clave,
+                 @Param("huella") String huella,
+                 @Param("token") String token,
+                 @Param("fechaCreacion") LocalDateTime fechaCreacion,
+                 @Param("fechaExpiracion") LocalDateTime fechaExpiracion);
+
+    /**
+     * Guarda la respuesta final de una clave si sigue reservada por el mismo token
+     * Si la reserva venció y otra solicitud tomó la clave, no se modifica
+     * @param clave Clave compuesta (hash)
+     * @param token Identificador de la reserva
+     * @param estadoHttp Código HTTP de la respuesta
+     * @param tipoContenido Content-Type de la respuesta
+     * @param cuerpo Cuerpo de la respuesta
+     * @param fechaExpiracion Vencimiento de la respuesta guardada
+     * @return Número de filas actualizadas
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ClaveIdempotencia c SET c.estadoHttp = :estadoHttp, c.tipoContenido = :tipoContenido, " +
+           "c.cuerpo = :cuerpo, c.fechaExpiracion = :fechaExpiracion " +
+           "WHERE c.clave = :clave AND c.token = :token AND c.estadoHttp IS NULL")
+    int completar(@Param("clave") String clave,
+                  @Param("token") String token,
+                  @Param("estadoHttp") Integer estadoHttp,
+                  @Param("tipoContenido") String tipoContenido,
+                  @Param("cuerpo") String cuerpo,
+                  @Param("fechaExpiracion") LocalDateTime fechaExpiracion);
+
+    /**
+     * Elimina una reserva en proceso solo si sigue perteneciendo al mismo token
+     * @param clave Clave compuesta (hash)
+     * @param token Identificador de la reserva
+     * @return Número de claves eliminadas
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.clave = :clave AND c.token = :token AND c.estadoHttp IS NULL")
+    int liberar(@Param("clave") String clave, @Param("token") String token);
+
+    /**
+     * Elimina una clave solo si está vencida (no afecta a una reserva recién creada por otra solicitud)
+     * @param clave Clave compuesta (hash)
+     * @param fecha Fecha de corte
+     * @return Número de claves eliminadas
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.clave = :clave AND c.fechaExpiracion < :fecha")
+    int eliminarSiExpirada(@Param("clave") String clave, @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Elimina las claves vencidas
+     * @param fecha Fecha de corte
+     * @return Número de claves eliminadas
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.fechaExpiracion < :fecha")
+    int eliminarExpiradas(@Param("fecha") LocalDateTime fecha);
+}
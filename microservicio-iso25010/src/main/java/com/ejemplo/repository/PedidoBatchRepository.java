@@ -0,0 +1,76 @@
+package com.ejemplo.repository;
+
+import com.ejemplo.model.Pedido;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositorio JDBC para inserciones masivas de pedidos
+ * Hibernate no agrupa inserts con ids IDENTITY, por lo que los pedidos de un
+ * carrito se insertan con un único lote JDBC recuperando las claves generadas
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Repository
+public class PedidoBatchRepository {
+
+    private static final String SQL_INSERTAR_PEDIDO =
+            "INSERT INTO pedidos (usuario_id, producto_id, cantidad, precio_unitario, total, estado, " +
+            "observaciones, fecha_pedido) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PedidoBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserta los pedidos en un solo lote y asigna a cada uno el ID generado
+     * @param pedidos Pedidos a insertar (con usuario y producto asignados)
+     */
+    public void insertar(List<Pedido> pedidos) {
+        if (pedidos.isEmpty()) {
+            return;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                conexion -> conexion.prepareStatement(SQL_INSERTAR_PEDIDO, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Pedido pedido = pedidos.get(i);
+                        ps.setLong(1, pedido.getUsuario().getId());
+                        ps.setLong(2, pedido.getProducto().getId());
+                        ps.setInt(3, pedido.getCantidad());
+                        ps.setBigDecimal(4, pedido.getPrecioUnitario());
+                        ps.setBigDecimal(5, pedido.getTotal());
+                        ps.setString(6, pedido.getEstado().name());
+                        ps.setString(7, pedido.getObservaciones());
+                        ps.setTimestamp(8, Timestamp.valueOf(pedido.getFechaPedido()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return pedidos.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> claves = keyHolder.getKeyList();
+        for (int i = 0; i < pedidos.size() && i < claves.size(); i++) {
+            Object id = claves.get(i).values().iterator().next();
+            pedidos.get(i).setId(((Number) id).longValue());
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.ejemplo.repository;
 
+import com.ejemplo.dto.PedidoResponseDTO;
 import com.ejemplo.model.Pedido;
 import com.ejemplo.model.Usuario;
 import com.ejemplo.model.Producto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para la entidad Pedido
@@ -168,6 +179,13 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     @Query("SELECT COALESCE(SUM(p.total), 0) FROM Pedido p")
     BigDecimal calcularTotalGeneralVentas();
 
+    /**
+     * Resume en una sola pasada la cantidad de pedidos y el total vendido por estado
+     * @return Filas [estado (EstadoPedido), cantidad (Long), total (BigDecimal)]
+     */
+    @Query("SELECT p.estado, COUNT(p), COALESCE(SUM(p.total), 0) FROM Pedido p GROUP BY p.estado")
+    List<Object[]> resumirPorEstado();
+
     /**
      * Busca los últimos pedidos de un usuario
      * @param usuarioId ID del usuario
@@ -184,6 +202,70 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     @Query("SELECT p FROM Pedido p WHERE p.estado IN ('PENDIENTE', 'CONFIRMADO')")
     List<Pedido> findPedidosQuePuedenSerCancelados();
 
+    /**
+     * ID y fecha de los pedidos con un estado, sin materializar entidades
+     * @param estado Estado de los pedidos
+     * @return Filas [id (Long), fechaPedido (LocalDateTime)]
+     */
+    @Query("SELECT p.id, p.fechaPedido FROM Pedido p WHERE p.estado = :estado")
+    List<Object[]> findFechasPorEstado(@Param("estado") Pedido.EstadoPedido estado);
+
+    /**
+     * Siguiente bloque de pedidos cancelables anteriores a una fecha límite, en orden (fechaPedido, id)
+     * Avanza con el cursor del bloque anterior sobre el índice idx_pedidos_fecha_pedido_id en lugar de OFFSET
+     * @param estados Estados cancelables
+     * @param fechaLimite Solo pedidos con fechaPedido anterior a esta fecha
+     * @param fechaPedido Fecha del último pedido del bloque anterior
+     * @param id ID del último pedido del bloque anterior
+     * @param limite Número máximo de filas
+     * @return Filas [id (Long), fechaPedido (LocalDateTime)]
+     */
+    @Query("SELECT p.id, p.fechaPedido FROM Pedido p " +
+           "WHERE p.estado IN :estados AND p.fechaPedido < :fechaLimite " +
+           "AND (p.fechaPedido > :fechaPedido OR (p.fechaPedido = :fechaPedido AND p.id > :id)) " +
+           "ORDER BY p.fechaPedido, p.id")
+    List<Object[]> findCancelablesAnterioresA(@Param("estados") Collection<Pedido.EstadoPedido> estados,
+                                              @Param("fechaLimite") LocalDateTime fechaLimite,
+                                              @Param("fechaPedido") LocalDateTime fechaPedido,
+                                              @Param("id") Long id,
+                                              Limit limite);
+
+    /**
+     * Bloquea (FOR UPDATE) un pedido para cambiarlo
+     * Las transiciones de un pedido se serializan con este bloqueo y el de bloquearCancelables,
+     * así que cada una lee el estado que dejó la anterior
+     * @param id ID del pedido
+     * @return Pedido bloqueado, si existe
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Pedido p WHERE p.id = :id")
+    Optional<Pedido> bloquear(@Param("id") Long id);
+
+    /**
+     * Bloquea (FOR UPDATE) los pedidos indicados que siguen en alguno de los estados
+     * Los que ya cambiaron de estado no se devuelven, así que no se cancelan dos veces
+     * @param ids IDs de los pedidos
+     * @param estados Estados desde los que se permite cancelar
+     * @return Pedidos bloqueados, ordenados por ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Pedido p WHERE p.id IN :ids AND p.estado IN :estados ORDER BY p.id")
+    List<Pedido> bloquearCancelables(@Param("ids") Collection<Long> ids,
+                                     @Param("estados") Collection<Pedido.EstadoPedido> estados);
+
+    /**
+     * Cambia el estado de varios pedidos con un único UPDATE
+     * @param ids IDs de los pedidos
+     * @param estado Nuevo estado
+     * @param fecha Fecha de actualización
+     * @return Número de pedidos actualizados
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Pedido p SET p.estado = :estado, p.fechaActualizacion = :fecha WHERE p.id IN :ids")
+    int cambiarEstado(@Param("ids") Collection<Long> ids,
+                      @Param("estado") Pedido.EstadoPedido estado,
+                      @Param("fecha") LocalDateTime fecha);
+
     /**
      * Busca pedido por ID con fetch EAGER de relaciones
      * @param id ID del pedido
@@ -198,5 +280,65 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
      */
     @Query("SELECT DISTINCT p FROM Pedido p LEFT JOIN FETCH p.usuario LEFT JOIN FETCH p.producto")
     List<Pedido> findAllWithRelations();
-}
 
+    /**
+     * Suma las unidades pedidas por producto, excluyendo un estado (p.ej. CANCELADO)
+     * @param estadoExcluido Estado cuyos pedidos no se cuentan
+     * @return Filas [productoId (Long), unidades (Long)]
+     */
+    @Query("SELECT p.producto.id, SUM(p.cantidad) FROM Pedido p WHERE p.estado <> :estadoExcluido GROUP BY p.producto.id")
+    List<Object[]> sumarUnidadesPorProducto(@Param("estadoExcluido") Pedido.EstadoPedido estadoExcluido);
+
+    /**
+     * Unidades y número de pedidos por producto, para reconciliar el ranking de más vendidos
+     * @param estadoExcluido Estado cuyos pedidos no se cuentan
+     * @return Filas [productoId (Long), unidades (Long), pedidos (Long)]
+     */
+    @Query("SELECT p.producto.id, SUM(p.cantidad), COUNT(p) FROM Pedido p " +
+           "WHERE p.estado <> :estadoExcluido GROUP BY p.producto.id")
+    List<Object[]> resumirVentasPorProducto(@Param("estadoExcluido") Pedido.EstadoPedido estadoExcluido);
+
+    /**
+     * Primera página de pedidos ordenados por (fechaPedido, id) descendente
+     * Proyecta directamente al DTO de respuesta, sin materializar entidades
+     * @param limite Número máximo de filas
+     * @return Pedidos más recientes
+     */
+    @Query("SELECT new com.ejemplo.dto.PedidoResponseDTO(p.id, u.id, CONCAT(u.nombre, ' ', u.apellido), u.email, " +
+           "pr.id, pr.nombre, pr.precio, p.cantidad, p.precioUnitario, p.total, p.estado, p.observaciones, " +
+           "p.fechaPedido, p.fechaEntrega, p.fechaActualizacion) " +
+           "FROM Pedido p JOIN p.usuario u JOIN p.producto pr " +
+           "ORDER BY p.fechaPedido DESC, p.id DESC")
+    List<PedidoResponseDTO> findPrimeraPagina(Limit limite);
+
+    /**
+     * Recorre todos los pedidos para exportarlos sin cargarlos en memoria
+     * Proyecta al DTO de respuesta; debe consumirse dentro de una transacción y cerrarse al terminar
+     * @return Pedidos ordenados por ID, leídos por bloques de 500 filas
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.ejemplo.dto.PedidoResponseDTO(p.id, u.id, CONCAT(u.nombre, ' ', u.apellido), u.email, " +
+           "pr.id, pr.nombre, pr.precio, p.cantidad, p.precioUnitario, p.total, p.estado, p.observaciones, " +
+           "p.fechaPedido, p.fechaEntrega, p.fechaActualizacion) " +
+           "FROM Pedido p JOIN p.usuario u JOIN p.producto pr " +
+           "ORDER BY p.id")
+    Stream<PedidoResponseDTO> streamParaExportar();
+
+    /**
+     * Página de pedidos posterior al cursor (fechaPedido, id), usando el índice compuesto
+     * idx_pedidos_fecha_pedido_id en lugar de OFFSET
+     * @param fechaPedido Fecha del último pedido entregado
+     * @param id ID del último pedido entregado
+     * @param limite Número máximo de filas
+     * @return Siguientes pedidos en orden descendente
+     */
+    @Query("SELECT new com.ejemplo.dto.PedidoResponseDTO(p.id, u.id, CONCAT(u.nombre, ' ', u.apellido), u.email, " +
+           "pr.id, pr.nombre, pr.precio, p.cantidad, p.precioUnitario, p.total, p.estado, p.observaciones, " +
+           "p.fechaPedido, p.fechaEntrega, p.fechaActualizacion) " +
+           "FROM Pedido p JOIN p.usuario u JOIN p.producto pr " +
+           "WHERE p.fechaPedido < :fechaPedido OR (p.fechaPedido = :fechaPedido AND p.id < :id) " +
+           "ORDER BY p.fechaPedido DESC, p.id DESC")
+    List<PedidoResponseDTO> findPaginaDespuesDe(@Param("fechaPedido") LocalDateTime fechaPedido,
+                                                @Param("id") Long id,
+                                                Limit limite);
+}
@@ -0,0 +1,159 @@
+package com.ejemplo.repository;
+
+import com.ejemplo.dto.AjusteStockRequest;
+import com.ejemplo.model.Producto;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Repositorio JDBC para operaciones masivas sobre productos
+ * Agrupa sentencias de stock e importaciones de catálogo en lotes JDBC para reducir
+ * viajes a la base de datos
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Repository
+public class ProductoBatchRepository {
+
+    private static final String SQL_RESERVAR_STOCK =
+            "UPDATE productos SET stock = stock - ?, fecha_actualizacion = ? WHERE id = ? AND stock >= ?";
+
+    // stock = factor * stock + valor: factor 1 suma un delta, factor 0 fija un valor absoluto
+    private static final String SQL_AJUSTAR_STOCK =
+            "UPDATE productos SET stock = ? * stock + ?, fecha_actualizacion = ? WHERE id = ? AND ? * stock + ? >= 0";
+
+    private static final String SQL_INSERTAR_PRODUCTO =
+            "INSERT INTO productos (nombre, descripcion, precio, stock, categoria, marca, activo, fecha_creacion) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_ACTUALIZAR_PRODUCTO =
+            "UPDATE productos SET nombre = ?, descripcion = ?, precio = ?, stock = ?, categoria = ?, marca = ?, " +
+            "activo = ?, fecha_actualizacion = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductoBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reserva stock de varios productos con UPDATE condicionales en un solo lote
+     * Las sentencias se ejecutan en el orden del mapa (id ascendente), de modo que
+     * dos carritos concurrentes bloquean las filas en el mismo orden y no pueden
+     * quedar en interbloqueo
+     * @param cantidadesPorProducto Cantidad a descontar por ID de producto, ordenado por ID
+     * @param fecha Fecha de actualización
+     * @return Filas afectadas por producto, en el mismo orden del mapa (0 = sin stock o inexistente)
+     */
+    public int[] reservarStock(SortedMap<Long, Integer> cantidadesPorProducto, LocalDateTime fecha) {
+        Timestamp fechaActualizacion = Timestamp.valueOf(fecha);
+        List<Object[]> parametros = new ArrayList<>(cantidadesPorProducto.size());
+        for (Map.Entry<Long, Integer> linea : cantidadesPorProducto.entrySet()) {
+            parametros.add(new Object[] {linea.getValue(), fechaActualizacion, linea.getKey(), linea.getValue()});
+        }
+        return jdbcTemplate.batchUpdate(SQL_RESERVAR_STOCK, parametros);
+    }
+
+    /**
+     * Aplica ajustes de stock (delta o valor absoluto) con UPDATE condicionales en un solo lote
+     * La condición impide que el stock resultante quede negativo. Las sentencias se ejecutan
+     * en el orden de la lista, por lo que varios ajustes de un mismo producto se acumulan.
+     * @param ajustes Ajustes con id y exactamente uno de delta o absoluto, ordenados por ID
+     * @param fecha Fecha de actualización
+     * @return Filas afectadas por ajuste, en el mismo orden de la lista (0 = inexistente o stock negativo)
+     */
+    public int[] ajustarStock(List<AjusteStockRequest> ajustes, LocalDateTime fecha) {
+        Timestamp fechaActualizacion = Timestamp.valueOf(fecha);
+        List<Object[]> parametros = new ArrayList<>(ajustes.size());
+        for (AjusteStockRequest ajuste : ajustes) {
+            int factor = ajuste.getAbsoluto() != null ? 0 : 1;
+            int valor = ajuste.getAbsoluto() != null ? ajuste.getAbsoluto() : ajuste.getDelta();
+            parametros.add(new Object[] {factor, valor, fechaActualizacion, ajuste.getId(), factor, valor});
+        }
+        return jdbcTemplate.batchUpdate(SQL_AJUSTAR_STOCK, parametros);
+    }
+
+    /**
+     * Inserta los productos en un solo lote y asigna a cada uno el ID generado
+     * @param productos Productos a insertar (con fecha de creación asignada)
+     */
+    public void insertar(List<Producto> productos) {
+        if (productos.isEmpty()) {
+            return;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                conexion -> conexion.prepareStatement(SQL_INSERTAR_PRODUCTO, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Producto producto = productos.get(i);
+                        asignarDatos(ps, producto);
+                        ps.setTimestamp(8, Timestamp.valueOf(producto.getFechaCreacion()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return productos.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> claves = keyHolder.getKeyList();
+        for (int i = 0; i < productos.size() && i < claves.size(); i++) {
+            Object id = claves.get(i).values().iterator().next();
+            productos.get(i).setId(((Number) id).longValue());
+        }
+    }
+
+    /**
+     * Reemplaza los datos de productos existentes en un solo lote
+     * @param productos Productos con ID y fecha de actualización asignados
+     * @return Filas afectadas por producto, en el mismo orden de la lista (0 = inexistente)
+     */
+    public int[] actualizar(List<Producto> productos) {
+        if (productos.isEmpty()) {
+            return new int[0];
+        }
+
+        return jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_PRODUCTO, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Producto producto = productos.get(i);
+                asignarDatos(ps, producto);
+                ps.setTimestamp(8, Timestamp.valueOf(producto.getFechaActualizacion()));
+                ps.setLong(9, producto.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return productos.size();
+            }
+        });
+    }
+
+    // Parámetros 1 a 7, comunes a la inserción y a la actualización
+    private static void asignarDatos(PreparedStatement ps, Producto producto) throws SQLException {
+        ps.setString(1, producto.getNombre());
+        ps.setString(2, producto.getDescripcion());
+        ps.setBigDecimal(3, producto.getPrecio());
+        ps.setInt(4, producto.getStock());
+        ps.setString(5, producto.getCategoria());
+        ps.setString(6, producto.getMarca());
+        ps.setBoolean(7, producto.getActivo());
+    }
+}
@@ -1,13 +1,22 @@
 package com.ejemplo.repository;
 
+import com.ejemplo.dto.ProductoResumenDTO;
 import com.ejemplo.model.Producto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para la entidad Producto
@@ -19,6 +28,17 @@ import java.util.List;
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
+    /**
+     * Stock repartido en las fracciones de un producto fraccionado (0 si no lo está)
+     */
+    String STOCK_FRACCIONES = "(SELECT COALESCE(SUM(f.stock), 0) FROM StockFraccion f WHERE f.productoId = p.id)";
+
+    /**
+     * Proyección reducida de los listados paginados, con el stock total del producto
+     */
+    String RESUMEN = "SELECT new com.ejemplo.dto.ProductoResumenDTO(p.id, p.nombre, p.precio, " +
+                     "CAST(p.stock + " + STOCK_FRACCIONES + " AS Integer), p.categoria, p.marca, p.activo) ";
+
     /**
      * Busca productos por nombre (ignorando mayúsculas/minúsculas)
      * @param nombre Nombre a buscar
@@ -60,17 +80,17 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     List<Producto> findByActivo(Boolean activo);
 
     /**
-     * Busca productos con stock disponible
-     * @return Lista de productos con stock > 0
+     * Busca productos con stock disponible, contando las fracciones de stock
+     * @return Lista de productos con stock total > 0
      */
-    @Query("SELECT p FROM Producto p WHERE p.stock > 0")
+    @Query("SELECT p FROM Producto p WHERE p.stock > 0 OR " + STOCK_FRACCIONES + " > 0")
     List<Producto> findProductosConStock();
 
     /**
-     * Busca productos sin stock
-     * @return Lista de productos con stock = 0
+     * Busca productos sin stock, contando las fracciones de stock
+     * @return Lista de productos con stock total = 0
      */
-    @Query("SELECT p FROM Producto p WHERE p.stock = 0")
+    @Query("SELECT p FROM Producto p WHERE p.stock = 0 AND " + STOCK_FRACCIONES + " = 0")
     List<Producto> findProductosSinStock();
 
     /**
@@ -134,6 +154,13 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     @Query("SELECT DISTINCT p.marca FROM Producto p WHERE p.marca IS NOT NULL ORDER BY p.marca")
     List<String> findDistinctMarcas();
 
+    /**
+     * Categoría y marca de cada producto, para construir las facetas del catálogo
+     * @return Filas [id (Long), categoria (String), marca (String)]
+     */
+    @Query("SELECT p.id, p.categoria, p.marca FROM Producto p")
+    List<Object[]> findCategoriasYMarcas();
+
     /**
      * Cuenta productos por categoría
      * @param categoria Categoría a contar
@@ -161,11 +188,135 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     List<Producto> buscarPorTexto(@Param("texto") String texto);
 
     /**
-     * Busca productos más vendidos (con más pedidos)
-     * @return Lista de productos ordenados por número de pedidos descendente
+     * Datos del catálogo que muestra el ranking de más vendidos, sin cargar las entidades
+     * @return Filas [id (Long), nombre, categoria, marca, activo (Boolean)]
      */
-    @Query("SELECT p FROM Producto p LEFT JOIN Pedido pe ON p.id = pe.producto.id " +
-           "GROUP BY p.id ORDER BY COUNT(pe.id) DESC")
-    List<Producto> findProductosMasVendidos();
-}
+    @Query("SELECT p.id, p.nombre, p.categoria, p.marca, p.activo FROM Producto p")
+    List<Object[]> findDatosRanking();
+
+    /**
+     * Datos que vigilan las alertas de stock bajo, sin cargar las entidades
+     * El stock incluye el de las fracciones de los productos fraccionados
+     * @return Filas [id (Long), nombre, stock (Number), activo (Boolean)]
+     */
+    @Query("SELECT p.id, p.nombre, p.stock + " + STOCK_FRACCIONES + ", p.activo FROM Producto p")
+    List<Object[]> findDatosStock();
+
+    /**
+     * Stock actual de varios productos, sin cargar las entidades
+     * El stock incluye el de las fracciones de los productos fraccionados
+     * @param ids IDs de los productos
+     * @return Filas [id (Long), stock (Number)] de los productos que existen
+     */
+    @Query("SELECT p.id, p.stock + " + STOCK_FRACCIONES + " FROM Producto p WHERE p.id IN :ids")
+    List<Object[]> findStockPorIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Bloquea la fila de un producto y lee su stock (la fracción 0 si está fraccionado)
+     * @param id ID del producto
+     * @return Stock de la fila, o nulo si el producto no existe
+     */
+    @Query(value = "SELECT stock FROM productos WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Integer bloquearStock(@Param("id") Long id);
+
+    /**
+     * Bloquea la fila de un producto y lee su stock si no la tiene bloqueada otra transacción
+     * @param id ID del producto
+     * @return Stock de la fila, o nulo si el producto no existe o la fila está bloqueada
+     */
+    @Query(value = "SELECT stock FROM productos WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Integer bloquearStockLibre(@Param("id") Long id);
+
+    /**
+     * Fija el stock de la fila de un producto
+     * @param id ID del producto
+     * @param stock Nuevo stock
+     * @param fecha Fecha de actualización
+     * @return Número de filas afectadas
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = :stock, p.fechaActualizacion = :fecha WHERE p.id = :id")
+    int fijarStock(@Param("id") Long id,
+                   @Param("stock") Integer stock,
+                   @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Recorre el catálogo completo para exportarlo sin cargarlo en memoria
+     * El stock total incluye el de las fracciones de los productos fraccionados
+     * Debe consumirse dentro de una transacción y cerrarse al terminar
+     * @return Filas [producto, stock total (Number)] ordenadas por ID, leídas por bloques de 500 filas
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p, p.stock + " + STOCK_FRACCIONES + " FROM Producto p ORDER BY p.id")
+    Stream<Object[]> streamParaExportar();
+
+    /**
+     * Reserva stock con una única sentencia condicional (sin lectura previa)
+     * La condición stock >= cantidad evita la sobreventa bajo concurrencia
+     * @param id ID del producto
+     * @param cantidad Cantidad a descontar
+     * @param fecha Fecha de actualización
+     * @return Número de filas afectadas (0 si no existe o no hay stock suficiente)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.fechaActualizacion = :fecha " +
+           "WHERE p.id = :id AND p.stock >= :cantidad")
+    int reservarStock(@Param("id") Long id,
+                      @Param("cantidad") Integer cantidad,
+                      @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Libera (incrementa) stock con una única sentencia
+     * @param id ID del producto
+     * @param cantidad Cantidad a devolver al inventario
+     * @param fecha Fecha de actualización
+     * @return Número de filas afectadas (0 si el producto no existe)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad, p.fechaActualizacion = :fecha " +
+           "WHERE p.id = :id")
+    int liberarStock(@Param("id") Long id,
+                     @Param("cantidad") Integer cantidad,
+                     @Param("fecha") LocalDateTime fecha);
 
+    /**
+     * Página del catálogo completo ordenada por ID, a partir del último ID entregado
+     * @param despuesDe Último ID de la página anterior (0 para la primera página)
+     * @param limite Número máximo de filas
+     * @return Proyección reducida de los productos
+     */
+    @Query(RESUMEN +
+           "FROM Producto p WHERE p.id > :despuesDe ORDER BY p.id")
+    List<ProductoResumenDTO> findPaginaResumen(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    /**
+     * Página de productos activos ordenada por ID (índice idx_productos_activo_id)
+     * @param despuesDe Último ID de la página anterior (0 para la primera página)
+     * @param limite Número máximo de filas
+     * @return Proyección reducida de los productos activos
+     */
+    @Query(RESUMEN +
+           "FROM Producto p WHERE p.activo = true AND p.id > :despuesDe ORDER BY p.id")
+    List<ProductoResumenDTO> findPaginaResumenActivos(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    /**
+     * Página de productos con stock ordenada por ID
+     * @param despuesDe Último ID de la página anterior (0 para la primera página)
+     * @param limite Número máximo de filas
+     * @return Proyección reducida de los productos con stock total > 0
+     */
+    @Query(RESUMEN +
+           "FROM Producto p WHERE (p.stock > 0 OR " + STOCK_FRACCIONES + " > 0) AND p.id > :despuesDe ORDER BY p.id")
+    List<ProductoResumenDTO> findPaginaResumenConStock(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    /**
+     * Página de productos sin stock ordenada por ID (índice idx_productos_stock_id)
+     * Un stock total 0 exige la fracción 0 vacía, por eso se conserva la condición sobre p.stock
+     * @param despuesDe Último ID de la página anterior (0 para la primera página)
+     * @param limite Número máximo de filas
+     * @return Proyección reducida de los productos con stock total = 0
+     */
+    @Query(RESUMEN +
+           "FROM Producto p WHERE p.stock = 0 AND " + STOCK_FRACCIONES + " = 0 AND p.id > :despuesDe ORDER BY p.id")
+    List<ProductoResumenDTO> findPaginaResumenSinStock(@Param("despuesDe") Long despuesDe, Limit limite);
+}
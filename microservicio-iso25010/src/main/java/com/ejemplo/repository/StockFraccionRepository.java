@@ -0,0 +1,92 @@
+package com.ejemplo.repository;
+
+import com.ejemplo.model.StockFraccion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio para la entidad StockFraccion
+ * Las reservas y liberaciones son sentencias condicionales sobre una sola fracción
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Repository
+public interface StockFraccionRepository extends JpaRepository<StockFraccion, Long> {
+
+    /**
+     * Reserva stock de una fracción con una única sentencia condicional
+     * @param productoId ID del producto
+     * @param fraccion Número de fracción (1 a N-1)
+     * @param cantidad Cantidad a descontar
+     * @return Número de filas afectadas (0 si la fracción no existe o no le alcanza el stock)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockFraccion f SET f.stock = f.stock - :cantidad " +
+           "WHERE f.productoId = :productoId AND f.fraccion = :fraccion AND f.stock >= :cantidad")
+    int reservar(@Param("productoId") Long productoId,
+                 @Param("fraccion") Integer fraccion,
+                 @Param("cantidad") Integer cantidad);
+
+    /**
+     * Devuelve stock a una fracción
+     * @param productoId ID del producto
+     * @param fraccion Número de fracción (1 a N-1)
+     * @param cantidad Cantidad a sumar
+     * @return Número de filas afectadas (0 si la fracción no existe)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockFraccion f SET f.stock = f.stock + :cantidad " +
+           "WHERE f.productoId = :productoId AND f.fraccion = :fraccion")
+    int liberar(@Param("productoId") Long productoId,
+                @Param("fraccion") Integer fraccion,
+                @Param("cantidad") Integer cantidad);
+
+    /**
+     * Bloquea las fracciones de un producto en orden ascendente
+     * @param productoId ID del producto
+     * @return Filas [fraccion (Integer), stock (Integer)]
+     */
+    @Query(value = "SELECT fraccion, stock FROM producto_stock_fracciones WHERE producto_id = :productoId " +
+                   "ORDER BY fraccion FOR UPDATE", nativeQuery = true)
+    List<Object[]> bloquear(@Param("productoId") Long productoId);
+
+    /**
+     * Bloquea en orden ascendente las fracciones de un producto que no tiene bloqueadas otra
+     * transacción, sin esperar por las demás
+     * @param productoId ID del producto
+     * @return Filas [fraccion (Integer), stock (Integer)] de las fracciones bloqueadas
+     */
+    @Query(value = "SELECT fraccion, stock FROM producto_stock_fracciones WHERE producto_id = :productoId " +
+                   "ORDER BY fraccion FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> bloquearLibres(@Param("productoId") Long productoId);
+
+    /**
+     * Suma del stock de las fracciones de un producto (sin la fila de productos)
+     * @param productoId ID del producto
+     * @return Stock repartido en las fracciones
+     */
+    @Query("SELECT COALESCE(SUM(f.stock), 0) FROM StockFraccion f WHERE f.productoId = :productoId")
+    long sumarStock(@Param("productoId") Long productoId);
+
+    /**
+     * Número de fracciones (sin la fila de productos) de cada producto fraccionado
+     * @return Filas [productoId (Long), fracciones (Long)]
+     */
+    @Query("SELECT f.productoId, COUNT(f) FROM StockFraccion f GROUP BY f.productoId")
+    List<Object[]> contarPorProducto();
+
+    /**
+     * Elimina las fracciones de un producto
+     * @param productoId ID del producto
+     * @return Número de fracciones eliminadas
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM StockFraccion f WHERE f.productoId = :productoId")
+    int eliminarPorProducto(@Param("productoId") Long productoId);
+}
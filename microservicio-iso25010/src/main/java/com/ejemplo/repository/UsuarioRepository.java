@@ -1,13 +1,18 @@
 package com.ejemplo.repository;
 
+import com.ejemplo.dto.UsuarioDTO;
 import com.ejemplo.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para la entidad Usuario
@@ -131,5 +136,16 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
            "LOWER(u.apellido) LIKE LOWER(CONCAT('%', :texto, '%')) OR " +
            "LOWER(u.email) LIKE LOWER(CONCAT('%', :texto, '%'))")
     List<Usuario> buscarPorTexto(@Param("texto") String texto);
+
+    /**
+     * Recorre todos los usuarios para exportarlos sin cargarlos en memoria
+     * Proyecta al DTO con el número de pedidos contado en la misma consulta (sin N+1);
+     * debe consumirse dentro de una transacción y cerrarse al terminar
+     * @return Usuarios ordenados por ID, leídos por bloques de 500 filas
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.ejemplo.dto.UsuarioDTO(u.id, u.nombre, u.apellido, u.email, u.telefono, u.activo, " +
+           "u.fechaCreacion, u.fechaActualizacion, SIZE(u.pedidos)) FROM Usuario u ORDER BY u.id")
+    Stream<UsuarioDTO> streamParaExportar();
 }
 
@@ -0,0 +1,364 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido;
+import com.ejemplo.repository.ProductoRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admisión de pedidos en venta flash
+ * Para los productos marcados en venta flash, POST /pedidos no reserva directamente: la
+ * solicitud entra en una cola FIFO acotada del producto y un único hilo consumidor la atiende
+ * con PedidoService.crear, de modo que las reservas del producto llegan a la base de datos de
+ * una en una en lugar de competir por su fila. El stock disponible se mantiene en memoria con
+ * los StockEvento del producto y de él se descuentan las unidades ya encoladas: cuando lo que
+ * queda no alcanza, la solicitud se rechaza al instante sin encolarse ni consultar la base de
+ * datos. Cada producto tiene su propia cola y su propio hilo, así que una venta flash no
+ * retrasa los pedidos de los demás productos.
+ * Cada solicitud en cola retiene un hilo del servidor mientras espera, por eso el total de
+ * solicitudes en espera de todas las ventas se limita con maximo-en-espera, que no puede
+ * superar la mitad de server.tomcat.threads.max: el resto de los hilos sigue libre para las
+ * demás solicitudes.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class AdmisionVentaFlash {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmisionVentaFlash.class);
+
+    /**
+     * Estado de la venta flash de un producto
+     * stockDisponible descuenta las unidades de las solicitudes que siguen en cola
+     */
+    public record EstadoVentaFlash(Long productoId, boolean activa, int stockDisponible, int enCola,
+                                   long atendidos, long rechazados) {
+    }
+
+    // Solicitud en espera: el hilo HTTP bloquea sobre el resultado hasta que el consumidor la atiende
+    private record Solicitud(Long usuarioId, int cantidad, String observaciones, CompletableFuture<Pedido> resultado) {
+    }
+
+    private final PedidoService pedidoService;
+    private final ProductoRepository productoRepository;
+    private final int capacidadCola;
+    private final long esperaMs;
+    private final int maximoProductos;
+    // Solicitudes en espera de todas las ventas flash, cada una con un hilo del servidor bloqueado
+    private final Semaphore esperas;
+
+    private final Map<Long, VentaFlash> ventas = new ConcurrentHashMap<>();
+
+    public AdmisionVentaFlash(PedidoService pedidoService, ProductoRepository productoRepository,
+                              @Value("${pedidos.venta-flash.capacidad-cola:50}") int capacidadCola,
+                              @Value("${pedidos.venta-flash.espera-ms:10000}") long esperaMs,
+                              @Value("${pedidos.venta-flash.maximo-productos:20}") int maximoProductos,
+                              @Value("${pedidos.venta-flash.maximo-en-espera:50}") int maximoEnEspera,
+                              @Value("${server.tomcat.threads.max:200}") int hilosServidor) {
+        if (maximoEnEspera < 1 || maximoEnEspera > hilosServidor / 2) {
+            throw new IllegalArgumentException("pedidos.venta-flash.maximo-en-espera debe estar entre 1 y "
+                    + hilosServidor / 2 + " (la mitad de server.tomcat.threads.max): " + maximoEnEspera);
+        }
+        this.pedidoService = pedidoService;
+        this.productoRepository = productoRepository;
+        this.capacidadCola = Math.min(capacidadCola, maximoEnEspera);
+        this.esperaMs = esperaMs;
+        this.maximoProductos = maximoProductos;
+        this.esperas = new Semaphore(maximoEnEspera);
+    }
+
+    public boolean estaActiva(Long productoId) {
+        return ventas.containsKey(productoId);
+    }
+
+    /**
+     * Pone un producto en venta flash, o lo saca
+     * Al sacarlo deja de aceptar solicitudes y el consumidor atiende las que ya estaban en cola
+     * @param productoId ID del producto
+     * @param activa true para activar la cola de admisión del producto
+     * @return Estado de la venta flash
+     * @throws EntityNotFoundException si el producto no existe
+     * @throws IllegalStateException si ya hay maximoProductos productos en venta flash
+     */
+    public EstadoVentaFlash cambiar(Long productoId, boolean activa) {
+        if (!activa) {
+            VentaFlash venta = ventas.remove(productoId);
+            if (venta == null) {
+                return new EstadoVentaFlash(productoId, false, 0, 0, 0, 0);
+            }
+            venta.activa = false;
+            logger.info("Venta flash del producto ID: {} finalizada ({} atendidos, {} rechazados)",
+                    productoId, venta.atendidos.get(), venta.rechazados.get());
+            return venta.estado();
+        }
+
+        int stock = leerStock(productoId)
+                .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado con ID: " + productoId));
+        synchronized (ventas) {
+            VentaFlash existente = ventas.get(productoId);
+            if (existente != null) {
+                return existente.estado();
+            }
+            if (ventas.size() >= maximoProductos) {
+                throw new IllegalStateException("Ya hay " + maximoProductos + " productos en venta flash");
+            }
+            VentaFlash venta = new VentaFlash(productoId, stock);
+            ventas.put(productoId, venta);
+            venta.consumidor.start();
+            logger.info("Venta flash del producto ID: {} iniciada con {} unidades", productoId, stock);
+            return venta.estado();
+        }
+    }
+
+    /**
+     * Estado de los productos en venta flash
+     * @return Un estado por producto, ordenados por ID
+     */
+    public List<EstadoVentaFlash> obtener() {
+        return ventas.values().stream()
+                .map(VentaFlash::estado)
+                .sorted(Comparator.comparing(EstadoVentaFlash::productoId))
+                .toList();
+    }
+
+    /**
+     * Crea un pedido de un producto en venta flash pasando por su cola de admisión
+     * @param usuarioId ID del usuario que realiza el pedido
+     * @param productoId ID del producto en venta flash
+     * @param cantidad Cantidad solicitada
+     * @param observaciones Observaciones opcionales
+     * @return Pedido creado
+     * @throws IllegalArgumentException si el stock disponible, descontado lo encolado, no alcanza
+     * @throws RejectedExecutionException si la cola o las esperas están llenas o se agotó la espera
+     * @throws EntityNotFoundException si el usuario no existe
+     */
+    public Pedido crear(Long usuarioId, Long productoId, Integer cantidad, String observaciones) {
+        VentaFlash venta = ventas.get(productoId);
+        if (venta == null || !venta.activa) {
+            // La venta terminó entre la consulta del controlador y esta llamada
+            return pedidoService.crear(usuarioId, productoId, cantidad, observaciones);
+        }
+        if (!venta.apartar(cantidad)) {
+            venta.rechazados.incrementAndGet();
+            throw stockInsuficiente(venta.libre());
+        }
+        if (!esperas.tryAcquire()) {
+            venta.devolver(cantidad);
+            venta.rechazados.incrementAndGet();
+            throw new RejectedExecutionException("Demasiadas solicitudes en espera de venta flash. " +
+                    "Intente nuevamente más tarde");
+        }
+        try {
+            Solicitud solicitud = new Solicitud(usuarioId, cantidad, observaciones, new CompletableFuture<>());
+            if (!venta.cola.offer(solicitud)) {
+                venta.devolver(cantidad);
+                venta.rechazados.incrementAndGet();
+                throw new RejectedExecutionException("Cola de venta flash llena para el producto " + productoId +
+                        ". Intente nuevamente más tarde");
+            }
+            return esperar(venta, solicitud);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Error al procesar el pedido de venta flash", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Espera interrumpida por el pedido de venta flash", e);
+        } finally {
+            esperas.release();
+        }
+    }
+
+    private Pedido esperar(VentaFlash venta, Solicitud solicitud) throws ExecutionException, InterruptedException {
+        try {
+            return solicitud.resultado().get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Si sigue en cola se retira sin reservar; si el consumidor ya la tomó se espera su resultado
+            if (venta.cola.remove(solicitud)) {
+                venta.devolver(solicitud.cantidad());
+                venta.rechazados.incrementAndGet();
+                throw new RejectedExecutionException("Tiempo de espera agotado en la cola de venta flash del producto "
+                        + venta.productoId + ". Intente nuevamente más tarde");
+            }
+            return solicitud.resultado().get();
+        }
+    }
+
+    /**
+     * Actualiza el stock disponible de los productos en venta flash con el stock confirmado
+     * @param evento Evento de cambio de stock
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarStock(StockEvento evento) {
+        VentaFlash venta = ventas.get(evento.productoId());
+        if (venta != null) {
+            venta.disponible = evento.stock();
+        }
+    }
+
+    /**
+     * Termina la venta flash de los productos eliminados
+     * @param evento Evento de producto
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoEvento evento) {
+        if (evento.actual() == null && estaActiva(evento.productoId())) {
+            cambiar(evento.productoId(), false);
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        ventas.values().forEach(venta -> venta.activa = false);
+        for (VentaFlash venta : ventas.values()) {
+            try {
+                venta.consumidor.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        ventas.clear();
+    }
+
+    private Optional<Integer> leerStock(Long productoId) {
+        return productoRepository.findStockPorIds(List.of(productoId)).stream()
+                .map(fila -> ((Number) fila[1]).intValue())
+                .findFirst();
+    }
+
+    private static IllegalArgumentException stockInsuficiente(int disponible) {
+        return new IllegalArgumentException("Stock insuficiente. Stock disponible: " + Math.max(disponible, 0));
+    }
+
+    /**
+     * Cola de admisión y consumidor de un producto
+     */
+    private final class VentaFlash {
+
+        private final Long productoId;
+        private final BlockingQueue<Solicitud> cola;
+        private final Thread consumidor;
+        private final AtomicLong atendidos = new AtomicLong();
+        private final AtomicLong rechazados = new AtomicLong();
+        // Unidades de las solicitudes admitidas que el consumidor aún no terminó de atender
+        private final AtomicInteger apartadas = new AtomicInteger();
+        private volatile int disponible;
+        private volatile boolean activa = true;
+
+        private VentaFlash(Long productoId, int disponible) {
+            this.productoId = productoId;
+            this.disponible = disponible;
+            this.cola = new ArrayBlockingQueue<>(capacidadCola);
+            this.consumidor = new Thread(this::consumir, "venta-flash-" + productoId);
+            this.consumidor.setDaemon(true);
+        }
+
+        private EstadoVentaFlash estado() {
+            return new EstadoVentaFlash(productoId, activa, Math.max(libre(), 0), cola.size(),
+                    atendidos.get(), rechazados.get());
+        }
+
+        private int libre() {
+            return disponible - apartadas.get();
+        }
+
+        /**
+         * Aparta las unidades de una solicitud si caben en el stock disponible menos lo ya apartado
+         * @return false si no alcanzan
+         */
+        private boolean apartar(int cantidad) {
+            while (true) {
+                int actuales = apartadas.get();
+                if (actuales + cantidad > disponible) {
+                    return false;
+                }
+                if (apartadas.compareAndSet(actuales, actuales + cantidad)) {
+                    return true;
+                }
+            }
+        }
+
+        private void devolver(int cantidad) {
+            apartadas.addAndGet(-cantidad);
+        }
+
+        private void consumir() {
+            while (activa || !cola.isEmpty()) {
+                try {
+                    Solicitud solicitud = cola.poll(500, TimeUnit.MILLISECONDS);
+                    if (solicitud != null) {
+                        atender(solicitud);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void atender(Solicitud solicitud) {
+            Pedido pedido = null;
+            RuntimeException error = null;
+            try {
+                pedido = reservar(solicitud);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            // Se devuelven antes de responder: tras la reserva el StockEvento ya las descontó de disponible
+            devolver(solicitud.cantidad());
+            if (error != null) {
+                solicitud.resultado().completeExceptionally(error);
+            } else {
+                solicitud.resultado().complete(pedido);
+            }
+        }
+
+        private Pedido reservar(Solicitud solicitud) {
+            // Las solicitudes en cola que ya no caben se rechazan sin tocar la base de datos
+            if (solicitud.cantidad() > disponible) {
+                rechazados.incrementAndGet();
+                throw stockInsuficiente(disponible);
+            }
+            try {
+                // El StockEvento de la reserva actualiza el stock disponible al confirmarse
+                Pedido pedido = pedidoService.crear(solicitud.usuarioId(), productoId,
+                        solicitud.cantidad(), solicitud.observaciones());
+                atendidos.incrementAndGet();
+                return pedido;
+            } catch (IllegalArgumentException e) {
+                // Otra operación consumió stock fuera de la cola: se vuelve a leer el stock confirmado
+                rechazados.incrementAndGet();
+                leerStock(productoId).ifPresent(stock -> disponible = stock);
+                throw e;
+            } catch (RuntimeException e) {
+                logger.warn("Error en pedido de venta flash del producto ID: {}: {}", productoId, e.getMessage());
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.ejemplo.service;
+
+import com.ejemplo.repository.ProductoRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Vigilancia de productos con stock bajo mantenida en memoria
+ * Cada producto tiene un stock mínimo (el configurado por defecto o uno propio) y su stock
+ * actual, que se actualiza con cada StockEvento publicado por las operaciones de inventario.
+ * Los productos activos por debajo de su mínimo se guardan en un índice ordenado por faltante,
+ * de modo que listarlos no recorre el catálogo. Cuando un producto entra o sale del stock bajo
+ * se avisa a los suscriptores por Server-Sent Events desde un hilo propio, para que un cliente
+ * lento no retrase la operación que cambió el stock.
+ * Los mínimos propios de cada producto solo viven en memoria y se pierden al reiniciar.
+ * El estado se reconcilia periódicamente con una lectura de id, nombre, stock y activo.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class AlertasStockBajo {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertasStockBajo.class);
+
+    public static final String EVENTO_ESTADO = "estado";
+    public static final String EVENTO_STOCK_BAJO = "stock-bajo";
+    public static final String EVENTO_STOCK_REPUESTO = "stock-repuesto";
+
+    /**
+     * Stock de un producto frente a su stock mínimo, devuelto al cliente
+     */
+    public record NivelStock(Long id, String nombre, Integer stock, int minimo) {
+    }
+
+    private record Seguimiento(String nombre, boolean activo, Integer stock) {
+    }
+
+    // Clave del índice ordenado: mayor faltante primero y, a igualdad, menor ID
+    private record Posicion(long margen, long id) {
+    }
+
+    private record Notificacion(String evento, NivelStock nivel) {
+    }
+
+    private static final Comparator<Posicion> ORDEN = Comparator.comparingLong(Posicion::margen)
+            .thenComparingLong(Posicion::id);
+
+    private final ProductoRepository productoRepository;
+    private final int minimoPorDefecto;
+    private final long timeoutSuscripcion;
+    private final int maximoSuscriptores;
+
+    private final Map<Long, Seguimiento> productos = new HashMap<>();
+    private final Map<Long, Integer> minimos = new HashMap<>();
+    private final TreeSet<Posicion> bajos = new TreeSet<>(ORDEN);
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    private final List<SseEmitter> suscriptores = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor envios;
+
+    public AlertasStockBajo(ProductoRepository productoRepository,
+                            @Value("${productos.stock-bajo.minimo:5}") int minimoPorDefecto,
+                            @Value("${productos.stock-bajo.timeout-ms:1800000}") long timeoutSuscripcion,
+                            @Value("${productos.stock-bajo.maximo-suscriptores:100}") int maximoSuscriptores,
+                            @Value("${productos.stock-bajo.capacidad-envios:1000}") int capacidadEnvios) {
+        this.productoRepository = productoRepository;
+        this.minimoPorDefecto = minimoPorDefecto;
+        this.timeoutSuscripcion = timeoutSuscripcion;
+        this.maximoSuscriptores = maximoSuscriptores;
+        this.envios = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadEnvios),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "alertas-stock");
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                (tarea, ejecutor) -> logger.warn("Cola de alertas de stock llena; se descarta un aviso"));
+    }
+
+    /**
+     * Productos activos con stock por debajo de su mínimo
+     * @return Productos ordenados por faltante descendente
+     */
+    public List<NivelStock> obtener() {
+        bloqueo.readLock().lock();
+        try {
+            List<NivelStock> resultado = new ArrayList<>(bajos.size());
+            for (Posicion posicion : bajos) {
+                resultado.add(nivel(posicion.id(), productos.get(posicion.id())));
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fija el stock mínimo propio de un producto
+     * Si el cambio hace que el producto entre o salga del stock bajo, se avisa a los suscriptores
+     * @param id ID del producto
+     * @param minimo Stock mínimo; se avisa cuando el stock queda por debajo de este valor
+     * @return Stock del producto frente a su nuevo mínimo
+     * @throws IllegalArgumentException si el mínimo es negativo
+     * @throws EntityNotFoundException si el producto no existe
+     */
+    public NivelStock fijarMinimo(Long id, int minimo) {
+        if (minimo < 0) {
+            throw new IllegalArgumentException("El stock mínimo no puede ser negativo");
+        }
+        Notificacion notificacion;
+        NivelStock nivel;
+        bloqueo.writeLock().lock();
+        try {
+            Seguimiento seguimiento = productos.get(id);
+            if (seguimiento == null) {
+                throw new EntityNotFoundException("Producto no encontrado con ID: " + id);
+            }
+            Posicion anterior = posicion(id, seguimiento);
+            minimos.put(id, minimo);
+            notificacion = reubicar(id, anterior, true);
+            nivel = nivel(id, seguimiento);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        avisar(notificacion);
+        return nivel;
+    }
+
+    /**
+     * Registra un suscriptor de avisos de stock bajo
+     * El primer evento (estado) lleva los productos que ya están por debajo de su mínimo;
+     * después llegan stock-bajo y stock-repuesto con cada producto que cruza su mínimo
+     * @return Emisor Server-Sent Events del suscriptor
+     * @throws RejectedExecutionException si se alcanzó el máximo de suscriptores
+     */
+    public SseEmitter suscribir() {
+        if (suscriptores.size() >= maximoSuscriptores) {
+            throw new RejectedExecutionException("Se alcanzó el máximo de suscriptores de alertas de stock");
+        }
+        SseEmitter emisor = new SseEmitter(timeoutSuscripcion);
+        emisor.onCompletion(() -> suscriptores.remove(emisor));
+        emisor.onTimeout(() -> suscriptores.remove(emisor));
+        emisor.onError(error -> suscriptores.remove(emisor));
+        suscriptores.add(emisor);
+        try {
+            emisor.send(SseEmitter.event().name(EVENTO_ESTADO).data(obtener()));
+        } catch (IOException e) {
+            suscriptores.remove(emisor);
+            emisor.completeWithError(e);
+        }
+        logger.info("Nuevo suscriptor de alertas de stock ({} activos)", suscriptores.size());
+        return emisor;
+    }
+
+    /**
+     * Actualiza el stock de un producto y avisa si cruzó su mínimo
+     * @param evento Evento de stock
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarStock(StockEvento evento) {
+        Notificacion notificacion;
+        bloqueo.writeLock().lock();
+        try {
+            Seguimiento seguimiento = productos.get(evento.productoId());
+            Posicion anterior = posicion(evento.productoId(), seguimiento);
+            productos.put(evento.productoId(), seguimiento == null
+                    ? new Seguimiento(null, true, evento.stock())
+                    : new Seguimiento(seguimiento.nombre(), seguimiento.activo(), evento.stock()));
+            notificacion = reubicar(evento.productoId(), anterior, true);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        avisar(notificacion);
+    }
+
+    /**
+     * Mantiene el nombre y el estado activo de los productos vigilados
+     * Activar, desactivar o eliminar un producto no genera avisos
+     * @param evento Evento de producto
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoEvento evento) {
+        Long id = evento.productoId();
+        bloqueo.writeLock().lock();
+        try {
+            Seguimiento seguimiento = productos.get(id);
+            Posicion anterior = posicion(id, seguimiento);
+            if (evento.actual() == null) {
+                productos.remove(id);
+                minimos.remove(id);
+            } else {
+                productos.put(id, new Seguimiento(evento.actual().nombre(),
+                        !Boolean.FALSE.equals(evento.actual().activo()),
+                        seguimiento == null ? null : seguimiento.stock()));
+            }
+            reubicar(id, anterior, false);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recarga el stock de todos los productos al iniciar la aplicación, después de cada
+     * importación masiva y periódicamente; avisa de los productos cuyo stock cambió y cruzó su mínimo
+     * Corrige cualquier desviación acumulada (p.ej. eventos de transacciones concurrentes
+     * aplicados en distinto orden que sus commits)
+     */
+    @EventListener({ApplicationReadyEvent.class, ProductosImportadosEvento.class})
+    @Scheduled(fixedDelayString = "${productos.stock-bajo.reconciliacion-ms:300000}",
+               initialDelayString = "${productos.stock-bajo.reconciliacion-ms:300000}")
+    public void reconciliar() {
+        long inicio = System.nanoTime();
+        Map<Long, Seguimiento> nuevos = new HashMap<>();
+        for (Object[] fila : productoRepository.findDatosStock()) {
+            nuevos.put((Long) fila[0], new Seguimiento((String) fila[1],
+                    !Boolean.FALSE.equals(fila[3]), ((Number) fila[2]).intValue()));
+        }
+
+        List<Notificacion> notificaciones = new ArrayList<>();
+        int conStockBajo;
+        bloqueo.writeLock().lock();
+        try {
+            for (Long id : new ArrayList<>(productos.keySet())) {
+                if (!nuevos.containsKey(id)) {
+                    Posicion anterior = posicion(id, productos.remove(id));
+                    reubicar(id, anterior, false);
+                }
+            }
+            minimos.keySet().retainAll(nuevos.keySet());
+            for (Map.Entry<Long, Seguimiento> entrada : nuevos.entrySet()) {
+                Long id = entrada.getKey();
+                Seguimiento seguimiento = productos.get(id);
+                Posicion anterior = posicion(id, seguimiento);
+                productos.put(id, entrada.getValue());
+                boolean cambioStock = seguimiento == null
+                        || !Objects.equals(seguimiento.stock(), entrada.getValue().stock());
+                Notificacion notificacion = reubicar(id, anterior, cambioStock);
+                if (notificacion != null) {
+                    notificaciones.add(notificacion);
+                }
+            }
+            conStockBajo = bajos.size();
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        notificaciones.forEach(this::avisar);
+        logger.info("Alertas de stock reconciliadas: {} productos, {} con stock bajo en {} ms",
+                nuevos.size(), conStockBajo, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Envía un comentario a los suscriptores para mantener viva la conexión y
+     * descartar los que ya se desconectaron
+     */
+    @Scheduled(fixedDelayString = "${productos.stock-bajo.latido-ms:30000}")
+    public void latido() {
+        if (!suscriptores.isEmpty()) {
+            envios.execute(() -> difundir(() -> SseEmitter.event().comment("latido")));
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        envios.shutdownNow();
+        suscriptores.forEach(SseEmitter::complete);
+        suscriptores.clear();
+    }
+
+    // Posición del producto en el índice, o nulo si no está por debajo de su mínimo
+    private Posicion posicion(Long id, Seguimiento seguimiento) {
+        if (seguimiento == null || !seguimiento.activo() || seguimiento.stock() == null) {
+            return null;
+        }
+        int minimo = minimos.getOrDefault(id, minimoPorDefecto);
+        return seguimiento.stock() < minimo ? new Posicion((long) seguimiento.stock() - minimo, id) : null;
+    }
+
+    // Requiere el bloqueo de escritura; devuelve el aviso si el producto entró o salió del stock bajo
+    private Notificacion reubicar(Long id, Posicion anterior, boolean notificar) {
+        Seguimiento seguimiento = productos.get(id);
+        Posicion actual = posicion(id, seguimiento);
+        if (Objects.equals(anterior, actual)) {
+            return null;
+        }
+        if (anterior != null) {
+            bajos.remove(anterior);
+        }
+        if (actual != null) {
+            bajos.add(actual);
+        }
+        if (!notificar || (anterior == null) == (actual == null) || seguimiento == null || !seguimiento.activo()) {
+            return null;
+        }
+        return new Notificacion(actual != null ? EVENTO_STOCK_BAJO : EVENTO_STOCK_REPUESTO, nivel(id, seguimiento));
+    }
+
+    private NivelStock nivel(Long id, Seguimiento seguimiento) {
+        return new NivelStock(id, seguimiento.nombre(), seguimiento.stock(),
+                minimos.getOrDefault(id, minimoPorDefecto));
+    }
+
+    private void avisar(Notificacion notificacion) {
+        if (notificacion == null) {
+            return;
+        }
+        logger.info("Producto ID: {} {} (stock {}, mínimo {})", notificacion.nivel().id(),
+                EVENTO_STOCK_BAJO.equals(notificacion.evento()) ? "con stock bajo" : "repuesto",
+                notificacion.nivel().stock(), notificacion.nivel().minimo());
+        if (!suscriptores.isEmpty()) {
+            envios.execute(() -> difundir(
+                    () -> SseEmitter.event().name(notificacion.evento()).data(notificacion.nivel())));
+        }
+    }
+
+    // Cada emisor necesita su propio evento: SseEventBuilder no se puede enviar dos veces
+    private void difundir(Supplier<SseEventBuilder> evento) {
+        for (SseEmitter emisor : suscriptores) {
+            try {
+                emisor.send(evento.get());
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Suscriptor de alertas de stock desconectado: {}", e.getMessage());
+                suscriptores.remove(emisor);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.repository.PedidoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancelación automática de pedidos PENDIENTE o CONFIRMADO con más de edad-minutos
+ * Recorre los pedidos cancelables más antiguos que la fecha límite en bloques de tamano-lote,
+ * avanzando con un cursor (fechaPedido, id) sobre el índice de fecha, y cancela cada bloque con
+ * PedidoService.cancelarEnBloque: un UPDATE por bloque y un aumentarStock por producto. Cada
+ * ejecución procesa como máximo maximo-lotes bloques; lo que quede se retoma en la siguiente.
+ * Solo un nodo ejecuta la tarea a la vez gracias a la fila de bloqueo de BloqueosTareas.
+ * cancelarEnBloque bloquea las filas y vuelve a filtrar por estado, igual que las transiciones
+ * manuales de PedidoService: un pedido cancelado o confirmado a la vez no restaura stock dos veces.
+ *
+ * Métricas: pedidos.auto.cancelacion.cancelados, pedidos.auto.cancelacion.lotes y
+ * pedidos.auto.cancelacion.retraso.segundos (cuánto supera la edad máxima el pedido
+ * cancelable más antiguo que quedó sin cancelar).
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class AutoCancelacionPedidos {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoCancelacionPedidos.class);
+
+    static final String TAREA = "auto-cancelacion-pedidos";
+    static final String METRICA = "pedidos.auto.cancelacion";
+
+    private static final Set<EstadoPedido> CANCELABLES = EnumSet.of(EstadoPedido.PENDIENTE, EstadoPedido.CONFIRMADO);
+    // Cursor inicial: anterior a cualquier pedido
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * Progreso de la tarea en este nodo
+     */
+    public record EstadoAutoCancelacion(boolean habilitada, long edadMinutos, LocalDateTime ultimaEjecucion,
+                                        int canceladosUltimaEjecucion, int lotesUltimaEjecucion,
+                                        boolean completa, long canceladosTotal, long retrasoSegundos) {
+    }
+
+    private final PedidoService pedidoService;
+    private final PedidoRepository pedidoRepository;
+    private final BloqueosTareas bloqueosTareas;
+    private final boolean habilitada;
+    private final long edadMinutos;
+    private final int tamanoLote;
+    private final int maximoLotes;
+    private final Duration vigenciaBloqueo;
+
+    private final Counter cancelados;
+    private final Counter lotes;
+    private final AtomicLong retrasoSegundos = new AtomicLong();
+    private volatile EstadoAutoCancelacion estado;
+
+    public AutoCancelacionPedidos(PedidoService pedidoService, PedidoRepository pedidoRepository,
+                                  BloqueosTareas bloqueosTareas, MeterRegistry meterRegistry,
+                                  @Value("${pedidos.auto-cancelacion.habilitada:true}") boolean habilitada,
+                                  @Value("${pedidos.auto-cancelacion.edad-minutos:4320}") long edadMinutos,
+                                  @Value("${pedidos.auto-cancelacion.tamano-lote:200}") int tamanoLote,
+                                  @Value("${pedidos.auto-cancelacion.maximo-lotes:50}") int maximoLotes,
+                                  @Value("${pedidos.auto-cancelacion.bloqueo-segundos:300}") long bloqueoSegundos) {
+        this.pedidoService = pedidoService;
+        this.pedidoRepository = pedidoRepository;
+        this.bloqueosTareas = bloqueosTareas;
+        this.habilitada = habilitada;
+        this.edadMinutos = edadMinutos;
+        this.tamanoLote = tamanoLote;
+        this.maximoLotes = maximoLotes;
+        this.vigenciaBloqueo = Duration.ofSeconds(bloqueoSegundos);
+        this.cancelados = meterRegistry.counter(METRICA + ".cancelados");
+        this.lotes = meterRegistry.counter(METRICA + ".lotes");
+        meterRegistry.gauge(METRICA + ".retraso.segundos", retrasoSegundos);
+        this.estado = new EstadoAutoCancelacion(habilitada, edadMinutos, null, 0, 0, false, 0, 0);
+    }
+
+    /**
+     * @return Progreso de la última ejecución en este nodo
+     */
+    public EstadoAutoCancelacion obtener() {
+        return estado;
+    }
+
+    @Scheduled(initialDelayString = "${pedidos.auto-cancelacion.intervalo-ms:60000}",
+               fixedDelayString = "${pedidos.auto-cancelacion.intervalo-ms:60000}")
+    public void cancelarAntiguos() {
+        if (!habilitada) {
+            return;
+        }
+        try {
+            ejecutar(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            logger.warn("Error en la cancelación automática de pedidos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cancela por bloques los pedidos cancelables anteriores a ahora - edadMinutos
+     * No hace nada si otro nodo tiene el bloqueo de la tarea
+     * @param ahora Fecha de referencia
+     * @return Número de pedidos cancelados
+     */
+    int ejecutar(LocalDateTime ahora) {
+        if (!bloqueosTareas.adquirir(TAREA, vigenciaBloqueo)) {
+            logger.debug("La cancelación automática de pedidos se está ejecutando en otro nodo");
+            return 0;
+        }
+        LocalDateTime limite = ahora.minusMinutes(edadMinutos);
+        LocalDateTime fechaCursor = INICIO;
+        Long idCursor = 0L;
+        int canceladosEjecucion = 0;
+        int lotesEjecucion = 0;
+        boolean completa = false;
+        try {
+            while (lotesEjecucion < maximoLotes) {
+                List<Object[]> filas = pedidoRepository.findCancelablesAnterioresA(
+                        CANCELABLES, limite, fechaCursor, idCursor, Limit.of(tamanoLote));
+                if (filas.isEmpty()) {
+                    completa = true;
+                    break;
+                }
+                List<Long> ids = filas.stream().map(fila -> (Long) fila[0]).toList();
+                int canceladosLote = pedidoService.cancelarEnBloque(ids, CANCELABLES);
+                canceladosEjecucion += canceladosLote;
+                lotesEjecucion++;
+                cancelados.increment(canceladosLote);
+                lotes.increment();
+
+                Object[] ultima = filas.get(filas.size() - 1);
+                idCursor = (Long) ultima[0];
+                fechaCursor = (LocalDateTime) ultima[1];
+                if (filas.size() < tamanoLote) {
+                    completa = true;
+                    break;
+                }
+                if (!bloqueosTareas.adquirir(TAREA, vigenciaBloqueo)) {
+                    logger.warn("Se perdió el bloqueo de la cancelación automática de pedidos");
+                    break;
+                }
+            }
+        } finally {
+            retrasoSegundos.set(completa ? 0 : retraso(limite, fechaCursor, idCursor));
+            estado = new EstadoAutoCancelacion(habilitada, edadMinutos, ahora, canceladosEjecucion, lotesEjecucion,
+                    completa, estado.canceladosTotal() + canceladosEjecucion, retrasoSegundos.get());
+            bloqueosTareas.liberar(TAREA);
+        }
+        if (canceladosEjecucion > 0 || !completa) {
+            logger.info("Cancelación automática: {} pedidos cancelados en {} lotes; completa={}, retraso={}s",
+                    canceladosEjecucion, lotesEjecucion, completa, retrasoSegundos.get());
+        }
+        return canceladosEjecucion;
+    }
+
+    // Antigüedad respecto del límite del primer pedido cancelable que quedó pendiente tras el cursor
+    private long retraso(LocalDateTime limite, LocalDateTime fechaCursor, Long idCursor) {
+        List<Object[]> siguiente = pedidoRepository.findCancelablesAnterioresA(
+                CANCELABLES, limite, fechaCursor, idCursor, Limit.of(1));
+        if (siguiente.isEmpty()) {
+            return 0;
+        }
+        return Math.max(0, Duration.between((LocalDateTime) siguiente.get(0)[1], limite).getSeconds());
+    }
+}
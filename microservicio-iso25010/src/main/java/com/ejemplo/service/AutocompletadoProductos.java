@@ -0,0 +1,467 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import com.ejemplo.util.TextoBusqueda;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocompletado de productos por prefijo sobre un trie radix en memoria
+ * Las claves son el nombre normalizado, cada sufijo del nombre que empieza una palabra
+ * y la marca. Cada nodo guarda los IDs de los K productos más populares de su subárbol,
+ * de modo que una sugerencia solo recorre el prefijo y no el subárbol completo.
+ * La popularidad es el total de unidades pedidas (sin contar pedidos cancelados) y se
+ * mantiene con los eventos de pedidos; el catálogo se mantiene con los eventos de productos.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class AutocompletadoProductos {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompletadoProductos.class);
+
+    public static final int LIMITE_POR_DEFECTO = 10;
+    public static final int LIMITE_MAXIMO = 20;
+
+    private static final long[] SIN_IDS = new long[0];
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+    /**
+     * Sugerencia devuelta al cliente
+     */
+    public record Sugerencia(Long id, String nombre, String marca, long popularidad) {
+    }
+
+    private record Entrada(String nombre, String marca, Set<String> claves) {
+    }
+
+    /**
+     * Nodo del trie radix: la etiqueta es el fragmento de clave de la arista que llega al nodo
+     * Los hijos se mantienen ordenados por su primer carácter
+     */
+    private static final class Nodo {
+        String etiqueta;
+        Nodo[] hijos = SIN_HIJOS;
+        long[] ids = SIN_IDS;
+        long[] mejores = SIN_IDS;
+
+        Nodo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final Map<Long, Entrada> entradas = new HashMap<>();
+    private final Map<Long, Long> popularidad = new HashMap<>();
+    private final Comparator<Long> porPopularidad = Comparator
+            .comparingLong((Long id) -> popularidad.getOrDefault(id, 0L)).reversed()
+            .thenComparing(Comparator.naturalOrder());
+    private Nodo raiz = new Nodo("");
+
+    /**
+     * Sugiere productos cuyo nombre (o alguna de sus palabras) o marca empieza con el prefijo
+     * @param prefijo Texto escrito por el usuario
+     * @param limite Número máximo de sugerencias (1-20)
+     * @return Sugerencias ordenadas por popularidad descendente
+     * @throws IllegalArgumentException si el prefijo está vacío o el límite fuera de rango
+     */
+    public List<Sugerencia> sugerir(String prefijo, int limite) {
+        String clave = TextoBusqueda.normalizar(prefijo);
+        if (clave.isEmpty()) {
+            throw new IllegalArgumentException("El prefijo no puede estar vacío");
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El parámetro limit debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+
+        bloqueo.readLock().lock();
+        try {
+            Nodo nodo = buscarNodo(clave);
+            if (nodo == null) {
+                return List.of();
+            }
+            List<Sugerencia> sugerencias = new ArrayList<>(Math.min(limite, nodo.mejores.length));
+            for (int i = 0; i < nodo.mejores.length && sugerencias.size() < limite; i++) {
+                long id = nodo.mejores[i];
+                Entrada entrada = entradas.get(id);
+                sugerencias.add(new Sugerencia(id, entrada.nombre(), entrada.marca(), popularidad.getOrDefault(id, 0L)));
+            }
+            return sugerencias;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un producto; los productos inactivos no se sugieren
+     * @param id ID del producto
+     * @param datos Datos del producto
+     */
+    public void indexar(Long id, Instantanea datos) {
+        bloqueo.writeLock().lock();
+        try {
+            quitar(id);
+            if (Boolean.FALSE.equals(datos.activo())) {
+                return;
+            }
+            Entrada entrada = new Entrada(datos.nombre(), datos.marca(), claves(datos));
+            entradas.put(id, entrada);
+            for (String clave : entrada.claves()) {
+                recalcular(insertar(raiz, clave, id));
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto de las sugerencias
+     * @param id ID del producto
+     */
+    public void eliminar(Long id) {
+        bloqueo.writeLock().lock();
+        try {
+            quitar(id);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajusta la popularidad de un producto y reordena los nodos de sus claves
+     * @param id ID del producto
+     * @param delta Unidades a sumar (negativo para restar)
+     */
+    public void sumarPopularidad(Long id, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        bloqueo.writeLock().lock();
+        try {
+            popularidad.merge(id, delta, Long::sum);
+            Entrada entrada = entradas.get(id);
+            if (entrada != null) {
+                for (String clave : entrada.claves()) {
+                    recalcular(camino(clave));
+                }
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Mantiene el catálogo del trie con los cambios de productos confirmados
+     * @param evento Evento de producto
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoEvento evento) {
+        if (evento.actual() != null) {
+            indexar(evento.productoId(), evento.actual());
+        } else {
+            eliminar(evento.productoId());
+        }
+    }
+
+    /**
+     * Mantiene la popularidad con los pedidos confirmados: suma las unidades nuevas y
+     * resta las anteriores, sin contar pedidos cancelados
+     * @param evento Evento de pedido
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarPedido(PedidoEvento evento) {
+        Map<Long, Long> deltas = new HashMap<>(2);
+        if (cuenta(evento.anterior())) {
+            deltas.merge(evento.anterior().productoId(), -(long) evento.anterior().cantidad(), Long::sum);
+        }
+        if (cuenta(evento.actual())) {
+            deltas.merge(evento.actual().productoId(), (long) evento.actual().cantidad(), Long::sum);
+        }
+        deltas.forEach(this::sumarPopularidad);
+    }
+
+    private static boolean cuenta(PedidoEvento.Instantanea pedido) {
+        return pedido != null && pedido.productoId() != null && pedido.cantidad() != null
+                && pedido.estado() != EstadoPedido.CANCELADO;
+    }
+
+    /**
+     * Construye el trie completo desde la base de datos: una lectura del catálogo y un
+     * GROUP BY sobre los pedidos para la popularidad. También tras una importación masiva.
+     */
+    @EventListener({ApplicationReadyEvent.class, ProductosImportadosEvento.class})
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        bloqueo.writeLock().lock();
+        try {
+            popularidad.clear();
+            for (Object[] fila : pedidoRepository.sumarUnidadesPorProducto(EstadoPedido.CANCELADO)) {
+                popularidad.put((Long) fila[0], ((Number) fila[1]).longValue());
+            }
+
+            entradas.clear();
+            Nodo nuevaRaiz = new Nodo("");
+            for (Producto producto : productoRepository.findAll()) {
+                Instantanea datos = Instantanea.de(producto);
+                if (Boolean.FALSE.equals(datos.activo())) {
+                    continue;
+                }
+                Entrada entrada = new Entrada(datos.nombre(), datos.marca(), claves(datos));
+                entradas.put(producto.getId(), entrada);
+                for (String clave : entrada.claves()) {
+                    insertar(nuevaRaiz, clave, producto.getId());
+                }
+            }
+            recalcularSubarbol(nuevaRaiz);
+            raiz = nuevaRaiz;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        logger.info("Autocompletado de productos construido: {} productos en {} ms",
+                entradas.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // ==================== Claves ====================
+
+    private static Set<String> claves(Instantanea datos) {
+        Set<String> claves = new LinkedHashSet<>();
+        String nombre = TextoBusqueda.normalizar(datos.nombre());
+        if (!nombre.isEmpty()) {
+            claves.add(nombre);
+            for (int i = nombre.indexOf(' '); i >= 0; i = nombre.indexOf(' ', i + 1)) {
+                claves.add(nombre.substring(i + 1));
+            }
+        }
+        String marca = TextoBusqueda.normalizar(datos.marca());
+        if (!marca.isEmpty()) {
+            claves.add(marca);
+        }
+        return claves;
+    }
+
+    private void quitar(Long id) {
+        Entrada anterior = entradas.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String clave : anterior.claves()) {
+            List<Nodo> camino = camino(clave);
+            if (camino != null) {
+                Nodo terminal = camino.get(camino.size() - 1);
+                terminal.ids = quitarId(terminal.ids, id);
+                podar(camino);
+                recalcular(camino);
+            }
+        }
+    }
+
+    // ==================== Trie radix ====================
+
+    /**
+     * Inserta la clave y devuelve el camino de nodos desde la raíz hasta el nodo terminal
+     */
+    private static List<Nodo> insertar(Nodo raiz, String clave, long id) {
+        List<Nodo> camino = new ArrayList<>();
+        Nodo nodo = raiz;
+        camino.add(nodo);
+        int i = 0;
+        while (i < clave.length()) {
+            int posicion = buscarHijo(nodo, clave.charAt(i));
+            if (posicion < 0) {
+                Nodo hoja = new Nodo(clave.substring(i));
+                agregarHijo(nodo, hoja);
+                nodo = hoja;
+                camino.add(nodo);
+                break;
+            }
+            Nodo hijo = nodo.hijos[posicion];
+            int comun = prefijoComun(hijo.etiqueta, clave, i);
+            if (comun < hijo.etiqueta.length()) {
+                // La clave se separa a mitad de la arista: se divide en un nodo intermedio
+                Nodo intermedio = new Nodo(hijo.etiqueta.substring(0, comun));
+                hijo.etiqueta = hijo.etiqueta.substring(comun);
+                intermedio.hijos = new Nodo[] {hijo};
+                intermedio.mejores = hijo.mejores;
+                nodo.hijos[posicion] = intermedio;
+                hijo = intermedio;
+            }
+            nodo = hijo;
+            camino.add(nodo);
+            i += comun;
+        }
+        if (Arrays.stream(nodo.ids).noneMatch(existente -> existente == id)) {
+            nodo.ids = Arrays.copyOf(nodo.ids, nodo.ids.length + 1);
+            nodo.ids[nodo.ids.length - 1] = id;
+        }
+        return camino;
+    }
+
+    /**
+     * Nodo que cubre el prefijo (el prefijo puede terminar a mitad de una arista)
+     */
+    private Nodo buscarNodo(String prefijo) {
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < prefijo.length()) {
+            int posicion = buscarHijo(nodo, prefijo.charAt(i));
+            if (posicion < 0) {
+                return null;
+            }
+            Nodo hijo = nodo.hijos[posicion];
+            int comun = prefijoComun(hijo.etiqueta, prefijo, i);
+            if (i + comun == prefijo.length()) {
+                return hijo;
+            }
+            if (comun < hijo.etiqueta.length()) {
+                return null;
+            }
+            nodo = hijo;
+            i += comun;
+        }
+        return nodo;
+    }
+
+    /**
+     * Camino exacto hasta el nodo terminal de una clave, o nulo si la clave no está
+     */
+    private List<Nodo> camino(String clave) {
+        List<Nodo> camino = new ArrayList<>();
+        Nodo nodo = raiz;
+        camino.add(nodo);
+        int i = 0;
+        while (i < clave.length()) {
+            int posicion = buscarHijo(nodo, clave.charAt(i));
+            if (posicion < 0) {
+                return null;
+            }
+            nodo = nodo.hijos[posicion];
+            if (!clave.startsWith(nodo.etiqueta, i)) {
+                return null;
+            }
+            camino.add(nodo);
+            i += nodo.etiqueta.length();
+        }
+        return camino;
+    }
+
+    /**
+     * Elimina del camino las hojas que quedaron sin IDs
+     */
+    private static void podar(List<Nodo> camino) {
+        for (int i = camino.size() - 1; i > 0; i--) {
+            Nodo nodo = camino.get(i);
+            if (nodo.ids.length > 0 || nodo.hijos.length > 0) {
+                return;
+            }
+            Nodo padre = camino.get(i - 1);
+            padre.hijos = Arrays.stream(padre.hijos).filter(hijo -> hijo != nodo).toArray(Nodo[]::new);
+        }
+    }
+
+    /**
+     * Recalcula los mejores K de cada nodo del camino, de la hoja hacia la raíz
+     * Los mejores de un nodo salen de sus propios IDs y de los mejores de sus hijos
+     */
+    private void recalcular(List<Nodo> camino) {
+        if (camino == null) {
+            return;
+        }
+        for (int i = camino.size() - 1; i >= 0; i--) {
+            recalcularNodo(camino.get(i));
+        }
+    }
+
+    private void recalcularSubarbol(Nodo nodo) {
+        for (Nodo hijo : nodo.hijos) {
+            recalcularSubarbol(hijo);
+        }
+        recalcularNodo(nodo);
+    }
+
+    private void recalcularNodo(Nodo nodo) {
+        Set<Long> candidatos = new LinkedHashSet<>();
+        for (long id : nodo.ids) {
+            candidatos.add(id);
+        }
+        for (Nodo hijo : nodo.hijos) {
+            for (long id : hijo.mejores) {
+                candidatos.add(id);
+            }
+        }
+        nodo.mejores = candidatos.stream()
+                .sorted(porPopularidad)
+                .limit(LIMITE_MAXIMO)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private static int buscarHijo(Nodo nodo, char primero) {
+        int bajo = 0;
+        int alto = nodo.hijos.length - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            char actual = nodo.hijos[medio].etiqueta.charAt(0);
+            if (actual < primero) {
+                bajo = medio + 1;
+            } else if (actual > primero) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -1;
+    }
+
+    private static void agregarHijo(Nodo nodo, Nodo hijo) {
+        char primero = hijo.etiqueta.charAt(0);
+        int posicion = 0;
+        while (posicion < nodo.hijos.length && nodo.hijos[posicion].etiqueta.charAt(0) < primero) {
+            posicion++;
+        }
+        Nodo[] hijos = new Nodo[nodo.hijos.length + 1];
+        System.arraycopy(nodo.hijos, 0, hijos, 0, posicion);
+        hijos[posicion] = hijo;
+        System.arraycopy(nodo.hijos, posicion, hijos, posicion + 1, nodo.hijos.length - posicion);
+        nodo.hijos = hijos;
+    }
+
+    private static int prefijoComun(String etiqueta, String clave, int desde) {
+        int comun = 0;
+        while (comun < etiqueta.length() && desde + comun < clave.length()
+                && etiqueta.charAt(comun) == clave.charAt(desde + comun)) {
+            comun++;
+        }
+        return comun;
+    }
+
+    private static long[] quitarId(long[] ids, long id) {
+        return Arrays.stream(ids).filter(existente -> existente != id).toArray();
+    }
+}
@@ -0,0 +1,75 @@
+package com.ejemplo.service;
+
+import com.ejemplo.repository.BloqueoTareaRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Bloqueos consultivos entre nodos para tareas programadas
+ * Cada tarea tiene una fila en bloqueos_tareas con su propietario y vencimiento; un nodo
+ * ejecuta la tarea solo si su UPDATE condicional (renovar el bloqueo propio o tomar uno
+ * vencido) afecta la fila, o si es el primero en insertarla. Si el nodo cae a mitad de
+ * una ejecución, el bloqueo vence y otro nodo lo toma.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Component
+public class BloqueosTareas {
+
+    private final BloqueoTareaRepository bloqueoTareaRepository;
+    private final String propietario;
+
+    public BloqueosTareas(BloqueoTareaRepository bloqueoTareaRepository) {
+        this.bloqueoTareaRepository = bloqueoTareaRepository;
+        this.propietario = nombreNodo() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * @return Identificador de este nodo como propietario de bloqueos
+     */
+    public String propietario() {
+        return propietario;
+    }
+
+    /**
+     * Toma o renueva el bloqueo de una tarea
+     * @param tarea Nombre de la tarea
+     * @param vigencia Tiempo que se conserva el bloqueo sin renovarlo
+     * @return true si este nodo tiene el bloqueo
+     */
+    public boolean adquirir(String tarea, Duration vigencia) {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (bloqueoTareaRepository.adquirir(tarea, propietario, ahora, ahora.plus(vigencia)) > 0) {
+            return true;
+        }
+        try {
+            return bloqueoTareaRepository.crear(tarea, propietario, ahora.plus(vigencia)) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // Otro nodo tiene la fila vigente o la insertó al mismo tiempo
+            return false;
+        }
+    }
+
+    /**
+     * Libera el bloqueo de una tarea si lo tiene este nodo
+     * @param tarea Nombre de la tarea
+     */
+    public void liberar(String tarea) {
+        bloqueoTareaRepository.liberar(tarea, propietario, LocalDateTime.now());
+    }
+
+    private static String nombreNodo() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "nodo";
+        }
+    }
+}
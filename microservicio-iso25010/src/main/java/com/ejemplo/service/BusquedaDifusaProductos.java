@@ -0,0 +1,346 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import com.ejemplo.util.TextoBusqueda;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Búsqueda de productos tolerante a errores de tipeo
+ * Mantiene el vocabulario de palabras del catálogo y una lista invertida de trigramas por
+ * palabra. Para cada palabra de la consulta, los candidatos son las palabras del vocabulario
+ * que comparten trigramas con ella (sin recorrer la tabla); se descartan las de Jaccard bajo
+ * y el resto se puntúa con la distancia de Levenshtein normalizada contra un umbral.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class BusquedaDifusaProductos {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusquedaDifusaProductos.class);
+
+    // Jaccard mínimo de trigramas para calcular Levenshtein sobre un candidato
+    private static final double JACCARD_MINIMO = 0.2;
+
+    // Peso de cada campo (nombre, descripción, categoría, marca), igual que la búsqueda exacta
+    private static final int[] PESOS = {8, 1, 3, 5};
+
+    /**
+     * Palabra del vocabulario: sus trigramas y el peso máximo con que aparece en cada producto
+     */
+    private record Termino(Set<String> trigramas, Map<Long, Integer> productos) {
+    }
+
+    private record Coincidencia(Long id, double puntaje) {
+    }
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Value("${productos.busqueda.umbral-similitud:0.7}")
+    private double umbralSimilitud = 0.7;
+
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final Map<String, Termino> vocabulario = new HashMap<>();
+    private final Map<String, Set<String>> listas = new HashMap<>();
+    private final Map<Long, Map<String, Integer>> terminosPorProducto = new HashMap<>();
+    private volatile boolean listo;
+
+    /**
+     * Indica si el vocabulario ya se construyó
+     * @return true si la búsqueda difusa está disponible
+     */
+    public boolean estaListo() {
+        return listo;
+    }
+
+    /**
+     * Número de palabras distintas en el vocabulario
+     * @return Tamaño del vocabulario
+     */
+    public int tamanoVocabulario() {
+        bloqueo.readLock().lock();
+        try {
+            return vocabulario.size();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos que contengan, para cada palabra de la consulta, alguna palabra
+     * con similitud mayor o igual al umbral configurado
+     * @param texto Texto libre, posiblemente con errores de tipeo
+     * @return IDs de los productos, del más parecido al menos parecido
+     */
+    public List<Long> buscar(String texto) {
+        return buscar(texto, umbralSimilitud);
+    }
+
+    /**
+     * Busca productos con un umbral de similitud explícito
+     * @param texto Texto libre, posiblemente con errores de tipeo
+     * @param umbral Similitud mínima (0-1] entre cada palabra de la consulta y la del producto
+     * @return IDs de los productos, del más parecido al menos parecido
+     * @throws IllegalArgumentException si el umbral está fuera de rango
+     */
+    public List<Long> buscar(String texto, double umbral) {
+        if (umbral <= 0 || umbral > 1) {
+            throw new IllegalArgumentException("El umbral de similitud debe estar entre 0 y 1");
+        }
+        Set<String> palabras = palabras(TextoBusqueda.normalizar(texto));
+        if (palabras.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> acumulado = null;
+        for (String palabra : palabras) {
+            Map<Long, Double> porProducto;
+            bloqueo.readLock().lock();
+            try {
+                porProducto = puntuarPalabra(palabra, umbral);
+            } finally {
+                bloqueo.readLock().unlock();
+            }
+            if (acumulado == null) {
+                acumulado = porProducto;
+            } else {
+                // Todas las palabras de la consulta deben coincidir con el producto
+                Map<Long, Double> anterior = acumulado;
+                acumulado = new HashMap<>();
+                for (Map.Entry<Long, Double> entrada : porProducto.entrySet()) {
+                    Double previo = anterior.get(entrada.getKey());
+                    if (previo != null) {
+                        acumulado.put(entrada.getKey(), previo + entrada.getValue());
+                    }
+                }
+            }
+            if (acumulado.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Coincidencia> coincidencias = new ArrayList<>(acumulado.size());
+        acumulado.forEach((id, puntaje) -> coincidencias.add(new Coincidencia(id, puntaje)));
+        coincidencias.sort(Comparator.comparingDouble(Coincidencia::puntaje).reversed()
+                .thenComparing(Coincidencia::id));
+        return coincidencias.stream().map(Coincidencia::id).toList();
+    }
+
+    /**
+     * Mejor puntaje por producto para una palabra de la consulta: similitud × peso del campo
+     */
+    private Map<Long, Double> puntuarPalabra(String palabra, double umbral) {
+        Set<String> trigramasConsulta = trigramas(palabra);
+
+        // Trigramas compartidos por cada palabra candidata, a partir de las listas invertidas
+        Map<String, Integer> compartidos = new HashMap<>();
+        for (String trigrama : trigramasConsulta) {
+            Set<String> lista = listas.get(trigrama);
+            if (lista != null) {
+                for (String candidata : lista) {
+                    compartidos.merge(candidata, 1, Integer::sum);
+                }
+            }
+        }
+
+        Map<Long, Double> porProducto = new HashMap<>();
+        for (Map.Entry<String, Integer> entrada : compartidos.entrySet()) {
+            Termino termino = vocabulario.get(entrada.getKey());
+            int interseccion = entrada.getValue();
+            double jaccard = (double) interseccion
+                    / (trigramasConsulta.size() + termino.trigramas().size() - interseccion);
+            if (jaccard < JACCARD_MINIMO) {
+                continue;
+            }
+            double similitud = similitud(palabra, entrada.getKey());
+            if (similitud < umbral) {
+                continue;
+            }
+            termino.productos().forEach((id, peso) -> porProducto.merge(id, similitud * peso, Math::max));
+        }
+        return porProducto;
+    }
+
+    /**
+     * Similitud de Levenshtein normalizada: 1 - distancia / longitud mayor
+     * @param a Primera palabra
+     * @param b Segunda palabra
+     * @return Valor entre 0 (totalmente distintas) y 1 (iguales)
+     */
+    static double similitud(String a, String b) {
+        int mayor = Math.max(a.length(), b.length());
+        return mayor == 0 ? 1.0 : 1.0 - (double) levenshtein(a, b) / mayor;
+    }
+
+    /**
+     * Distancia de edición con dos filas (memoria proporcional a la palabra más corta)
+     */
+    static int levenshtein(String a, String b) {
+        if (a.length() < b.length()) {
+            String temporal = a;
+            a = b;
+            b = temporal;
+        }
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                actual[j] = Math.min(Math.min(actual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + costo);
+            }
+            int[] intercambio = anterior;
+            anterior = actual;
+            actual = intercambio;
+        }
+        return anterior[b.length()];
+    }
+
+    /**
+     * Agrega o reemplaza un producto en el vocabulario
+     * @param id ID del producto
+     * @param datos Datos de texto del producto
+     */
+    public void indexar(Long id, Instantanea datos) {
+        bloqueo.writeLock().lock();
+        try {
+            agregar(id, datos);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    private void agregar(Long id, Instantanea datos) {
+        quitar(id);
+        String[] campos = {datos.nombre(), datos.descripcion(), datos.categoria(), datos.marca()};
+        Map<String, Integer> terminos = new HashMap<>();
+        for (int i = 0; i < campos.length; i++) {
+            for (String palabra : palabras(TextoBusqueda.normalizar(campos[i]))) {
+                terminos.merge(palabra, PESOS[i], Math::max);
+            }
+        }
+        terminos.forEach((palabra, peso) -> vocabulario
+                .computeIfAbsent(palabra, this::nuevoTermino)
+                .productos().put(id, peso));
+        terminosPorProducto.put(id, terminos);
+    }
+
+    /**
+     * Elimina un producto del vocabulario
+     * @param id ID del producto
+     */
+    public void eliminar(Long id) {
+        bloqueo.writeLock().lock();
+        try {
+            quitar(id);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    private void quitar(Long id) {
+        Map<String, Integer> anteriores = terminosPorProducto.remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        for (String palabra : anteriores.keySet()) {
+            Termino termino = vocabulario.get(palabra);
+            termino.productos().remove(id);
+            if (termino.productos().isEmpty()) {
+                vocabulario.remove(palabra);
+                for (String trigrama : termino.trigramas()) {
+                    Set<String> lista = listas.get(trigrama);
+                    lista.remove(palabra);
+                    if (lista.isEmpty()) {
+                        listas.remove(trigrama);
+                    }
+                }
+            }
+        }
+    }
+
+    private Termino nuevoTermino(String palabra) {
+        Set<String> trigramas = trigramas(palabra);
+        for (String trigrama : trigramas) {
+            listas.computeIfAbsent(trigrama, t -> new LinkedHashSet<>()).add(palabra);
+        }
+        return new Termino(trigramas, new HashMap<>());
+    }
+
+    /**
+     * Trigramas de la palabra con un espacio a cada lado, para que las palabras cortas
+     * también tengan trigramas y el inicio y el final pesen en la similitud
+     */
+    private static Set<String> trigramas(String palabra) {
+        return TextoBusqueda.trigramas(" " + palabra + " ");
+    }
+
+    private static Set<String> palabras(String normalizado) {
+        Set<String> palabras = new LinkedHashSet<>();
+        for (String palabra : normalizado.split("[^\\p{L}\\p{N}]+")) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    /**
+     * Mantiene el vocabulario con los cambios de productos confirmados
+     * @param evento Evento de producto
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoEvento evento) {
+        if (evento.actual() != null) {
+            indexar(evento.productoId(), evento.actual());
+        } else {
+            eliminar(evento.productoId());
+        }
+    }
+
+    /**
+     * Construye el vocabulario completo desde la base de datos
+     * Se repite al terminar una importación masiva, que no publica eventos por producto
+     */
+    @EventListener({ApplicationReadyEvent.class, ProductosImportadosEvento.class})
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        bloqueo.writeLock().lock();
+        try {
+            vocabulario.clear();
+            listas.clear();
+            terminosPorProducto.clear();
+            for (Producto producto : productoRepository.findAll()) {
+                agregar(producto.getId(), Instantanea.de(producto));
+            }
+            listo = true;
+            logger.info("Vocabulario de búsqueda difusa construido: {} palabras, {} trigramas en {} ms",
+                    vocabulario.size(), listas.size(), (System.nanoTime() - inicio) / 1_000_000);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+}
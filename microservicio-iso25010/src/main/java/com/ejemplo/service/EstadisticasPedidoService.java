@@ -0,0 +1,109 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.repository.PedidoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio de estadísticas de pedidos mantenidas en memoria
+ * Los contadores por estado se actualizan con cada PedidoEvento confirmado y se
+ * reconcilian periódicamente con un único GROUP BY sobre la tabla de pedidos,
+ * de modo que la consulta de estadísticas no depende del tamaño de la tabla
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class EstadisticasPedidoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstadisticasPedidoService.class);
+
+    /**
+     * Instantánea consistente de los contadores
+     */
+    public record Resumen(
+        Map<EstadoPedido, Long> conteos,
+        BigDecimal ventasTotal
+    ) {
+        public long contar(EstadoPedido estado) {
+            return conteos.getOrDefault(estado, 0L);
+        }
+
+        public long total() {
+            return conteos.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    private final EnumMap<EstadoPedido, Long> conteos = new EnumMap<>(EstadoPedido.class);
+    private BigDecimal ventasTotal = BigDecimal.ZERO;
+
+    /**
+     * Obtiene las estadísticas actuales sin consultar la base de datos
+     * @return Resumen de pedidos por estado y total vendido
+     */
+    public synchronized Resumen obtener() {
+        return new Resumen(new EnumMap<>(conteos), ventasTotal);
+    }
+
+    /**
+     * Aplica a los contadores la diferencia que describe el evento
+     * Se ejecuta después del commit para no contar cambios revertidos
+     * @param evento Evento de pedido
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void alCambiarPedido(PedidoEvento evento) {
+        if (evento.anterior() != null) {
+            conteos.merge(evento.anterior().estado(), -1L, Long::sum);
+            ventasTotal = ventasTotal.subtract(valor(evento.anterior().total()));
+        }
+        if (evento.actual() != null) {
+            conteos.merge(evento.actual().estado(), 1L, Long::sum);
+            ventasTotal = ventasTotal.add(valor(evento.actual().total()));
+        }
+    }
+
+    /**
+     * Recalcula los contadores desde la base de datos con un solo GROUP BY
+     * Corrige cualquier desviación acumulada (p.ej. eventos concurrentes con la reconciliación anterior)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${pedidos.estadisticas.reconciliacion-ms:300000}",
+               fixedDelayString = "${pedidos.estadisticas.reconciliacion-ms:300000}")
+    public void reconciliar() {
+        List<Object[]> filas = pedidoRepository.resumirPorEstado();
+
+        EnumMap<EstadoPedido, Long> nuevosConteos = new EnumMap<>(EstadoPedido.class);
+        BigDecimal nuevasVentas = BigDecimal.ZERO;
+        for (Object[] fila : filas) {
+            nuevosConteos.put((EstadoPedido) fila[0], ((Number) fila[1]).longValue());
+            nuevasVentas = nuevasVentas.add(valor((BigDecimal) fila[2]));
+        }
+
+        synchronized (this) {
+            conteos.clear();
+            conteos.putAll(nuevosConteos);
+            ventasTotal = nuevasVentas;
+        }
+        logger.debug("Estadísticas de pedidos reconciliadas: {}", nuevosConteos);
+    }
+
+    private static BigDecimal valor(BigDecimal total) {
+        return total != null ? total : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.util.RuedaTemporizadora;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vencimiento de las reservas de stock de los pedidos pendientes
+ * Un pedido PENDIENTE retiene su stock durante ttl-minutos; pasado ese plazo se cancela y el
+ * stock vuelve al producto. Los vencimientos se llevan en una rueda temporizadora jerárquica
+ * alimentada por los PedidoEvento confirmados, así que programar, cancelar y avanzar un tick
+ * cuestan O(1) y nunca se recorre la tabla de pedidos: solo se consulta una vez al arrancar.
+ * Los pedidos vencidos se cancelan por lotes con PedidoService.cancelarEnBloque.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class ExpiracionReservas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiracionReservas.class);
+
+    // Cuatro niveles de 64 ranuras: con ticks de 1 s cubren más de 190 días
+    private static final int NIVELES = 4;
+    private static final long REINTENTO_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private final PedidoService pedidoService;
+    private final PedidoRepository pedidoRepository;
+    private final long ttlMs;
+    private final int tamanoLote;
+    private final RuedaTemporizadora<Long> rueda;
+
+    public ExpiracionReservas(PedidoService pedidoService, PedidoRepository pedidoRepository,
+                              @Value("${pedidos.reservas.ttl-minutos:30}") long ttlMinutos,
+                              @Value("${pedidos.reservas.tick-ms:1000}") long tickMs,
+                              @Value("${pedidos.reservas.tamano-lote:200}") int tamanoLote) {
+        this.pedidoService = pedidoService;
+        this.pedidoRepository = pedidoRepository;
+        this.ttlMs = TimeUnit.MINUTES.toMillis(ttlMinutos);
+        this.tamanoLote = tamanoLote;
+        this.rueda = new RuedaTemporizadora<>(tickMs, NIVELES, System.currentTimeMillis());
+    }
+
+    /**
+     * @return Número de reservas con vencimiento programado
+     */
+    public int programadas() {
+        synchronized (rueda) {
+            return rueda.tamano();
+        }
+    }
+
+    /**
+     * Programa el vencimiento de los pedidos que quedan PENDIENTE y lo cancela en los demás
+     * Un pedido que vuelve a PENDIENTE recibe un plazo completo desde el cambio
+     * @param evento Evento de pedido
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarPedido(PedidoEvento evento) {
+        boolean pendiente = evento.actual() != null && evento.actual().estado() == EstadoPedido.PENDIENTE;
+        boolean eraPendiente = evento.anterior() != null && evento.anterior().estado() == EstadoPedido.PENDIENTE;
+        synchronized (rueda) {
+            if (pendiente && !eraPendiente) {
+                rueda.programar(evento.pedidoId(), milisegundos(evento.fecha()) + ttlMs);
+            } else if (!pendiente) {
+                rueda.cancelar(evento.pedidoId());
+            }
+        }
+    }
+
+    /**
+     * Programa los pedidos pendientes existentes al arrancar; los ya vencidos caen en el primer tick
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        List<Object[]> filas = pedidoRepository.findFechasPorEstado(EstadoPedido.PENDIENTE);
+        synchronized (rueda) {
+            for (Object[] fila : filas) {
+                rueda.programar((Long) fila[0], milisegundos((LocalDateTime) fila[1]) + ttlMs);
+            }
+        }
+        logger.info("Reservas de pedidos pendientes programadas: {}", filas.size());
+    }
+
+    @Scheduled(fixedDelayString = "${pedidos.reservas.tick-ms:1000}")
+    public void avanzar() {
+        vencer(System.currentTimeMillis());
+    }
+
+    /**
+     * Avanza la rueda hasta el instante indicado y cancela por lotes los pedidos vencidos
+     * Un lote que falla se reprograma para reintentarse más tarde
+     * @param ahoraMs Instante actual en milisegundos
+     * @return Número de pedidos cancelados
+     */
+    int vencer(long ahoraMs) {
+        List<Long> vencidos;
+        synchronized (rueda) {
+            vencidos = rueda.avanzar(ahoraMs);
+        }
+        int cancelados = 0;
+        for (int i = 0; i < vencidos.size(); i += tamanoLote) {
+            List<Long> lote = vencidos.subList(i, Math.min(i + tamanoLote, vencidos.size()));
+            try {
+                cancelados += pedidoService.cancelarEnBloque(lote, Set.of(EstadoPedido.PENDIENTE));
+            } catch (RuntimeException e) {
+                logger.warn("No se pudo cancelar un lote de {} reservas vencidas: {}", lote.size(), e.getMessage());
+                synchronized (rueda) {
+                    lote.forEach(id -> rueda.programar(id, ahoraMs + REINTENTO_MS));
+                }
+            }
+        }
+        if (!vencidos.isEmpty()) {
+            logger.info("Reservas vencidas: {}, pedidos cancelados: {}", vencidos.size(), cancelados);
+        }
+        return cancelados;
+    }
+
+    private static long milisegundos(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
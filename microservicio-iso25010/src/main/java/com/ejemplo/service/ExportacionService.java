@@ -0,0 +1,131 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Exportación completa de productos, pedidos y usuarios como JSON en streaming
+ * Cada exportación recorre un Stream del repositorio (leído por bloques con fetch size)
+ * dentro de una transacción de solo lectura y escribe cada fila con un JsonGenerator
+ * directamente en la respuesta. Cada bloque se vacía del contexto de persistencia y se
+ * envía al cliente, por lo que la memoria usada no depende del número de filas.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class ExportacionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionService.class);
+
+    // Igual al fetch size de las consultas de exportación
+    static final int TAMANO_BLOQUE = 500;
+
+    private final ProductoRepository productoRepository;
+    private final PedidoRepository pedidoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate lectura;
+
+    public ExportacionService(ProductoRepository productoRepository, PedidoRepository pedidoRepository,
+                              UsuarioRepository usuarioRepository, ObjectMapper objectMapper,
+                              EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.productoRepository = productoRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+    }
+
+    /**
+     * @return Cuerpo que escribe todos los productos como arreglo JSON
+     */
+    public StreamingResponseBody productos() {
+        return exportar("productos", () -> productoRepository.streamParaExportar().map(this::conStockTotal));
+    }
+
+    /**
+     * @return Cuerpo que escribe todos los pedidos como arreglo JSON
+     */
+    public StreamingResponseBody pedidos() {
+        return exportar("pedidos", pedidoRepository::streamParaExportar);
+    }
+
+    /**
+     * @return Cuerpo que escribe todos los usuarios como arreglo JSON
+     */
+    public StreamingResponseBody usuarios() {
+        return exportar("usuarios", usuarioRepository::streamParaExportar);
+    }
+
+    // El producto se desconecta para publicar el stock total sin que se escriba en su fila
+    private Producto conStockTotal(Object[] fila) {
+        Producto producto = (Producto) fila[0];
+        entityManager.detach(producto);
+        producto.setStock(((Number) fila[1]).intValue());
+        return producto;
+    }
+
+    /**
+     * La consulta se ejecuta cuando el contenedor escribe la respuesta, no al llamar al método
+     */
+    private <T> StreamingResponseBody exportar(String recurso, Supplier<Stream<T>> consulta) {
+        return salida -> {
+            long inicio = System.nanoTime();
+            try {
+                Long filas = lectura.execute(estado -> escribir(consulta, salida));
+                logger.info("Exportación de {} completada: {} filas en {} ms",
+                        recurso, filas, (System.nanoTime() - inicio) / 1_000_000);
+            } catch (UncheckedIOException e) {
+                // El cliente cerró la conexión o falló la escritura: la respuesta queda incompleta
+                logger.warn("Exportación de {} interrumpida: {}", recurso, e.getMessage());
+                throw e.getCause();
+            }
+        };
+    }
+
+    private <T> long escribir(Supplier<Stream<T>> consulta, OutputStream salida) {
+        try (Stream<T> filas = consulta.get();
+             JsonGenerator generador = objectMapper.createGenerator(salida, JsonEncoding.UTF8)) {
+            // El contenedor cierra la respuesta
+            generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generador.writeStartArray();
+            long total = 0;
+            Iterator<T> iterador = filas.iterator();
+            while (iterador.hasNext()) {
+                generador.writeObject(iterador.next());
+                if (++total % TAMANO_BLOQUE == 0) {
+                    // Las filas ya escritas no se retienen en el contexto de persistencia ni en el buffer
+                    entityManager.clear();
+                    generador.flush();
+                }
+            }
+            generador.writeEndArray();
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
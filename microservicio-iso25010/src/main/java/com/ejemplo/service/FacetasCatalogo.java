@@ -0,0 +1,183 @@
+package com.ejemplo.service;
+
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Facetas del catálogo en memoria: categorías y marcas ordenadas con el número de
+ * productos de cada valor. Se construyen al iniciar la aplicación y se mantienen de
+ * forma incremental con cada ProductoEvento confirmado, sin SELECT DISTINCT por solicitud.
+ * Cada faceta tiene una versión que solo cambia cuando cambian sus valores o conteos,
+ * y que se publica como ETag para que los clientes revaliden con If-None-Match.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class FacetasCatalogo {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacetasCatalogo.class);
+
+    /**
+     * Valor de una faceta y número de productos que lo tienen
+     */
+    public record Faceta(String valor, long productos) {
+    }
+
+    /**
+     * Estado inmutable de una faceta en una versión dada
+     */
+    public record Vista(List<Faceta> facetas, String etag) {
+
+        public List<String> valores() {
+            return facetas.stream().map(Faceta::valor).toList();
+        }
+    }
+
+    /**
+     * Conteos ordenados de una faceta y la vista publicada para lectores concurrentes
+     */
+    private static final class Conteo {
+
+        private final String nombre;
+        private final TreeMap<String, Long> conteos = new TreeMap<>();
+        private long version;
+        private volatile Vista vista = new Vista(List.of(), "");
+
+        private Conteo(String nombre) {
+            this.nombre = nombre;
+        }
+
+        private void sumar(String valor) {
+            if (valor != null) {
+                conteos.merge(valor, 1L, Long::sum);
+            }
+        }
+
+        private void restar(String valor) {
+            if (valor != null) {
+                conteos.computeIfPresent(valor, (clave, total) -> total > 1 ? total - 1 : null);
+            }
+        }
+
+        private void limpiar() {
+            conteos.clear();
+        }
+
+        private void publicar(String generacion) {
+            List<Faceta> facetas = new ArrayList<>(conteos.size());
+            conteos.forEach((valor, total) -> facetas.add(new Faceta(valor, total)));
+            version++;
+            vista = new Vista(List.copyOf(facetas), "\"" + nombre + "-" + generacion + "-" + version + "\"");
+        }
+    }
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    // Categoría y marca vigentes de cada producto, para restar el valor anterior al cambiar
+    private final Map<Long, String[]> porProducto = new HashMap<>();
+    private final Conteo categorias = new Conteo("categorias");
+    private final Conteo marcas = new Conteo("marcas");
+    private String generacion = "";
+    private volatile boolean listo;
+
+    /**
+     * Categorías ordenadas con su número de productos
+     * @return Vista actual de la faceta de categorías
+     */
+    public Vista categorias() {
+        asegurarConstruidas();
+        return categorias.vista;
+    }
+
+    /**
+     * Marcas ordenadas con su número de productos
+     * @return Vista actual de la faceta de marcas
+     */
+    public Vista marcas() {
+        asegurarConstruidas();
+        return marcas.vista;
+    }
+
+    /**
+     * Aplica a los conteos el cambio que describe el evento
+     * Solo se publica una nueva versión de la faceta cuyo valor cambió
+     * @param evento Evento de producto
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void alCambiarProducto(ProductoEvento evento) {
+        if (!listo) {
+            // La construcción inicial leerá el cambio desde la base de datos
+            return;
+        }
+        String[] anterior = porProducto.getOrDefault(evento.productoId(), new String[2]);
+        Instantanea actual = evento.actual();
+        String[] nuevo = actual != null ? new String[] {actual.categoria(), actual.marca()} : new String[2];
+
+        if (actual != null) {
+            porProducto.put(evento.productoId(), nuevo);
+        } else {
+            porProducto.remove(evento.productoId());
+        }
+        actualizar(categorias, anterior[0], nuevo[0]);
+        actualizar(marcas, anterior[1], nuevo[1]);
+    }
+
+    private void actualizar(Conteo conteo, String anterior, String nuevo) {
+        if (Objects.equals(anterior, nuevo)) {
+            return;
+        }
+        conteo.restar(anterior);
+        conteo.sumar(nuevo);
+        conteo.publicar(generacion);
+    }
+
+    private void asegurarConstruidas() {
+        if (!listo) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Construye las facetas desde la base de datos
+     * Cada reconstrucción inicia una generación nueva, de modo que un ETag emitido antes
+     * de reiniciar la aplicación nunca coincide con uno posterior. Una importación masiva
+     * también reconstruye las facetas.
+     */
+    @EventListener({ApplicationReadyEvent.class, ProductosImportadosEvento.class})
+    public synchronized void reconstruir() {
+        long inicio = System.nanoTime();
+        porProducto.clear();
+        categorias.limpiar();
+        marcas.limpiar();
+        for (Object[] fila : productoRepository.findCategoriasYMarcas()) {
+            String categoria = (String) fila[1];
+            String marca = (String) fila[2];
+            porProducto.put((Long) fila[0], new String[] {categoria, marca});
+            categorias.sumar(categoria);
+            marcas.sumar(marca);
+        }
+        generacion = Long.toString(System.currentTimeMillis(), 36);
+        categorias.publicar(generacion);
+        marcas.publicar(generacion);
+        listo = true;
+        logger.info("Facetas del catálogo construidas: {} categorías, {} marcas en {} ms",
+                categorias.conteos.size(), marcas.conteos.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
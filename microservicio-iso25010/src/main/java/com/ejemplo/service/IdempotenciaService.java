@@ -0,0 +1,194 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.ClaveIdempotencia;
+import com.ejemplo.repository.ClaveIdempotenciaRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Servicio de deduplicación para solicitudes con Idempotency-Key
+ * Mantiene un LRU acotado en memoria delante de la tabla claves_idempotencia,
+ * que es la fuente de verdad compartida entre instancias
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    /**
+     * Resultado de intentar reservar una clave
+     */
+    public enum ResultadoReserva {
+        /** La clave es nueva: la solicitud debe ejecutarse */
+        NUEVA,
+        /** La clave ya tiene respuesta: se devuelve la guardada */
+        REPETIDA,
+        /** Otra solicitud con la misma clave se está ejecutando */
+        EN_PROCESO,
+        /** La clave se reutilizó con una solicitud distinta */
+        CONFLICTO
+    }
+
+    /**
+     * Respuesta almacenada para una clave completada
+     */
+    public record RespuestaGuardada(
+        String huella,
+        int estadoHttp,
+        String tipoContenido,
+        String cuerpo,
+        LocalDateTime fechaExpiracion
+    ) {}
+
+    /**
+     * Reserva de una clave con la respuesta guardada cuando es REPETIDA
+     * y el token que identifica la reserva cuando es NUEVA
+     */
+    public record Reserva(
+        ResultadoReserva resultado,
+        RespuestaGuardada respuesta,
+        String token
+    ) {
+        public Reserva(ResultadoReserva resultado, RespuestaGuardada respuesta) {
+            this(resultado, respuesta, null);
+        }
+    }
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    @Value("${idempotencia.ttl-horas:24}")
+    private long ttlHoras;
+
+    @Value("${idempotencia.bloqueo-segundos:60}")
+    private long bloqueoSegundos;
+
+    @Value("${idempotencia.capacidad-cache:10000}")
+    private int capacidadCache;
+
+    private Map<String, RespuestaGuardada> cache;
+
+    @PostConstruct
+    void iniciar() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RespuestaGuardada> mayor) {
+                return size() > capacidadCache;
+            }
+        });
+    }
+
+    /**
+     * Intenta reservar una clave para ejecutar la solicitud
+     * @param clave Clave compuesta (usuario, método, ruta e Idempotency-Key)
+     * @param huella Hash de la solicitud para detectar reutilización con otro contenido
+     * @return Resultado de la reserva
+     */
+    public Reserva reservar(String clave, String huella) {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        RespuestaGuardada enCache = cache.get(clave);
+        if (enCache != null && !enCache.fechaExpiracion().isBefore(ahora)) {
+            return evaluar(enCache, huella);
+        }
+
+        // Dos intentos: el segundo cubre una clave vencida que se eliminó en el primero
+        for (int intento = 0; intento < 2; intento++) {
+            try {
+                String token = UUID.randomUUID().toString();
+                claveIdempotenciaRepository.reservar(clave, huella, token, ahora, ahora.plusSeconds(bloqueoSegundos));
+                return new Reserva(ResultadoReserva.NUEVA, null, token);
+            } catch (DataIntegrityViolationException e) {
+                Optional<ClaveIdempotencia> existente = claveIdempotenciaRepository.findById(clave);
+                if (existente.isEmpty()) {
+                    continue;
+                }
+                ClaveIdempotencia registro = existente.get();
+                if (registro.estaExpirada(ahora)) {
+                    claveIdempotenciaRepository.eliminarSiExpirada(clave, ahora);
+                    continue;
+                }
+                if (registro.estaEnProceso()) {
+                    return registro.getHuella().equals(huella)
+                            ? new Reserva(ResultadoReserva.EN_PROCESO, null)
+                            : new Reserva(ResultadoReserva.CONFLICTO, null);
+                }
+                RespuestaGuardada respuesta = new RespuestaGuardada(registro.getHuella(), registro.getEstadoHttp(),
+                        registro.getTipoContenido(), registro.getCuerpo(), registro.getFechaExpiracion());
+                cache.put(clave, respuesta);
+                return evaluar(respuesta, huella);
+            }
+        }
+        return new Reserva(ResultadoReserva.EN_PROCESO, null);
+    }
+
+    /**
+     * Guarda la respuesta de una solicitud ejecutada con su clave reservada
+     * Si la reserva venció y otra solicitud tomó la clave, la respuesta se descarta
+     * @param clave Clave compuesta
+     * @param token Token de la reserva obtenida en reservar
+     * @param huella Hash de la solicitud
+     * @param estadoHttp Código HTTP de la respuesta
+     * @param tipoContenido Content-Type de la respuesta
+     * @param cuerpo Cuerpo de la respuesta
+     * @return true si la respuesta quedó guardada
+     */
+    public boolean completar(String clave, String token, String huella, int estadoHttp, String tipoContenido,
+                             String cuerpo) {
+        LocalDateTime expiracion = LocalDateTime.now().plusHours(ttlHoras);
+        if (claveIdempotenciaRepository.completar(clave, token, estadoHttp, tipoContenido, cuerpo, expiracion) == 0) {
+            logger.warn("La reserva de la clave de idempotencia venció antes de completarse; la respuesta no se guarda");
+            return false;
+        }
+        cache.put(clave, new RespuestaGuardada(huella, estadoHttp, tipoContenido, cuerpo, expiracion));
+        return true;
+    }
+
+    /**
+     * Libera una clave reservada cuya solicitud falló, para que el cliente pueda reintentar
+     * No afecta a la clave si otra solicitud la tomó después de vencer la reserva
+     * @param clave Clave compuesta
+     * @param token Token de la reserva obtenida en reservar
+     */
+    public void liberar(String clave, String token) {
+        claveIdempotenciaRepository.liberar(clave, token);
+    }
+
+    /**
+     * Elimina periódicamente las claves vencidas de la base de datos y del LRU
+     */
+    @Scheduled(fixedDelayString = "${idempotencia.purga-ms:600000}")
+    public void purgarExpiradas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int eliminadas = claveIdempotenciaRepository.eliminarExpiradas(ahora);
+        synchronized (cache) {
+            cache.values().removeIf(respuesta -> respuesta.fechaExpiracion().isBefore(ahora));
+        }
+        if (eliminadas > 0) {
+            logger.info("Purga de claves de idempotencia: {} claves vencidas eliminadas", eliminadas);
+        }
+    }
+
+    private Reserva evaluar(RespuestaGuardada respuesta, String huella) {
+        if (!respuesta.huella().equals(huella)) {
+            return new Reserva(ResultadoReserva.CONFLICTO, null);
+        }
+        return new Reserva(ResultadoReserva.REPETIDA, respuesta);
+    }
+}
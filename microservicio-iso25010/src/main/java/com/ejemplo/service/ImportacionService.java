@@ -0,0 +1,564 @@
+package com.ejemplo.service;
+
+import com.ejemplo.config.CacheConfig;
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoBatchRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de productos desde CSV o NDJSON
+ * El cuerpo se lee fila por fila; cada fila se valida con las mismas reglas que
+ * ProductoService.crear y las válidas se escriben en lotes JDBC (un INSERT por lote para
+ * las filas sin id y un UPDATE por lote para las filas con id), cada lote en su propia
+ * transacción. La siguiente parte del cuerpo solo se lee cuando el lote anterior quedó
+ * escrito, por lo que la memoria usada es la de un lote y el envío del cliente avanza al
+ * ritmo de la base de datos. Las filas rechazadas no detienen la importación: se reportan
+ * con su número de línea. En lugar de un ProductoEvento por fila se publica un único
+ * ProductosImportadosEvento al final, con el que los índices en memoria se reconstruyen
+ * una sola vez.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class ImportacionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionService.class);
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+    private static final Set<String> COLUMNAS =
+            Set.of("id", "nombre", "descripcion", "precio", "stock", "categoria", "marca", "activo");
+    private static final List<String> COLUMNAS_OBLIGATORIAS = List.of("nombre", "precio", "stock");
+    // Una comilla sin cerrar no puede acumular el resto del archivo en un único registro
+    static final int TAMANO_MAXIMO_REGISTRO = 64 * 1024;
+
+    /**
+     * Formatos de entrada aceptados
+     */
+    public enum Formato {
+        CSV,
+        NDJSON;
+
+        /**
+         * @param tipo Content-Type de la solicitud
+         * @return Formato correspondiente
+         * @throws IllegalArgumentException si el tipo no es text/csv ni application/x-ndjson
+         */
+        public static Formato desdeTipo(MediaType tipo) {
+            if (TEXT_CSV.isCompatibleWith(tipo)) {
+                return CSV;
+            }
+            if (APPLICATION_NDJSON.isCompatibleWith(tipo)) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Formato no soportado: " + tipo + ". Use text/csv o application/x-ndjson");
+        }
+    }
+
+    /**
+     * Fila rechazada: línea del archivo donde empieza y motivo
+     */
+    public record ErrorFila(long linea, String mensaje) {
+    }
+
+    /**
+     * Resumen de una importación
+     * errores se corta en el máximo configurado; erroresOmitidos cuenta los que no se listan
+     */
+    public record ResultadoImportacion(
+        long filas,
+        long insertados,
+        long actualizados,
+        long rechazados,
+        List<ErrorFila> errores,
+        long erroresOmitidos,
+        long duracionMs
+    ) {
+    }
+
+    // Fila leída del archivo: campos por columna o el error de lectura
+    private record Fila(long linea, Map<String, String> campos, String error) {
+    }
+
+    // Fila válida pendiente de escribir
+    private record Pendiente(long linea, Producto producto) {
+    }
+
+    private final ProductoBatchRepository productoBatchRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final InventarioFraccionado inventarioFraccionado;
+    private final TransactionTemplate escritura;
+    private final int tamanoLote;
+    private final int maximoErrores;
+    private final Semaphore importaciones;
+
+    public ImportacionService(ProductoBatchRepository productoBatchRepository, Validator validator,
+                              ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                              CacheManager cacheManager, InventarioFraccionado inventarioFraccionado,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${productos.importacion.tamano-lote:1000}") int tamanoLote,
+                              @Value("${productos.importacion.maximo-errores:1000}") int maximoErrores,
+                              @Value("${productos.importacion.concurrencia:2}") int concurrencia) {
+        this.productoBatchRepository = productoBatchRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.inventarioFraccionado = inventarioFraccionado;
+        this.escritura = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.maximoErrores = maximoErrores;
+        this.importaciones = new Semaphore(concurrencia);
+    }
+
+    /**
+     * Importa los productos del cuerpo: las filas sin id se crean y las filas con id
+     * reemplazan los datos del producto existente. Si activo se omite vale true.
+     * @param entrada Cuerpo de la solicitud
+     * @param tipo Content-Type de la solicitud (text/csv o application/x-ndjson, con charset opcional)
+     * @return Resumen con los contadores y las filas rechazadas
+     * @throws IllegalArgumentException si el formato no es soportado o el encabezado CSV es inválido
+     * @throws RejectedExecutionException si ya hay el máximo de importaciones en curso
+     * @throws IOException si falla la lectura del cuerpo
+     */
+    public ResultadoImportacion importar(InputStream entrada, MediaType tipo) throws IOException {
+        Formato formato = Formato.desdeTipo(tipo);
+        Charset charset = tipo.getCharset() != null ? tipo.getCharset() : StandardCharsets.UTF_8;
+        if (!importaciones.tryAcquire()) {
+            throw new RejectedExecutionException("Hay demasiadas importaciones en curso. Intente nuevamente más tarde");
+        }
+        try {
+            BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, charset));
+            Iterator<Fila> filas = formato == Formato.CSV ? new LectorCsv(lector) : new LectorNdjson(lector);
+            return importar(filas);
+        } catch (UncheckedLectura e) {
+            throw e.getCause();
+        } finally {
+            importaciones.release();
+        }
+    }
+
+    private ResultadoImportacion importar(Iterator<Fila> filas) {
+        long inicio = System.nanoTime();
+        Resumen resumen = new Resumen();
+        List<Pendiente> lote = new ArrayList<>(tamanoLote);
+        while (filas.hasNext()) {
+            Fila fila = filas.next();
+            resumen.filas++;
+            if (fila.error() != null) {
+                resumen.rechazar(fila.linea(), fila.error());
+                continue;
+            }
+            try {
+                lote.add(new Pendiente(fila.linea(), convertir(fila.campos())));
+            } catch (IllegalArgumentException e) {
+                resumen.rechazar(fila.linea(), e.getMessage());
+                continue;
+            }
+            if (lote.size() == tamanoLote) {
+                escribir(lote, resumen);
+                lote = new ArrayList<>(tamanoLote);
+            }
+        }
+        escribir(lote, resumen);
+        if (resumen.insertados + resumen.actualizados > 0) {
+            eventPublisher.publishEvent(
+                    new ProductosImportadosEvento(resumen.insertados, resumen.actualizados, LocalDateTime.now()));
+        }
+
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        logger.info("Importación de productos completada: {} filas ({} insertadas, {} actualizadas, {} rechazadas) en {} ms",
+                resumen.filas, resumen.insertados, resumen.actualizados, resumen.rechazados, duracionMs);
+        return new ResultadoImportacion(resumen.filas, resumen.insertados, resumen.actualizados, resumen.rechazados,
+                resumen.errores, resumen.erroresOmitidos, duracionMs);
+    }
+
+    /**
+     * Escribe el lote en una transacción. Si el lote falla en la base de datos se reintenta
+     * fila por fila para aislar las filas culpables y conservar las demás.
+     */
+    private void escribir(List<Pendiente> lote, Resumen resumen) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            escribirLote(lote, resumen);
+        } catch (DataAccessException e) {
+            if (lote.size() == 1) {
+                resumen.rechazar(lote.get(0).linea(), "Error de base de datos: " + e.getMostSpecificCause().getMessage());
+                return;
+            }
+            logger.warn("Lote de importación rechazado por la base de datos, se reintenta fila por fila: {}",
+                    e.getMostSpecificCause().getMessage());
+            for (Pendiente pendiente : lote) {
+                escribir(List.of(pendiente), resumen);
+            }
+        }
+    }
+
+    private void escribirLote(List<Pendiente> lote, Resumen resumen) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Producto> nuevos = new ArrayList<>();
+        List<Pendiente> existentes = new ArrayList<>();
+        for (Pendiente pendiente : lote) {
+            if (pendiente.producto().getId() == null) {
+                pendiente.producto().setFechaCreacion(ahora);
+                nuevos.add(pendiente.producto());
+            } else {
+                pendiente.producto().setFechaActualizacion(ahora);
+                existentes.add(pendiente);
+            }
+        }
+
+        List<Producto> productosExistentes = existentes.stream().map(Pendiente::producto).toList();
+        int[] filasAfectadas = escritura.execute(estado -> {
+            productoBatchRepository.insertar(nuevos);
+            int[] filas = productoBatchRepository.actualizar(productosExistentes);
+            // El stock importado de un producto fraccionado es su nuevo total
+            List<Long> fijados = new ArrayList<>(filas.length);
+            for (int i = 0; i < filas.length; i++) {
+                if (filas[i] > 0) {
+                    fijados.add(productosExistentes.get(i).getId());
+                }
+            }
+            inventarioFraccionado.repartirStockFijado(fijados);
+            return filas;
+        });
+
+        List<Long> actualizados = new ArrayList<>(existentes.size());
+        for (int i = 0; i < existentes.size(); i++) {
+            Long id = productosExistentes.get(i).getId();
+            if (filasAfectadas[i] > 0) {
+                actualizados.add(id);
+            } else {
+                resumen.rechazar(existentes.get(i).linea(), "Producto no encontrado con ID: " + id);
+            }
+        }
+        resumen.insertados += nuevos.size();
+        resumen.actualizados += actualizados.size();
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTOS);
+        if (cache != null) {
+            actualizados.forEach(cache::evict);
+        }
+    }
+
+    /**
+     * Convierte los campos de una fila en un producto y aplica las validaciones de la entidad
+     * y las reglas de negocio de ProductoService
+     * @throws IllegalArgumentException con el motivo si la fila no es válida
+     */
+    private Producto convertir(Map<String, String> campos) {
+        Producto producto = new Producto();
+        producto.setId(valor(campos, "id", Long::valueOf));
+        producto.setNombre(valor(campos, "nombre", Function.identity()));
+        producto.setDescripcion(valor(campos, "descripcion", Function.identity()));
+        producto.setPrecio(valor(campos, "precio", BigDecimal::new));
+        producto.setStock(valor(campos, "stock", Integer::valueOf));
+        producto.setCategoria(valor(campos, "categoria", Function.identity()));
+        producto.setMarca(valor(campos, "marca", Function.identity()));
+        Boolean activo = valor(campos, "activo", ImportacionService::booleano);
+        producto.setActivo(activo == null || activo);
+
+        Set<ConstraintViolation<Producto>> violaciones = validator.validate(producto);
+        if (!violaciones.isEmpty()) {
+            throw new IllegalArgumentException(violaciones.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        ProductoService.validarProducto(producto);
+        return producto;
+    }
+
+    // Los campos vacíos se tratan como ausentes
+    private static <T> T valor(Map<String, String> campos, String columna, Function<String, T> conversion) {
+        String texto = campos.get(columna);
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        try {
+            return conversion.apply(texto.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Valor inválido para " + columna + ": " + texto.trim());
+        }
+    }
+
+    private static Boolean booleano(String texto) {
+        if ("true".equalsIgnoreCase(texto)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(texto)) {
+            return false;
+        }
+        throw new IllegalArgumentException(texto);
+    }
+
+    // Contadores de una importación en curso
+    private final class Resumen {
+
+        private long filas;
+        private long insertados;
+        private long actualizados;
+        private long rechazados;
+        private long erroresOmitidos;
+        private final List<ErrorFila> errores = new ArrayList<>();
+
+        private void rechazar(long linea, String mensaje) {
+            rechazados++;
+            if (errores.size() < maximoErrores) {
+                errores.add(new ErrorFila(linea, mensaje));
+            } else {
+                erroresOmitidos++;
+            }
+        }
+    }
+
+    // Permite propagar IOException desde los iteradores de filas
+    private static final class UncheckedLectura extends RuntimeException {
+
+        private UncheckedLectura(IOException causa) {
+            super(causa);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Lee registros CSV (RFC 4180): la primera línea es el encabezado con los nombres de
+     * columna, los campos entre comillas pueden contener comas, comillas dobladas y saltos de línea
+     */
+    private static final class LectorCsv implements Iterator<Fila> {
+
+        private final BufferedReader lector;
+        private final List<String> columnas;
+        private long linea;
+        private Fila siguiente;
+
+        private LectorCsv(BufferedReader lector) throws IOException {
+            this.lector = lector;
+            String encabezado = lector.readLine();
+            if (encabezado == null) {
+                throw new IllegalArgumentException("El archivo CSV está vacío: se esperaba una línea de encabezado");
+            }
+            linea = 1;
+            List<String> campos = separarCampos(encabezado.replace("\uFEFF", ""));
+            if (campos == null) {
+                throw new IllegalArgumentException("El encabezado CSV tiene comillas sin cerrar");
+            }
+            columnas = campos.stream().map(c -> c.trim().toLowerCase(Locale.ROOT)).toList();
+            for (String columna : columnas) {
+                if (!COLUMNAS.contains(columna)) {
+                    throw new IllegalArgumentException("Columna desconocida en el encabezado CSV: " + columna
+                            + ". Columnas permitidas: " + String.join(", ", COLUMNAS.stream().sorted().toList()));
+                }
+            }
+            for (String obligatoria : COLUMNAS_OBLIGATORIAS) {
+                if (!columnas.contains(obligatoria)) {
+                    throw new IllegalArgumentException("Falta la columna obligatoria en el encabezado CSV: " + obligatoria);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (siguiente == null) {
+                siguiente = leer();
+            }
+            return siguiente != null;
+        }
+
+        @Override
+        public Fila next() {
+            Fila fila = hasNext() ? siguiente : null;
+            siguiente = null;
+            return fila;
+        }
+
+        private Fila leer() {
+            try {
+                String registro;
+                do {
+                    registro = lector.readLine();
+                    linea++;
+                } while (registro != null && registro.isBlank());
+                if (registro == null) {
+                    return null;
+                }
+                long inicio = linea;
+                StringBuilder acumulado = new StringBuilder(registro);
+                List<String> campos = separarCampos(registro);
+                while (campos == null) {
+                    // Comillas abiertas: el campo continúa en la línea siguiente
+                    if (acumulado.length() > TAMANO_MAXIMO_REGISTRO) {
+                        // Se descarta lo leído y la lectura sigue en la línea siguiente
+                        return new Fila(inicio, null, "El registro supera el tamaño máximo de "
+                                + TAMANO_MAXIMO_REGISTRO + " caracteres; revise las comillas sin cerrar");
+                    }
+                    String continuacion = lector.readLine();
+                    if (continuacion == null) {
+                        return new Fila(inicio, null, "Comillas sin cerrar al final del archivo");
+                    }
+                    linea++;
+                    acumulado.append('\n').append(continuacion);
+                    campos = separarCampos(acumulado.toString());
+                }
+                if (campos.size() != columnas.size()) {
+                    return new Fila(inicio, null,
+                            "Se esperaban " + columnas.size() + " columnas y se encontraron " + campos.size());
+                }
+                Map<String, String> valores = new HashMap<>();
+                for (int i = 0; i < columnas.size(); i++) {
+                    valores.put(columnas.get(i), campos.get(i));
+                }
+                return new Fila(inicio, valores, null);
+            } catch (IOException e) {
+                throw new UncheckedLectura(e);
+            }
+        }
+
+        /**
+         * @return Campos del registro, o null si queda una comilla abierta al final
+         */
+        private static List<String> separarCampos(String registro) {
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreComillas = false;
+            for (int i = 0; i < registro.length(); i++) {
+                char c = registro.charAt(i);
+                if (entreComillas) {
+                    if (c != '"') {
+                        campo.append(c);
+                    } else if (i + 1 < registro.length() && registro.charAt(i + 1) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else if (c == '"') {
+                    entreComillas = true;
+                } else if (c == ',') {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else {
+                    campo.append(c);
+                }
+            }
+            if (entreComillas) {
+                return null;
+            }
+            campos.add(campo.toString());
+            return campos;
+        }
+    }
+
+    /**
+     * Lee un objeto JSON por línea; las líneas en blanco se ignoran y las propiedades
+     * desconocidas se rechazan
+     */
+    private final class LectorNdjson implements Iterator<Fila> {
+
+        private final BufferedReader lector;
+        private long linea;
+        private Fila siguiente;
+
+        private LectorNdjson(BufferedReader lector) {
+            this.lector = lector;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (siguiente == null) {
+                siguiente = leer();
+            }
+            return siguiente != null;
+        }
+
+        @Override
+        public Fila next() {
+            Fila fila = hasNext() ? siguiente : null;
+            siguiente = null;
+            return fila;
+        }
+
+        private Fila leer() {
+            try {
+                String registro;
+                do {
+                    registro = lector.readLine();
+                    linea++;
+                } while (registro != null && registro.isBlank());
+                if (registro == null) {
+                    return null;
+                }
+                JsonNode objeto;
+                try {
+                    objeto = objectMapper.readTree(registro);
+                } catch (JsonProcessingException e) {
+                    return new Fila(linea, null, "JSON inválido: " + e.getOriginalMessage());
+                }
+                if (!objeto.isObject()) {
+                    return new Fila(linea, null, "Se esperaba un objeto JSON");
+                }
+                Map<String, String> valores = new HashMap<>();
+                Iterator<Map.Entry<String, JsonNode>> propiedades = objeto.fields();
+                while (propiedades.hasNext()) {
+                    Map.Entry<String, JsonNode> propiedad = propiedades.next();
+                    if (!COLUMNAS.contains(propiedad.getKey())) {
+                        return new Fila(linea, null, "Propiedad desconocida: " + propiedad.getKey());
+                    }
+                    JsonNode valor = propiedad.getValue();
+                    if (valor.isContainerNode()) {
+                        return new Fila(linea, null, "Valor inválido para " + propiedad.getKey());
+                    }
+                    valores.put(propiedad.getKey(), valor.isNull() ? null : valor.asText());
+                }
+                return new Fila(linea, valores, null);
+            } catch (IOException e) {
+                throw new UncheckedLectura(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import com.ejemplo.util.TextoBusqueda;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice invertido de trigramas en memoria para la búsqueda libre de productos
+ * Cada trigrama de nombre, descripción, categoría y marca apunta a los IDs de los productos
+ * que lo contienen. Una búsqueda intersecta las listas de sus trigramas y verifica la
+ * coincidencia de subcadena solo sobre esos candidatos, sin recorrer la tabla.
+ * Se construye al iniciar la aplicación y se mantiene con cada ProductoEvento confirmado.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class IndiceBusquedaProductos {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceBusquedaProductos.class);
+
+    // Peso de cada campo en la relevancia (mismo orden que Documento.campos)
+    private static final int[] PESOS = {8, 1, 3, 5};
+
+    /**
+     * Campos normalizados de un producto indexado: nombre, descripción, categoría y marca
+     */
+    record Documento(Long id, String[] campos) {
+
+        static Documento de(Long id, Instantanea datos) {
+            return new Documento(id, new String[] {
+                TextoBusqueda.normalizar(datos.nombre()),
+                TextoBusqueda.normalizar(datos.descripcion()),
+                TextoBusqueda.normalizar(datos.categoria()),
+                TextoBusqueda.normalizar(datos.marca())
+            });
+        }
+
+        Set<String> trigramas() {
+            Set<String> trigramas = new HashSet<>();
+            for (String campo : campos) {
+                trigramas.addAll(TextoBusqueda.trigramas(campo));
+            }
+            return trigramas;
+        }
+    }
+
+    private record Resultado(Long id, int puntaje) {
+    }
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private volatile Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+    private volatile Map<String, Set<Long>> listas = new ConcurrentHashMap<>();
+    private volatile boolean listo;
+
+    /**
+     * Indica si el índice ya se construyó y puede atender búsquedas
+     * @return true si el índice está disponible
+     */
+    public boolean estaListo() {
+        return listo;
+    }
+
+    /**
+     * Número de productos indexados
+     * @return Tamaño del índice
+     */
+    public int tamano() {
+        return documentos.size();
+    }
+
+    /**
+     * Busca productos cuyo nombre, descripción, categoría o marca contengan el texto
+     * @param texto Texto libre (sin distinguir mayúsculas ni acentos)
+     * @return IDs de los productos que coinciden, del más relevante al menos relevante
+     */
+    public List<Long> buscar(String texto) {
+        String consulta = TextoBusqueda.normalizar(texto);
+        Map<Long, Documento> actuales = documentos;
+
+        List<Resultado> resultados = new ArrayList<>();
+        for (Long id : candidatos(consulta, actuales)) {
+            Documento documento = actuales.get(id);
+            int puntaje = documento != null ? puntuar(documento, consulta) : 0;
+            if (puntaje > 0) {
+                resultados.add(new Resultado(id, puntaje));
+            }
+        }
+        resultados.sort(Comparator.comparingInt(Resultado::puntaje).reversed().thenComparing(Resultado::id));
+        return resultados.stream().map(Resultado::id).toList();
+    }
+
+    /**
+     * Candidatos: intersección de las listas de los trigramas de la consulta, empezando
+     * por la más corta. Consultas de menos de 3 caracteres no tienen trigramas y se
+     * verifican contra todos los documentos en memoria.
+     */
+    private Iterable<Long> candidatos(String consulta, Map<Long, Documento> actuales) {
+        Set<String> trigramas = TextoBusqueda.trigramas(consulta);
+        if (trigramas.isEmpty()) {
+            return actuales.keySet();
+        }
+
+        Map<String, Set<Long>> indice = listas;
+        List<Set<Long>> conjuntos = new ArrayList<>(trigramas.size());
+        for (String trigrama : trigramas) {
+            Set<Long> lista = indice.get(trigrama);
+            if (lista == null) {
+                return List.of();
+            }
+            conjuntos.add(lista);
+        }
+        conjuntos.sort(Comparator.comparingInt(Set::size));
+
+        List<Long> interseccion = new ArrayList<>();
+        for (Long id : conjuntos.get(0)) {
+            boolean enTodas = true;
+            for (int i = 1; i < conjuntos.size() && enTodas; i++) {
+                enTodas = conjuntos.get(i).contains(id);
+            }
+            if (enTodas) {
+                interseccion.add(id);
+            }
+        }
+        return interseccion;
+    }
+
+    /**
+     * Relevancia: peso del campo por cada campo que contiene la consulta, el doble si la
+     * coincidencia empieza una palabra y el triple si el campo es exactamente la consulta
+     */
+    private static int puntuar(Documento documento, String consulta) {
+        int puntaje = 0;
+        for (int i = 0; i < PESOS.length; i++) {
+            String campo = documento.campos()[i];
+            int posicion = campo.indexOf(consulta);
+            if (posicion < 0) {
+                continue;
+            }
+            if (campo.equals(consulta)) {
+                puntaje += PESOS[i] * 3;
+            } else if (posicion == 0 || campo.charAt(posicion - 1) == ' ') {
+                puntaje += PESOS[i] * 2;
+            } else {
+                puntaje += PESOS[i];
+            }
+        }
+        return puntaje;
+    }
+
+    /**
+     * Agrega o reemplaza un producto en el índice
+     * @param id ID del producto
+     * @param datos Datos de texto del producto
+     */
+    public synchronized void indexar(Long id, Instantanea datos) {
+        quitar(id);
+        Documento documento = Documento.de(id, datos);
+        for (String trigrama : documento.trigramas()) {
+            listas.computeIfAbsent(trigrama, t -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        documentos.put(id, documento);
+    }
+
+    /**
+     * Elimina un producto del índice
+     * @param id ID del producto
+     */
+    public synchronized void eliminar(Long id) {
+        quitar(id);
+    }
+
+    private void quitar(Long id) {
+        Documento anterior = documentos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String trigrama : anterior.trigramas()) {
+            Set<Long> lista = listas.get(trigrama);
+            if (lista != null) {
+                lista.remove(id);
+                if (lista.isEmpty()) {
+                    listas.remove(trigrama);
+                }
+            }
+        }
+    }
+
+    /**
+     * Aplica al índice el cambio que describe el evento
+     * Se ejecuta después del commit para no indexar cambios revertidos
+     * @param evento Evento de producto
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoEvento evento) {
+        if (evento.actual() != null) {
+            indexar(evento.productoId(), evento.actual());
+        } else {
+            eliminar(evento.productoId());
+        }
+    }
+
+    /**
+     * Construye el índice completo desde la base de datos
+     * Se mantiene el bloqueo durante la carga para no perder eventos concurrentes
+     * Se ejecuta al iniciar y después de cada importación masiva de productos
+     */
+    @EventListener({ApplicationReadyEvent.class, ProductosImportadosEvento.class})
+    public synchronized void reconstruir() {
+        long inicio = System.nanoTime();
+        Map<Long, Documento> nuevosDocumentos = new ConcurrentHashMap<>();
+        Map<String, Set<Long>> nuevasListas = new ConcurrentHashMap<>();
+
+        for (Producto producto : productoRepository.findAll()) {
+            Documento documento = Documento.de(producto.getId(), Instantanea.de(producto));
+            for (String trigrama : documento.trigramas()) {
+                nuevasListas.computeIfAbsent(trigrama, t -> ConcurrentHashMap.newKeySet()).add(producto.getId());
+            }
+            nuevosDocumentos.put(producto.getId(), documento);
+        }
+
+        documentos = nuevosDocumentos;
+        listas = nuevasListas;
+        listo = true;
+        logger.info("Índice de búsqueda de productos construido: {} productos, {} trigramas en {} ms",
+                nuevosDocumentos.size(), nuevasListas.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
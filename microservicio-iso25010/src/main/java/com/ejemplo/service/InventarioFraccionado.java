@@ -0,0 +1,312 @@
+package com.ejemplo.service;
+
+import com.ejemplo.config.CacheConfig;
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.StockFraccion;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.StockFraccionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Inventario fraccionado para productos muy demandados
+ * El stock de un producto fraccionado se reparte en N fracciones: la columna stock de su fila
+ * en productos (fracción 0) y N-1 filas de producto_stock_fracciones. Cada reserva descuenta de
+ * una sola fracción elegida al azar, de modo que las reservas concurrentes del mismo producto
+ * se reparten entre N filas en lugar de esperar todas por la misma. El stock del producto es
+ * la suma de sus fracciones.
+ * Los productos sin fraccionar tienen una sola fracción y siguen usando solo su fila; quienes
+ * reservan deben consultar estaFraccionado antes de llamar a reservar o liberar.
+ * Las operaciones que esperan por un bloqueo toman las filas en el mismo orden, las fracciones
+ * 1 a N-1 en orden ascendente y al final la fila del producto, porque un UPDATE condicional que
+ * no se aplica puede dejar la fila bloqueada hasta el commit.
+ * El número de fracciones de cada producto se mantiene en memoria y se carga al iniciar.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class InventarioFraccionado {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventarioFraccionado.class);
+
+    public static final int MAXIMO_FRACCIONES = 64;
+
+    /**
+     * Reparto del stock de un producto: stock total y stock de cada fracción (la 0 es la fila del producto)
+     */
+    public record Fraccionamiento(Long productoId, int stock, List<Integer> fracciones) {
+    }
+
+    private final ProductoRepository productoRepository;
+    private final StockFraccionRepository stockFraccionRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate escritura;
+
+    // Número de fracciones de cada producto fraccionado; los demás tienen una sola
+    private final Map<Long, Integer> fraccionados = new ConcurrentHashMap<>();
+
+    public InventarioFraccionado(ProductoRepository productoRepository,
+                                 StockFraccionRepository stockFraccionRepository,
+                                 CacheManager cacheManager, PlatformTransactionManager transactionManager) {
+        this.productoRepository = productoRepository;
+        this.stockFraccionRepository = stockFraccionRepository;
+        this.cacheManager = cacheManager;
+        this.escritura = new TransactionTemplate(transactionManager);
+    }
+
+    // Un producto aún sin ID no puede tener fracciones
+    public boolean estaFraccionado(Long productoId) {
+        return productoId != null && fraccionados.containsKey(productoId);
+    }
+
+    public int fracciones(Long productoId) {
+        return fraccionados.getOrDefault(productoId, 1);
+    }
+
+    /**
+     * Reparte el stock actual de un producto en el número de fracciones indicado
+     * Con una fracción el producto deja de estar fraccionado y todo su stock vuelve a su fila
+     * @param productoId ID del producto
+     * @param fracciones Número de fracciones (1 a MAXIMO_FRACCIONES)
+     * @return Reparto resultante
+     * @throws IllegalArgumentException si el número de fracciones está fuera de rango
+     * @throws EntityNotFoundException si el producto no existe
+     */
+    public Fraccionamiento fraccionar(Long productoId, int fracciones) {
+        if (fracciones < 1 || fracciones > MAXIMO_FRACCIONES) {
+            throw new IllegalArgumentException("El número de fracciones debe estar entre 1 y " + MAXIMO_FRACCIONES);
+        }
+        Fraccionamiento reparto = escritura.execute(estado -> {
+            List<Object[]> actuales = stockFraccionRepository.bloquear(productoId);
+            Integer enProducto = productoRepository.bloquearStock(productoId);
+            if (enProducto == null) {
+                throw new EntityNotFoundException("Producto no encontrado con ID: " + productoId);
+            }
+            int total = enProducto;
+            for (Object[] fila : actuales) {
+                total += ((Number) fila[1]).intValue();
+            }
+            int enFila = repartirFracciones(productoId, total, fracciones);
+            productoRepository.fijarStock(productoId, enFila, LocalDateTime.now());
+
+            List<Integer> stockPorFraccion = new ArrayList<>(fracciones);
+            stockPorFraccion.add(enFila);
+            for (int fraccion = 1; fraccion < fracciones; fraccion++) {
+                stockPorFraccion.add(total / fracciones);
+            }
+            return new Fraccionamiento(productoId, total, stockPorFraccion);
+        });
+
+        if (fracciones == 1) {
+            fraccionados.remove(productoId);
+        } else {
+            fraccionados.put(productoId, fracciones);
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTOS);
+        if (cache != null) {
+            cache.evict(productoId);
+        }
+        logger.info("Stock del producto ID: {} repartido en {} fracciones ({} unidades)",
+                productoId, fracciones, reparto.stock());
+        return reparto;
+    }
+
+    /**
+     * Reserva stock de un producto fraccionado dentro de la transacción en curso
+     * Prueba primero una fracción al azar y después las siguientes en el orden de bloqueo, cada
+     * una con un UPDATE condicional sobre una sola fila. Si ninguna de ellas tiene por sí sola la
+     * cantidad pedida, bloquea sin esperar las fracciones que no usa otra transacción y, si entre
+     * todas alcanzan, descuenta de varias. Las fracciones que otra transacción tiene bloqueadas
+     * se tratan como agotadas: volver a fracciones anteriores esperando podría bloquear en ciclo.
+     * @param productoId ID del producto
+     * @param cantidad Cantidad a descontar
+     * @param fecha Fecha de actualización
+     * @return true si se reservó; false si el producto no existe o su stock disponible no alcanza
+     */
+    public boolean reservar(Long productoId, int cantidad, LocalDateTime fecha) {
+        int fracciones = fracciones(productoId);
+        // Sin volver al principio: la fila del producto (fracción 0) es la última en el orden de bloqueo
+        for (int posicion = ThreadLocalRandom.current().nextInt(fracciones); posicion < fracciones; posicion++) {
+            if (reservarEnFraccion(productoId, (posicion + 1) % fracciones, cantidad, fecha)) {
+                return true;
+            }
+        }
+        return reservarRepartido(productoId, cantidad, fecha);
+    }
+
+    /**
+     * Devuelve stock a una fracción al azar de un producto fraccionado
+     * @param productoId ID del producto
+     * @param cantidad Cantidad a sumar
+     * @param fecha Fecha de actualización
+     * @return Número de filas afectadas (0 si el producto no existe)
+     */
+    public int liberar(Long productoId, int cantidad, LocalDateTime fecha) {
+        int fraccion = ThreadLocalRandom.current().nextInt(fracciones(productoId));
+        if (fraccion > 0 && stockFraccionRepository.liberar(productoId, fraccion, cantidad) > 0) {
+            return 1;
+        }
+        // Fracción 0, o una fracción que ya no existe porque el producto se volvió a fraccionar
+        return productoRepository.liberarStock(productoId, cantidad, fecha);
+    }
+
+    /**
+     * Stock total de un producto: el de su fila más el de sus demás fracciones
+     * @param producto Producto leído de la base de datos
+     * @return Stock total
+     */
+    public int stockTotal(Producto producto) {
+        if (!estaFraccionado(producto.getId())) {
+            return producto.getStock();
+        }
+        return producto.getStock() + (int) stockFraccionRepository.sumarStock(producto.getId());
+    }
+
+    /**
+     * Producto con el stock total, para responder al cliente
+     * Si está fraccionado devuelve una copia sin gestionar: la entidad conserva el stock de su
+     * fila y modificarla escribiría el total en la fracción 0
+     * @param producto Producto leído de la base de datos
+     * @return El mismo producto, o una copia con el stock total si está fraccionado
+     */
+    public Producto conStockTotal(Producto producto) {
+        if (!estaFraccionado(producto.getId())) {
+            return producto;
+        }
+        Producto copia = new Producto(producto.getNombre(), producto.getDescripcion(), producto.getPrecio(),
+                stockTotal(producto), producto.getCategoria());
+        copia.setId(producto.getId());
+        copia.setMarca(producto.getMarca());
+        copia.setActivo(producto.getActivo());
+        copia.setFechaCreacion(producto.getFechaCreacion());
+        copia.setFechaActualizacion(producto.getFechaActualizacion());
+        return copia;
+    }
+
+    /**
+     * Reparte entre las fracciones el stock total que se acaba de asignar a la entidad
+     * Debe llamarse antes de guardarla; deja en la entidad solo el stock de la fracción 0
+     * @param producto Entidad con el nuevo stock total
+     */
+    public void repartir(Producto producto) {
+        int fracciones = fracciones(producto.getId());
+        if (fracciones > 1) {
+            producto.setStock(repartirFracciones(producto.getId(), producto.getStock(), fracciones));
+        }
+    }
+
+    /**
+     * Reparte entre las fracciones el stock que una escritura masiva fijó en la fila de productos
+     * El valor fijado pasa a ser el stock total y se descarta el que tenían las demás fracciones
+     * @param productoIds IDs de los productos cuyo stock se fijó
+     */
+    public void repartirStockFijado(Collection<Long> productoIds) {
+        LocalDateTime ahora = LocalDateTime.now();
+        productoIds.stream().filter(this::estaFraccionado).distinct().sorted().forEach(productoId -> {
+            Integer stock = productoRepository.bloquearStock(productoId);
+            if (stock != null) {
+                productoRepository.fijarStock(productoId,
+                        repartirFracciones(productoId, stock, fracciones(productoId)), ahora);
+            }
+        });
+    }
+
+    /**
+     * Elimina las fracciones de un producto que se va a eliminar
+     * @param productoId ID del producto
+     */
+    public void eliminar(Long productoId) {
+        if (estaFraccionado(productoId)) {
+            stockFraccionRepository.eliminarPorProducto(productoId);
+        }
+    }
+
+    /**
+     * Olvida los productos eliminados
+     * @param evento Evento de producto
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoEvento evento) {
+        if (evento.actual() == null) {
+            fraccionados.remove(evento.productoId());
+        }
+    }
+
+    /**
+     * Carga el número de fracciones de los productos fraccionados al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        fraccionados.clear();
+        for (Object[] fila : stockFraccionRepository.contarPorProducto()) {
+            fraccionados.put((Long) fila[0], ((Number) fila[1]).intValue() + 1);
+        }
+        logger.info("Inventario fraccionado cargado: {} productos fraccionados", fraccionados.size());
+    }
+
+    private boolean reservarEnFraccion(Long productoId, int fraccion, int cantidad, LocalDateTime fecha) {
+        return fraccion == 0
+                ? productoRepository.reservarStock(productoId, cantidad, fecha) > 0
+                : stockFraccionRepository.reservar(productoId, fraccion, cantidad) > 0;
+    }
+
+    // Ninguna fracción alcanza por sí sola: se bloquean sin esperar las libres y se descuenta de varias
+    private boolean reservarRepartido(Long productoId, int cantidad, LocalDateTime fecha) {
+        List<Object[]> fracciones = stockFraccionRepository.bloquearLibres(productoId);
+        Integer bloqueado = productoRepository.bloquearStockLibre(productoId);
+        int enProducto = bloqueado == null ? 0 : bloqueado;
+        long disponible = enProducto;
+        for (Object[] fila : fracciones) {
+            disponible += ((Number) fila[1]).intValue();
+        }
+        if (disponible < cantidad) {
+            return false;
+        }
+
+        int pendiente = cantidad;
+        int deProducto = Math.min(enProducto, pendiente);
+        if (deProducto > 0) {
+            productoRepository.reservarStock(productoId, deProducto, fecha);
+            pendiente -= deProducto;
+        }
+        for (Object[] fila : fracciones) {
+            int parte = Math.min(((Number) fila[1]).intValue(), pendiente);
+            if (parte > 0) {
+                stockFraccionRepository.reservar(productoId, ((Number) fila[0]).intValue(), parte);
+                pendiente -= parte;
+            }
+        }
+        return true;
+    }
+
+    // Reemplaza las fracciones 1 a N-1 por partes iguales del total; devuelve el stock de la fracción 0
+    private int repartirFracciones(Long productoId, int total, int fracciones) {
+        stockFraccionRepository.eliminarPorProducto(productoId);
+        int porFraccion = total / fracciones;
+        List<StockFraccion> nuevas = new ArrayList<>(fracciones - 1);
+        for (int fraccion = 1; fraccion < fracciones; fraccion++) {
+            nuevas.add(new StockFraccion(productoId, fraccion, porFraccion));
+        }
+        stockFraccionRepository.saveAll(nuevas);
+        return porFraccion + total % fracciones;
+    }
+}
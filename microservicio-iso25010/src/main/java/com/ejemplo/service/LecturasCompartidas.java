@@ -0,0 +1,86 @@
+package com.ejemplo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupación de lecturas concurrentes idénticas (single-flight)
+ * La primera llamada para una operación y clave ejecuta la carga; las que llegan mientras
+ * está en curso esperan y reciben el mismo resultado (o la misma excepción) sin volver a
+ * consultar la base de datos. Al terminar, la clave se libera y la siguiente llamada carga
+ * de nuevo: no es una caché, solo evita cargas duplicadas simultáneas.
+ * Los resultados se comparten entre hilos, por lo que quien los reciba no debe modificarlos.
+ *
+ * Métricas: lecturas.compartidas{operacion, resultado=carga|colapsada} y
+ * lecturas.compartidas.en.curso (cargas activas).
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Component
+public class LecturasCompartidas {
+
+    static final String METRICA = "lecturas.compartidas";
+
+    private record Clave(String operacion, Object valor) {
+    }
+
+    private final Map<Clave, CompletableFuture<Object>> enCurso = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public LecturasCompartidas(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge(METRICA + ".en.curso", enCurso, Map::size);
+    }
+
+    /**
+     * Ejecuta la carga o se une a la que ya está en curso para la misma operación y clave
+     * @param operacion Nombre de la operación (etiqueta de la métrica)
+     * @param clave Argumentos que identifican la lectura
+     * @param carga Lectura a ejecutar si no hay otra en curso
+     * @return Resultado de la carga
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T ejecutar(String operacion, Object clave, Supplier<T> carga) {
+        Clave llave = new Clave(operacion, clave);
+        CompletableFuture<Object> propia = new CompletableFuture<>();
+        CompletableFuture<Object> existente = enCurso.putIfAbsent(llave, propia);
+        if (existente != null) {
+            meterRegistry.counter(METRICA, "operacion", operacion, "resultado", "colapsada").increment();
+            return (T) esperar(existente);
+        }
+
+        meterRegistry.counter(METRICA, "operacion", operacion, "resultado", "carga").increment();
+        try {
+            T resultado = carga.get();
+            enCurso.remove(llave, propia);
+            propia.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            enCurso.remove(llave, propia);
+            propia.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Object esperar(CompletableFuture<Object> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            // Se propaga la excepción original de la carga (EntityNotFoundException, etc.)
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
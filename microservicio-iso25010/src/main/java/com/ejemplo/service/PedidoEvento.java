@@ -0,0 +1,54 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de aplicación publicado cada vez que un pedido se crea, cambia o se elimina
+ * Lleva una instantánea del pedido antes y después del cambio para que los consumidores
+ * (estadísticas, rankings) apliquen solo la diferencia
+ *
+ * @param pedidoId ID del pedido
+ * @param anterior Estado previo del pedido (nulo si el pedido se acaba de crear)
+ * @param actual Estado nuevo del pedido (nulo si el pedido se eliminó)
+ * @param fecha Momento del cambio
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+public record PedidoEvento(
+    Long pedidoId,
+    Instantanea anterior,
+    Instantanea actual,
+    LocalDateTime fecha
+) {
+
+    /**
+     * Datos del pedido relevantes para los consumidores del evento
+     */
+    public record Instantanea(
+        Long productoId,
+        Integer cantidad,
+        Pedido.EstadoPedido estado,
+        BigDecimal total
+    ) {
+        public static Instantanea de(Pedido pedido) {
+            Long productoId = pedido.getProducto() != null ? pedido.getProducto().getId() : null;
+            return new Instantanea(productoId, pedido.getCantidad(), pedido.getEstado(), pedido.getTotal());
+        }
+    }
+
+    public static PedidoEvento creado(Pedido pedido) {
+        return new PedidoEvento(pedido.getId(), null, Instantanea.de(pedido), LocalDateTime.now());
+    }
+
+    public static PedidoEvento modificado(Instantanea anterior, Pedido pedido) {
+        return new PedidoEvento(pedido.getId(), anterior, Instantanea.de(pedido), LocalDateTime.now());
+    }
+
+    public static PedidoEvento eliminado(Pedido pedido) {
+        return new PedidoEvento(pedido.getId(), Instantanea.de(pedido), null, LocalDateTime.now());
+    }
+}
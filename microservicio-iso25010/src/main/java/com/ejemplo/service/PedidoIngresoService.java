@@ -0,0 +1,213 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido;
+import com.ejemplo.service.PedidoService.ResultadoLote;
+import com.ejemplo.service.PedidoService.SolicitudPedido;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio de ingreso asíncrono de pedidos
+ * Recibe solicitudes en una cola acotada y las procesa en micro-lotes con un pool
+ * de hilos trabajadores, liberando el hilo HTTP en cuanto la solicitud queda encolada
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class PedidoIngresoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PedidoIngresoService.class);
+
+    /**
+     * Estados posibles de una solicitud encolada
+     */
+    public enum EstadoSolicitud {
+        EN_COLA,
+        COMPLETADO,
+        RECHAZADO,
+        ERROR
+    }
+
+    /**
+     * Seguimiento de una solicitud de pedido asíncrona
+     */
+    public record SeguimientoPedido(
+        String trackingId,
+        EstadoSolicitud estado,
+        Long pedidoId,
+        String mensaje,
+        LocalDateTime fechaRecepcion,
+        LocalDateTime fechaProceso
+    ) {}
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Value("${pedidos.ingreso.workers:2}")
+    private int workers;
+
+    @Value("${pedidos.ingreso.capacidad-cola:1000}")
+    private int capacidadCola;
+
+    @Value("${pedidos.ingreso.tamano-lote:50}")
+    private int tamanoLote;
+
+    @Value("${pedidos.ingreso.retencion-minutos:30}")
+    private long retencionMinutos;
+
+    private final Map<String, SeguimientoPedido> seguimientos = new ConcurrentHashMap<>();
+
+    private BlockingQueue<SolicitudPedido> cola;
+    private ExecutorService executor;
+    private volatile boolean activo;
+    private volatile long proximaPurgaNanos;
+
+    @PostConstruct
+    void iniciar() {
+        cola = new ArrayBlockingQueue<>(capacidadCola);
+        AtomicInteger contador = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, tarea -> {
+            Thread hilo = new Thread(tarea, "pedido-ingreso-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        proximaPurgaNanos = System.nanoTime();
+        activo = true;
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::consumirCola);
+        }
+        logger.info("Ingreso asíncrono de pedidos iniciado: workers={}, capacidadCola={}, tamanoLote={}",
+                workers, capacidadCola, tamanoLote);
+    }
+
+    @PreDestroy
+    void detener() throws InterruptedException {
+        activo = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        logger.info("Ingreso asíncrono de pedidos detenido con {} solicitudes pendientes", cola.size());
+    }
+
+    /**
+     * Encola una solicitud de pedido y devuelve su seguimiento inicial
+     * @param usuarioId ID del usuario que realiza el pedido
+     * @param productoId ID del producto solicitado
+     * @param cantidad Cantidad solicitada
+     * @param observaciones Observaciones opcionales
+     * @return Seguimiento en estado EN_COLA
+     * @throws RejectedExecutionException si la cola está llena o el servicio se está deteniendo
+     */
+    public SeguimientoPedido encolar(Long usuarioId, Long productoId, Integer cantidad, String observaciones) {
+        if (!activo) {
+            throw new RejectedExecutionException("El ingreso de pedidos se está deteniendo");
+        }
+
+        String trackingId = UUID.randomUUID().toString();
+        SeguimientoPedido seguimiento = new SeguimientoPedido(trackingId, EstadoSolicitud.EN_COLA,
+                null, null, LocalDateTime.now(), null);
+        seguimientos.put(trackingId, seguimiento);
+
+        if (!cola.offer(new SolicitudPedido(trackingId, usuarioId, productoId, cantidad, observaciones))) {
+            seguimientos.remove(trackingId);
+            throw new RejectedExecutionException("Cola de pedidos llena. Intente nuevamente más tarde");
+        }
+        logger.debug("Solicitud de pedido encolada con tracking ID: {}", trackingId);
+        return seguimiento;
+    }
+
+    /**
+     * Obtiene el seguimiento de una solicitud
+     * @param trackingId ID de seguimiento devuelto al encolar
+     * @return Seguimiento si existe y no ha expirado
+     */
+    public Optional<SeguimientoPedido> obtenerSeguimiento(String trackingId) {
+        return Optional.ofNullable(seguimientos.get(trackingId));
+    }
+
+    /**
+     * Número de solicitudes pendientes en la cola
+     * @return Tamaño actual de la cola
+     */
+    public int tamanoCola() {
+        return cola.size();
+    }
+
+    private void consumirCola() {
+        while (activo || !cola.isEmpty()) {
+            try {
+                purgarSeguimientosSiCorresponde();
+                SolicitudPedido primera = cola.poll(500, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                List<SolicitudPedido> lote = new ArrayList<>(tamanoLote);
+                lote.add(primera);
+                cola.drainTo(lote, tamanoLote - 1);
+                procesarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void procesarLote(List<SolicitudPedido> lote) {
+        LocalDateTime ahora = LocalDateTime.now();
+        try {
+            ResultadoLote resultado = pedidoService.procesarLote(lote);
+            for (Map.Entry<String, Pedido> creado : resultado.creados().entrySet()) {
+                actualizar(creado.getKey(), EstadoSolicitud.COMPLETADO, creado.getValue().getId(), null, ahora);
+            }
+            for (Map.Entry<String, String> rechazado : resultado.rechazados().entrySet()) {
+                actualizar(rechazado.getKey(), EstadoSolicitud.RECHAZADO, null, rechazado.getValue(), ahora);
+            }
+        } catch (RuntimeException e) {
+            // La transacción del lote se revirtió completa: ninguna solicitud del lote fue aplicada
+            logger.error("Error procesando lote de {} pedidos: {}", lote.size(), e.getMessage(), e);
+            for (SolicitudPedido solicitud : lote) {
+                actualizar(solicitud.trackingId(), EstadoSolicitud.ERROR, null,
+                        "Error interno al procesar el pedido", ahora);
+            }
+        }
+    }
+
+    private void actualizar(String trackingId, EstadoSolicitud estado, Long pedidoId, String mensaje,
+                            LocalDateTime fechaProceso) {
+        seguimientos.computeIfPresent(trackingId, (id, anterior) -> new SeguimientoPedido(
+                id, estado, pedidoId, mensaje, anterior.fechaRecepcion(), fechaProceso));
+    }
+
+    private void purgarSeguimientosSiCorresponde() {
+        long ahora = System.nanoTime();
+        if (ahora - proximaPurgaNanos < 0) {
+            return;
+        }
+        proximaPurgaNanos = ahora + TimeUnit.MINUTES.toNanos(1);
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(retencionMinutos);
+        seguimientos.values().removeIf(seguimiento -> seguimiento.fechaProceso() != null
+                && seguimiento.fechaProceso().isBefore(limite));
+    }
+}
@@ -0,0 +1,473 @@
+package com.ejemplo.service;
+
+import com.ejemplo.config.CacheConfig;
+import com.ejemplo.model.Pedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.PedidoBatchRepository;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoBatchRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio para la gestión de pedidos
+ * Concentra la creación de pedidos en una única transacción:
+ * una consulta de usuario, un UPDATE condicional de stock y un INSERT.
+ * Las modificaciones de un pedido existente bloquean antes su fila, de modo que una
+ * cancelación manual, un vencimiento de reserva y un cambio de estado concurrentes se
+ * aplican de a uno y el stock se restaura una sola vez.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+@Transactional
+public class PedidoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PedidoService.class);
+    private static final String PRODUCTO_NOT_FOUND_MSG = "Producto no encontrado con ID: ";
+    private static final String PEDIDO_NOT_FOUND_MSG = "Pedido no encontrado con ID: ";
+
+    /**
+     * Solicitud de pedido recibida por la cola de ingreso asíncrono
+     */
+    public record SolicitudPedido(
+        String trackingId,
+        Long usuarioId,
+        Long productoId,
+        Integer cantidad,
+        String observaciones
+    ) {}
+
+    /**
+     * Resultado de procesar un micro-lote: pedidos creados y motivos de rechazo por tracking ID
+     */
+    public record ResultadoLote(
+        Map<String, Pedido> creados,
+        Map<String, String> rechazados
+    ) {}
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ProductoBatchRepository productoBatchRepository;
+
+    @Autowired
+    private PedidoBatchRepository pedidoBatchRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private InventarioFraccionado inventarioFraccionado;
+
+    @Autowired
+    private ProductoService productoService;
+
+    /**
+     * Crea un pedido reservando el stock en la misma transacción
+     * Si el insert falla, la reserva de stock se revierte junto con él
+     * @param usuarioId ID del usuario que realiza el pedido
+     * @param productoId ID del producto solicitado
+     * @param cantidad Cantidad solicitada
+     * @param observaciones Observaciones opcionales
+     * @return Pedido creado
+     * @throws EntityNotFoundException si el usuario o el producto no existen
+     * @throws IllegalArgumentException si no hay stock suficiente
+     */
+    public Pedido crear(Long usuarioId, Long productoId, Integer cantidad, String observaciones) {
+        logger.debug("Creando pedido para usuario ID: {}, producto ID: {}, cantidad: {}", usuarioId, productoId, cantidad);
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado con ID: " + usuarioId));
+
+        LocalDateTime ahora = LocalDateTime.now();
+
+        if (!reservar(productoId, cantidad, ahora)) {
+            // Solo en el camino de rechazo se consulta el producto para diagnosticar la causa
+            Producto producto = productoRepository.findById(productoId)
+                    .orElseThrow(() -> new EntityNotFoundException(PRODUCTO_NOT_FOUND_MSG + productoId));
+            throw new IllegalArgumentException("Stock insuficiente. Stock disponible: "
+                    + inventarioFraccionado.stockTotal(producto));
+        }
+        invalidarCacheProductos(List.of(productoId));
+
+        // Lectura posterior a la reserva: refleja el stock ya descontado y el precio vigente
+        Producto producto = productoRepository.findById(productoId)
+                .orElseThrow(() -> new EntityNotFoundException(PRODUCTO_NOT_FOUND_MSG + productoId));
+
+        eventPublisher.publishEvent(StockEvento.de(inventarioFraccionado.conStockTotal(producto)));
+
+        Pedido pedido = new Pedido(usuario, producto, cantidad, observaciones);
+        pedido.setFechaPedido(ahora);
+
+        Pedido pedidoGuardado = pedidoRepository.save(pedido);
+        eventPublisher.publishEvent(PedidoEvento.creado(pedidoGuardado));
+        logger.info("Pedido creado exitosamente con ID: {}", pedidoGuardado.getId());
+
+        return pedidoGuardado;
+    }
+
+    /**
+     * Procesa un carrito completo: reserva el stock de todas las líneas y crea un pedido por línea
+     * en una sola transacción. Las reservas se ejecutan en orden ascendente de ID de producto para
+     * que carritos concurrentes bloqueen filas en el mismo orden, y los inserts van en un lote JDBC.
+     * Si alguna línea no puede reservarse se revierte el carrito completo.
+     * @param usuarioId ID del usuario que realiza la compra
+     * @param cantidadesPorProducto Cantidad solicitada por ID de producto
+     * @param observaciones Observaciones opcionales aplicadas a todos los pedidos
+     * @return Pedidos creados, ordenados por ID de producto
+     * @throws EntityNotFoundException si el usuario o algún producto no existen
+     * @throws IllegalArgumentException si el carrito está vacío o no hay stock suficiente
+     */
+    public List<Pedido> checkout(Long usuarioId, Map<Long, Integer> cantidadesPorProducto, String observaciones) {
+        if (cantidadesPorProducto == null || cantidadesPorProducto.isEmpty()) {
+            throw new IllegalArgumentException("El carrito debe contener al menos un producto");
+        }
+        for (Map.Entry<Long, Integer> linea : cantidadesPorProducto.entrySet()) {
+            if (linea.getKey() == null || linea.getValue() == null || linea.getValue() <= 0) {
+                throw new IllegalArgumentException("Línea de carrito inválida para producto ID: " + linea.getKey());
+            }
+        }
+        logger.debug("Checkout para usuario ID: {} con {} productos", usuarioId, cantidadesPorProducto.size());
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado con ID: " + usuarioId));
+
+        SortedMap<Long, Integer> lineasOrdenadas = new TreeMap<>(cantidadesPorProducto);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        int[] filasAfectadas = productoBatchRepository.reservarStock(lineasOrdenadas, ahora);
+        List<Long> rechazados = new ArrayList<>();
+        int indice = 0;
+        for (Long productoId : lineasOrdenadas.keySet()) {
+            // Una línea de un producto fraccionado que no cabe en la fracción 0 se intenta en todas
+            if (filasAfectadas[indice++] == 0 && !(inventarioFraccionado.estaFraccionado(productoId)
+                    && inventarioFraccionado.reservar(productoId, lineasOrdenadas.get(productoId), ahora))) {
+                rechazados.add(productoId);
+            }
+        }
+
+        Map<Long, Producto> productos = productoRepository.findAllById(lineasOrdenadas.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        if (!rechazados.isEmpty()) {
+            // La excepción revierte las reservas ya aplicadas en esta transacción
+            for (Long productoId : rechazados) {
+                if (!productos.containsKey(productoId)) {
+                    throw new EntityNotFoundException(PRODUCTO_NOT_FOUND_MSG + productoId);
+                }
+            }
+            throw new IllegalArgumentException("Stock insuficiente para los productos: " + rechazados);
+        }
+        invalidarCacheProductos(lineasOrdenadas.keySet());
+        productos.values().forEach(producto ->
+                eventPublisher.publishEvent(StockEvento.de(inventarioFraccionado.conStockTotal(producto))));
+
+        List<Pedido> pedidos = new ArrayList<>(lineasOrdenadas.size());
+        for (Map.Entry<Long, Integer> linea : lineasOrdenadas.entrySet()) {
+            Pedido pedido = new Pedido(usuario, productos.get(linea.getKey()), linea.getValue(), observaciones);
+            pedido.setFechaPedido(ahora);
+            pedidos.add(pedido);
+        }
+        pedidoBatchRepository.insertar(pedidos);
+        pedidos.forEach(pedido -> eventPublisher.publishEvent(PedidoEvento.creado(pedido)));
+
+        logger.info("Checkout completado para usuario ID: {} - {} pedidos creados", usuarioId, pedidos.size());
+        return pedidos;
+    }
+
+    /**
+     * Procesa un micro-lote de solicitudes en una sola transacción
+     * Las cantidades se agrupan por producto para descontar el stock con un solo UPDATE por
+     * producto (en orden ascendente de ID); si el total agrupado no cabe, se reservan las
+     * solicitudes de ese producto una a una en orden de llegada. Los pedidos aceptados se
+     * insertan en un lote JDBC.
+     * @param solicitudes Solicitudes a procesar
+     * @return Pedidos creados y solicitudes rechazadas con su motivo
+     */
+    public ResultadoLote procesarLote(List<SolicitudPedido> solicitudes) {
+        Map<String, Pedido> creados = new LinkedHashMap<>();
+        Map<String, String> rechazados = new LinkedHashMap<>();
+        if (solicitudes.isEmpty()) {
+            return new ResultadoLote(creados, rechazados);
+        }
+        logger.debug("Procesando lote de {} solicitudes de pedido", solicitudes.size());
+
+        Set<Long> usuarioIds = solicitudes.stream().map(SolicitudPedido::usuarioId).collect(Collectors.toSet());
+        Map<Long, Usuario> usuarios = usuarioRepository.findAllById(usuarioIds).stream()
+                .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+
+        SortedMap<Long, List<SolicitudPedido>> solicitudesPorProducto = new TreeMap<>();
+        for (SolicitudPedido solicitud : solicitudes) {
+            if (usuarios.containsKey(solicitud.usuarioId())) {
+                solicitudesPorProducto.computeIfAbsent(solicitud.productoId(), id -> new ArrayList<>()).add(solicitud);
+            } else {
+                rechazados.put(solicitud.trackingId(), "Usuario no encontrado con ID: " + solicitud.usuarioId());
+            }
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<SolicitudPedido> aceptadas = new ArrayList<>();
+        List<SolicitudPedido> sinReserva = new ArrayList<>();
+        for (Map.Entry<Long, List<SolicitudPedido>> grupo : solicitudesPorProducto.entrySet()) {
+            int cantidadTotal = grupo.getValue().stream().mapToInt(SolicitudPedido::cantidad).sum();
+            if (reservar(grupo.getKey(), cantidadTotal, ahora)) {
+                aceptadas.addAll(grupo.getValue());
+                continue;
+            }
+            // El total agrupado no cabe: se atiende cada solicitud en orden de llegada
+            for (SolicitudPedido solicitud : grupo.getValue()) {
+                if (reservar(solicitud.productoId(), solicitud.cantidad(), ahora)) {
+                    aceptadas.add(solicitud);
+                } else {
+                    sinReserva.add(solicitud);
+                }
+            }
+        }
+
+        Map<Long, Producto> productos = productoRepository.findAllById(solicitudesPorProducto.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        for (SolicitudPedido solicitud : sinReserva) {
+            Producto producto = productos.get(solicitud.productoId());
+            rechazados.put(solicitud.trackingId(), producto == null
+                    ? PRODUCTO_NOT_FOUND_MSG + solicitud.productoId()
+                    : "Stock insuficiente. Stock disponible: " + inventarioFraccionado.stockTotal(producto));
+        }
+
+        List<Pedido> pedidos = new ArrayList<>(aceptadas.size());
+        for (SolicitudPedido solicitud : aceptadas) {
+            Pedido pedido = new Pedido(usuarios.get(solicitud.usuarioId()), productos.get(solicitud.productoId()),
+                    solicitud.cantidad(), solicitud.observaciones());
+            pedido.setFechaPedido(ahora);
+            pedidos.add(pedido);
+        }
+        pedidoBatchRepository.insertar(pedidos);
+        Set<Long> reservados = aceptadas.stream().map(SolicitudPedido::productoId).collect(Collectors.toSet());
+        invalidarCacheProductos(reservados);
+        reservados.forEach(id ->
+                eventPublisher.publishEvent(StockEvento.de(inventarioFraccionado.conStockTotal(productos.get(id)))));
+
+        for (int i = 0; i < aceptadas.size(); i++) {
+            creados.put(aceptadas.get(i).trackingId(), pedidos.get(i));
+            eventPublisher.publishEvent(PedidoEvento.creado(pedidos.get(i)));
+        }
+        logger.info("Lote procesado: {} pedidos creados, {} rechazados", creados.size(), rechazados.size());
+        return new ResultadoLote(creados, rechazados);
+    }
+
+    /**
+     * Actualiza producto, cantidad y observaciones de un pedido PENDIENTE
+     * Devuelve el stock al producto anterior y lo reserva del nuevo; si el nuevo no alcanza
+     * se revierte la transacción completa
+     * @param id ID del pedido
+     * @param productoId ID del nuevo producto
+     * @param cantidad Nueva cantidad
+     * @param observaciones Nuevas observaciones
+     * @return Pedido actualizado
+     * @throws EntityNotFoundException si el pedido o el producto no existen
+     * @throws IllegalStateException si el pedido no está PENDIENTE
+     * @throws IllegalArgumentException si no hay stock suficiente del nuevo producto
+     */
+    public Pedido actualizar(Long id, Long productoId, Integer cantidad, String observaciones) {
+        Pedido pedido = bloquear(id);
+        if (pedido.getEstado() != Pedido.EstadoPedido.PENDIENTE) {
+            throw new IllegalStateException("Solo se pueden actualizar pedidos en estado PENDIENTE");
+        }
+        PedidoEvento.Instantanea anterior = PedidoEvento.Instantanea.de(pedido);
+
+        productoService.aumentarStock(pedido.getProducto().getId(), pedido.getCantidad());
+        // Lectura sin caché: el stock ya incluye la devolución aún sin confirmar
+        Producto nuevoProducto = productoRepository.findById(productoId)
+                .orElseThrow(() -> new EntityNotFoundException(PRODUCTO_NOT_FOUND_MSG + productoId));
+        int disponible = inventarioFraccionado.stockTotal(nuevoProducto);
+        if (disponible < cantidad) {
+            throw new IllegalArgumentException("Stock insuficiente para el nuevo producto. Stock disponible: "
+                    + disponible);
+        }
+        productoService.reducirStock(nuevoProducto.getId(), cantidad);
+
+        pedido.setProducto(nuevoProducto);
+        pedido.setCantidad(cantidad);
+        pedido.setObservaciones(observaciones);
+        pedido.setPrecioUnitario(nuevoProducto.getPrecio());
+        pedido.calcularTotal();
+        pedido.setFechaActualizacion(LocalDateTime.now());
+
+        Pedido actualizado = pedidoRepository.save(pedido);
+        eventPublisher.publishEvent(PedidoEvento.modificado(anterior, actualizado));
+        logger.info("Pedido actualizado exitosamente con ID: {}", id);
+        return actualizado;
+    }
+
+    /**
+     * Cambia el estado de un pedido
+     * Pasar a CANCELADO equivale a cancelar (restaura el stock) y un pedido cancelado ya no
+     * cambia de estado: su stock fue devuelto
+     * @param id ID del pedido
+     * @param nuevoEstado Estado destino
+     * @return Pedido actualizado
+     * @throws EntityNotFoundException si el pedido no existe
+     * @throws IllegalStateException si el pedido está cancelado o no puede cancelarse
+     */
+    public Pedido cambiarEstado(Long id, Pedido.EstadoPedido nuevoEstado) {
+        Pedido pedido = bloquear(id);
+        if (nuevoEstado == Pedido.EstadoPedido.CANCELADO) {
+            return cancelar(pedido);
+        }
+        if (pedido.getEstado() == Pedido.EstadoPedido.CANCELADO) {
+            throw new IllegalStateException("Un pedido cancelado no puede cambiar de estado");
+        }
+        PedidoEvento.Instantanea anterior = PedidoEvento.Instantanea.de(pedido);
+        pedido.setEstado(nuevoEstado);
+        pedido.setFechaActualizacion(LocalDateTime.now());
+
+        Pedido actualizado = pedidoRepository.save(pedido);
+        eventPublisher.publishEvent(PedidoEvento.modificado(anterior, actualizado));
+        logger.info("Estado del pedido ID: {} actualizado a: {}", id, nuevoEstado);
+        return actualizado;
+    }
+
+    /**
+     * Cancela un pedido PENDIENTE o CONFIRMADO y restaura su stock
+     * @param id ID del pedido
+     * @return Pedido cancelado
+     * @throws EntityNotFoundException si el pedido no existe
+     * @throws IllegalStateException si el pedido no puede cancelarse
+     */
+    public Pedido cancelar(Long id) {
+        return cancelar(bloquear(id));
+    }
+
+    /**
+     * Elimina un pedido PENDIENTE o CONFIRMADO y restaura su stock
+     * @param id ID del pedido
+     * @throws EntityNotFoundException si el pedido no existe
+     * @throws IllegalStateException si el pedido no puede cancelarse
+     */
+    public void eliminar(Long id) {
+        Pedido pedido = bloquear(id);
+        if (!pedido.puedeSerCancelado()) {
+            throw new IllegalStateException("Solo se pueden eliminar pedidos en estado PENDIENTE o CONFIRMADO");
+        }
+        productoService.aumentarStock(pedido.getProducto().getId(), pedido.getCantidad());
+        pedidoRepository.delete(pedido);
+        eventPublisher.publishEvent(PedidoEvento.eliminado(pedido));
+        logger.info("Pedido eliminado exitosamente con ID: {}", id);
+    }
+
+    /**
+     * Cancela varios pedidos en una sola transacción y restaura su stock
+     * Bloquea los pedidos que siguen en alguno de los estados indicados, los cancela con un único
+     * UPDATE y devuelve el stock con un aumentarStock por producto (en orden ascendente de ID, como
+     * el checkout) con la suma de las unidades de sus pedidos. Los pedidos que ya cambiaron de
+     * estado se omiten.
+     * @param ids IDs de los pedidos a cancelar
+     * @param estados Estados desde los que se permite cancelar
+     * @return Número de pedidos cancelados
+     */
+    public int cancelarEnBloque(Collection<Long> ids, Collection<Pedido.EstadoPedido> estados) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Pedido> pedidos = pedidoRepository.bloquearCancelables(ids, estados);
+        if (pedidos.isEmpty()) {
+            return 0;
+        }
+
+        // Las instantáneas se toman antes del UPDATE, que limpia el contexto de persistencia
+        LocalDateTime ahora = LocalDateTime.now();
+        Map<Long, PedidoEvento.Instantanea> anteriores = new LinkedHashMap<>();
+        SortedMap<Long, Integer> unidadesPorProducto = new TreeMap<>();
+        for (Pedido pedido : pedidos) {
+            PedidoEvento.Instantanea anterior = PedidoEvento.Instantanea.de(pedido);
+            anteriores.put(pedido.getId(), anterior);
+            unidadesPorProducto.merge(anterior.productoId(), anterior.cantidad(), Integer::sum);
+        }
+
+        pedidoRepository.cambiarEstado(anteriores.keySet(), Pedido.EstadoPedido.CANCELADO, ahora);
+        unidadesPorProducto.forEach(productoService::aumentarStock);
+
+        anteriores.forEach((id, anterior) -> eventPublisher.publishEvent(new PedidoEvento(id, anterior,
+                new PedidoEvento.Instantanea(anterior.productoId(), anterior.cantidad(),
+                        Pedido.EstadoPedido.CANCELADO, anterior.total()), ahora)));
+        logger.info("{} pedidos cancelados en bloque; stock restaurado en {} productos",
+                anteriores.size(), unidadesPorProducto.size());
+        return anteriores.size();
+    }
+
+    private Pedido bloquear(Long id) {
+        return pedidoRepository.bloquear(id)
+                .orElseThrow(() -> new EntityNotFoundException(PEDIDO_NOT_FOUND_MSG + id));
+    }
+
+    // El pedido ya está bloqueado: su estado no cambia hasta el commit
+    private Pedido cancelar(Pedido pedido) {
+        if (!pedido.puedeSerCancelado()) {
+            throw new IllegalStateException("El pedido no puede ser cancelado. Estado actual: " + pedido.getEstado());
+        }
+        PedidoEvento.Instantanea anterior = PedidoEvento.Instantanea.de(pedido);
+        productoService.aumentarStock(pedido.getProducto().getId(), pedido.getCantidad());
+        pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
+        pedido.setFechaActualizacion(LocalDateTime.now());
+
+        Pedido cancelado = pedidoRepository.save(pedido);
+        eventPublisher.publishEvent(PedidoEvento.modificado(anterior, cancelado));
+        logger.info("Pedido cancelado exitosamente con ID: {}", pedido.getId());
+        return cancelado;
+    }
+
+    /**
+     * Reserva stock con un UPDATE condicional; los productos fraccionados lo reparten entre sus fracciones
+     */
+    private boolean reservar(Long productoId, int cantidad, LocalDateTime ahora) {
+        return inventarioFraccionado.estaFraccionado(productoId)
+                ? inventarioFraccionado.reservar(productoId, cantidad, ahora)
+                : productoRepository.reservarStock(productoId, cantidad, ahora) > 0;
+    }
+
+    /**
+     * Invalida en la caché de productos los que cambiaron de stock por una reserva directa
+     * La caché es transaccional (CacheConfig): la invalidación se aplica al commit y una
+     * lectura concurrente no deja en caché el stock anterior a la reserva
+     */
+    private void invalidarCacheProductos(Collection<Long> productoIds) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTOS);
+        if (cache != null) {
+            productoIds.forEach(cache::evict);
+        }
+    }
+}
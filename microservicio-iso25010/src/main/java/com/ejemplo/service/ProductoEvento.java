@@ -0,0 +1,48 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de aplicación publicado cada vez que un producto se crea, se modifica o se elimina
+ * Lleva una instantánea de los datos del catálogo para que los índices en memoria
+ * (búsqueda, autocompletado) se actualicen sin volver a consultar la base de datos
+ *
+ * @param productoId ID del producto
+ * @param actual Datos del producto después del cambio (nulo si el producto se eliminó)
+ * @param fecha Momento del cambio
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+public record ProductoEvento(
+    Long productoId,
+    Instantanea actual,
+    LocalDateTime fecha
+) {
+
+    /**
+     * Datos del producto relevantes para los índices del catálogo
+     */
+    public record Instantanea(
+        String nombre,
+        String descripcion,
+        String categoria,
+        String marca,
+        Boolean activo
+    ) {
+        public static Instantanea de(Producto producto) {
+            return new Instantanea(producto.getNombre(), producto.getDescripcion(),
+                    producto.getCategoria(), producto.getMarca(), producto.getActivo());
+        }
+    }
+
+    public static ProductoEvento guardado(Producto producto) {
+        return new ProductoEvento(producto.getId(), Instantanea.de(producto), LocalDateTime.now());
+    }
+
+    public static ProductoEvento eliminado(Long productoId) {
+        return new ProductoEvento(productoId, null, LocalDateTime.now());
+    }
+}
@@ -1,6 +1,10 @@
 package com.ejemplo.service;
 
+import com.ejemplo.config.CacheConfig;
+import com.ejemplo.dto.AjusteStockRequest;
+import com.ejemplo.dto.ProductoResumenDTO;
 import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoBatchRepository;
 import com.ejemplo.repository.ProductoRepository;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
@@ -8,13 +12,26 @@ import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Servicio para la gestión de productos
@@ -29,14 +46,59 @@ import java.util.List;
 public class ProductoService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductoService.class);
-    private static final String PRODUCTO_SERVICE_CB = "productoService";
+    static final String PRODUCTO_SERVICE_CB = "productoService";
+
+    /**
+     * Filtros disponibles para los listados paginados del catálogo
+     */
+    public enum FiltroCatalogo {
+        TODOS, ACTIVOS, CON_STOCK, SIN_STOCK
+    }
+
+    public static final int MAXIMO_AJUSTES_STOCK = 10_000;
+
+    /**
+     * Ajuste de stock que no se aplicó y su motivo
+     */
+    public record AjusteRechazado(Long id, String motivo) {
+    }
+
+    /**
+     * Resultado de un ajuste masivo de stock
+     */
+    public record ResultadoAjusteStock(int aplicados, List<AjusteRechazado> rechazados) {
+    }
 
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    @Autowired
+    private BusquedaDifusaProductos busquedaDifusa;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private LecturasCompartidas lecturasCompartidas;
+
+    @Autowired
+    private RespaldoProductos respaldoProductos;
+
+    @Autowired
+    private ProductoBatchRepository productoBatchRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private InventarioFraccionado inventarioFraccionado;
+
     /**
      * Obtiene todos los productos con Circuit Breaker y Retry
-     * Si el servicio falla, retorna lista desde caché o lista vacía
+     * Si el servicio falla, retorna la última lista leída correctamente o lista vacía
      * @return Lista de productos
      */
     @CircuitBreaker(name = PRODUCTO_SERVICE_CB, fallbackMethod = "obtenerTodosFallback")
@@ -44,52 +106,112 @@ public class ProductoService {
     @Transactional(readOnly = true)
     public List<Producto> obtenerTodos() {
         logger.debug("Obteniendo todos los productos con Circuit Breaker");
-        return productoRepository.findAll();
+        return respaldoProductos.guardarConsulta("obtenerTodos", conStockTotal(productoRepository.findAll()),
+                () -> conStockTotal(productoRepository.findAll()));
     }
 
     /**
      * Método fallback para obtenerTodos
      * Se ejecuta cuando el circuit breaker está abierto o hay demasiados fallos
+     * Invocado dinámicamente por Resilience4j. Los fallbacks que usan el respaldo no son
+     * privados para que el proxy los delegue a la instancia con sus dependencias inyectadas
+     */
+    @SuppressWarnings("unused")
+    List<Producto> obtenerTodosFallback(Exception ex) {
+        logger.warn("Circuit Breaker activado para obtenerTodos. Retornando respaldo. Error: {}", ex.getMessage());
+        return respaldoProductos.<Producto>consulta("obtenerTodos").orElse(Collections.emptyList());
+    }
+
+    /**
+     * Obtiene una página del catálogo con paginación por clave (ID ascendente)
+     * Devuelve la proyección reducida, por lo que el costo por solicitud no depende
+     * del tamaño del catálogo
+     * @param filtro Subconjunto del catálogo a listar
+     * @param despuesDe Último ID entregado en la página anterior (nulo para la primera)
+     * @param filas Número máximo de filas a leer
+     * @return Productos de la página
+     */
+    @CircuitBreaker(name = PRODUCTO_SERVICE_CB, fallbackMethod = "obtenerPaginaFallback")
+    @Retry(name = PRODUCTO_SERVICE_CB)
+    @Transactional(readOnly = true)
+    public List<ProductoResumenDTO> obtenerPagina(FiltroCatalogo filtro, Long despuesDe, int filas) {
+        logger.debug("Obteniendo página de productos {} después del ID {} ({} filas)", filtro, despuesDe, filas);
+        return respaldoProductos.guardarConsulta(clavePagina(filtro, despuesDe, filas),
+                consultarPagina(filtro, despuesDe, filas), () -> consultarPagina(filtro, despuesDe, filas));
+    }
+
+    private List<ProductoResumenDTO> consultarPagina(FiltroCatalogo filtro, Long despuesDe, int filas) {
+        long desde = despuesDe != null ? despuesDe : 0L;
+        Limit limite = Limit.of(filas);
+        return switch (filtro) {
+            case TODOS -> productoRepository.findPaginaResumen(desde, limite);
+            case ACTIVOS -> productoRepository.findPaginaResumenActivos(desde, limite);
+            case CON_STOCK -> productoRepository.findPaginaResumenConStock(desde, limite);
+            case SIN_STOCK -> productoRepository.findPaginaResumenSinStock(desde, limite);
+        };
+    }
+
+    /**
+     * Método fallback para obtenerPagina
+     * Retorna la última lectura correcta de la misma página o lista vacía
      * Invocado dinámicamente por Resilience4j
      */
     @SuppressWarnings("unused")
-    private List<Producto> obtenerTodosFallback(Exception ex) {
-        logger.warn("Circuit Breaker activado para obtenerTodos. Retornando lista vacía. Error: {}", ex.getMessage());
-        return Collections.emptyList();
+    List<ProductoResumenDTO> obtenerPaginaFallback(FiltroCatalogo filtro, Long despuesDe, int filas, Exception ex) {
+        logger.warn("Circuit Breaker activado para obtenerPagina({}). Retornando respaldo. Error: {}", filtro, ex.getMessage());
+        return respaldoProductos.<ProductoResumenDTO>consulta(clavePagina(filtro, despuesDe, filas))
+                .orElse(Collections.emptyList());
+    }
+
+    private static String clavePagina(FiltroCatalogo filtro, Long despuesDe, int filas) {
+        return "obtenerPagina:" + filtro + ":" + despuesDe + ":" + filas;
     }
 
     /**
      * Obtiene un producto por su ID con Circuit Breaker
+     * Lectura a través de la caché local "productos": solo consulta la base de datos en un fallo
+     * de caché. La caché queda dentro del Circuit Breaker, así que el producto de fallback nunca
+     * se almacena; cada método que modifica el producto invalida su entrada. En un fallo de
+     * caché, las solicitudes concurrentes por el mismo ID comparten una sola consulta.
      * @param id ID del producto
      * @return Producto encontrado
      * @throws EntityNotFoundException si el producto no existe
      */
     @CircuitBreaker(name = PRODUCTO_SERVICE_CB, fallbackMethod = "obtenerPorIdFallback")
     @Retry(name = PRODUCTO_SERVICE_CB)
+    @Cacheable(cacheNames = CacheConfig.PRODUCTOS, key = "#id")
     @Transactional(readOnly = true)
     public Producto obtenerPorId(Long id) {
         logger.debug("Obteniendo producto por ID: {} con Circuit Breaker", id);
+        return lecturasCompartidas.ejecutar("obtenerPorId", id,
+                () -> respaldoProductos.guardarProducto(inventarioFraccionado.conStockTotal(cargarPorId(id))));
+    }
+
+    /**
+     * Lectura directa por ID para los métodos que modifican el producto: la instancia
+     * no se comparte con otras solicitudes
+     */
+    private Producto cargarPorId(Long id) {
         return productoRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado con ID: " + id));
     }
 
     /**
      * Método fallback para obtenerPorId
-     * Retorna un producto genérico cuando el servicio no está disponible
+     * Retorna la última lectura correcta del producto (la respuesta lleva X-Stale-Since);
+     * sin respaldo, lanza excepción en lugar de inventar un producto con precio cero
      * Invocado dinámicamente por Resilience4j
      */
     @SuppressWarnings("unused")
-    private Producto obtenerPorIdFallback(Long id, Exception ex) {
-        logger.warn("Circuit Breaker activado para obtenerPorId({}). Error: {}", id, ex.getMessage());
-        // Retornar producto genérico con información limitada
-        Producto productoFallback = new Producto();
-        productoFallback.setId(id);
-        productoFallback.setNombre("Producto no disponible temporalmente");
-        productoFallback.setDescripcion("El servicio está experimentando problemas. Intente más tarde.");
-        productoFallback.setPrecio(BigDecimal.ZERO);
-        productoFallback.setStock(0);
-        productoFallback.setActivo(false);
-        return productoFallback;
+    Producto obtenerPorIdFallback(Long id, Exception ex) {
+        // Los rechazos de negocio (producto inexistente, ID inválido) se propagan tal cual
+        if (ex instanceof IllegalArgumentException || ex instanceof EntityNotFoundException) {
+            throw (RuntimeException) ex;
+        }
+        logger.warn("Circuit Breaker activado para obtenerPorId({}). Retornando respaldo. Error: {}", id, ex.getMessage());
+        return respaldoProductos.producto(id).orElseThrow(() -> new RuntimeException(
+                "Servicio de productos no disponible temporalmente. No se pudo obtener el producto " + id +
+                ". Por favor, intente nuevamente en unos momentos.", ex));
     }
 
     /**
@@ -107,6 +229,8 @@ public class ProductoService {
         producto.setActivo(true);
         
         Producto productoGuardado = productoRepository.save(producto);
+        eventPublisher.publishEvent(ProductoEvento.guardado(productoGuardado));
+        eventPublisher.publishEvent(StockEvento.de(productoGuardado));
         logger.info("Producto creado exitosamente con ID: {}", productoGuardado.getId());
         
         return productoGuardado;
@@ -119,6 +243,7 @@ public class ProductoService {
      * @return Producto actualizado
      * @throws EntityNotFoundException si el producto no existe
      */
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTOS, key = "#id")
     public Producto actualizar(Long id, Producto producto) {
         logger.debug("Actualizando producto con ID: {}", id);
         
@@ -141,8 +266,11 @@ public class ProductoService {
         }
         
         productoExistente.setFechaActualizacion(LocalDateTime.now());
+        inventarioFraccionado.repartir(productoExistente);
         
-        Producto productoActualizado = productoRepository.save(productoExistente);
+        Producto productoActualizado = inventarioFraccionado.conStockTotal(productoRepository.save(productoExistente));
+        eventPublisher.publishEvent(ProductoEvento.guardado(productoActualizado));
+        eventPublisher.publishEvent(StockEvento.de(productoActualizado));
         logger.info("Producto actualizado exitosamente con ID: {}", productoActualizado.getId());
         
         return productoActualizado;
@@ -153,6 +281,7 @@ public class ProductoService {
      * @param id ID del producto a eliminar
      * @throws EntityNotFoundException si el producto no existe
      */
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTOS, key = "#id")
     public void eliminar(Long id) {
         logger.debug("Eliminando producto con ID: {}", id);
         
@@ -160,7 +289,9 @@ public class ProductoService {
             throw new EntityNotFoundException("Producto no encontrado con ID: " + id);
         }
         
+        inventarioFraccionado.eliminar(id);
         productoRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductoEvento.eliminado(id));
         logger.info("Producto eliminado exitosamente con ID: {}", id);
     }
 
@@ -177,13 +308,15 @@ public class ProductoService {
 
     /**
      * Busca productos por categoría
+     * Búsquedas concurrentes de la misma categoría comparten una sola consulta
      * @param categoria Categoría a buscar
      * @return Lista de productos de la categoría
      */
     @Transactional(readOnly = true)
     public List<Producto> buscarPorCategoria(String categoria) {
         logger.debug("Buscando productos por categoría: {}", categoria);
-        return productoRepository.findByCategoria(categoria);
+        return lecturasCompartidas.ejecutar("buscarPorCategoria", categoria,
+                () -> productoRepository.findByCategoria(categoria));
     }
 
     /**
@@ -204,7 +337,7 @@ public class ProductoService {
     @Transactional(readOnly = true)
     public List<Producto> obtenerProductosActivos() {
         logger.debug("Obteniendo productos activos");
-        return productoRepository.findByActivoTrue();
+        return conStockTotal(productoRepository.findByActivoTrue());
     }
 
     /**
@@ -214,7 +347,7 @@ public class ProductoService {
     @Transactional(readOnly = true)
     public List<Producto> obtenerProductosConStock() {
         logger.debug("Obteniendo productos con stock");
-        return productoRepository.findProductosConStock();
+        return conStockTotal(productoRepository.findProductosConStock());
     }
 
     /**
@@ -224,7 +357,7 @@ public class ProductoService {
     @Transactional(readOnly = true)
     public List<Producto> obtenerProductosSinStock() {
         logger.debug("Obteniendo productos sin stock");
-        return productoRepository.findProductosSinStock();
+        return conStockTotal(productoRepository.findProductosSinStock());
     }
 
     /**
@@ -241,13 +374,54 @@ public class ProductoService {
 
     /**
      * Busca productos por texto libre
+     * Usa el índice invertido en memoria y solo carga por ID los productos encontrados;
+     * mientras el índice no esté construido recurre a la consulta LIKE.
+     * Búsquedas concurrentes del mismo texto comparten una sola carga.
      * @param texto Texto a buscar
-     * @return Lista de productos que coinciden
+     * @return Lista de productos que coinciden, ordenados por relevancia
      */
     @Transactional(readOnly = true)
     public List<Producto> buscarPorTexto(String texto) {
         logger.debug("Buscando productos por texto: {}", texto);
-        return productoRepository.buscarPorTexto(texto);
+        return lecturasCompartidas.ejecutar("buscarPorTexto", texto, () -> {
+            if (!indiceBusqueda.estaListo()) {
+                return productoRepository.buscarPorTexto(texto);
+            }
+            return cargarEnOrden(indiceBusqueda.buscar(texto));
+        });
+    }
+
+    /**
+     * Busca productos por texto libre tolerando errores de tipeo
+     * Cada palabra de la consulta se compara por similitud de trigramas y Levenshtein contra
+     * el vocabulario del catálogo; mientras el vocabulario no esté construido se usa la búsqueda exacta
+     * @param texto Texto a buscar
+     * @param umbral Similitud mínima por palabra (nulo para usar la configurada)
+     * @return Lista de productos parecidos, del más al menos parecido
+     */
+    @Transactional(readOnly = true)
+    public List<Producto> buscarPorTextoDifuso(String texto, Double umbral) {
+        logger.debug("Buscando productos por texto difuso: {} (umbral {})", texto, umbral);
+        if (!busquedaDifusa.estaListo()) {
+            return buscarPorTexto(texto);
+        }
+        List<Long> ids = umbral != null ? busquedaDifusa.buscar(texto, umbral) : busquedaDifusa.buscar(texto);
+        return cargarEnOrden(ids);
+    }
+
+    /**
+     * Carga por ID los productos encontrados en un índice, respetando su orden
+     */
+    private List<Producto> cargarEnOrden(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Producto> porId = productoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        return ids.stream()
+                .map(porId::get)
+                .filter(producto -> producto != null)
+                .toList();
     }
 
     /**
@@ -276,10 +450,11 @@ public class ProductoService {
      * @param nuevoStock Nuevo stock
      * @return Producto actualizado
      */
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTOS, key = "#id")
     public Producto actualizarStock(Long id, Integer nuevoStock) {
         logger.debug("Actualizando stock del producto ID: {} a {}", id, nuevoStock);
         
-        Producto producto = obtenerPorId(id);
+        Producto producto = cargarPorId(id);
         
         if (nuevoStock < 0) {
             throw new IllegalArgumentException("El stock no puede ser negativo");
@@ -287,38 +462,138 @@ public class ProductoService {
         
         producto.setStock(nuevoStock);
         producto.setFechaActualizacion(LocalDateTime.now());
+        inventarioFraccionado.repartir(producto);
         
-        Producto productoActualizado = productoRepository.save(producto);
+        Producto productoActualizado = inventarioFraccionado.conStockTotal(productoRepository.save(producto));
+        eventPublisher.publishEvent(StockEvento.de(productoActualizado));
         logger.info("Stock actualizado exitosamente para producto ID: {}", id);
         
         return productoActualizado;
     }
 
+    /**
+     * Aplica un lote de ajustes de stock en una sola transacción
+     * Cada ajuste suma un delta al stock actual o fija un valor absoluto, con un UPDATE
+     * condicional por ajuste enviado en un único lote JDBC. Los ajustes se ordenan por ID
+     * (conservando el orden de llegada dentro de un mismo producto) para que dos lotes
+     * concurrentes bloqueen las filas en el mismo orden. Un ajuste que dejaría el stock en
+     * negativo o cuyo producto no existe se omite y se reporta; el resto se aplica.
+     * En los productos fraccionados el lote JDBC actúa sobre la fracción 0: los valores
+     * absolutos se reparten después entre las fracciones y los descuentos que no caben en
+     * la fracción 0 se reintentan contra todas.
+     * @param ajustes Ajustes con id y exactamente uno de delta o absoluto
+     * @return Número de ajustes aplicados y los rechazados con su motivo
+     * @throws IllegalArgumentException si el lote está vacío, supera MAXIMO_AJUSTES_STOCK o
+     *         algún ajuste no tiene id o no tiene exactamente uno de delta o absoluto
+     */
+    public ResultadoAjusteStock ajustarStock(List<AjusteStockRequest> ajustes) {
+        if (ajustes == null || ajustes.isEmpty() || ajustes.size() > MAXIMO_AJUSTES_STOCK) {
+            throw new IllegalArgumentException("El lote debe tener entre 1 y " + MAXIMO_AJUSTES_STOCK + " ajustes");
+        }
+        for (AjusteStockRequest ajuste : ajustes) {
+            if (ajuste == null || ajuste.getId() == null) {
+                throw new IllegalArgumentException("Cada ajuste debe indicar el id del producto");
+            }
+            if ((ajuste.getDelta() == null) == (ajuste.getAbsoluto() == null)) {
+                throw new IllegalArgumentException("El ajuste del producto " + ajuste.getId() +
+                        " debe indicar delta o absoluto, pero no ambos");
+            }
+        }
+        logger.debug("Aplicando {} ajustes de stock", ajustes.size());
+
+        List<AjusteStockRequest> ordenados = new ArrayList<>(ajustes);
+        ordenados.sort(Comparator.comparing(AjusteStockRequest::getId));
+        LocalDateTime fecha = LocalDateTime.now();
+        int[] filasActualizadas = productoBatchRepository.ajustarStock(ordenados, fecha);
+
+        List<AjusteStockRequest> fallidos = new ArrayList<>();
+        List<Long> aplicados = new ArrayList<>(ordenados.size());
+        Set<Long> fijados = new LinkedHashSet<>();
+        for (int i = 0; i < ordenados.size(); i++) {
+            if (filasActualizadas[i] > 0) {
+                aplicados.add(ordenados.get(i).getId());
+                if (ordenados.get(i).getAbsoluto() != null) {
+                    fijados.add(ordenados.get(i).getId());
+                }
+            } else {
+                fallidos.add(ordenados.get(i));
+            }
+        }
+        inventarioFraccionado.repartirStockFijado(fijados);
+        // Un descuento de un producto fraccionado puede caber en el total aunque no en la fracción 0;
+        // si el lote fijó el stock del producto, el valor fijado ya decidió el rechazo
+        fallidos.removeIf(ajuste -> {
+            boolean reservado = ajuste.getDelta() != null && ajuste.getDelta() < 0
+                    && !fijados.contains(ajuste.getId())
+                    && inventarioFraccionado.estaFraccionado(ajuste.getId())
+                    && inventarioFraccionado.reservar(ajuste.getId(), -ajuste.getDelta(), fecha);
+            if (reservado) {
+                aplicados.add(ajuste.getId());
+            }
+            return reservado;
+        });
+        invalidarCacheProductos(aplicados);
+        if (!aplicados.isEmpty()) {
+            // Una sola lectura del stock resultante de los productos ajustados para las alertas de stock bajo
+            LocalDateTime ahora = LocalDateTime.now();
+            for (Object[] fila : productoRepository.findStockPorIds(new LinkedHashSet<>(aplicados))) {
+                eventPublisher.publishEvent(new StockEvento((Long) fila[0], ((Number) fila[1]).intValue(), ahora));
+            }
+        }
+
+        // Solo se consultan los productos de los ajustes rechazados para explicar el motivo
+        Map<Long, Integer> stockActual = fallidos.isEmpty() ? Map.of()
+                : productoRepository.findAllById(fallidos.stream().map(AjusteStockRequest::getId).distinct().toList())
+                        .stream().collect(Collectors.toMap(Producto::getId, inventarioFraccionado::stockTotal));
+        List<AjusteRechazado> rechazados = new ArrayList<>(fallidos.size());
+        for (AjusteStockRequest ajuste : fallidos) {
+            Integer stock = stockActual.get(ajuste.getId());
+            rechazados.add(new AjusteRechazado(ajuste.getId(), stock == null
+                    ? "Producto no encontrado con ID: " + ajuste.getId()
+                    : ajuste.getAbsoluto() != null
+                            ? "El stock no puede ser negativo"
+                            : "Stock insuficiente. Stock actual: " + stock));
+        }
+
+        logger.info("Ajuste masivo de stock: {} aplicados, {} rechazados", aplicados.size(), rechazados.size());
+        return new ResultadoAjusteStock(aplicados.size(), rechazados);
+    }
+
     /**
      * Reduce el stock de un producto con Circuit Breaker
      * Operación crítica que debe ser resiliente a fallos
+     * El descuento se hace con un UPDATE condicional atómico, por lo que
+     * pedidos concurrentes nunca pueden dejar el stock en negativo.
+     * Sin @Retry: reintentar un descuento que sí llegó a aplicarse lo duplicaría
      * @param id ID del producto
      * @param cantidad Cantidad a reducir
      * @return Producto actualizado
      */
     @CircuitBreaker(name = PRODUCTO_SERVICE_CB, fallbackMethod = "reducirStockFallback")
-    @Retry(name = PRODUCTO_SERVICE_CB)
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTOS, key = "#id")
     public Producto reducirStock(Long id, Integer cantidad) {
         logger.debug("Reduciendo stock del producto ID: {} en {} con Circuit Breaker", id, cantidad);
 
-        Producto producto = obtenerPorId(id);
+        if (cantidad == null || cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        boolean reservado = inventarioFraccionado.estaFraccionado(id)
+                ? inventarioFraccionado.reservar(id, cantidad, ahora)
+                : productoRepository.reservarStock(id, cantidad, ahora) > 0;
+
+        // Solo se consulta el producto para construir la respuesta o diagnosticar el rechazo
+        Producto producto = inventarioFraccionado.conStockTotal(cargarPorId(id));
 
-        if (!producto.tieneStock(cantidad)) {
+        if (!reservado) {
             throw new IllegalArgumentException("Stock insuficiente. Stock actual: " + producto.getStock());
         }
 
-        producto.reducirStock(cantidad);
-        producto.setFechaActualizacion(LocalDateTime.now());
-
-        Producto productoActualizado = productoRepository.save(producto);
+        eventPublisher.publishEvent(StockEvento.de(producto));
         logger.info("Stock reducido exitosamente para producto ID: {}", id);
 
-        return productoActualizado;
+        return producto;
     }
 
     /**
@@ -328,6 +603,10 @@ public class ProductoService {
      */
     @SuppressWarnings("unused")
     private Producto reducirStockFallback(Long id, Integer cantidad, Exception ex) {
+        // Los rechazos de negocio (stock insuficiente, producto inexistente) se propagan tal cual
+        if (ex instanceof IllegalArgumentException || ex instanceof EntityNotFoundException) {
+            throw (RuntimeException) ex;
+        }
         logger.error("Circuit Breaker activado para reducirStock. ID: {}, Cantidad: {}. Error: {}",
                     id, cantidad, ex.getMessage());
         throw new RuntimeException("Servicio de inventario no disponible temporalmente. " +
@@ -341,19 +620,24 @@ public class ProductoService {
      * @param cantidad Cantidad a aumentar
      * @return Producto actualizado
      */
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTOS, key = "#id")
     public Producto aumentarStock(Long id, Integer cantidad) {
         logger.debug("Aumentando stock del producto ID: {} en {}", id, cantidad);
         
-        Producto producto = obtenerPorId(id);
-        
-        if (cantidad <= 0) {
+        if (cantidad == null || cantidad <= 0) {
             throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
         }
         
-        producto.aumentarStock(cantidad);
-        producto.setFechaActualizacion(LocalDateTime.now());
+        LocalDateTime ahora = LocalDateTime.now();
+        int filasActualizadas = inventarioFraccionado.estaFraccionado(id)
+                ? inventarioFraccionado.liberar(id, cantidad, ahora)
+                : productoRepository.liberarStock(id, cantidad, ahora);
+        if (filasActualizadas == 0) {
+            throw new EntityNotFoundException("Producto no encontrado con ID: " + id);
+        }
         
-        Producto productoActualizado = productoRepository.save(producto);
+        Producto productoActualizado = inventarioFraccionado.conStockTotal(cargarPorId(id));
+        eventPublisher.publishEvent(StockEvento.de(productoActualizado));
         logger.info("Stock aumentado exitosamente para producto ID: {}", id);
         
         return productoActualizado;
@@ -364,14 +648,16 @@ public class ProductoService {
      * @param id ID del producto a activar
      * @return Producto activado
      */
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTOS, key = "#id")
     public Producto activar(Long id) {
         logger.debug("Activando producto con ID: {}", id);
-        Producto producto = obtenerPorId(id);
+        Producto producto = cargarPorId(id);
         
         producto.setActivo(true);
         producto.setFechaActualizacion(LocalDateTime.now());
         
-        Producto productoActualizado = productoRepository.save(producto);
+        Producto productoActualizado = inventarioFraccionado.conStockTotal(productoRepository.save(producto));
+        eventPublisher.publishEvent(ProductoEvento.guardado(productoActualizado));
         logger.info("Producto activado exitosamente con ID: {}", id);
         
         return productoActualizado;
@@ -382,21 +668,40 @@ public class ProductoService {
      * @param id ID del producto a desactivar
      * @return Producto desactivado
      */
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTOS, key = "#id")
     public Producto desactivar(Long id) {
         logger.debug("Desactivando producto con ID: {}", id);
-        Producto producto = obtenerPorId(id);
+        Producto producto = cargarPorId(id);
         
         producto.setActivo(false);
         producto.setFechaActualizacion(LocalDateTime.now());
         
-        Producto productoActualizado = productoRepository.save(producto);
+        Producto productoActualizado = inventarioFraccionado.conStockTotal(productoRepository.save(producto));
+        eventPublisher.publishEvent(ProductoEvento.guardado(productoActualizado));
         logger.info("Producto desactivado exitosamente con ID: {}", id);
         
         return productoActualizado;
     }
 
-    // Métodos de validación privados
-    private void validarProducto(Producto producto) {
+    /**
+     * Invalida en la caché los productos cuyo stock cambió con un UPDATE directo
+     * La caché es transaccional (CacheConfig): la invalidación se aplica al commit y una
+     * lectura concurrente no deja en caché el stock anterior
+     */
+    private void invalidarCacheProductos(List<Long> productoIds) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTOS);
+        if (cache != null) {
+            productoIds.forEach(cache::evict);
+        }
+    }
+
+    // Los productos fraccionados se informan con el stock de todas sus fracciones
+    private List<Producto> conStockTotal(List<Producto> productos) {
+        return productos.stream().map(inventarioFraccionado::conStockTotal).toList();
+    }
+
+    // Reglas de negocio de un producto, compartidas con la importación masiva
+    static void validarProducto(Producto producto) {
         if (producto.getPrecio() != null && producto.getPrecio().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("El precio debe ser mayor a 0");
         }
@@ -0,0 +1,22 @@
+package com.ejemplo.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de aplicación publicado al terminar una importación masiva que escribió productos
+ * La importación no publica un ProductoEvento por fila: los índices en memoria del catálogo
+ * se reconstruyen una sola vez desde la base de datos al recibir este evento
+ *
+ * @param insertados Productos creados
+ * @param actualizados Productos reemplazados
+ * @param fecha Momento en que terminó la importación
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+public record ProductosImportadosEvento(
+    long insertados,
+    long actualizados,
+    LocalDateTime fecha
+) {
+}
@@ -0,0 +1,237 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ranking de productos más vendidos mantenido en memoria
+ * Cada producto tiene contadores de unidades vendidas y de pedidos (sin contar pedidos
+ * cancelados) que se ajustan con cada PedidoEvento confirmado. Un índice ordenado por
+ * unidades descendente permite leer los K primeros sin recorrer todos los productos.
+ * Los contadores se reconcilian cada noche con un único GROUP BY sobre los pedidos;
+ * los datos del catálogo que muestra el ranking se mantienen con los eventos de productos.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class RankingMasVendidos {
+
+    private static final Logger logger = LoggerFactory.getLogger(RankingMasVendidos.class);
+
+    public static final int LIMITE_POR_DEFECTO = 10;
+    public static final int LIMITE_MAXIMO = 100;
+
+    /**
+     * Posición del ranking devuelta al cliente
+     */
+    public record MasVendido(Long id, String nombre, String categoria, String marca, long unidades, long pedidos) {
+    }
+
+    private record Ventas(long unidades, long pedidos) {
+    }
+
+    // Clave del índice ordenado: más unidades primero y, a igualdad, menor ID
+    private record Posicion(long unidades, long id) {
+    }
+
+    private static final Comparator<Posicion> ORDEN = Comparator.comparingLong(Posicion::unidades).reversed()
+            .thenComparingLong(Posicion::id);
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private final Map<Long, Ventas> ventas = new HashMap<>();
+    private final TreeSet<Posicion> ranking = new TreeSet<>(ORDEN);
+    private final Map<Long, Instantanea> catalogo = new HashMap<>();
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    /**
+     * Productos activos con más unidades vendidas
+     * @param limite Número máximo de productos (1 a LIMITE_MAXIMO)
+     * @return Productos ordenados por unidades vendidas descendente
+     * @throws IllegalArgumentException si el límite está fuera de rango
+     */
+    public List<MasVendido> obtener(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El parámetro limit debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        bloqueo.readLock().lock();
+        try {
+            List<MasVendido> resultado = new ArrayList<>(Math.min(limite, ranking.size()));
+            for (Posicion posicion : ranking) {
+                if (resultado.size() == limite) {
+                    break;
+                }
+                Instantanea datos = catalogo.get(posicion.id());
+                if (datos == null || Boolean.FALSE.equals(datos.activo())) {
+                    continue;
+                }
+                resultado.add(new MasVendido(posicion.id(), datos.nombre(), datos.categoria(), datos.marca(),
+                        posicion.unidades(), ventas.get(posicion.id()).pedidos()));
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ajusta los contadores de un producto y su posición en el índice
+     * @param id ID del producto
+     * @param unidades Unidades a sumar (negativo para restar)
+     * @param pedidos Pedidos a sumar (negativo para restar)
+     */
+    public void sumar(Long id, long unidades, long pedidos) {
+        if (unidades == 0 && pedidos == 0) {
+            return;
+        }
+        bloqueo.writeLock().lock();
+        try {
+            Ventas anterior = ventas.getOrDefault(id, new Ventas(0, 0));
+            colocar(id, anterior, new Ventas(anterior.unidades() + unidades, anterior.pedidos() + pedidos));
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    // Requiere el bloqueo de escritura
+    private void colocar(Long id, Ventas anterior, Ventas nuevas) {
+        if (anterior.unidades() > 0) {
+            ranking.remove(new Posicion(anterior.unidades(), id));
+        }
+        if (nuevas.unidades() > 0) {
+            ranking.add(new Posicion(nuevas.unidades(), id));
+        }
+        if (nuevas.unidades() <= 0 && nuevas.pedidos() <= 0) {
+            ventas.remove(id);
+        } else {
+            ventas.put(id, nuevas);
+        }
+    }
+
+    /**
+     * Mantiene los contadores con los pedidos confirmados: suma el pedido nuevo y resta
+     * el anterior, de modo que una cancelación descuenta sus unidades
+     * @param evento Evento de pedido
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarPedido(PedidoEvento evento) {
+        PedidoEvento.Instantanea anterior = evento.anterior();
+        PedidoEvento.Instantanea actual = evento.actual();
+        boolean cuentaAnterior = cuenta(anterior);
+        boolean cuentaActual = cuenta(actual);
+        if (cuentaAnterior && cuentaActual && Objects.equals(anterior.productoId(), actual.productoId())) {
+            sumar(actual.productoId(), (long) actual.cantidad() - anterior.cantidad(), 0);
+            return;
+        }
+        if (cuentaAnterior) {
+            sumar(anterior.productoId(), -(long) anterior.cantidad(), -1);
+        }
+        if (cuentaActual) {
+            sumar(actual.productoId(), actual.cantidad(), 1);
+        }
+    }
+
+    private static boolean cuenta(PedidoEvento.Instantanea pedido) {
+        return pedido != null && pedido.productoId() != null && pedido.cantidad() != null
+                && pedido.estado() != EstadoPedido.CANCELADO;
+    }
+
+    /**
+     * Mantiene los datos del catálogo que muestra el ranking
+     * @param evento Evento de producto
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoEvento evento) {
+        bloqueo.writeLock().lock();
+        try {
+            if (evento.actual() != null) {
+                catalogo.put(evento.productoId(), evento.actual());
+            } else {
+                catalogo.remove(evento.productoId());
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Carga los datos del catálogo y los contadores al iniciar la aplicación y después
+     * de cada importación masiva de productos
+     */
+    @EventListener({ApplicationReadyEvent.class, ProductosImportadosEvento.class})
+    public void reconstruir() {
+        Map<Long, Instantanea> nuevoCatalogo = new HashMap<>();
+        for (Object[] fila : productoRepository.findDatosRanking()) {
+            nuevoCatalogo.put((Long) fila[0],
+                    new Instantanea((String) fila[1], null, (String) fila[2], (String) fila[3], (Boolean) fila[4]));
+        }
+        bloqueo.writeLock().lock();
+        try {
+            catalogo.clear();
+            catalogo.putAll(nuevoCatalogo);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        reconciliar();
+    }
+
+    /**
+     * Recalcula los contadores desde la base de datos con un solo GROUP BY
+     * Corrige cualquier desviación acumulada (p.ej. eventos concurrentes con la reconciliación anterior)
+     */
+    @Scheduled(cron = "${productos.mas-vendidos.reconciliacion-cron:0 0 3 * * *}")
+    public void reconciliar() {
+        long inicio = System.nanoTime();
+        Map<Long, Ventas> nuevas = new HashMap<>();
+        for (Object[] fila : pedidoRepository.resumirVentasPorProducto(EstadoPedido.CANCELADO)) {
+            nuevas.put((Long) fila[0], new Ventas(((Number) fila[1]).longValue(), ((Number) fila[2]).longValue()));
+        }
+
+        int corregidos = 0;
+        bloqueo.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Ventas> entrada : new ArrayList<>(ventas.entrySet())) {
+                if (!nuevas.containsKey(entrada.getKey())) {
+                    colocar(entrada.getKey(), entrada.getValue(), new Ventas(0, 0));
+                    corregidos++;
+                }
+            }
+            for (Map.Entry<Long, Ventas> entrada : nuevas.entrySet()) {
+                Ventas anterior = ventas.getOrDefault(entrada.getKey(), new Ventas(0, 0));
+                if (!anterior.equals(entrada.getValue())) {
+                    colocar(entrada.getKey(), anterior, entrada.getValue());
+                    corregidos++;
+                }
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        logger.info("Ranking de más vendidos reconciliado: {} productos, {} corregidos en {} ms",
+                nuevas.size(), corregidos, (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
@@ -0,0 +1,221 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Respaldo de la última lectura correcta de productos para los fallbacks del Circuit Breaker
+ * Cada lectura exitosa de ProductoService guarda su resultado con la hora de captura; cuando
+ * la base de datos falla, el fallback responde con ese respaldo en lugar de una lista vacía o
+ * un producto ficticio, y la respuesta HTTP lleva el header X-Stale-Since.
+ * Al pasar el Circuit Breaker a HALF_OPEN, el respaldo se refresca en segundo plano a través
+ * del mismo Circuit Breaker, de modo que la recarga sirve también como llamada de prueba.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class RespaldoProductos {
+
+    private static final Logger logger = LoggerFactory.getLogger(RespaldoProductos.class);
+
+    /** Header con la hora de captura de los datos servidos desde el respaldo */
+    public static final String HEADER_OBSOLETO = "X-Stale-Since";
+
+    /** Atributo de la solicitud con la captura más antigua servida desde el respaldo */
+    public static final String ATRIBUTO_OBSOLETO = RespaldoProductos.class.getName() + ".capturado";
+
+    // Productos por consulta al refrescar el respaldo por ID
+    private static final int TAMANO_LOTE = 500;
+
+    /**
+     * Valor respaldado, hora de captura y, para consultas, cómo volver a cargarlo
+     */
+    private record Respaldo<T>(T valor, Instant capturado, Supplier<T> recarga) {
+    }
+
+    private final ProductoRepository productoRepository;
+    private final CircuitBreaker circuitBreaker;
+    private final Cache<Long, Respaldo<Producto>> productos;
+    private final Cache<String, Respaldo<List<?>>> consultas;
+    private final ExecutorService refresco;
+    private final AtomicBoolean refrescando = new AtomicBoolean();
+
+    public RespaldoProductos(ProductoRepository productoRepository,
+                             CircuitBreakerRegistry circuitBreakerRegistry,
+                             @Value("${productos.respaldo.capacidad:10000}") int capacidad,
+                             @Value("${productos.respaldo.capacidad-consultas:200}") int capacidadConsultas) {
+        this.productoRepository = productoRepository;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(ProductoService.PRODUCTO_SERVICE_CB);
+        this.productos = Caffeine.newBuilder().maximumSize(capacidad).build();
+        this.consultas = Caffeine.newBuilder().maximumSize(capacidadConsultas).build();
+        this.refresco = Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "respaldo-productos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        circuitBreaker.getEventPublisher().onStateTransition(evento -> {
+            if (evento.getStateTransition().getToState() == CircuitBreaker.State.HALF_OPEN) {
+                refrescarEnSegundoPlano();
+            }
+        });
+    }
+
+    /**
+     * Guarda un producto leído correctamente
+     * @param producto Producto leído de la base de datos
+     * @return El mismo producto
+     */
+    public Producto guardarProducto(Producto producto) {
+        productos.put(producto.getId(), new Respaldo<>(producto, Instant.now(), null));
+        return producto;
+    }
+
+    /**
+     * Último producto leído correctamente; si existe, marca la respuesta como obsoleta
+     * @param id ID del producto
+     * @return Producto respaldado
+     */
+    public Optional<Producto> producto(Long id) {
+        Respaldo<Producto> respaldo = productos.getIfPresent(id);
+        if (respaldo == null) {
+            return Optional.empty();
+        }
+        marcarObsoleta(respaldo.capturado());
+        return Optional.of(respaldo.valor());
+    }
+
+    /**
+     * Guarda el resultado de una consulta de listado leído correctamente
+     * @param clave Identifica la consulta y sus argumentos
+     * @param resultado Resultado leído
+     * @param recarga Consulta a repetir al refrescar el respaldo
+     * @return El mismo resultado
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> guardarConsulta(String clave, List<T> resultado, Supplier<List<T>> recarga) {
+        consultas.put(clave, new Respaldo<>(resultado, Instant.now(), (Supplier<List<?>>) (Supplier<?>) recarga));
+        return resultado;
+    }
+
+    /**
+     * Último resultado correcto de una consulta; si existe, marca la respuesta como obsoleta
+     * @param clave Identifica la consulta y sus argumentos
+     * @return Resultado respaldado
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<List<T>> consulta(String clave) {
+        Respaldo<List<?>> respaldo = consultas.getIfPresent(clave);
+        if (respaldo == null) {
+            return Optional.empty();
+        }
+        marcarObsoleta(respaldo.capturado());
+        return Optional.of((List<T>) respaldo.valor());
+    }
+
+    /**
+     * Registra en la solicitud HTTP en curso (si la hay) la captura más antigua servida
+     */
+    private static void marcarObsoleta(Instant capturado) {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return;
+        }
+        Instant anterior = (Instant) atributos.getAttribute(ATRIBUTO_OBSOLETO, RequestAttributes.SCOPE_REQUEST);
+        if (anterior == null || capturado.isBefore(anterior)) {
+            atributos.setAttribute(ATRIBUTO_OBSOLETO, capturado, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Un producto eliminado no debe volver a servirse desde el respaldo
+     * @param evento Evento de producto
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoEvento evento) {
+        if (evento.actual() == null) {
+            productos.invalidate(evento.productoId());
+        }
+    }
+
+    private void refrescarEnSegundoPlano() {
+        if (refrescando.compareAndSet(false, true)) {
+            refresco.execute(() -> {
+                try {
+                    refrescar();
+                } finally {
+                    refrescando.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Vuelve a leer todo lo respaldado a través del Circuit Breaker
+     * Los productos se recargan por lotes de IDs; los que ya no existen se descartan.
+     * Si una lectura falla o el Circuit Breaker no la permite, se conserva el respaldo actual.
+     */
+    @SuppressWarnings("unchecked")
+    public void refrescar() {
+        long inicio = System.nanoTime();
+        try {
+            List<Long> ids = new ArrayList<>(productos.asMap().keySet());
+            for (int i = 0; i < ids.size(); i += TAMANO_LOTE) {
+                List<Long> lote = ids.subList(i, Math.min(i + TAMANO_LOTE, ids.size()));
+                Set<Long> encontrados = new HashSet<>();
+                for (Producto producto : circuitBreaker.executeSupplier(() -> productoRepository.findAllById(lote))) {
+                    guardarProducto(producto);
+                    encontrados.add(producto.getId());
+                }
+                lote.stream().filter(id -> !encontrados.contains(id)).forEach(productos::invalidate);
+            }
+            for (Map.Entry<String, Respaldo<List<?>>> entrada : consultas.asMap().entrySet()) {
+                Supplier<List<?>> recarga = entrada.getValue().recarga();
+                List<?> resultado = circuitBreaker.executeSupplier(recarga);
+                consultas.put(entrada.getKey(), new Respaldo<>(resultado, Instant.now(), recarga));
+            }
+            logger.info("Respaldo de productos refrescado: {} productos, {} consultas en {} ms",
+                    productos.estimatedSize(), consultas.estimatedSize(), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo refrescar el respaldo de productos, se conserva el anterior: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Descarta todo el respaldo
+     */
+    public void limpiar() {
+        productos.invalidateAll();
+        consultas.invalidateAll();
+    }
+
+    @PreDestroy
+    public void detener() {
+        refresco.shutdownNow();
+    }
+}
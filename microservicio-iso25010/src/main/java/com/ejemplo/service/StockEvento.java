@@ -0,0 +1,28 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de aplicación publicado cada vez que cambia el stock de un producto
+ * Lleva el stock resultante (no la diferencia) para que la vigilancia de stock bajo
+ * actualice su estado en memoria sin volver a consultar la base de datos
+ *
+ * @param productoId ID del producto
+ * @param stock Stock del producto después del cambio
+ * @param fecha Momento del cambio
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+public record StockEvento(
+    Long productoId,
+    Integer stock,
+    LocalDateTime fecha
+) {
+
+    public static StockEvento de(Producto producto) {
+        return new StockEvento(producto.getId(), producto.getStock(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,247 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Productos en tendencia: unidades pedidas en los últimos 5 minutos, 1 hora y 24 horas
+ * Cada ventana es un anillo de intervalos (5 de 1 minuto, 12 de 5 minutos, 24 de 1 hora)
+ * y cada intervalo guarda un resumen space-saving de capacidad fija: los productos más
+ * pedidos con su conteo y el error máximo de ese conteo. La memoria queda acotada por
+ * (5 + 12 + 24) × capacidad contadores sin importar cuántos productos o pedidos haya.
+ * Se alimenta con los pedidos creados (PedidoEvento confirmado), sin consultas GROUP BY.
+ * La ventana avanza de intervalo en intervalo, por lo que su borde tiene la resolución
+ * de un intervalo.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@Service
+public class TendenciasProductos {
+
+    public static final int LIMITE_POR_DEFECTO = 10;
+    public static final int LIMITE_MAXIMO = 50;
+
+    /**
+     * Ventanas disponibles, identificadas por su código en la API
+     */
+    public enum Ventana {
+        CINCO_MINUTOS("5m", Duration.ofMinutes(1), 5),
+        UNA_HORA("1h", Duration.ofMinutes(5), 12),
+        UN_DIA("24h", Duration.ofHours(1), 24);
+
+        private final String codigo;
+        private final long anchoIntervalo;
+        private final int intervalos;
+
+        Ventana(String codigo, Duration anchoIntervalo, int intervalos) {
+            this.codigo = codigo;
+            this.anchoIntervalo = anchoIntervalo.toMillis();
+            this.intervalos = intervalos;
+        }
+
+        public String getCodigo() {
+            return codigo;
+        }
+
+        /**
+         * @param codigo Código de la ventana (5m, 1h o 24h)
+         * @return Ventana correspondiente
+         * @throws IllegalArgumentException si el código no existe
+         */
+        public static Ventana desdeCodigo(String codigo) {
+            for (Ventana ventana : values()) {
+                if (ventana.codigo.equalsIgnoreCase(codigo)) {
+                    return ventana;
+                }
+            }
+            throw new IllegalArgumentException("Ventana inválida: " + codigo + ". Valores permitidos: 5m, 1h, 24h");
+        }
+    }
+
+    /**
+     * Producto en tendencia devuelto al cliente
+     * unidades es una cota superior; las unidades reales están entre unidades - error y unidades
+     */
+    public record Tendencia(Long id, String nombre, String marca, long unidades, long error) {
+    }
+
+    /**
+     * Resumen space-saving de un intervalo: a lo sumo capacidad contadores. Un producto nuevo
+     * con el resumen lleno reemplaza al de menor conteo y hereda ese conteo como error.
+     */
+    private static final class Resumen {
+
+        private final Map<Long, long[]> contadores = new HashMap<>();
+        private long intervalo = -1;
+
+        // Con el resumen lleno, ningún producto ausente pudo superar el menor conteo
+        private long minimo(int capacidad) {
+            if (contadores.size() < capacidad) {
+                return 0;
+            }
+            long minimo = Long.MAX_VALUE;
+            for (long[] contador : contadores.values()) {
+                minimo = Math.min(minimo, contador[0]);
+            }
+            return minimo;
+        }
+
+        private void sumar(long id, long unidades, int capacidad) {
+            long[] contador = contadores.get(id);
+            if (contador != null) {
+                contador[0] += unidades;
+                return;
+            }
+            if (contadores.size() < capacidad) {
+                contadores.put(id, new long[] {unidades, 0});
+                return;
+            }
+            Long menor = null;
+            long minimo = Long.MAX_VALUE;
+            for (Map.Entry<Long, long[]> entrada : contadores.entrySet()) {
+                if (entrada.getValue()[0] < minimo) {
+                    minimo = entrada.getValue()[0];
+                    menor = entrada.getKey();
+                }
+            }
+            contadores.remove(menor);
+            contadores.put(id, new long[] {minimo + unidades, minimo});
+        }
+    }
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Value("${productos.tendencias.capacidad:100}")
+    private int capacidad = 100;
+
+    private final Map<Ventana, Resumen[]> anillos = new HashMap<>();
+
+    public TendenciasProductos() {
+        for (Ventana ventana : Ventana.values()) {
+            Resumen[] anillo = new Resumen[ventana.intervalos];
+            for (int i = 0; i < anillo.length; i++) {
+                anillo[i] = new Resumen();
+            }
+            anillos.put(ventana, anillo);
+        }
+    }
+
+    /**
+     * Suma las unidades de un pedido nuevo a todas las ventanas
+     * Solo cuentan los pedidos creados; los cambios posteriores no alteran la tendencia
+     * @param evento Evento de pedido
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarPedido(PedidoEvento evento) {
+        PedidoEvento.Instantanea pedido = evento.actual();
+        if (evento.anterior() != null || pedido == null || pedido.productoId() == null
+                || pedido.cantidad() == null || pedido.estado() == EstadoPedido.CANCELADO) {
+            return;
+        }
+        registrar(pedido.productoId(), pedido.cantidad(), System.currentTimeMillis());
+    }
+
+    synchronized void registrar(long productoId, long unidades, long ahora) {
+        for (Ventana ventana : Ventana.values()) {
+            long intervalo = ahora / ventana.anchoIntervalo;
+            Resumen resumen = anillos.get(ventana)[(int) (intervalo % ventana.intervalos)];
+            if (resumen.intervalo != intervalo) {
+                // El intervalo salió de la ventana: se reutiliza para el actual
+                resumen.contadores.clear();
+                resumen.intervalo = intervalo;
+            }
+            resumen.sumar(productoId, unidades, capacidad);
+        }
+    }
+
+    /**
+     * Productos activos con más unidades pedidas en la ventana
+     * @param ventana Ventana de tiempo
+     * @param limite Número máximo de productos (1 a LIMITE_MAXIMO)
+     * @return Productos ordenados por unidades estimadas descendente
+     * @throws IllegalArgumentException si el límite está fuera de rango
+     */
+    public List<Tendencia> obtener(Ventana ventana, int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El parámetro limit debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        List<long[]> estimaciones = estimar(ventana, System.currentTimeMillis());
+        if (estimaciones.isEmpty()) {
+            return List.of();
+        }
+
+        // Se piden más candidatos que el límite por si alguno está inactivo o fue eliminado
+        List<long[]> candidatos = estimaciones.subList(0, Math.min(estimaciones.size(), limite * 2));
+        Map<Long, Producto> productos = productoRepository.findAllById(candidatos.stream().map(e -> e[0]).toList())
+                .stream().collect(Collectors.toMap(Producto::getId, Function.identity()));
+        List<Tendencia> tendencias = new ArrayList<>(limite);
+        for (long[] estimacion : candidatos) {
+            Producto producto = productos.get(estimacion[0]);
+            if (producto == null || Boolean.FALSE.equals(producto.getActivo())) {
+                continue;
+            }
+            tendencias.add(new Tendencia(producto.getId(), producto.getNombre(), producto.getMarca(),
+                    estimacion[1], estimacion[2]));
+            if (tendencias.size() == limite) {
+                break;
+            }
+        }
+        return tendencias;
+    }
+
+    /**
+     * Combina los resúmenes vigentes de la ventana: para cada producto candidato suma su
+     * conteo en cada intervalo o, si no aparece en un resumen lleno, el mínimo de ese resumen
+     * (cota superior) que también se suma al error
+     * @return Filas [productoId, unidades, error] ordenadas por unidades descendente
+     */
+    synchronized List<long[]> estimar(Ventana ventana, long ahora) {
+        long actual = ahora / ventana.anchoIntervalo;
+        List<Resumen> vigentes = new ArrayList<>(ventana.intervalos);
+        for (Resumen resumen : anillos.get(ventana)) {
+            if (resumen.intervalo > actual - ventana.intervalos && resumen.intervalo <= actual) {
+                vigentes.add(resumen);
+            }
+        }
+
+        Set<Long> candidatos = new HashSet<>();
+        long[] minimos = new long[vigentes.size()];
+        for (int i = 0; i < vigentes.size(); i++) {
+            candidatos.addAll(vigentes.get(i).contadores.keySet());
+            minimos[i] = vigentes.get(i).minimo(capacidad);
+        }
+
+        List<long[]> estimaciones = new ArrayList<>(candidatos.size());
+        for (Long id : candidatos) {
+            long unidades = 0;
+            long error = 0;
+            for (int i = 0; i < vigentes.size(); i++) {
+                long[] contador = vigentes.get(i).contadores.get(id);
+                unidades += contador != null ? contador[0] : minimos[i];
+                error += contador != null ? contador[1] : minimos[i];
+            }
+            estimaciones.add(new long[] {id, unidades, error});
+        }
+        estimaciones.sort(Comparator.<long[]>comparingLong(e -> -e[1]).thenComparingLong(e -> e[0]));
+        return estimaciones;
+    }
+}
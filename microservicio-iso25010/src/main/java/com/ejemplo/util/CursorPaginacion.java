@@ -0,0 +1,80 @@
+package com.ejemplo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Utilidad para cursores opacos de paginación por clave (keyset / seek)
+ * El cursor codifica en Base64 URL-safe los valores de la última fila entregada,
+ * de modo que la página siguiente se obtiene con un WHERE sobre el índice en lugar
+ * de un OFFSET que recorre todas las filas anteriores.
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+public class CursorPaginacion {
+
+    public static final String HEADER_SIGUIENTE = "X-Next-Cursor";
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    private static final String SEPARADOR = "|";
+
+    private CursorPaginacion() {
+        // Constructor privado para evitar instanciación
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Codifica los valores de la clave de ordenamiento en un cursor opaco
+     * @param valores Valores de la clave (p.ej. fecha e ID)
+     * @return Cursor URL-safe
+     */
+    public static String codificar(Object... valores) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                texto.append(SEPARADOR);
+            }
+            texto.append(valores[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(texto.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor en sus valores
+     * @param cursor Cursor recibido del cliente
+     * @param partes Número de valores esperados
+     * @return Valores de la clave como texto
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static String[] decodificar(String cursor, int partes) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] valores = texto.split("\\" + SEPARADOR, -1);
+            if (valores.length != partes) {
+                throw new IllegalArgumentException("Cursor de paginación inválido");
+            }
+            return valores;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido", e);
+        }
+    }
+
+    /**
+     * Valida el tamaño de página solicitado
+     * @param limite Límite recibido (nulo para usar el valor por defecto)
+     * @return Límite válido
+     * @throws IllegalArgumentException si está fuera de rango
+     */
+    public static int validarLimite(Integer limite) {
+        if (limite == null) {
+            return LIMITE_POR_DEFECTO;
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El parámetro limit debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return limite;
+    }
+}
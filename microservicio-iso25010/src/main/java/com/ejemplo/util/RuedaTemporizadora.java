@@ -0,0 +1,171 @@
+package com.ejemplo.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rueda temporizadora jerárquica
+ * Agenda vencimientos por clave con coste O(1) al programar y al cancelar. El tiempo avanza
+ * en ticks de duración fija; cada nivel tiene 64 ranuras y cubre 64 veces el rango del nivel
+ * anterior. Un vencimiento lejano se guarda en un nivel alto y baja de nivel (cascada) cuando
+ * el tiempo se acerca a él, de modo que avanzar un tick solo recorre una ranura por nivel.
+ * Los vencimientos más allá del rango del último nivel esperan en su última ranura y se
+ * vuelven a ubicar al bajar de nivel. No es segura para hilos: quien la comparte debe sincronizar.
+ *
+ * @param <K> Tipo de la clave de cada vencimiento
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+public class RuedaTemporizadora<K> {
+
+    private static final int BITS_POR_NIVEL = 6;
+    private static final int RANURAS = 1 << BITS_POR_NIVEL;
+    private static final int MASCARA = RANURAS - 1;
+
+    // Nodo de una lista doblemente enlazada circular; la cabeza de cada ranura es un centinela sin clave
+    private static final class Nodo<K> {
+        private final K clave;
+        private final long tick;
+        private Nodo<K> anterior = this;
+        private Nodo<K> siguiente = this;
+
+        private Nodo(K clave, long tick) {
+            this.clave = clave;
+            this.tick = tick;
+        }
+
+        private void desenlazar() {
+            anterior.siguiente = siguiente;
+            siguiente.anterior = anterior;
+            anterior = this;
+            siguiente = this;
+        }
+    }
+
+    private final long tickMs;
+    private final int niveles;
+    private final long rangoMaximo;
+    private final Nodo<K>[][] ranuras;
+    private final Map<K, Nodo<K>> nodos = new HashMap<>();
+    private long tickActual;
+
+    /**
+     * @param tickMs Duración de un tick en milisegundos
+     * @param niveles Número de niveles (rango total: 64^niveles ticks)
+     * @param inicioMs Instante inicial en milisegundos
+     */
+    @SuppressWarnings("unchecked")
+    public RuedaTemporizadora(long tickMs, int niveles, long inicioMs) {
+        if (tickMs <= 0 || niveles < 1 || niveles * BITS_POR_NIVEL >= Long.SIZE - 1) {
+            throw new IllegalArgumentException("Duración de tick o número de niveles inválido");
+        }
+        this.tickMs = tickMs;
+        this.niveles = niveles;
+        this.rangoMaximo = (1L << (BITS_POR_NIVEL * niveles)) - 1;
+        this.ranuras = (Nodo<K>[][]) new Nodo<?>[niveles][RANURAS];
+        for (Nodo<K>[] nivel : ranuras) {
+            for (int i = 0; i < RANURAS; i++) {
+                nivel[i] = new Nodo<>(null, 0);
+            }
+        }
+        this.tickActual = inicioMs / tickMs;
+    }
+
+    /**
+     * Programa (o reprograma) el vencimiento de una clave
+     * Un vencimiento ya pasado vence en el siguiente tick
+     * @param clave Clave del vencimiento
+     * @param vencimientoMs Instante de vencimiento en milisegundos
+     */
+    public void programar(K clave, long vencimientoMs) {
+        cancelar(clave);
+        // Redondeo hacia arriba: nunca vence antes del instante pedido
+        long tick = Math.max(Math.floorDiv(vencimientoMs + tickMs - 1, tickMs), tickActual + 1);
+        Nodo<K> nodo = new Nodo<>(clave, tick);
+        nodos.put(clave, nodo);
+        ubicar(nodo, null);
+    }
+
+    /**
+     * Cancela el vencimiento de una clave
+     * @param clave Clave del vencimiento
+     * @return true si la clave estaba programada
+     */
+    public boolean cancelar(K clave) {
+        Nodo<K> nodo = nodos.remove(clave);
+        if (nodo == null) {
+            return false;
+        }
+        nodo.desenlazar();
+        return true;
+    }
+
+    /**
+     * Avanza el tiempo hasta el instante indicado
+     * @param ahoraMs Instante actual en milisegundos
+     * @return Claves vencidas, en orden de vencimiento
+     */
+    public List<K> avanzar(long ahoraMs) {
+        long objetivo = ahoraMs / tickMs;
+        List<K> vencidas = new ArrayList<>();
+        if (nodos.isEmpty()) {
+            tickActual = Math.max(tickActual, objetivo);
+            return vencidas;
+        }
+        while (tickActual < objetivo && !nodos.isEmpty()) {
+            tickActual++;
+            // Primero bajan los niveles altos cuyo rango empieza en este tick
+            for (int nivel = niveles - 1; nivel >= 1; nivel--) {
+                if ((tickActual & ((1L << (BITS_POR_NIVEL * nivel)) - 1)) == 0) {
+                    Nodo<K> cabeza = ranuras[nivel][(int) ((tickActual >>> (BITS_POR_NIVEL * nivel)) & MASCARA)];
+                    while (cabeza.siguiente != cabeza) {
+                        Nodo<K> nodo = cabeza.siguiente;
+                        nodo.desenlazar();
+                        ubicar(nodo, vencidas);
+                    }
+                }
+            }
+            Nodo<K> cabeza = ranuras[0][(int) (tickActual & MASCARA)];
+            while (cabeza.siguiente != cabeza) {
+                vencer(cabeza.siguiente, vencidas);
+            }
+        }
+        tickActual = Math.max(tickActual, objetivo);
+        return vencidas;
+    }
+
+    /**
+     * @return Número de vencimientos programados
+     */
+    public int tamano() {
+        return nodos.size();
+    }
+
+    // Ubica el nodo en el nivel cuyo rango contiene su vencimiento; si ya venció lo agrega a vencidas
+    private void ubicar(Nodo<K> nodo, List<K> vencidas) {
+        long distancia = nodo.tick - tickActual;
+        if (distancia <= 0 && vencidas != null) {
+            vencer(nodo, vencidas);
+            return;
+        }
+        long destino = tickActual + Math.min(Math.max(distancia, 1), rangoMaximo);
+        int nivel = 0;
+        while (nivel < niveles - 1 && (destino - tickActual) >= (1L << (BITS_POR_NIVEL * (nivel + 1)))) {
+            nivel++;
+        }
+        Nodo<K> cabeza = ranuras[nivel][(int) ((destino >>> (BITS_POR_NIVEL * nivel)) & MASCARA)];
+        nodo.anterior = cabeza.anterior;
+        nodo.siguiente = cabeza;
+        cabeza.anterior.siguiente = nodo;
+        cabeza.anterior = nodo;
+    }
+
+    private void vencer(Nodo<K> nodo, List<K> vencidas) {
+        nodo.desenlazar();
+        nodos.remove(nodo.clave);
+        vencidas.add(nodo.clave);
+    }
+}
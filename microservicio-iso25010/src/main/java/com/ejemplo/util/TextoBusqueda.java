@@ -0,0 +1,51 @@
+package com.ejemplo.util;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Utilidad de normalización de texto para los índices de búsqueda en memoria
+ * Convierte a minúsculas, elimina acentos y colapsa espacios, y extrae trigramas
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+public class TextoBusqueda {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private TextoBusqueda() {
+        // Constructor privado para evitar instanciación
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Normaliza un texto para indexarlo o buscarlo
+     * @param texto Texto original (puede ser nulo)
+     * @return Texto en minúsculas, sin acentos y con espacios simples; cadena vacía si es nulo
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Obtiene los trigramas (subcadenas de 3 caracteres) de un texto ya normalizado
+     * @param normalizado Texto normalizado
+     * @return Trigramas sin repetir, en orden de aparición; vacío si el texto tiene menos de 3 caracteres
+     */
+    public static Set<String> trigramas(String normalizado) {
+        Set<String> trigramas = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= normalizado.length(); i++) {
+            trigramas.add(normalizado.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+}
@@ -0,0 +1,132 @@
+package com.ejemplo.benchmark;
+
+import com.ejemplo.service.BusquedaDifusaProductos;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import com.ejemplo.util.TextoBusqueda;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de la búsqueda difusa de productos
+ * Compara la búsqueda con listas invertidas de trigramas contra un recorrido lineal
+ * del catálogo con Levenshtein, para catálogos de 10k, 100k y 1M productos.
+ *
+ * Ejecución (no forma parte de mvn test):
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -Xmx4g -cp target/test-classes:target/classes:$(cat target/cp.txt) com.ejemplo.benchmark.BusquedaDifusaBenchmark
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class BusquedaDifusaBenchmark {
+
+    private static final String[] TIPOS = {"Laptop", "Mouse", "Teclado", "Monitor", "Impresora", "Tablet",
+        "Audífonos", "Cámara", "Parlante", "Router", "Silla", "Escritorio", "Lámpara", "Cargador", "Disco"};
+    private static final String[] MARCAS = {"HP", "Lenovo", "Dell", "Asus", "Acer", "Logitech", "Samsung",
+        "Sony", "Philips", "Xiaomi", "Epson", "Canon", "Kingston", "Herman", "Anker"};
+    private static final String[] ADJETIVOS = {"inalámbrico", "gamer", "ergonómico", "portátil", "compacto",
+        "profesional", "mecánico", "curvo", "recargable", "ultradelgado"};
+    private static final String[] CATEGORIAS = {"Electrónicos", "Accesorios", "Oficina", "Muebles", "Audio"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int tamano;
+
+    private BusquedaDifusaProductos busqueda;
+    private List<String[]> palabrasPorProducto;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        busqueda = new BusquedaDifusaProductos();
+        palabrasPorProducto = new ArrayList<>(tamano);
+        Random aleatorio = new Random(42);
+        for (int i = 1; i <= tamano; i++) {
+            String nombre = TIPOS[aleatorio.nextInt(TIPOS.length)] + " "
+                    + ADJETIVOS[aleatorio.nextInt(ADJETIVOS.length)] + " modelo" + aleatorio.nextInt(20_000);
+            String marca = MARCAS[aleatorio.nextInt(MARCAS.length)];
+            String categoria = CATEGORIAS[aleatorio.nextInt(CATEGORIAS.length)];
+            busqueda.indexar((long) i, new Instantanea(nombre, null, categoria, marca, true));
+            palabrasPorProducto.add(TextoBusqueda.normalizar(nombre + " " + categoria + " " + marca).split(" "));
+        }
+    }
+
+    @Benchmark
+    public List<Long> indiceTrigramasConErrorDeTipeo() {
+        return busqueda.buscar("lptop lenvo");
+    }
+
+    @Benchmark
+    public List<Long> indiceTrigramasPalabraExacta() {
+        return busqueda.buscar("ergonomico");
+    }
+
+    /**
+     * Línea base: Levenshtein contra cada palabra de cada producto (lo que haría un escaneo de tabla)
+     */
+    @Benchmark
+    public int recorridoLinealConErrorDeTipeo() {
+        int encontrados = 0;
+        for (String[] palabras : palabrasPorProducto) {
+            boolean tipo = false;
+            boolean marca = false;
+            for (String palabra : palabras) {
+                tipo |= similitud("lptop", palabra) >= 0.7;
+                marca |= similitud("lenvo", palabra) >= 0.7;
+            }
+            if (tipo && marca) {
+                encontrados++;
+            }
+        }
+        return encontrados;
+    }
+
+    private static double similitud(String a, String b) {
+        int mayor = Math.max(a.length(), b.length());
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                actual[j] = Math.min(Math.min(actual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + costo);
+            }
+            int[] intercambio = anterior;
+            anterior = actual;
+            actual = intercambio;
+        }
+        return 1.0 - (double) anterior[b.length()] / mayor;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BusquedaDifusaBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
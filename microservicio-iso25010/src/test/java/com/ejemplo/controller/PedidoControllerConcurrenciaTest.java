@@ -0,0 +1,130 @@
+package com.ejemplo.controller;
+
+import com.ejemplo.model.Pedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import com.ejemplo.service.PedidoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Prueba de concurrencia para GET /pedidos/{id}
+ * Lanza lecturas simultáneas del mismo pedido contra la base H2 real, con open-session-in-view
+ * activo, y valida que todas las solicitudes que comparten la carga reciban el pedido completo
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("PedidoController - Prueba de Concurrencia de Lecturas")
+class PedidoControllerConcurrenciaTest {
+
+    private static final int HILOS = 8;
+    private static final int LECTURAS_POR_HILO = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Usuario usuario;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setNombre("Lectura");
+        usuario.setApellido("Concurrente");
+        usuario.setUsername("lectura_concurrente");
+        usuario.setEmail("lectura.concurrente@example.com");
+        usuario.setPassword("password123");
+        usuario.setFechaCreacion(LocalDateTime.now());
+        usuario = usuarioRepository.save(usuario);
+
+        producto = productoRepository.save(new Producto("Producto leído", new BigDecimal("5.00"), 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll(pedidoRepository.findByUsuarioId(usuario.getId()));
+        productoRepository.deleteById(producto.getId());
+        usuarioRepository.deleteById(usuario.getId());
+    }
+
+    // ==================== Tests para GET /pedidos/{id} ====================
+    @Test
+    @DisplayName("GET /pedidos/{id} - Las lecturas concurrentes del mismo pedido deben responder completas")
+    void testObtenerPorId_LecturasConcurrentes() throws Exception {
+        // Arrange
+        Pedido pedido = pedidoService.crear(usuario.getId(), producto.getId(), 2, "Lectura compartida");
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Future<Integer>> resultados = new ArrayList<>();
+
+        // Act: cada solicitud tiene su propia sesión; las que coinciden se unen a una carga ajena
+        try {
+            for (int h = 0; h < HILOS; h++) {
+                resultados.add(executor.submit(() -> {
+                    inicio.await();
+                    for (int i = 0; i < LECTURAS_POR_HILO; i++) {
+                        mockMvc.perform(get("/pedidos/{id}", pedido.getId()).with(user("admin").roles("ADMIN")))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.cantidad", is(2)))
+                                .andExpect(jsonPath("$.productoNombre", is("Producto leído")))
+                                .andExpect(jsonPath("$.usuarioEmail", is("lectura.concurrente@example.com")));
+                    }
+                    return LECTURAS_POR_HILO;
+                }));
+            }
+            inicio.countDown();
+
+            // Assert: ninguna lectura falló (una excepción en un hilo se propaga en get)
+            int completas = 0;
+            for (Future<Integer> resultado : resultados) {
+                completas += resultado.get(60, TimeUnit.SECONDS);
+            }
+            assertEquals(HILOS * LECTURAS_POR_HILO, completas);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
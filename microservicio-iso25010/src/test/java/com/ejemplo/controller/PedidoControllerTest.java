@@ -1,12 +1,17 @@
 package com.ejemplo.controller;
 
+import com.ejemplo.dto.PedidoResponseDTO;
 import com.ejemplo.model.Pedido;
 import com.ejemplo.model.Producto;
 import com.ejemplo.model.Usuario;
 import com.ejemplo.repository.PedidoRepository;
-import com.ejemplo.repository.UsuarioRepository;
+import com.ejemplo.service.EstadisticasPedidoService;
+import com.ejemplo.service.PedidoIngresoService;
+import com.ejemplo.service.PedidoService;
 import com.ejemplo.service.ProductoService;
+import com.ejemplo.util.CursorPaginacion;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,19 +19,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.hamcrest.Matchers.*;
+import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -50,6 +66,9 @@ class PedidoControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @MockBean
     private PedidoRepository pedidoRepository;
 
@@ -57,7 +76,13 @@ class PedidoControllerTest {
     private ProductoService productoService;
 
     @MockBean
-    private UsuarioRepository usuarioRepository;
+    private PedidoService pedidoService;
+
+    @MockBean
+    private PedidoIngresoService pedidoIngresoService;
+
+    @MockBean
+    private EstadisticasPedidoService estadisticasPedidoService;
 
     private Pedido pedido;
     private Usuario usuario;
@@ -101,14 +126,16 @@ class PedidoControllerTest {
     @DisplayName("GET /pedidos - Debe retornar lista de pedidos")
     void testObtenerTodos_Success() throws Exception {
         // Arrange
-        when(pedidoRepository.findAllWithRelations()).thenReturn(Arrays.asList(pedido, pedido));
+        PedidoResponseDTO dto = new PedidoResponseDTO(pedido);
+        when(pedidoRepository.findPrimeraPagina(Limit.of(51))).thenReturn(Arrays.asList(dto, dto));
 
         // Act & Assert
         mockMvc.perform(get("/pedidos"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)));
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().doesNotExist(CursorPaginacion.HEADER_SIGUIENTE));
 
-        verify(pedidoRepository, times(1)).findAllWithRelations();
+        verify(pedidoRepository, times(1)).findPrimeraPagina(Limit.of(51));
     }
 
     @Test
@@ -116,14 +143,79 @@ class PedidoControllerTest {
     @DisplayName("GET /pedidos - Debe retornar lista vacía")
     void testObtenerTodos_EmptyList() throws Exception {
         // Arrange
-        when(pedidoRepository.findAllWithRelations()).thenReturn(Collections.emptyList());
+        when(pedidoRepository.findPrimeraPagina(any(Limit.class))).thenReturn(Collections.emptyList());
 
         // Act & Assert
         mockMvc.perform(get("/pedidos"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
 
-        verify(pedidoRepository, times(1)).findAllWithRelations();
+        verify(pedidoRepository, times(1)).findPrimeraPagina(any(Limit.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /pedidos - Debe devolver el cursor de la página siguiente")
+    void testObtenerTodos_ConPaginaSiguiente() throws Exception {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 1, 10, 30);
+        PedidoResponseDTO primero = new PedidoResponseDTO(pedido);
+        primero.setId(3L);
+        primero.setFechaPedido(fecha);
+        PedidoResponseDTO segundo = new PedidoResponseDTO(pedido);
+        segundo.setId(2L);
+        segundo.setFechaPedido(fecha);
+        when(pedidoRepository.findPrimeraPagina(Limit.of(2))).thenReturn(Arrays.asList(primero, segundo));
+
+        // Act & Assert
+        mockMvc.perform(get("/pedidos").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(header().string(CursorPaginacion.HEADER_SIGUIENTE,
+                        CursorPaginacion.codificar(fecha, 3L)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /pedidos - Debe continuar desde el cursor recibido")
+    void testObtenerTodos_DesdeCursor() throws Exception {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 1, 10, 30);
+        when(pedidoRepository.findPaginaDespuesDe(fecha, 3L, Limit.of(11)))
+                .thenReturn(List.of(new PedidoResponseDTO(pedido)));
+
+        // Act & Assert
+        mockMvc.perform(get("/pedidos")
+                .param("limit", "10")
+                .param("cursor", CursorPaginacion.codificar(fecha, 3L)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().doesNotExist(CursorPaginacion.HEADER_SIGUIENTE));
+
+        verify(pedidoRepository, never()).findPrimeraPagina(any(Limit.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /pedidos - Debe rechazar un cursor inválido")
+    void testObtenerTodos_CursorInvalido() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/pedidos").param("cursor", CursorPaginacion.codificar("no-es-fecha", 3L)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(pedidoRepository);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /pedidos - Debe rechazar un límite fuera de rango")
+    void testObtenerTodos_LimiteInvalido() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/pedidos").param("limit", "500"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(pedidoRepository);
     }
 
     // ==================== Tests para GET /pedidos/{id} ====================
@@ -172,10 +264,7 @@ class PedidoControllerTest {
         request.setCantidad(2);
         request.setObservaciones("Pedido de prueba");
 
-        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
-        when(productoService.obtenerPorId(1L)).thenReturn(producto);
-        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
-        when(productoService.reducirStock(1L, 2)).thenReturn(producto);
+        when(pedidoService.crear(1L, 1L, 2, "Pedido de prueba")).thenReturn(pedido);
 
         // Act & Assert
         mockMvc.perform(post("/pedidos")
@@ -185,10 +274,10 @@ class PedidoControllerTest {
                 .andExpect(jsonPath("$.cantidad", is(2)))
                 .andExpect(jsonPath("$.estado", is("PENDIENTE")));
 
-        verify(usuarioRepository, times(1)).findById(1L);
-        verify(productoService, times(1)).obtenerPorId(1L);
-        verify(productoService, times(1)).reducirStock(1L, 2);
-        verify(pedidoRepository, times(1)).save(any(Pedido.class));
+        // La creación se delega completa al servicio transaccional
+        verify(pedidoService, times(1)).crear(1L, 1L, 2, "Pedido de prueba");
+        verify(productoService, never()).obtenerPorId(any());
+        verify(productoService, never()).reducirStock(any(), any());
     }
 
     @Test
@@ -207,7 +296,7 @@ class PedidoControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
 
-        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verify(pedidoService, never()).crear(any(), any(), any(), any());
     }
 
     @Test
@@ -220,7 +309,8 @@ class PedidoControllerTest {
         request.setProductoId(1L);
         request.setCantidad(2);
 
-        when(usuarioRepository.findById(999L)).thenReturn(Optional.empty());
+        when(pedidoService.crear(999L, 1L, 2, null))
+                .thenThrow(new EntityNotFoundException("Usuario no encontrado con ID: 999"));
 
         // Act & Assert
         mockMvc.perform(post("/pedidos")
@@ -228,8 +318,7 @@ class PedidoControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isNotFound());
 
-        verify(usuarioRepository, times(1)).findById(999L);
-        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verify(pedidoService, times(1)).crear(999L, 1L, 2, null);
     }
 
     @Test
@@ -242,10 +331,8 @@ class PedidoControllerTest {
         request.setProductoId(1L);
         request.setCantidad(100);
 
-        producto.setStock(5);
-
-        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
-        when(productoService.obtenerPorId(1L)).thenReturn(producto);
+        when(pedidoService.crear(1L, 1L, 100, null))
+                .thenThrow(new IllegalArgumentException("Stock insuficiente. Stock disponible: 5"));
 
         // Act & Assert
         mockMvc.perform(post("/pedidos")
@@ -253,11 +340,302 @@ class PedidoControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
 
-        verify(usuarioRepository, times(1)).findById(1L);
-        verify(productoService, times(1)).obtenerPorId(1L);
+        verify(pedidoService, times(1)).crear(1L, 1L, 100, null);
         verify(pedidoRepository, never()).save(any(Pedido.class));
     }
 
+    // ==================== Tests para Idempotency-Key ====================
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /pedidos con Idempotency-Key - Un reintento debe repetir la respuesta sin crear otro pedido")
+    void testCrear_IdempotencyKey_Reintento() throws Exception {
+        // Arrange
+        PedidoController.CrearPedidoRequest request = new PedidoController.CrearPedidoRequest();
+        request.setUsuarioId(1L);
+        request.setProductoId(1L);
+        request.setCantidad(2);
+        String clave = UUID.randomUUID().toString();
+
+        when(pedidoService.crear(1L, 1L, 2, null)).thenReturn(pedido);
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos")
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+        mockMvc.perform(post("/pedidos")
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.cantidad", is(2)));
+
+        verify(pedidoService, times(1)).crear(1L, 1L, 2, null);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /pedidos con Idempotency-Key - Debe rechazar la clave reutilizada con otro cuerpo")
+    void testCrear_IdempotencyKey_CuerpoDistinto() throws Exception {
+        // Arrange
+        PedidoController.CrearPedidoRequest request = new PedidoController.CrearPedidoRequest();
+        request.setUsuarioId(1L);
+        request.setProductoId(1L);
+        request.setCantidad(2);
+        String clave = UUID.randomUUID().toString();
+
+        when(pedidoService.crear(any(), any(), any(), any())).thenReturn(pedido);
+
+        mockMvc.perform(post("/pedidos")
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        request.setCantidad(3);
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos")
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(pedidoService, times(1)).crear(any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /pedidos con Idempotency-Key - Un error 5xx no debe guardarse para permitir el reintento")
+    void testCrear_IdempotencyKey_ErrorPermiteReintento() throws Exception {
+        // Arrange
+        PedidoController.CrearPedidoRequest request = new PedidoController.CrearPedidoRequest();
+        request.setUsuarioId(1L);
+        request.setProductoId(1L);
+        request.setCantidad(2);
+        String clave = UUID.randomUUID().toString();
+
+        when(pedidoService.crear(1L, 1L, 2, null))
+                .thenThrow(new RuntimeException("Base de datos no disponible"))
+                .thenReturn(pedido);
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos")
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isInternalServerError());
+
+        mockMvc.perform(post("/pedidos")
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+        verify(pedidoService, times(2)).crear(1L, 1L, 2, null);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /pedidos con Idempotency-Key - Un 5xx tras confirmar los cambios debe repetirse sin volver a ejecutar")
+    void testCrear_IdempotencyKey_ErrorTrasCommitNoSeRepite() throws Exception {
+        // Arrange: el pedido se confirma y la respuesta falla después
+        PedidoController.CrearPedidoRequest request = new PedidoController.CrearPedidoRequest();
+        request.setUsuarioId(1L);
+        request.setProductoId(1L);
+        request.setCantidad(2);
+        String clave = UUID.randomUUID().toString();
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        when(pedidoService.crear(1L, 1L, 2, null)).thenAnswer(invocation -> {
+            transaccion.executeWithoutResult(estado -> { });
+            throw new RuntimeException("Error al serializar la respuesta");
+        });
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos")
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isInternalServerError());
+
+        mockMvc.perform(post("/pedidos")
+                .header("Idempotency-Key", clave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isInternalServerError())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        verify(pedidoService, times(1)).crear(1L, 1L, 2, null);
+    }
+
+    // ==================== Tests para /pedidos/async ====================
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("POST /pedidos/async - Debe encolar el pedido y retornar 202 con tracking ID")
+    void testCrearAsync_Aceptado() throws Exception {
+        // Arrange
+        PedidoController.CrearPedidoRequest request = new PedidoController.CrearPedidoRequest();
+        request.setUsuarioId(1L);
+        request.setProductoId(1L);
+        request.setCantidad(2);
+
+        when(pedidoIngresoService.encolar(1L, 1L, 2, null)).thenReturn(new PedidoIngresoService.SeguimientoPedido(
+            "abc-123", PedidoIngresoService.EstadoSolicitud.EN_COLA, null, null, LocalDateTime.now(), null));
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", endsWith("/pedidos/async/abc-123")))
+                .andExpect(jsonPath("$.trackingId", is("abc-123")))
+                .andExpect(jsonPath("$.estado", is("EN_COLA")));
+
+        verify(pedidoService, never()).crear(any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("POST /pedidos/async - Debe validar antes de encolar")
+    void testCrearAsync_InvalidData() throws Exception {
+        // Arrange
+        PedidoController.CrearPedidoRequest request = new PedidoController.CrearPedidoRequest();
+        request.setUsuarioId(1L);
+        request.setProductoId(1L);
+        request.setCantidad(0);
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(pedidoIngresoService, never()).encolar(any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("POST /pedidos/async - Debe retornar 503 cuando la cola está llena")
+    void testCrearAsync_ColaLlena() throws Exception {
+        // Arrange
+        PedidoController.CrearPedidoRequest request = new PedidoController.CrearPedidoRequest();
+        request.setUsuarioId(1L);
+        request.setProductoId(1L);
+        request.setCantidad(1);
+
+        when(pedidoIngresoService.encolar(any(), any(), any(), any()))
+                .thenThrow(new RejectedExecutionException("Cola de pedidos llena"));
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /pedidos/async/{trackingId} - Debe retornar el resultado del pedido")
+    void testObtenerSeguimiento_Success() throws Exception {
+        // Arrange
+        when(pedidoIngresoService.obtenerSeguimiento("abc-123")).thenReturn(Optional.of(
+            new PedidoIngresoService.SeguimientoPedido("abc-123", PedidoIngresoService.EstadoSolicitud.COMPLETADO,
+                15L, null, LocalDateTime.now(), LocalDateTime.now())));
+
+        // Act & Assert
+        mockMvc.perform(get("/pedidos/async/abc-123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado", is("COMPLETADO")))
+                .andExpect(jsonPath("$.pedidoId", is(15)));
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /pedidos/async/{trackingId} - Debe retornar 404 si el seguimiento no existe")
+    void testObtenerSeguimiento_NotFound() throws Exception {
+        // Arrange
+        when(pedidoIngresoService.obtenerSeguimiento("desconocido")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        mockMvc.perform(get("/pedidos/async/desconocido"))
+                .andExpect(status().isNotFound());
+    }
+
+    // ==================== Tests para POST /pedidos/checkout ====================
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("POST /pedidos/checkout - Debe crear un pedido por línea y sumar líneas repetidas")
+    void testCheckout_Success() throws Exception {
+        // Arrange
+        PedidoController.CheckoutRequest request = new PedidoController.CheckoutRequest();
+        request.setUsuarioId(1L);
+        request.setLineas(List.of(lineaCarrito(1L, 1), lineaCarrito(1L, 1)));
+        when(pedidoService.checkout(eq(1L), eq(Map.of(1L, 2)), isNull())).thenReturn(List.of(pedido));
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].productoId").value(1))
+                .andExpect(jsonPath("$[0].cantidad").value(2));
+
+        verify(pedidoService, times(1)).checkout(eq(1L), eq(Map.of(1L, 2)), isNull());
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("POST /pedidos/checkout - Debe rechazar carrito vacío")
+    void testCheckout_CarritoVacio() throws Exception {
+        // Arrange
+        PedidoController.CheckoutRequest request = new PedidoController.CheckoutRequest();
+        request.setUsuarioId(1L);
+        request.setLineas(List.of());
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(pedidoService, never()).checkout(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("POST /pedidos/checkout - Debe retornar 400 con stock insuficiente")
+    void testCheckout_StockInsuficiente() throws Exception {
+        // Arrange
+        PedidoController.CheckoutRequest request = new PedidoController.CheckoutRequest();
+        request.setUsuarioId(1L);
+        request.setLineas(List.of(lineaCarrito(1L, 50)));
+        when(pedidoService.checkout(eq(1L), any(), any()))
+                .thenThrow(new IllegalArgumentException("Stock insuficiente para los productos: [1]"));
+
+        // Act & Assert
+        mockMvc.perform(post("/pedidos/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private PedidoController.LineaCarritoRequest lineaCarrito(Long productoId, int cantidad) {
+        PedidoController.LineaCarritoRequest linea = new PedidoController.LineaCarritoRequest();
+        linea.setProductoId(productoId);
+        linea.setCantidad(cantidad);
+        return linea;
+    }
+
     // ==================== Tests para PUT /pedidos/{id} ====================
 
     @Test
@@ -270,11 +648,7 @@ class PedidoControllerTest {
         request.setProductoId(1L);
         request.setCantidad(3);
 
-        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-        when(productoService.obtenerPorId(1L)).thenReturn(producto);
-        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
-        when(productoService.aumentarStock(1L, 2)).thenReturn(producto);
-        when(productoService.reducirStock(1L, 3)).thenReturn(producto);
+        when(pedidoService.actualizar(1L, 1L, 3, null)).thenReturn(pedido);
 
         // Act & Assert
         mockMvc.perform(put("/pedidos/1")
@@ -282,10 +656,7 @@ class PedidoControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk());
 
-        verify(pedidoRepository, times(1)).findById(1L);
-        verify(productoService, times(1)).aumentarStock(1L, 2);
-        verify(productoService, times(1)).reducirStock(1L, 3);
-        verify(pedidoRepository, times(1)).save(any(Pedido.class));
+        verify(pedidoService, times(1)).actualizar(1L, 1L, 3, null);
     }
 
     @Test
@@ -293,13 +664,13 @@ class PedidoControllerTest {
     @DisplayName("PUT /pedidos/{id} - Debe fallar si no está pendiente")
     void testActualizar_EstadoInvalido() throws Exception {
         // Arrange
-        pedido.setEstado(Pedido.EstadoPedido.ENTREGADO);
         PedidoController.CrearPedidoRequest request = new PedidoController.CrearPedidoRequest();
         request.setUsuarioId(1L);
         request.setProductoId(1L);
         request.setCantidad(3);
 
-        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(pedidoService.actualizar(1L, 1L, 3, null))
+                .thenThrow(new IllegalStateException("Solo se pueden actualizar pedidos en estado PENDIENTE"));
 
         // Act & Assert
         mockMvc.perform(put("/pedidos/1")
@@ -307,8 +678,7 @@ class PedidoControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isConflict());
 
-        verify(pedidoRepository, times(1)).findById(1L);
-        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verify(pedidoService, times(1)).actualizar(1L, 1L, 3, null);
     }
 
     // ==================== Tests para DELETE /pedidos/{id} ====================
@@ -318,17 +688,13 @@ class PedidoControllerTest {
     @DisplayName("DELETE /pedidos/{id} - Debe eliminar pedido pendiente")
     void testEliminar_Success() throws Exception {
         // Arrange
-        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-        when(productoService.aumentarStock(1L, 2)).thenReturn(producto);
-        doNothing().when(pedidoRepository).deleteById(1L);
+        doNothing().when(pedidoService).eliminar(1L);
 
         // Act & Assert
         mockMvc.perform(delete("/pedidos/1"))
                 .andExpect(status().isNoContent());
 
-        verify(pedidoRepository, times(1)).findById(1L);
-        verify(productoService, times(1)).aumentarStock(1L, 2);
-        verify(pedidoRepository, times(1)).deleteById(1L);
+        verify(pedidoService, times(1)).eliminar(1L);
     }
 
     @Test
@@ -336,15 +702,14 @@ class PedidoControllerTest {
     @DisplayName("DELETE /pedidos/{id} - Debe fallar si pedido no puede cancelarse")
     void testEliminar_NoPuedeCancelarse() throws Exception {
         // Arrange
-        pedido.setEstado(Pedido.EstadoPedido.ENTREGADO);
-        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        doThrow(new IllegalStateException("Solo se pueden eliminar pedidos en estado PENDIENTE o CONFIRMADO"))
+                .when(pedidoService).eliminar(1L);
 
         // Act & Assert
         mockMvc.perform(delete("/pedidos/1"))
                 .andExpect(status().isConflict());
 
-        verify(pedidoRepository, times(1)).findById(1L);
-        verify(pedidoRepository, never()).deleteById(1L);
+        verify(pedidoService, times(1)).eliminar(1L);
     }
 
     // ==================== Tests para GET /pedidos/usuario/{usuarioId} ====================
@@ -417,32 +782,26 @@ class PedidoControllerTest {
     @DisplayName("PATCH /pedidos/{id}/estado - Debe cambiar estado exitosamente")
     void testCambiarEstado_Success() throws Exception {
         // Arrange
-        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
+        when(pedidoService.cambiarEstado(1L, Pedido.EstadoPedido.CONFIRMADO)).thenReturn(pedido);
 
         // Act & Assert
         mockMvc.perform(patch("/pedidos/1/estado")
-                .param("estado", "CONFIRMADO"))
+                .param("estado", "confirmado"))
                 .andExpect(status().isOk());
 
-        verify(pedidoRepository, times(1)).findById(1L);
-        verify(pedidoRepository, times(1)).save(any(Pedido.class));
+        verify(pedidoService, times(1)).cambiarEstado(1L, Pedido.EstadoPedido.CONFIRMADO);
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     @DisplayName("PATCH /pedidos/{id}/estado - Debe fallar con estado inválido")
     void testCambiarEstado_EstadoInvalido() throws Exception {
-        // Arrange
-        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-
         // Act & Assert
         mockMvc.perform(patch("/pedidos/1/estado")
                 .param("estado", "ESTADO_INVALIDO"))
                 .andExpect(status().isBadRequest());
 
-        verify(pedidoRepository, times(1)).findById(1L);
-        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verify(pedidoService, never()).cambiarEstado(anyLong(), any());
     }
 
     // ==================== Tests para PATCH /pedidos/{id}/cancelar ====================
@@ -452,17 +811,15 @@ class PedidoControllerTest {
     @DisplayName("PATCH /pedidos/{id}/cancelar - Debe cancelar pedido pendiente")
     void testCancelar_Success() throws Exception {
         // Arrange
-        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
-        when(productoService.aumentarStock(1L, 2)).thenReturn(producto);
+        pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
+        when(pedidoService.cancelar(1L)).thenReturn(pedido);
 
         // Act & Assert
         mockMvc.perform(patch("/pedidos/1/cancelar"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado", is("CANCELADO")));
 
-        verify(pedidoRepository, times(1)).findById(1L);
-        verify(productoService, times(1)).aumentarStock(1L, 2);
-        verify(pedidoRepository, times(1)).save(any(Pedido.class));
+        verify(pedidoService, times(1)).cancelar(1L);
     }
 
     @Test
@@ -470,15 +827,14 @@ class PedidoControllerTest {
     @DisplayName("PATCH /pedidos/{id}/cancelar - Debe fallar si no puede cancelarse")
     void testCancelar_NoPuedeCancelarse() throws Exception {
         // Arrange
-        pedido.setEstado(Pedido.EstadoPedido.ENTREGADO);
-        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(pedidoService.cancelar(1L))
+                .thenThrow(new IllegalStateException("El pedido no puede ser cancelado. Estado actual: ENTREGADO"));
 
         // Act & Assert
         mockMvc.perform(patch("/pedidos/1/cancelar"))
                 .andExpect(status().isConflict());
 
-        verify(pedidoRepository, times(1)).findById(1L);
-        verify(pedidoRepository, never()).save(any(Pedido.class));
+        verify(pedidoService, times(1)).cancelar(1L);
     }
 
     // ==================== Tests para GET /pedidos/estadisticas ====================
@@ -488,12 +844,13 @@ class PedidoControllerTest {
     @DisplayName("GET /pedidos/estadisticas - Debe retornar estadísticas")
     void testObtenerEstadisticas_Success() throws Exception {
         // Arrange
-        when(pedidoRepository.count()).thenReturn(10L);
-        when(pedidoRepository.countByEstado(Pedido.EstadoPedido.PENDIENTE)).thenReturn(3L);
-        when(pedidoRepository.countByEstado(Pedido.EstadoPedido.CONFIRMADO)).thenReturn(2L);
-        when(pedidoRepository.countByEstado(Pedido.EstadoPedido.ENTREGADO)).thenReturn(4L);
-        when(pedidoRepository.countByEstado(Pedido.EstadoPedido.CANCELADO)).thenReturn(1L);
-        when(pedidoRepository.calcularTotalGeneralVentas()).thenReturn(new BigDecimal("5000.00"));
+        Map<Pedido.EstadoPedido, Long> conteos = new EnumMap<>(Pedido.EstadoPedido.class);
+        conteos.put(Pedido.EstadoPedido.PENDIENTE, 3L);
+        conteos.put(Pedido.EstadoPedido.CONFIRMADO, 2L);
+        conteos.put(Pedido.EstadoPedido.ENTREGADO, 4L);
+        conteos.put(Pedido.EstadoPedido.CANCELADO, 1L);
+        when(estadisticasPedidoService.obtener())
+                .thenReturn(new EstadisticasPedidoService.Resumen(conteos, new BigDecimal("5000.00")));
 
         // Act & Assert
         mockMvc.perform(get("/pedidos/estadisticas"))
@@ -505,9 +862,10 @@ class PedidoControllerTest {
                 .andExpect(jsonPath("$.cancelados", is(1)))
                 .andExpect(jsonPath("$.ventasTotal", is(5000.00)));
 
-        verify(pedidoRepository, times(1)).count();
-        verify(pedidoRepository, times(4)).countByEstado(any());
-        verify(pedidoRepository, times(1)).calcularTotalGeneralVentas();
+        // Las estadísticas salen de los contadores en memoria, sin consultar la tabla
+        verify(pedidoRepository, never()).count();
+        verify(pedidoRepository, never()).countByEstado(any());
+        verify(pedidoRepository, never()).calcularTotalGeneralVentas();
     }
 
     // ==================== Tests de Validación de Cálculos ====================
@@ -526,10 +884,7 @@ class PedidoControllerTest {
         pedidoConTotal.setId(1L);
         pedidoConTotal.calcularTotal();
 
-        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
-        when(productoService.obtenerPorId(1L)).thenReturn(producto);
-        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedidoConTotal);
-        when(productoService.reducirStock(1L, 5)).thenReturn(producto);
+        when(pedidoService.crear(1L, 1L, 5, null)).thenReturn(pedidoConTotal);
 
         // Act & Assert
         mockMvc.perform(post("/pedidos")
@@ -538,6 +893,6 @@ class PedidoControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.total", is(3999.95)));
 
-        verify(pedidoRepository, times(1)).save(any(Pedido.class));
+        verify(pedidoService, times(1)).crear(1L, 1L, 5, null);
     }
 }
@@ -1,7 +1,22 @@
 package com.ejemplo.controller;
 
+import com.ejemplo.dto.ProductoResumenDTO;
 import com.ejemplo.model.Producto;
+import com.ejemplo.service.AutocompletadoProductos;
+import com.ejemplo.service.AutocompletadoProductos.Sugerencia;
+import com.ejemplo.service.FacetasCatalogo;
+import com.ejemplo.service.FacetasCatalogo.Faceta;
+import com.ejemplo.service.FacetasCatalogo.Vista;
 import com.ejemplo.service.ProductoService;
+import com.ejemplo.service.ProductoService.AjusteRechazado;
+import com.ejemplo.service.ProductoService.FiltroCatalogo;
+import com.ejemplo.service.ProductoService.ResultadoAjusteStock;
+import com.ejemplo.service.RankingMasVendidos;
+import com.ejemplo.service.RankingMasVendidos.MasVendido;
+import com.ejemplo.service.TendenciasProductos;
+import com.ejemplo.service.TendenciasProductos.Tendencia;
+import com.ejemplo.service.TendenciasProductos.Ventana;
+import com.ejemplo.util.CursorPaginacion;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -22,6 +37,8 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -50,7 +67,20 @@ class ProductoControllerTest {
     @MockBean
     private ProductoService productoService;
 
+    @MockBean
+    private AutocompletadoProductos autocompletadoProductos;
+
+    @MockBean
+    private FacetasCatalogo facetasCatalogo;
+
+    @MockBean
+    private RankingMasVendidos rankingMasVendidos;
+
+    @MockBean
+    private TendenciasProductos tendenciasProductos;
+
     private Producto producto;
+    private ProductoResumenDTO resumen;
 
     @BeforeEach
     void setUp() {
@@ -63,6 +93,8 @@ class ProductoControllerTest {
         producto.setCategoria("Electrónicos");
         producto.setMarca("HP");
         producto.setActivo(true);
+
+        resumen = new ProductoResumenDTO(1L, "Laptop HP", new BigDecimal("799.99"), 10, "Electrónicos", "HP", true);
     }
 
     // ==================== Tests para GET /productos ====================
@@ -81,6 +113,7 @@ class ProductoControllerTest {
                 .andExpect(jsonPath("$[0].nombre", is("Laptop HP")));
 
         verify(productoService, times(1)).obtenerTodos();
+        verify(productoService, never()).obtenerPagina(any(), any(), anyInt());
     }
 
     @Test
@@ -98,6 +131,79 @@ class ProductoControllerTest {
         verify(productoService, times(1)).obtenerTodos();
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /productos - Con limit debe retornar una página de la proyección reducida")
+    void testObtenerTodos_PaginaResumen() throws Exception {
+        // Arrange
+        when(productoService.obtenerPagina(FiltroCatalogo.TODOS, null, 51))
+                .thenReturn(Arrays.asList(resumen, resumen));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].nombre", is("Laptop HP")))
+                .andExpect(jsonPath("$[0].descripcion").doesNotExist())
+                .andExpect(header().doesNotExist(CursorPaginacion.HEADER_SIGUIENTE));
+
+        verify(productoService, times(1)).obtenerPagina(FiltroCatalogo.TODOS, null, 51);
+        verify(productoService, never()).obtenerTodos();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /productos - Debe devolver el cursor y continuar desde él")
+    void testObtenerTodos_Paginado() throws Exception {
+        // Arrange
+        ProductoResumenDTO otro = new ProductoResumenDTO(2L, "Mouse", new BigDecimal("10.00"), 5, "Accesorios", "HP", true);
+        when(productoService.obtenerPagina(FiltroCatalogo.TODOS, null, 2)).thenReturn(Arrays.asList(resumen, otro));
+        when(productoService.obtenerPagina(FiltroCatalogo.TODOS, 1L, 2)).thenReturn(List.of(otro));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(header().string(CursorPaginacion.HEADER_SIGUIENTE, CursorPaginacion.codificar(1L)));
+
+        mockMvc.perform(get("/productos").param("limit", "1").param("cursor", CursorPaginacion.codificar(1L)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(header().doesNotExist(CursorPaginacion.HEADER_SIGUIENTE));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /productos - Debe devolver solo los campos solicitados")
+    void testObtenerTodos_ConCampos() throws Exception {
+        // Arrange
+        when(productoService.obtenerPagina(eq(FiltroCatalogo.TODOS), any(), anyInt())).thenReturn(List.of(resumen));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos").param("fields", "id, precio"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].precio", is(799.99)))
+                .andExpect(jsonPath("$[0].nombre").doesNotExist())
+                .andExpect(jsonPath("$[0].stock").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /productos - Debe rechazar campos, cursores o límites inválidos")
+    void testObtenerTodos_ParametrosInvalidos() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/productos").param("fields", "id,descripcion"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/productos").param("cursor", CursorPaginacion.codificar("abc")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/productos").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(productoService, never()).obtenerPagina(any(), any(), anyInt());
+    }
+
     // ==================== Tests para GET /productos/{id} ====================
 
     @Test
@@ -240,6 +346,22 @@ class ProductoControllerTest {
         verify(productoService, times(1)).obtenerProductosActivos();
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /productos/activos - Con limit debe retornar una página de productos activos")
+    void testObtenerProductosActivos_Paginado() throws Exception {
+        // Arrange
+        when(productoService.obtenerPagina(FiltroCatalogo.ACTIVOS, null, 51)).thenReturn(Arrays.asList(resumen));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/activos").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(productoService, times(1)).obtenerPagina(FiltroCatalogo.ACTIVOS, null, 51);
+        verify(productoService, never()).obtenerProductosActivos();
+    }
+
     // ==================== Tests para GET /productos/con-stock ====================
 
     @Test
@@ -257,6 +379,22 @@ class ProductoControllerTest {
         verify(productoService, times(1)).obtenerProductosConStock();
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /productos/con-stock - Con limit debe retornar una página de productos con stock")
+    void testObtenerProductosConStock_Paginado() throws Exception {
+        // Arrange
+        when(productoService.obtenerPagina(FiltroCatalogo.CON_STOCK, null, 51)).thenReturn(Arrays.asList(resumen));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/con-stock").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(productoService, times(1)).obtenerPagina(FiltroCatalogo.CON_STOCK, null, 51);
+        verify(productoService, never()).obtenerProductosConStock();
+    }
+
     // ==================== Tests para GET /productos/sin-stock ====================
 
     @Test
@@ -274,6 +412,22 @@ class ProductoControllerTest {
         verify(productoService, times(1)).obtenerProductosSinStock();
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /productos/sin-stock - Con limit debe retornar una página de productos sin stock")
+    void testObtenerProductosSinStock_Paginado() throws Exception {
+        // Arrange
+        when(productoService.obtenerPagina(FiltroCatalogo.SIN_STOCK, null, 51)).thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/sin-stock").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        verify(productoService, times(1)).obtenerPagina(FiltroCatalogo.SIN_STOCK, null, 51);
+        verify(productoService, never()).obtenerProductosSinStock();
+    }
+
     // ==================== Tests para GET /productos/precio ====================
 
     @Test
@@ -313,6 +467,121 @@ class ProductoControllerTest {
         verify(productoService, times(1)).buscarPorTexto("Laptop");
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /productos/buscar-texto - Debe usar la búsqueda difusa cuando se solicita")
+    void testBuscarPorTexto_Difuso() throws Exception {
+        // Arrange
+        when(productoService.buscarPorTextoDifuso("lptop", 0.8)).thenReturn(Arrays.asList(producto));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/buscar-texto")
+                .param("texto", "lptop")
+                .param("difuso", "true")
+                .param("umbral", "0.8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(productoService, never()).buscarPorTexto(any());
+    }
+
+    // ==================== Tests para GET /productos/autocomplete ====================
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/autocomplete - Debe retornar sugerencias por prefijo")
+    void testAutocompletar_Success() throws Exception {
+        // Arrange
+        when(autocompletadoProductos.sugerir("lap", AutocompletadoProductos.LIMITE_POR_DEFECTO))
+                .thenReturn(List.of(new Sugerencia(1L, "Laptop HP", "HP", 12L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/autocomplete").param("prefix", "lap"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].nombre", is("Laptop HP")))
+                .andExpect(jsonPath("$[0].popularidad", is(12)));
+
+        verify(productoService, never()).buscarPorNombre(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/autocomplete - Debe retornar 400 con prefijo inválido")
+    void testAutocompletar_PrefijoInvalido() throws Exception {
+        // Arrange
+        when(autocompletadoProductos.sugerir(" ", 5))
+                .thenThrow(new IllegalArgumentException("El prefijo no puede estar vacío"));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/autocomplete").param("prefix", " ").param("limit", "5"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ==================== Tests para GET /productos/mas-vendidos ====================
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/mas-vendidos - Debe retornar el ranking desde memoria")
+    void testObtenerMasVendidos_Success() throws Exception {
+        // Arrange
+        when(rankingMasVendidos.obtener(RankingMasVendidos.LIMITE_POR_DEFECTO)).thenReturn(List.of(
+                new MasVendido(2L, "Mouse", "Accesorios", "Logitech", 40L, 12L),
+                new MasVendido(1L, "Laptop HP", "Electrónicos", "HP", 15L, 9L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/mas-vendidos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(jsonPath("$[0].unidades", is(40)))
+                .andExpect(jsonPath("$[1].pedidos", is(9)));
+
+        verifyNoInteractions(productoService);
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/mas-vendidos - Debe retornar 400 con límite inválido")
+    void testObtenerMasVendidos_LimiteInvalido() throws Exception {
+        // Arrange
+        when(rankingMasVendidos.obtener(0))
+                .thenThrow(new IllegalArgumentException("El parámetro limit debe estar entre 1 y 100"));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/mas-vendidos").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ==================== Tests para GET /productos/tendencias ====================
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/tendencias - Debe retornar las tendencias de la ventana")
+    void testObtenerTendencias_Success() throws Exception {
+        // Arrange
+        when(tendenciasProductos.obtener(Ventana.CINCO_MINUTOS, 3))
+                .thenReturn(List.of(new Tendencia(1L, "Laptop HP", "HP", 7L, 1L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/tendencias").param("ventana", "5m").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].unidades", is(7)))
+                .andExpect(jsonPath("$[0].error", is(1)));
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/tendencias - Debe retornar 400 con ventana inválida")
+    void testObtenerTendencias_VentanaInvalida() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/productos/tendencias").param("ventana", "2h"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(tendenciasProductos);
+    }
+
     // ==================== Tests para GET /productos/categorias ====================
 
     @Test
@@ -320,15 +589,66 @@ class ProductoControllerTest {
     @DisplayName("GET /productos/categorias - Debe retornar lista de categorías")
     void testObtenerCategorias_Success() throws Exception {
         // Arrange
-        List<String> categorias = Arrays.asList("Electrónicos", "Ropa", "Hogar");
-        when(productoService.obtenerCategorias()).thenReturn(categorias);
+        Vista categorias = new Vista(List.of(new Faceta("Electrónicos", 4), new Faceta("Hogar", 2),
+                new Faceta("Ropa", 1)), "\"categorias-abc-1\"");
+        when(facetasCatalogo.categorias()).thenReturn(categorias);
 
         // Act & Assert
         mockMvc.perform(get("/productos/categorias"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(3)));
+                .andExpect(header().string("ETag", "\"categorias-abc-1\""))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0]").value("Electrónicos"));
 
-        verify(productoService, times(1)).obtenerCategorias();
+        verify(facetasCatalogo, times(1)).categorias();
+        verify(productoService, never()).obtenerCategorias();
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/categorias?conteos=true - Debe incluir el número de productos por categoría")
+    void testObtenerCategorias_ConConteos() throws Exception {
+        // Arrange
+        Vista categorias = new Vista(List.of(new Faceta("Electrónicos", 4), new Faceta("Hogar", 2)),
+                "\"categorias-abc-1\"");
+        when(facetasCatalogo.categorias()).thenReturn(categorias);
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/categorias").param("conteos", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].valor").value("Electrónicos"))
+                .andExpect(jsonPath("$[0].productos").value(4));
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/categorias - Debe responder 304 si el ETag sigue vigente")
+    void testObtenerCategorias_NoModificado() throws Exception {
+        // Arrange
+        Vista categorias = new Vista(List.of(new Faceta("Electrónicos", 4)), "\"categorias-abc-1\"");
+        when(facetasCatalogo.categorias()).thenReturn(categorias);
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/categorias").header("If-None-Match", "W/\"categorias-abc-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"categorias-abc-1\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/categorias - Debe responder 200 si el ETag enviado es anterior")
+    void testObtenerCategorias_EtagAnterior() throws Exception {
+        // Arrange
+        Vista categorias = new Vista(List.of(new Faceta("Electrónicos", 5)), "\"categorias-abc-2\"");
+        when(facetasCatalogo.categorias()).thenReturn(categorias);
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/categorias").header("If-None-Match", "\"categorias-abc-1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"categorias-abc-2\""))
+                .andExpect(jsonPath("$", hasSize(1)));
     }
 
     // ==================== Tests para GET /productos/marcas ====================
@@ -338,15 +658,31 @@ class ProductoControllerTest {
     @DisplayName("GET /productos/marcas - Debe retornar lista de marcas")
     void testObtenerMarcas_Success() throws Exception {
         // Arrange
-        List<String> marcas = Arrays.asList("HP", "Dell", "Apple");
-        when(productoService.obtenerMarcas()).thenReturn(marcas);
+        Vista marcas = new Vista(List.of(new Faceta("Apple", 1), new Faceta("Dell", 3), new Faceta("HP", 2)),
+                "\"marcas-abc-1\"");
+        when(facetasCatalogo.marcas()).thenReturn(marcas);
 
         // Act & Assert
         mockMvc.perform(get("/productos/marcas"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"marcas-abc-1\""))
                 .andExpect(jsonPath("$", hasSize(3)));
 
-        verify(productoService, times(1)).obtenerMarcas();
+        verify(facetasCatalogo, times(1)).marcas();
+        verify(productoService, never()).obtenerMarcas();
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("GET /productos/marcas - Debe responder 304 si el ETag sigue vigente")
+    void testObtenerMarcas_NoModificado() throws Exception {
+        // Arrange
+        Vista marcas = new Vista(List.of(new Faceta("HP", 2)), "\"marcas-abc-1\"");
+        when(facetasCatalogo.marcas()).thenReturn(marcas);
+
+        // Act & Assert
+        mockMvc.perform(get("/productos/marcas").header("If-None-Match", "\"otro\", \"marcas-abc-1\""))
+                .andExpect(status().isNotModified());
     }
 
     // ==================== Tests para PATCH /productos/{id}/stock ====================
@@ -368,6 +704,41 @@ class ProductoControllerTest {
         verify(productoService, times(1)).actualizarStock(1L, 50);
     }
 
+    // ==================== Tests para PATCH /productos/stock ====================
+
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    @DisplayName("PATCH /productos/stock - Debe aplicar el lote y reportar los rechazados")
+    void testAjustarStock_Success() throws Exception {
+        // Arrange
+        when(productoService.ajustarStock(anyList())).thenReturn(new ResultadoAjusteStock(1,
+                List.of(new AjusteRechazado(2L, "Stock insuficiente. Stock actual: 0"))));
+
+        // Act & Assert
+        mockMvc.perform(patch("/productos/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": 1, \"absolute\": 40}, {\"id\": 2, \"delta\": -3}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.aplicados", is(1)))
+                .andExpect(jsonPath("$.rechazados[0].id", is(2)));
+
+        verify(productoService, times(1)).ajustarStock(argThat(ajustes ->
+                ajustes.get(0).getAbsoluto() == 40 && ajustes.get(1).getDelta() == -3));
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("PATCH /productos/stock - Un cliente no debe poder ajustar stock")
+    void testAjustarStock_SinPermiso() throws Exception {
+        // Act & Assert
+        mockMvc.perform(patch("/productos/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": 1, \"delta\": 5}]"))
+                .andExpect(status().isForbidden());
+
+        verify(productoService, never()).ajustarStock(anyList());
+    }
+
     // ==================== Tests para PATCH /productos/{id}/activar ====================
 
     @Test
@@ -1,5 +1,6 @@
 package com.ejemplo.controller;
 
+import com.ejemplo.service.RespaldoProductos;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
@@ -49,6 +50,10 @@ class ResilienceMonitorControllerTest {
     @MockBean
     private RetryRegistry retryRegistry;
 
+    // Se suscribe al Circuit Breaker del registro real, aquí simulado
+    @MockBean
+    private RespaldoProductos respaldoProductos;
+
     private CircuitBreaker circuitBreaker;
     private Retry retry;
 
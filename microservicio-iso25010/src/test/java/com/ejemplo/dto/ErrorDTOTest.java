@@ -130,6 +130,18 @@ class ErrorDTOTest {
         assertEquals("/api/test", error.getPath());
     }
 
+    @Test
+    @DisplayName("Debe crear ErrorDTO service unavailable")
+    void testServiceUnavailableError() {
+        // Arrange & Act
+        ErrorDTO error = ErrorDTO.serviceUnavailable("Cola llena", "/api/test");
+
+        // Assert
+        assertEquals(503, error.getStatus());
+        assertEquals("Service Unavailable", error.getError());
+        assertEquals("Cola llena", error.getMessage());
+    }
+
     @Test
     @DisplayName("Debe manejar detalles nulos")
     void testErrorDTOWithNullDetails() {
@@ -3,8 +3,10 @@ package com.ejemplo.resilience;
 import com.ejemplo.model.Producto;
 import com.ejemplo.repository.ProductoRepository;
 import com.ejemplo.service.ProductoService;
+import com.ejemplo.service.RespaldoProductos;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,6 +21,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -40,6 +43,9 @@ class CircuitBreakerTest {
     @Autowired(required = false)
     private CircuitBreakerRegistry circuitBreakerRegistry;
 
+    @Autowired
+    private RespaldoProductos respaldoProductos;
+
     @MockBean
     private ProductoRepository productoRepository;
 
@@ -60,6 +66,9 @@ class CircuitBreakerTest {
         productoMock.setActivo(true);
         productoMock.setFechaCreacion(LocalDateTime.now());
 
+        // Sin datos respaldados de otras pruebas
+        respaldoProductos.limpiar();
+
         // Resetear circuit breaker si existe
         if (circuitBreakerRegistry != null) {
             circuitBreaker = circuitBreakerRegistry.find("productoService").orElse(null);
@@ -112,12 +121,9 @@ class CircuitBreakerTest {
         when(productoRepository.findById(anyLong()))
                 .thenThrow(new RuntimeException("Temporary error"));
 
-        // Act
-        Producto producto = productoService.obtenerPorId(1L);
-
-        // Assert - Debe retornar producto fallback
-        assertNotNull(producto);
-        assertEquals("Producto no disponible temporalmente", producto.getNombre());
+        // Act & Assert - Sin respaldo, el fallback informa que el servicio no está disponible
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> productoService.obtenerPorId(1L));
+        assertTrue(exception.getMessage().contains("Servicio de productos no disponible"));
 
         // Verificar que se intentó múltiples veces (retry)
         verify(productoRepository, atLeast(1)).findById(anyLong());
@@ -140,21 +146,73 @@ class CircuitBreakerTest {
     }
 
     @Test
-    @DisplayName("Fallback debe retornar producto genérico cuando falla obtenerPorId")
+    @DisplayName("Fallback debe retornar la última lectura correcta cuando falla obtenerPorId")
     void testCircuitBreaker_ObtenerPorId_Fallback() {
-        // Arrange - Simular fallo
-        when(productoRepository.findById(anyLong()))
+        // Arrange - Una lectura correcta y luego fallo
+        when(productoRepository.findById(1L))
+                .thenReturn(Optional.of(productoMock))
                 .thenThrow(new RuntimeException("Service unavailable"));
+        productoService.obtenerPorId(1L);
+
+        // Act
+        Producto productoFallback = productoService.obtenerPorId(1L);
+
+        // Assert - Datos reales, no un producto con precio cero
+        assertEquals(1L, productoFallback.getId());
+        assertEquals("Laptop", productoFallback.getNombre());
+        assertEquals(new BigDecimal("1500.00"), productoFallback.getPrecio());
+        verify(productoRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Fallback de obtenerPorId debe propagar producto inexistente")
+    void testCircuitBreaker_ObtenerPorId_NoExiste() {
+        // Arrange
+        when(productoRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> productoService.obtenerPorId(999L));
+    }
+
+    @Test
+    @DisplayName("Fallback de obtenerTodos debe retornar la última lista leída")
+    void testCircuitBreaker_ObtenerTodos_Respaldo() {
+        // Arrange
+        when(productoRepository.findAll())
+                .thenReturn(List.of(productoMock))
+                .thenThrow(new RuntimeException("Database connection failed"));
+        productoService.obtenerTodos();
 
         // Act
-        Producto productoFallback = productoService.obtenerPorId(999L);
+        List<Producto> productos = productoService.obtenerTodos();
 
         // Assert
-        assertNotNull(productoFallback);
-        assertEquals(999L, productoFallback.getId());
-        assertEquals("Producto no disponible temporalmente", productoFallback.getNombre());
-        assertFalse(productoFallback.getActivo());
-        assertEquals(BigDecimal.ZERO, productoFallback.getPrecio());
+        assertEquals(List.of(productoMock), productos);
+    }
+
+    @Test
+    @DisplayName("Al pasar a HALF_OPEN el respaldo debe refrescarse en segundo plano")
+    void testCircuitBreaker_HalfOpen_RefrescaRespaldo() {
+        // Arrange
+        Producto actualizado = new Producto();
+        actualizado.setId(1L);
+        actualizado.setNombre("Laptop actualizada");
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(productoMock));
+        when(productoRepository.findAllById(any())).thenReturn(List.of(actualizado));
+        productoService.obtenerPorId(1L);
+
+        // Act
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+
+        // Assert
+        verify(productoRepository, timeout(5000)).findAllById(List.of(1L));
+        long limite = System.currentTimeMillis() + 5000;
+        while (!respaldoProductos.producto(1L).map(Producto::getNombre).orElse("").equals("Laptop actualizada")
+                && System.currentTimeMillis() < limite) {
+            Thread.onSpinWait();
+        }
+        assertEquals("Laptop actualizada", respaldoProductos.producto(1L).map(Producto::getNombre).orElse(null));
     }
 
     @Test
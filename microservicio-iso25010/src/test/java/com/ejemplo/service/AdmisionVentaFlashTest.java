@@ -0,0 +1,298 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import com.ejemplo.service.AdmisionVentaFlash.EstadoVentaFlash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración para AdmisionVentaFlash
+ * Lanza pedidos concurrentes de un producto en venta flash contra la base H2 real y valida
+ * que la cola de admisión no sobrevenda, que rechace al instante cuando el stock se agota o
+ * ya está apartado por la cola, que acote las solicitudes en espera y que los pedidos de otros
+ * productos sigan reservando directamente
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("AdmisionVentaFlash - Pruebas de Integración")
+class AdmisionVentaFlashTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmisionVentaFlashTest.class);
+
+    private static final int STOCK_INICIAL = 50;
+    private static final int HILOS = 16;
+    private static final int INTENTOS_POR_HILO = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmisionVentaFlash admisionVentaFlash;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    private Usuario usuario;
+    private Producto flash;
+    private Producto normal;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setNombre("Venta");
+        usuario.setApellido("Flash");
+        usuario.setUsername("venta_flash");
+        usuario.setEmail("venta.flash@example.com");
+        usuario.setPassword("password123");
+        usuario.setFechaCreacion(LocalDateTime.now());
+        usuario = usuarioRepository.save(usuario);
+
+        flash = productoRepository.save(new Producto("Producto en venta flash", new BigDecimal("5.00"), STOCK_INICIAL));
+        normal = productoRepository.save(new Producto("Producto sin venta flash", new BigDecimal("5.00"), STOCK_INICIAL));
+    }
+
+    @AfterEach
+    void tearDown() {
+        admisionVentaFlash.cambiar(flash.getId(), false);
+        pedidoRepository.deleteAll(pedidoRepository.findByUsuarioId(usuario.getId()));
+        productoRepository.deleteAllById(List.of(flash.getId(), normal.getId()));
+        usuarioRepository.deleteById(usuario.getId());
+    }
+
+    private int stock(Producto producto) {
+        return productoRepository.findById(producto.getId()).orElseThrow().getStock();
+    }
+
+    // ==================== Tests de concurrencia ====================
+    @Test
+    @DisplayName("crear concurrente - No debe sobrevender y debe rechazar al agotarse el stock")
+    void testCrear_ConcurrenciaSinSobreventa() throws Exception {
+        // Arrange
+        admisionVentaFlash.cambiar(flash.getId(), true);
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        AtomicInteger saturados = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+        Long usuarioId = usuario.getId();
+        Long productoId = flash.getId();
+
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+                    try {
+                        admisionVentaFlash.crear(usuarioId, productoId, 1, null);
+                        exitosos.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rechazados.incrementAndGet();
+                    } catch (RejectedExecutionException e) {
+                        saturados.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        errores.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Act: un pedido del otro producto en plena venta no pasa por ninguna cola
+        long inicioNanos = System.nanoTime();
+        inicio.countDown();
+        assertFalse(admisionVentaFlash.estaActiva(normal.getId()));
+        pedidoService.crear(usuarioId, normal.getId(), 1, null);
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        long duracionNanos = System.nanoTime() - inicioNanos;
+        executor.shutdown();
+
+        // Assert
+        EstadoVentaFlash estado = admisionVentaFlash.obtener().stream()
+                .filter(e -> e.productoId().equals(productoId)).findFirst().orElseThrow();
+        double pedidosPorSegundo = (HILOS * INTENTOS_POR_HILO) / (duracionNanos / 1_000_000_000.0);
+        logger.info("Venta flash: exitosos={}, rechazados={}, saturados={}, errores={}, estado={}, pedidos/seg={}",
+                exitosos.get(), rechazados.get(), saturados.get(), errores.get(), estado,
+                String.format("%.1f", pedidosPorSegundo));
+
+        assertEquals(0, errores.get());
+        assertEquals(STOCK_INICIAL, exitosos.get());
+        assertEquals(HILOS * INTENTOS_POR_HILO - STOCK_INICIAL, rechazados.get() + saturados.get());
+        assertEquals(0, stock(flash));
+        assertEquals(STOCK_INICIAL - 1, stock(normal));
+        assertEquals(new EstadoVentaFlash(productoId, true, 0, 0, STOCK_INICIAL,
+                HILOS * INTENTOS_POR_HILO - STOCK_INICIAL), estado);
+    }
+
+    @Test
+    @DisplayName("crear - Debe volver a admitir pedidos cuando se repone el stock")
+    void testCrear_AdmiteTrasReponer() {
+        // Arrange
+        productoService.actualizarStock(flash.getId(), 1);
+        admisionVentaFlash.cambiar(flash.getId(), true);
+        admisionVentaFlash.crear(usuario.getId(), flash.getId(), 1, null);
+
+        // Act & Assert: agotado, el rechazo no llega a la cola
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> admisionVentaFlash.crear(usuario.getId(), flash.getId(), 1, null));
+        assertEquals("Stock insuficiente. Stock disponible: 0", ex.getMessage());
+
+        productoService.aumentarStock(flash.getId(), 3);
+        assertNotNull(admisionVentaFlash.crear(usuario.getId(), flash.getId(), 3, null).getId());
+        assertEquals(0, stock(flash));
+    }
+
+    @Test
+    @DisplayName("crear - Debe descontar las unidades en cola y acotar las solicitudes en espera")
+    void testCrear_UnidadesEnColaYEsperasAcotadas() throws Exception {
+        // Arrange: el consumidor queda atendiendo el primer pedido hasta que se libera
+        productoService.actualizarStock(flash.getId(), 5);
+        PedidoService lento = mock(PedidoService.class);
+        CountDownLatch atendiendo = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(lento.crear(anyLong(), anyLong(), anyInt(), any())).thenAnswer(invocacion -> {
+            atendiendo.countDown();
+            liberar.await(10, TimeUnit.SECONDS);
+            return new Pedido();
+        });
+        AdmisionVentaFlash admision = new AdmisionVentaFlash(lento, productoRepository, 10, 10_000, 1, 2, 4);
+        admision.cambiar(flash.getId(), true);
+        Long usuarioId = usuario.getId();
+        Long productoId = flash.getId();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Pedido> primero = executor.submit(() -> admision.crear(usuarioId, productoId, 3, null));
+            assertTrue(atendiendo.await(10, TimeUnit.SECONDS));
+
+            // Act & Assert: 3 de las 5 unidades ya están apartadas
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                    () -> admision.crear(usuarioId, productoId, 3, null));
+            assertEquals("Stock insuficiente. Stock disponible: 2", ex.getMessage());
+
+            Future<Pedido> segundo = executor.submit(() -> admision.crear(usuarioId, productoId, 1, null));
+            while (admision.obtener().get(0).enCola() == 0) {
+                Thread.sleep(10);
+            }
+            // Hay stock para una unidad más, pero ya hay dos solicitudes en espera
+            assertThrows(RejectedExecutionException.class, () -> admision.crear(usuarioId, productoId, 1, null));
+            assertEquals(1, admision.obtener().get(0).stockDisponible());
+
+            liberar.countDown();
+            assertNotNull(primero.get(10, TimeUnit.SECONDS));
+            assertNotNull(segundo.get(10, TimeUnit.SECONDS));
+            assertEquals(5, admision.obtener().get(0).stockDisponible());
+            assertEquals(2, admision.obtener().get(0).rechazados());
+        } finally {
+            liberar.countDown();
+            executor.shutdown();
+            admision.cambiar(productoId, false);
+        }
+    }
+
+    @Test
+    @DisplayName("constructor - Debe rechazar más esperas que la mitad de los hilos del servidor")
+    void testConstructor_EsperasAcotadasPorHilosDelServidor() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdmisionVentaFlash(pedidoService, productoRepository, 50, 10_000, 20, 101, 200));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdmisionVentaFlash(pedidoService, productoRepository, 50, 10_000, 20, 0, 200));
+        assertDoesNotThrow(() -> new AdmisionVentaFlash(pedidoService, productoRepository, 50, 10_000, 20, 100, 200));
+    }
+
+    // ==================== Tests para PUT /productos/{id}/venta-flash ====================
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    @DisplayName("PUT /productos/{id}/venta-flash - Debe enviar POST /pedidos del producto por su cola")
+    void testVentaFlash_Endpoints() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/productos/" + flash.getId() + "/venta-flash").param("activa", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activa", is(true)))
+                .andExpect(jsonPath("$.stockDisponible", is(STOCK_INICIAL)));
+        mockMvc.perform(put("/productos/999999/venta-flash").param("activa", "true"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/pedidos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuarioId\":" + usuario.getId() + ",\"productoId\":" + flash.getId()
+                                + ",\"cantidad\":2}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/pedidos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usuarioId\":" + usuario.getId() + ",\"productoId\":" + flash.getId()
+                                + ",\"cantidad\":" + STOCK_INICIAL + "}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/productos/venta-flash"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.productoId == " + flash.getId() + ")].atendidos", is(List.of(1))))
+                .andExpect(jsonPath("$[?(@.productoId == " + flash.getId() + ")].stockDisponible",
+                        is(List.of(STOCK_INICIAL - 2))));
+
+        mockMvc.perform(put("/productos/" + flash.getId() + "/venta-flash").param("activa", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activa", is(false)));
+        assertFalse(admisionVentaFlash.estaActiva(flash.getId()));
+    }
+}
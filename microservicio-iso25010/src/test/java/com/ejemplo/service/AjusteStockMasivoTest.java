@@ -0,0 +1,137 @@
+package com.ejemplo.service;
+
+import com.ejemplo.dto.AjusteStockRequest;
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.ProductoService.AjusteRechazado;
+import com.ejemplo.service.ProductoService.ResultadoAjusteStock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de integración para ProductoService.ajustarStock
+ * Ejecuta los UPDATE condicionales del lote contra la base H2 real y valida los rechazos
+ * por stock negativo o producto inexistente, la acumulación de varios ajustes de un mismo
+ * producto y lotes concurrentes con los mismos productos en orden inverso
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("ProductoService - Ajuste Masivo de Stock")
+class AjusteStockMasivoTest {
+
+    private static final int PRODUCTOS = 20;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private List<Producto> productos;
+
+    @BeforeEach
+    void setUp() {
+        List<Producto> nuevos = new ArrayList<>(PRODUCTOS);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            nuevos.add(new Producto("Ajuste masivo " + i, new BigDecimal("10.00"), 10));
+        }
+        productos = productoRepository.saveAll(nuevos);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteAllInBatch(productos);
+    }
+
+    private int stock(int indice) {
+        return productoRepository.findById(productos.get(indice).getId()).orElseThrow().getStock();
+    }
+
+    @Test
+    @DisplayName("ajustarStock - Debe aplicar deltas y absolutos y omitir los que violan las condiciones")
+    void testAjustarStock_Condiciones() {
+        // Arrange
+        Long primero = productos.get(0).getId();
+        Long segundo = productos.get(1).getId();
+        Long tercero = productos.get(2).getId();
+        Long cuarto = productos.get(3).getId();
+
+        // Act
+        ResultadoAjusteStock resultado = productoService.ajustarStock(List.of(
+                AjusteStockRequest.delta(primero, -4),
+                AjusteStockRequest.delta(primero, -4),
+                AjusteStockRequest.delta(primero, -4),
+                AjusteStockRequest.absoluto(segundo, 0),
+                AjusteStockRequest.delta(tercero, -11),
+                AjusteStockRequest.absoluto(cuarto, -1),
+                AjusteStockRequest.delta(-1L, 5)));
+
+        // Assert: los dos primeros descuentos del producto se acumulan y el tercero no cabe
+        assertEquals(3, resultado.aplicados());
+        assertEquals(List.of(
+                new AjusteRechazado(-1L, "Producto no encontrado con ID: -1"),
+                new AjusteRechazado(primero, "Stock insuficiente. Stock actual: 2"),
+                new AjusteRechazado(tercero, "Stock insuficiente. Stock actual: 10"),
+                new AjusteRechazado(cuarto, "El stock no puede ser negativo")), resultado.rechazados());
+        assertEquals(2, stock(0));
+        assertEquals(0, stock(1));
+        assertEquals(10, stock(2));
+        assertEquals(10, stock(3));
+        assertNotNull(productoRepository.findById(segundo).orElseThrow().getFechaActualizacion());
+    }
+
+    @Test
+    @DisplayName("ajustarStock concurrente - Lotes con los mismos productos en distinto orden no deben bloquearse")
+    void testAjustarStock_LotesConcurrentes() throws Exception {
+        // Arrange: la mitad de los lotes envía los productos en orden inverso
+        int lotes = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(lotes);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Future<ResultadoAjusteStock>> tareas = new ArrayList<>();
+        for (int l = 0; l < lotes; l++) {
+            List<AjusteStockRequest> ajustes = new ArrayList<>();
+            for (Producto producto : productos) {
+                ajustes.add(AjusteStockRequest.delta(producto.getId(), 1));
+            }
+            if (l % 2 == 1) {
+                Collections.reverse(ajustes);
+            }
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                return productoService.ajustarStock(ajustes);
+            }));
+        }
+
+        // Act
+        inicio.countDown();
+        for (Future<ResultadoAjusteStock> tarea : tareas) {
+            assertEquals(PRODUCTOS, tarea.get(30, TimeUnit.SECONDS).aplicados());
+        }
+        executor.shutdown();
+
+        // Assert
+        for (int i = 0; i < PRODUCTOS; i++) {
+            assertEquals(10 + lotes, stock(i));
+        }
+    }
+}
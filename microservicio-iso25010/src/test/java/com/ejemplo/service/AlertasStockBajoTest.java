@@ -0,0 +1,170 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.service.AlertasStockBajo.NivelStock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración para AlertasStockBajo
+ * Cambia el stock con las operaciones de ProductoService contra la base H2 real y valida
+ * el índice de productos con stock bajo, los mínimos por producto y los avisos enviados
+ * por GET /productos/stock-bajo/eventos
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("AlertasStockBajo - Pruebas de Integración")
+class AlertasStockBajoTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private AlertasStockBajo alertasStockBajo;
+
+    private Producto suficiente;
+    private Producto bajo;
+    private Producto agotado;
+
+    @BeforeEach
+    void setUp() {
+        // El mínimo por defecto es 5: solo los dos últimos quedan por debajo
+        suficiente = productoService.crear(new Producto("Alerta Suficiente", new BigDecimal("10.00"), 10));
+        bajo = productoService.crear(new Producto("Alerta Bajo", new BigDecimal("10.00"), 3));
+        agotado = productoService.crear(new Producto("Alerta Agotado", new BigDecimal("10.00"), 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Producto producto : List.of(suficiente, bajo, agotado)) {
+            productoService.eliminar(producto.getId());
+        }
+    }
+
+    // Productos de la prueba con stock bajo, en el orden del índice
+    private List<Long> idsConStockBajo() {
+        Set<Long> propios = Set.of(suficiente.getId(), bajo.getId(), agotado.getId());
+        return alertasStockBajo.obtener().stream().map(NivelStock::id).filter(propios::contains).toList();
+    }
+
+    private String esperarContenido(MvcResult resultado, String esperado) throws Exception {
+        long limite = System.currentTimeMillis() + 5_000;
+        String contenido = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        while (!contenido.contains(esperado) && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            contenido = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        assertTrue(contenido.contains(esperado), "No llegó el aviso esperado: " + esperado + "\n" + contenido);
+        return contenido;
+    }
+
+    // ==================== Tests para el índice de stock bajo ====================
+    @Test
+    @DisplayName("obtener - Debe seguir el stock de cada operación ordenando por faltante")
+    void testObtener_SigueElStock() {
+        // Assert: el producto agotado tiene el mayor faltante
+        assertEquals(List.of(agotado.getId(), bajo.getId()), idsConStockBajo());
+
+        // Act
+        productoService.reducirStock(suficiente.getId(), 9);
+        productoService.aumentarStock(agotado.getId(), 20);
+        productoService.desactivar(bajo.getId());
+
+        // Assert
+        assertEquals(List.of(suficiente.getId()), idsConStockBajo());
+        NivelStock nivel = alertasStockBajo.obtener().stream()
+                .filter(n -> n.id().equals(suficiente.getId())).findFirst().orElseThrow();
+        assertEquals(new NivelStock(suficiente.getId(), "Alerta Suficiente", 1, 5), nivel);
+    }
+
+    // ==================== Tests para PUT /productos/{id}/stock-minimo ====================
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    @DisplayName("PUT /productos/{id}/stock-minimo - Debe aplicar el mínimo propio del producto")
+    void testFijarMinimo() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/productos/" + suficiente.getId() + "/stock-minimo").param("minimo", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock", is(10)))
+                .andExpect(jsonPath("$.minimo", is(20)));
+        mockMvc.perform(put("/productos/" + agotado.getId() + "/stock-minimo").param("minimo", "0"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/productos/" + bajo.getId() + "/stock-minimo").param("minimo", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/productos/999999/stock-minimo").param("minimo", "1"))
+                .andExpect(status().isNotFound());
+
+        assertEquals(List.of(suficiente.getId(), bajo.getId()), idsConStockBajo());
+    }
+
+    // ==================== Tests para GET /productos/stock-bajo/eventos ====================
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("eventos - Debe avisar cuando un producto cruza su mínimo en ambos sentidos")
+    void testEventos_AvisosDeCruce() throws Exception {
+        // Arrange
+        MvcResult suscripcion = mockMvc.perform(get("/productos/stock-bajo/eventos"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        esperarContenido(suscripcion, "event:" + AlertasStockBajo.EVENTO_ESTADO);
+
+        try {
+            // Act & Assert: bajar de 10 a 4 cruza el mínimo; subir a 14 lo repone
+            productoService.reducirStock(suficiente.getId(), 6);
+            esperarContenido(suscripcion, "event:" + AlertasStockBajo.EVENTO_STOCK_BAJO
+                    + "\ndata:{\"id\":" + suficiente.getId() + ",\"nombre\":\"Alerta Suficiente\",\"stock\":4");
+
+            productoService.aumentarStock(suficiente.getId(), 10);
+            String contenido = esperarContenido(suscripcion, "event:" + AlertasStockBajo.EVENTO_STOCK_REPUESTO
+                    + "\ndata:{\"id\":" + suficiente.getId());
+
+            // Un cambio que no cruza el mínimo no genera aviso
+            productoService.reducirStock(bajo.getId(), 1);
+            productoService.actualizarStock(suficiente.getId(), 2);
+            contenido = esperarContenido(suscripcion, "\"stock\":2,");
+            assertFalse(contenido.contains("\"id\":" + bajo.getId() + ",\"nombre\":\"Alerta Bajo\",\"stock\":2"));
+        } finally {
+            suscripcion.getRequest().getAsyncContext().complete();
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("stock-bajo - Un cliente no debe poder consultar ni suscribirse")
+    void testStockBajo_SinPermiso() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/productos/stock-bajo"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/productos/stock-bajo/eventos"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,277 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.BloqueoTarea;
+import com.ejemplo.model.Pedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.BloqueoTareaRepository;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import com.ejemplo.service.AutoCancelacionPedidos.EstadoAutoCancelacion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración para AutoCancelacionPedidos
+ * Crea pedidos antiguos y recientes contra la base H2 real y valida que solo se cancelen los
+ * PENDIENTE/CONFIRMADO más antiguos que la edad máxima, por bloques, con el stock restaurado,
+ * que una ejecución acotada informe el retraso, que la tarea no corra si otro nodo tiene el bloqueo
+ * y que no pise ni duplique una cancelación o confirmación manual concurrente
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("AutoCancelacionPedidos - Pruebas de Integración")
+class AutoCancelacionPedidosTest {
+
+    private static final int STOCK_INICIAL = 50;
+    private static final long EDAD_MINUTOS = 60;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private BloqueosTareas bloqueosTareas;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private BloqueoTareaRepository bloqueoTareaRepository;
+
+    private Usuario usuario;
+    private Producto producto;
+    private LocalDateTime ahora;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setNombre("Pedido");
+        usuario.setApellido("Antiguo");
+        usuario.setUsername("pedido_antiguo");
+        usuario.setEmail("pedido.antiguo@example.com");
+        usuario.setPassword("password123");
+        usuario.setFechaCreacion(LocalDateTime.now());
+        usuario = usuarioRepository.save(usuario);
+
+        producto = productoRepository.save(new Producto("Producto con pedidos antiguos", new BigDecimal("2.00"), STOCK_INICIAL));
+        // Segundos exactos: la base redondea las fechas a microsegundos
+        ahora = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bloqueoTareaRepository.deleteAll();
+        pedidoRepository.deleteAll(pedidoRepository.findByUsuarioId(usuario.getId()));
+        productoRepository.deleteById(producto.getId());
+        usuarioRepository.deleteById(usuario.getId());
+    }
+
+    private AutoCancelacionPedidos tarea(MeterRegistry meterRegistry, int tamanoLote, int maximoLotes) {
+        return new AutoCancelacionPedidos(pedidoService, pedidoRepository, bloqueosTareas, meterRegistry,
+                true, EDAD_MINUTOS, tamanoLote, maximoLotes, 60);
+    }
+
+    private Pedido pedido(int cantidad, Pedido.EstadoPedido estado, long minutosAtras) {
+        Pedido pedido = pedidoService.crear(usuario.getId(), producto.getId(), cantidad, null);
+        pedido.setEstado(estado);
+        pedido.setFechaPedido(ahora.minusMinutes(minutosAtras));
+        return pedidoRepository.save(pedido);
+    }
+
+    private Pedido.EstadoPedido estado(Pedido pedido) {
+        return pedidoRepository.findById(pedido.getId()).orElseThrow().getEstado();
+    }
+
+    private int stock() {
+        return productoRepository.findById(producto.getId()).orElseThrow().getStock();
+    }
+
+    // ==================== Tests para ejecutar ====================
+    @Test
+    @DisplayName("ejecutar - Debe cancelar por bloques solo los pedidos cancelables antiguos y restaurar su stock")
+    void testEjecutar_CancelaPorBloques() {
+        // Arrange
+        List<Pedido> antiguos = List.of(
+            pedido(1, Pedido.EstadoPedido.PENDIENTE, 300),
+            pedido(2, Pedido.EstadoPedido.PENDIENTE, 240),
+            pedido(3, Pedido.EstadoPedido.CONFIRMADO, 180),
+            pedido(4, Pedido.EstadoPedido.PENDIENTE, 120),
+            pedido(4, Pedido.EstadoPedido.CONFIRMADO, 90));
+        Pedido entregado = pedido(5, Pedido.EstadoPedido.ENTREGADO, 400);
+        Pedido reciente = pedido(6, Pedido.EstadoPedido.PENDIENTE, 10);
+        assertEquals(STOCK_INICIAL - 25, stock());
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AutoCancelacionPedidos tarea = tarea(meterRegistry, 2, 10);
+
+        // Act
+        int cancelados = tarea.ejecutar(ahora);
+
+        // Assert
+        assertEquals(5, cancelados);
+        for (Pedido pedido : antiguos) {
+            assertEquals(Pedido.EstadoPedido.CANCELADO, estado(pedido));
+        }
+        assertEquals(Pedido.EstadoPedido.ENTREGADO, estado(entregado));
+        assertEquals(Pedido.EstadoPedido.PENDIENTE, estado(reciente));
+        assertEquals(STOCK_INICIAL - 11, stock());
+
+        EstadoAutoCancelacion progreso = tarea.obtener();
+        assertEquals(3, progreso.lotesUltimaEjecucion());
+        assertTrue(progreso.completa());
+        assertEquals(0, progreso.retrasoSegundos());
+        assertEquals(5.0, meterRegistry.counter(AutoCancelacionPedidos.METRICA + ".cancelados").count());
+        assertEquals(3.0, meterRegistry.counter(AutoCancelacionPedidos.METRICA + ".lotes").count());
+        assertEquals(0, tarea.ejecutar(ahora));
+    }
+
+    @Test
+    @DisplayName("ejecutar - Debe dejar para la siguiente ejecución lo que supera maximoLotes e informar el retraso")
+    void testEjecutar_AcotadaInformaRetraso() {
+        // Arrange
+        Pedido primero = pedido(1, Pedido.EstadoPedido.PENDIENTE, 180);
+        Pedido segundo = pedido(1, Pedido.EstadoPedido.CONFIRMADO, 150);
+        Pedido tercero = pedido(1, Pedido.EstadoPedido.PENDIENTE, 120);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AutoCancelacionPedidos tarea = tarea(meterRegistry, 2, 1);
+
+        // Act
+        int cancelados = tarea.ejecutar(ahora);
+
+        // Assert: el tercero supera en 60 minutos la edad máxima
+        assertEquals(2, cancelados);
+        assertEquals(Pedido.EstadoPedido.CANCELADO, estado(primero));
+        assertEquals(Pedido.EstadoPedido.CANCELADO, estado(segundo));
+        assertEquals(Pedido.EstadoPedido.PENDIENTE, estado(tercero));
+        assertFalse(tarea.obtener().completa());
+        assertEquals(3600, tarea.obtener().retrasoSegundos());
+        assertEquals(3600.0, meterRegistry.get(AutoCancelacionPedidos.METRICA + ".retraso.segundos").gauge().value());
+
+        assertEquals(1, tarea.ejecutar(ahora));
+        assertEquals(0, tarea.obtener().retrasoSegundos());
+        assertEquals(3, tarea.obtener().canceladosTotal());
+    }
+
+    @Test
+    @DisplayName("ejecutar - No debe cancelar nada mientras otro nodo tenga el bloqueo vigente")
+    void testEjecutar_BloqueoDeOtroNodo() {
+        // Arrange
+        Pedido antiguo = pedido(2, Pedido.EstadoPedido.PENDIENTE, 120);
+        bloqueoTareaRepository.save(new BloqueoTarea(AutoCancelacionPedidos.TAREA, "otro-nodo",
+                LocalDateTime.now().plusMinutes(5)));
+        AutoCancelacionPedidos tarea = tarea(new SimpleMeterRegistry(), 10, 10);
+
+        // Act & Assert
+        assertEquals(0, tarea.ejecutar(ahora));
+        assertEquals(Pedido.EstadoPedido.PENDIENTE, estado(antiguo));
+
+        // Si el otro nodo cae, su bloqueo vence y este nodo lo toma
+        bloqueoTareaRepository.save(new BloqueoTarea(AutoCancelacionPedidos.TAREA, "otro-nodo",
+                LocalDateTime.now().minusSeconds(1)));
+        assertEquals(1, tarea.ejecutar(ahora));
+        assertEquals(Pedido.EstadoPedido.CANCELADO, estado(antiguo));
+        assertEquals(bloqueosTareas.propietario(),
+                bloqueoTareaRepository.findById(AutoCancelacionPedidos.TAREA).orElseThrow().getPropietario());
+    }
+
+    @Test
+    @DisplayName("ejecutar - Debe restaurar el stock una sola vez al competir con cancelaciones y confirmaciones manuales")
+    void testEjecutar_CompiteConCambiosManuales() throws Exception {
+        // Arrange
+        int rondas = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            for (int i = 0; i < rondas; i++) {
+                Pedido aCancelar = pedido(2, Pedido.EstadoPedido.PENDIENTE, 120);
+                Pedido aConfirmar = pedido(3, Pedido.EstadoPedido.PENDIENTE, 120);
+                AutoCancelacionPedidos tarea = tarea(new SimpleMeterRegistry(), 10, 10);
+                CountDownLatch inicio = new CountDownLatch(1);
+
+                // Act: la tarea y un usuario cancelando y confirmando los mismos pedidos a la vez
+                Future<Integer> automatica = executor.submit(() -> {
+                    inicio.await();
+                    return tarea.ejecutar(ahora);
+                });
+                Future<Integer> manual = executor.submit(() -> {
+                    inicio.await();
+                    int cancelados = 0;
+                    try {
+                        pedidoService.cancelar(aCancelar.getId());
+                        cancelados++;
+                    } catch (IllegalStateException e) {
+                        // La tarea lo canceló primero
+                    }
+                    try {
+                        pedidoService.cambiarEstado(aConfirmar.getId(), Pedido.EstadoPedido.CONFIRMADO);
+                    } catch (IllegalStateException e) {
+                        // Un pedido cancelado no vuelve a CONFIRMADO
+                    }
+                    return cancelados;
+                });
+                inicio.countDown();
+                int canceladosAutomatica = automatica.get(30, TimeUnit.SECONDS);
+                int canceladosManual = manual.get(30, TimeUnit.SECONDS);
+
+                // Assert: CONFIRMADO también es cancelable, así que ambos terminan cancelados una sola vez
+                assertEquals(2, canceladosAutomatica + canceladosManual);
+                assertEquals(Pedido.EstadoPedido.CANCELADO, estado(aCancelar));
+                assertEquals(Pedido.EstadoPedido.CANCELADO, estado(aConfirmar));
+                assertEquals(STOCK_INICIAL, stock());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // ==================== Tests para GET /pedidos/auto-cancelacion ====================
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    @DisplayName("GET /pedidos/auto-cancelacion - Debe retornar el progreso de la tarea")
+    void testObtenerAutoCancelacion() throws Exception {
+        // Act & Assert: el perfil de test deshabilita la ejecución programada
+        mockMvc.perform(get("/pedidos/auto-cancelacion"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.habilitada", is(false)))
+                .andExpect(jsonPath("$.canceladosTotal", is(0)));
+    }
+}
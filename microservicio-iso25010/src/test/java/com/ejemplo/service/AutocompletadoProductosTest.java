@@ -0,0 +1,168 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.AutocompletadoProductos.Sugerencia;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para AutocompletadoProductos
+ * Valida el trie radix (prefijos a mitad de arista, palabras del nombre y marca),
+ * el orden por popularidad y la actualización incremental por eventos
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AutocompletadoProductos - Pruebas Unitarias")
+class AutocompletadoProductosTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @InjectMocks
+    private AutocompletadoProductos autocompletado;
+
+    private Producto producto(Long id, String nombre, String marca, boolean activo) {
+        Producto producto = new Producto(nombre, new BigDecimal("10.00"), 5);
+        producto.setId(id);
+        producto.setMarca(marca);
+        producto.setActivo(activo);
+        return producto;
+    }
+
+    private List<Long> ids(String prefijo) {
+        return autocompletado.sugerir(prefijo, AutocompletadoProductos.LIMITE_POR_DEFECTO).stream()
+                .map(Sugerencia::id)
+                .toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(productoRepository.findAll()).thenReturn(List.of(
+            producto(1L, "Laptop HP 15", "HP", true),
+            producto(2L, "Laptop Lenovo", "Lenovo", true),
+            producto(3L, "Lámpara de escritorio", "Philips", true),
+            producto(4L, "Laptop descontinuada", "Acer", false)));
+        List<Object[]> unidades = new ArrayList<>();
+        unidades.add(new Object[] {2L, 30L});
+        unidades.add(new Object[] {1L, 10L});
+        when(pedidoRepository.sumarUnidadesPorProducto(EstadoPedido.CANCELADO)).thenReturn(unidades);
+        autocompletado.reconstruir();
+    }
+
+    // ==================== Tests para sugerir ====================
+    @Test
+    @DisplayName("sugerir - Debe ordenar por popularidad y excluir productos inactivos")
+    void testSugerir_PorPopularidad() {
+        // Act & Assert
+        assertEquals(List.of(2L, 1L), ids("lap"));
+        assertEquals(List.of(2L, 1L, 3L), ids("la"));
+    }
+
+    @Test
+    @DisplayName("sugerir - Debe ignorar mayúsculas y acentos")
+    void testSugerir_SinAcentos() {
+        // Act & Assert
+        assertEquals(List.of(3L), ids("LÁMP"));
+    }
+
+    @Test
+    @DisplayName("sugerir - Debe encontrar palabras intermedias del nombre y la marca")
+    void testSugerir_PalabrasYMarca() {
+        // Act
+        List<Sugerencia> sugerencias = autocompletado.sugerir("hp", 5);
+
+        // Assert
+        assertEquals(1, sugerencias.size());
+        assertEquals("Laptop HP 15", sugerencias.get(0).nombre());
+        assertEquals(10L, sugerencias.get(0).popularidad());
+        assertEquals(List.of(3L), ids("escr"));
+    }
+
+    @Test
+    @DisplayName("sugerir - Debe respetar el límite y devolver vacío si no hay coincidencias")
+    void testSugerir_LimiteYSinCoincidencias() {
+        // Act & Assert
+        assertEquals(1, autocompletado.sugerir("la", 1).size());
+        assertTrue(ids("xyz").isEmpty());
+        assertTrue(ids("laptopx").isEmpty());
+    }
+
+    @Test
+    @DisplayName("sugerir - Debe rechazar prefijos vacíos y límites fuera de rango")
+    void testSugerir_ParametrosInvalidos() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> autocompletado.sugerir("  ", 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> autocompletado.sugerir("lap", AutocompletadoProductos.LIMITE_MAXIMO + 1));
+    }
+
+    // ==================== Tests para eventos ====================
+    @Test
+    @DisplayName("alCambiarPedido - Debe reordenar por la nueva popularidad")
+    void testAlCambiarPedido() {
+        // Act
+        autocompletado.alCambiarPedido(new PedidoEvento(10L, null,
+            new PedidoEvento.Instantanea(1L, 25, EstadoPedido.PENDIENTE, new BigDecimal("250.00")),
+            LocalDateTime.now()));
+
+        // Assert
+        assertEquals(List.of(1L, 2L), ids("lap"));
+    }
+
+    @Test
+    @DisplayName("alCambiarPedido - Debe descontar las unidades de un pedido cancelado")
+    void testAlCambiarPedido_Cancelado() {
+        // Arrange
+        PedidoEvento.Instantanea pendiente = new PedidoEvento.Instantanea(2L, 25, EstadoPedido.PENDIENTE, BigDecimal.TEN);
+
+        // Act
+        autocompletado.alCambiarPedido(new PedidoEvento(10L, pendiente,
+            new PedidoEvento.Instantanea(2L, 25, EstadoPedido.CANCELADO, BigDecimal.TEN), LocalDateTime.now()));
+
+        // Assert
+        assertEquals(List.of(1L, 2L), ids("lap"));
+    }
+
+    @Test
+    @DisplayName("alCambiarProducto - Debe agregar, renombrar y quitar productos")
+    void testAlCambiarProducto() {
+        // Act & Assert: alta
+        autocompletado.alCambiarProducto(new ProductoEvento(5L,
+            new Instantanea("Laptop Gamer", null, null, "Asus", true), LocalDateTime.now()));
+        assertEquals(List.of(2L, 1L, 5L), ids("lap"));
+        assertEquals(List.of(5L), ids("asu"));
+
+        // Act & Assert: renombrado
+        autocompletado.alCambiarProducto(new ProductoEvento(2L,
+            new Instantanea("Tablet Lenovo", null, null, "Lenovo", true), LocalDateTime.now()));
+        assertEquals(List.of(1L, 5L), ids("lap"));
+        assertEquals(List.of(2L), ids("tab"));
+
+        // Act & Assert: baja
+        autocompletado.alCambiarProducto(ProductoEvento.eliminado(1L));
+        assertEquals(List.of(5L), ids("lap"));
+        assertTrue(ids("hp").isEmpty());
+    }
+}
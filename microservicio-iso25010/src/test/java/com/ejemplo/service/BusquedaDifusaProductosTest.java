@@ -0,0 +1,118 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para BusquedaDifusaProductos
+ * Valida la tolerancia a errores de tipeo, el umbral de similitud, el orden por
+ * relevancia y el mantenimiento incremental del vocabulario
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BusquedaDifusaProductos - Pruebas Unitarias")
+class BusquedaDifusaProductosTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private BusquedaDifusaProductos busqueda;
+
+    private Producto producto(Long id, String nombre, String descripcion, String marca) {
+        Producto producto = new Producto(nombre, new BigDecimal("10.00"), 5);
+        producto.setId(id);
+        producto.setDescripcion(descripcion);
+        producto.setMarca(marca);
+        return producto;
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(productoRepository.findAll()).thenReturn(List.of(
+            producto(1L, "Laptop HP 15", "Portátil para oficina", "HP"),
+            producto(2L, "Mouse inalámbrico", "Compatible con laptop", "Logitech"),
+            producto(3L, "Teclado mecánico", "Switches azules", "Lenovo")));
+        busqueda.reconstruir();
+    }
+
+    // ==================== Tests para buscar ====================
+    @Test
+    @DisplayName("buscar - Debe tolerar letras faltantes y cambiadas")
+    void testBuscar_ErroresDeTipeo() {
+        // Act & Assert
+        assertEquals(List.of(1L, 2L), busqueda.buscar("lptop"));
+        assertEquals(List.of(3L), busqueda.buscar("tecaldo"));
+        assertEquals(List.of(2L), busqueda.buscar("inalambrco"));
+    }
+
+    @Test
+    @DisplayName("buscar - Debe exigir que todas las palabras de la consulta coincidan")
+    void testBuscar_TodasLasPalabras() {
+        // Act & Assert
+        assertEquals(List.of(3L), busqueda.buscar("teclado lenvo"));
+        assertTrue(busqueda.buscar("mouse lenovo").isEmpty());
+    }
+
+    @Test
+    @DisplayName("buscar - Debe descartar palabras por debajo del umbral")
+    void testBuscar_Umbral() {
+        // Act & Assert
+        assertTrue(busqueda.buscar("laptp", 0.9).isEmpty());
+        assertEquals(List.of(1L, 2L), busqueda.buscar("laptp", 0.8));
+        assertThrows(IllegalArgumentException.class, () -> busqueda.buscar("laptop", 1.5));
+    }
+
+    @Test
+    @DisplayName("buscar - Debe devolver vacío para consultas sin palabras")
+    void testBuscar_SinPalabras() {
+        // Act & Assert
+        assertTrue(busqueda.buscar("  ¿? ").isEmpty());
+    }
+
+    // ==================== Tests para similitud ====================
+    @Test
+    @DisplayName("similitud - Debe calcular la distancia de Levenshtein normalizada")
+    void testSimilitud() {
+        // Act & Assert
+        assertEquals(3, BusquedaDifusaProductos.levenshtein("kitten", "sitting"));
+        assertEquals(1.0, BusquedaDifusaProductos.similitud("mouse", "mouse"));
+        assertEquals(1.0 - 1.0 / 6, BusquedaDifusaProductos.similitud("lptop", "laptop"), 1e-9);
+    }
+
+    // ==================== Tests para alCambiarProducto ====================
+    @Test
+    @DisplayName("alCambiarProducto - Debe actualizar y depurar el vocabulario")
+    void testAlCambiarProducto() {
+        // Arrange
+        int vocabularioInicial = busqueda.tamanoVocabulario();
+
+        // Act
+        busqueda.alCambiarProducto(new ProductoEvento(3L,
+            new Instantanea("Monitor curvo", null, null, "Lenovo", true), LocalDateTime.now()));
+        busqueda.alCambiarProducto(ProductoEvento.eliminado(2L));
+
+        // Assert
+        assertTrue(busqueda.buscar("teclado").isEmpty());
+        assertEquals(List.of(3L), busqueda.buscar("monitr"));
+        assertEquals(List.of(1L), busqueda.buscar("laptop"));
+        assertTrue(busqueda.tamanoVocabulario() < vocabularioInicial);
+    }
+}
@@ -0,0 +1,151 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de estrés para PedidoService.checkout
+ * Lanza carritos concurrentes con los mismos productos en orden inverso contra
+ * la base H2 real y valida que no haya interbloqueos ni sobreventa
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("PedidoService - Prueba de Concurrencia de Checkout")
+class CheckoutConcurrenciaTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutConcurrenciaTest.class);
+
+    private static final int STOCK_INICIAL = 100;
+    private static final int HILOS = 8;
+    private static final int CARRITOS_POR_HILO = 20;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    private Usuario usuario;
+    private Producto productoA;
+    private Producto productoB;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setNombre("Carrito");
+        usuario.setApellido("Concurrente");
+        usuario.setUsername("checkout_concurrente");
+        usuario.setEmail("checkout@example.com");
+        usuario.setPassword("password123");
+        usuario.setFechaCreacion(LocalDateTime.now());
+        usuario = usuarioRepository.save(usuario);
+
+        productoA = productoRepository.save(new Producto("Producto A", new BigDecimal("10.00"), STOCK_INICIAL));
+        productoB = productoRepository.save(new Producto("Producto B", new BigDecimal("20.00"), STOCK_INICIAL));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll(pedidoRepository.findByUsuarioId(usuario.getId()));
+        productoRepository.deleteById(productoA.getId());
+        productoRepository.deleteById(productoB.getId());
+        usuarioRepository.deleteById(usuario.getId());
+    }
+
+    @Test
+    @DisplayName("checkout concurrente - Carritos en orden inverso no deben interbloquearse")
+    void testCheckout_SinInterbloqueo() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            // La mitad de los hilos envía el carrito A,B y la otra mitad B,A
+            Map<Long, Integer> carrito = new LinkedHashMap<>();
+            if (h % 2 == 0) {
+                carrito.put(productoA.getId(), 1);
+                carrito.put(productoB.getId(), 1);
+            } else {
+                carrito.put(productoB.getId(), 1);
+                carrito.put(productoA.getId(), 1);
+            }
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < CARRITOS_POR_HILO; i++) {
+                    try {
+                        pedidoService.checkout(usuario.getId(), carrito, null);
+                        exitosos.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rechazados.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        logger.warn("Error inesperado en checkout concurrente", e);
+                        errores.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Act
+        long inicioNanos = System.nanoTime();
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        long duracionNanos = System.nanoTime() - inicioNanos;
+        executor.shutdown();
+
+        // Assert
+        int stockA = productoRepository.findById(productoA.getId()).orElseThrow().getStock();
+        int stockB = productoRepository.findById(productoB.getId()).orElseThrow().getStock();
+        int pedidosCreados = pedidoRepository.findByUsuarioId(usuario.getId()).size();
+        double carritosPorSegundo = (HILOS * CARRITOS_POR_HILO) / (duracionNanos / 1_000_000_000.0);
+        logger.info("Concurrencia checkout: exitosos={}, rechazados={}, errores={}, stockA={}, stockB={}, carritos/seg={}",
+                exitosos.get(), rechazados.get(), errores.get(), stockA, stockB, String.format("%.1f", carritosPorSegundo));
+
+        assertEquals(0, errores.get(), "No debe haber interbloqueos ni errores inesperados");
+        assertEquals(STOCK_INICIAL, exitosos.get() + stockA);
+        assertEquals(STOCK_INICIAL, exitosos.get() + stockB);
+        assertEquals(exitosos.get() * 2, pedidosCreados, "Cada carrito exitoso crea un pedido por línea");
+    }
+}
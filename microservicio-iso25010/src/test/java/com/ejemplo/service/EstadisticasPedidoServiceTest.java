@@ -0,0 +1,112 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.service.PedidoEvento.Instantanea;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para EstadisticasPedidoService
+ * Valida la reconciliación con GROUP BY y la actualización incremental por eventos
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EstadisticasPedidoService - Pruebas Unitarias")
+class EstadisticasPedidoServiceTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @InjectMocks
+    private EstadisticasPedidoService estadisticasPedidoService;
+
+    private PedidoEvento evento(Instantanea anterior, Instantanea actual) {
+        return new PedidoEvento(1L, anterior, actual, LocalDateTime.now());
+    }
+
+    // ==================== Tests para reconciliar ====================
+    @Test
+    @DisplayName("reconciliar - Debe cargar los contadores con una sola consulta agrupada")
+    void testReconciliar() {
+        // Arrange
+        when(pedidoRepository.resumirPorEstado()).thenReturn(List.of(
+            new Object[] {EstadoPedido.PENDIENTE, 3L, new BigDecimal("300.00")},
+            new Object[] {EstadoPedido.CANCELADO, 1L, new BigDecimal("50.00")}));
+
+        // Act
+        estadisticasPedidoService.reconciliar();
+        EstadisticasPedidoService.Resumen resumen = estadisticasPedidoService.obtener();
+
+        // Assert
+        assertEquals(4, resumen.total());
+        assertEquals(3, resumen.contar(EstadoPedido.PENDIENTE));
+        assertEquals(0, resumen.contar(EstadoPedido.ENTREGADO));
+        assertEquals(new BigDecimal("350.00"), resumen.ventasTotal());
+        verify(pedidoRepository, times(1)).resumirPorEstado();
+        verifyNoMoreInteractions(pedidoRepository);
+    }
+
+    // ==================== Tests para alCambiarPedido ====================
+    @Test
+    @DisplayName("alCambiarPedido - Debe contar un pedido creado")
+    void testAlCambiarPedido_Creado() {
+        // Act
+        estadisticasPedidoService.alCambiarPedido(evento(null,
+            new Instantanea(1L, 2, EstadoPedido.PENDIENTE, new BigDecimal("20.00"))));
+
+        // Assert
+        EstadisticasPedidoService.Resumen resumen = estadisticasPedidoService.obtener();
+        assertEquals(1, resumen.total());
+        assertEquals(1, resumen.contar(EstadoPedido.PENDIENTE));
+        assertEquals(new BigDecimal("20.00"), resumen.ventasTotal());
+        verifyNoInteractions(pedidoRepository);
+    }
+
+    @Test
+    @DisplayName("alCambiarPedido - Debe mover el pedido de estado al cancelarlo")
+    void testAlCambiarPedido_Cancelado() {
+        // Arrange
+        Instantanea pendiente = new Instantanea(1L, 2, EstadoPedido.PENDIENTE, new BigDecimal("20.00"));
+        estadisticasPedidoService.alCambiarPedido(evento(null, pendiente));
+
+        // Act
+        estadisticasPedidoService.alCambiarPedido(evento(pendiente,
+            new Instantanea(1L, 2, EstadoPedido.CANCELADO, new BigDecimal("20.00"))));
+
+        // Assert
+        EstadisticasPedidoService.Resumen resumen = estadisticasPedidoService.obtener();
+        assertEquals(1, resumen.total());
+        assertEquals(0, resumen.contar(EstadoPedido.PENDIENTE));
+        assertEquals(1, resumen.contar(EstadoPedido.CANCELADO));
+    }
+
+    @Test
+    @DisplayName("alCambiarPedido - Debe descontar un pedido eliminado")
+    void testAlCambiarPedido_Eliminado() {
+        // Arrange
+        Instantanea confirmado = new Instantanea(1L, 1, EstadoPedido.CONFIRMADO, new BigDecimal("15.00"));
+        estadisticasPedidoService.alCambiarPedido(evento(null, confirmado));
+
+        // Act
+        estadisticasPedidoService.alCambiarPedido(evento(confirmado, null));
+
+        // Assert
+        EstadisticasPedidoService.Resumen resumen = estadisticasPedidoService.obtener();
+        assertEquals(0, resumen.total());
+        assertEquals(0, BigDecimal.ZERO.compareTo(resumen.ventasTotal()));
+    }
+}
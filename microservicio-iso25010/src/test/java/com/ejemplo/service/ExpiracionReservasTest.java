@@ -0,0 +1,188 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de integración para ExpiracionReservas
+ * Crea pedidos pendientes contra la base H2 real, avanza la rueda de vencimientos más allá
+ * del plazo de reserva y valida que se cancelen los pedidos aún pendientes y que el stock
+ * vuelva a cada producto, también cuando una cancelación manual compite con el vencimiento
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("ExpiracionReservas - Pruebas de Integración")
+class ExpiracionReservasTest {
+
+    private static final int STOCK_INICIAL = 20;
+
+    @Autowired
+    private ExpiracionReservas expiracionReservas;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Value("${pedidos.reservas.ttl-minutos:30}")
+    private long ttlMinutos;
+
+    private Usuario usuario;
+    private Producto primero;
+    private Producto segundo;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setNombre("Reserva");
+        usuario.setApellido("Vencida");
+        usuario.setUsername("reserva_vencida");
+        usuario.setEmail("reserva.vencida@example.com");
+        usuario.setPassword("password123");
+        usuario.setFechaCreacion(LocalDateTime.now());
+        usuario = usuarioRepository.save(usuario);
+
+        primero = productoRepository.save(new Producto("Producto reservado A", new BigDecimal("3.00"), STOCK_INICIAL));
+        segundo = productoRepository.save(new Producto("Producto reservado B", new BigDecimal("4.00"), STOCK_INICIAL));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll(pedidoRepository.findByUsuarioId(usuario.getId()));
+        productoRepository.deleteAllById(List.of(primero.getId(), segundo.getId()));
+        usuarioRepository.deleteById(usuario.getId());
+    }
+
+    private int stock(Producto producto) {
+        return productoRepository.findById(producto.getId()).orElseThrow().getStock();
+    }
+
+    private Pedido.EstadoPedido estado(Pedido pedido) {
+        return pedidoRepository.findById(pedido.getId()).orElseThrow().getEstado();
+    }
+
+    // ==================== Tests para vencer ====================
+    @Test
+    @DisplayName("vencer - Debe cancelar los pedidos pendientes vencidos y restaurar su stock")
+    void testVencer_CancelaYRestauraStock() {
+        // Arrange
+        Pedido a1 = pedidoService.crear(usuario.getId(), primero.getId(), 2, null);
+        Pedido a2 = pedidoService.crear(usuario.getId(), primero.getId(), 3, null);
+        Pedido b1 = pedidoService.crear(usuario.getId(), segundo.getId(), 4, null);
+        // Confirmado sin pasar por el evento: sigue en la rueda pero ya no es cancelable
+        Pedido confirmado = pedidoService.crear(usuario.getId(), segundo.getId(), 1, null);
+        confirmado.setEstado(Pedido.EstadoPedido.CONFIRMADO);
+        pedidoRepository.save(confirmado);
+        assertEquals(STOCK_INICIAL - 5, stock(primero));
+        assertEquals(STOCK_INICIAL - 5, stock(segundo));
+        long ttlMs = TimeUnit.MINUTES.toMillis(ttlMinutos);
+
+        // Act & Assert: antes del plazo no se cancela nada
+        assertEquals(0, expiracionReservas.vencer(System.currentTimeMillis() + ttlMs - 60_000));
+        assertEquals(Pedido.EstadoPedido.PENDIENTE, estado(a1));
+
+        int cancelados = expiracionReservas.vencer(System.currentTimeMillis() + ttlMs + 2_000);
+
+        assertEquals(3, cancelados);
+        for (Pedido pedido : List.of(a1, a2, b1)) {
+            assertEquals(Pedido.EstadoPedido.CANCELADO, estado(pedido));
+        }
+        assertEquals(Pedido.EstadoPedido.CONFIRMADO, estado(confirmado));
+        assertEquals(STOCK_INICIAL, stock(primero));
+        assertEquals(STOCK_INICIAL - 1, stock(segundo));
+    }
+
+    @Test
+    @DisplayName("vencer y cancelar concurrentes - El stock debe restaurarse una sola vez")
+    void testVencer_CompiteConCancelacionManual() throws Exception {
+        // Arrange
+        int rondas = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        int manuales = 0;
+        int vencidos = 0;
+
+        try {
+            for (int i = 0; i < rondas; i++) {
+                Long id = pedidoService.crear(usuario.getId(), primero.getId(), 2, null).getId();
+                CountDownLatch inicio = new CountDownLatch(1);
+
+                // Act: PATCH /pedidos/{id}/cancelar y el lote de reservas vencidas a la vez
+                Future<Boolean> manual = executor.submit(() -> {
+                    inicio.await();
+                    try {
+                        pedidoService.cancelar(id);
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                });
+                Future<Integer> vencimiento = executor.submit(() -> {
+                    inicio.await();
+                    return pedidoService.cancelarEnBloque(List.of(id), Set.of(Pedido.EstadoPedido.PENDIENTE));
+                });
+                inicio.countDown();
+                boolean canceladoManual = manual.get(30, TimeUnit.SECONDS);
+                int canceladosVencimiento = vencimiento.get(30, TimeUnit.SECONDS);
+
+                // Assert: solo uno de los dos cancela
+                assertEquals(1, (canceladoManual ? 1 : 0) + canceladosVencimiento);
+                assertEquals(Pedido.EstadoPedido.CANCELADO, estado(pedidoRepository.findById(id).orElseThrow()));
+                assertEquals(STOCK_INICIAL, stock(primero));
+                manuales += canceladoManual ? 1 : 0;
+                vencidos += canceladosVencimiento;
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(rondas, manuales + vencidos);
+    }
+
+    @Test
+    @DisplayName("alCambiarPedido - Debe dejar de vigilar los pedidos eliminados")
+    void testAlCambiarPedido_EliminadoSaleDeLaRueda() {
+        // Arrange
+        int antes = expiracionReservas.programadas();
+        Pedido pedido = pedidoService.crear(usuario.getId(), primero.getId(), 1, null);
+        assertEquals(antes + 1, expiracionReservas.programadas());
+
+        // Act
+        expiracionReservas.alCambiarPedido(PedidoEvento.eliminado(pedido));
+
+        // Assert
+        assertEquals(antes, expiracionReservas.programadas());
+    }
+}
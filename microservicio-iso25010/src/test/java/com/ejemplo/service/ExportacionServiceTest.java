@@ -0,0 +1,165 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración para ExportacionService
+ * Exporta productos, pedidos y usuarios contra la base H2 real a través de los endpoints
+ * /exportar, con más filas que un bloque de lectura, y valida el arreglo JSON completo
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("ExportacionService - Pruebas de Integración")
+class ExportacionServiceTest {
+
+    private static final int PRODUCTOS = ExportacionService.TAMANO_BLOQUE * 2 + 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    private Usuario usuario;
+    private List<Producto> productos;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setNombre("Exportación");
+        usuario.setApellido("Masiva");
+        usuario.setUsername("exportacion_masiva");
+        usuario.setEmail("exportacion@example.com");
+        usuario.setPassword("password123");
+        usuario.setFechaCreacion(LocalDateTime.now());
+        usuario = usuarioRepository.save(usuario);
+
+        List<Producto> nuevos = new ArrayList<>(PRODUCTOS);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            nuevos.add(new Producto("Exportado " + i, new BigDecimal("10.00"), 5));
+        }
+        productos = productoRepository.saveAll(nuevos);
+        pedidoRepository.save(new Pedido(usuario, productos.get(0), 2));
+        pedidoRepository.save(new Pedido(usuario, productos.get(1), 3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll(pedidoRepository.findByUsuarioId(usuario.getId()));
+        productoRepository.deleteAllInBatch(productos);
+        usuarioRepository.deleteById(usuario.getId());
+    }
+
+    private JsonNode exportar(String ruta) throws Exception {
+        MvcResult iniciada = mockMvc.perform(get(ruta))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult resultado = mockMvc.perform(asyncDispatch(iniciada))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode arreglo = objectMapper.readTree(resultado.getResponse().getContentAsByteArray());
+        assertTrue(arreglo.isArray());
+        return arreglo;
+    }
+
+    // ==================== Tests para productos ====================
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("productos - Debe exportar todo el catálogo ordenado por ID en varios bloques")
+    void testExportarProductos() throws Exception {
+        // Act
+        JsonNode arreglo = exportar("/productos/exportar");
+
+        // Assert
+        assertEquals(productoRepository.count(), arreglo.size());
+        long anterior = 0;
+        for (JsonNode producto : arreglo) {
+            assertTrue(producto.get("id").asLong() > anterior, "Los productos deben venir ordenados por ID");
+            anterior = producto.get("id").asLong();
+        }
+        assertEquals("Exportado " + (PRODUCTOS - 1), arreglo.get(arreglo.size() - 1).get("nombre").asText());
+    }
+
+    // ==================== Tests para pedidos ====================
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    @DisplayName("pedidos - Debe exportar los pedidos con los datos de usuario y producto")
+    void testExportarPedidos() throws Exception {
+        // Act
+        JsonNode arreglo = exportar("/pedidos/exportar");
+
+        // Assert
+        assertEquals(pedidoRepository.count(), arreglo.size());
+        JsonNode ultimo = arreglo.get(arreglo.size() - 1);
+        assertEquals("Exportación Masiva", ultimo.get("usuarioNombre").asText());
+        assertEquals("Exportado 1", ultimo.get("productoNombre").asText());
+        assertEquals(3, ultimo.get("cantidad").asInt());
+    }
+
+    // ==================== Tests para usuarios ====================
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("usuarios - Debe exportar los usuarios con su número de pedidos y sin contraseña")
+    void testExportarUsuarios() throws Exception {
+        // Act
+        JsonNode arreglo = exportar("/usuarios/exportar");
+
+        // Assert
+        assertEquals(usuarioRepository.count(), arreglo.size());
+        JsonNode exportado = arreglo.get(arreglo.size() - 1);
+        assertEquals("exportacion@example.com", exportado.get("email").asText());
+        assertEquals(2, exportado.get("totalPedidos").asInt());
+        assertFalse(exportado.has("password"));
+    }
+
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("exportar - Un cliente no debe poder exportar")
+    void testExportar_SinPermiso() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/usuarios/exportar"))
+                .andExpect(status().isForbidden());
+    }
+}
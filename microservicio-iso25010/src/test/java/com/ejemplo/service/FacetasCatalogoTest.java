@@ -0,0 +1,141 @@
+package com.ejemplo.service;
+
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.FacetasCatalogo.Faceta;
+import com.ejemplo.service.FacetasCatalogo.Vista;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para FacetasCatalogo
+ * Valida la construcción de las facetas, los conteos por valor, el mantenimiento
+ * incremental por eventos y que el ETag solo cambie cuando cambia la faceta
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FacetasCatalogo - Pruebas Unitarias")
+class FacetasCatalogoTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private FacetasCatalogo facetas;
+
+    private static ProductoEvento guardado(Long id, String categoria, String marca) {
+        return new ProductoEvento(id, new Instantanea("Producto " + id, null, categoria, marca, true),
+                LocalDateTime.now());
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(productoRepository.findCategoriasYMarcas()).thenReturn(List.of(
+            new Object[] {1L, "Electrónicos", "HP"},
+            new Object[] {2L, "Accesorios", "Logitech"},
+            new Object[] {3L, "Electrónicos", "Dell"},
+            new Object[] {4L, null, "HP"}));
+        facetas.reconstruir();
+    }
+
+    // ==================== Tests para reconstruir ====================
+    @Test
+    @DisplayName("reconstruir - Debe ordenar los valores, contar productos e ignorar nulos")
+    void testReconstruir() {
+        // Act
+        Vista categorias = facetas.categorias();
+        Vista marcas = facetas.marcas();
+
+        // Assert
+        assertEquals(List.of(new Faceta("Accesorios", 1), new Faceta("Electrónicos", 2)), categorias.facetas());
+        assertEquals(List.of("Dell", "HP", "Logitech"), marcas.valores());
+        assertEquals(2, marcas.facetas().get(1).productos());
+        assertFalse(categorias.etag().isBlank());
+        verify(productoRepository, times(1)).findCategoriasYMarcas();
+    }
+
+    @Test
+    @DisplayName("categorias - Debe construir las facetas en la primera consulta si aún no existen")
+    void testCategorias_ConstruccionPerezosa() {
+        // Arrange
+        FacetasCatalogo nuevas = new FacetasCatalogo();
+        ReflectionTestUtils.setField(nuevas, "productoRepository", productoRepository);
+
+        // Act
+        List<String> valores = nuevas.categorias().valores();
+        nuevas.categorias();
+
+        // Assert
+        assertEquals(List.of("Accesorios", "Electrónicos"), valores);
+        verify(productoRepository, times(2)).findCategoriasYMarcas();
+    }
+
+    // ==================== Tests para alCambiarProducto ====================
+    @Test
+    @DisplayName("alCambiarProducto - Un producto nuevo debe sumar a su categoría y marca")
+    void testAlCambiarProducto_Nuevo() {
+        // Arrange
+        String etagAnterior = facetas.categorias().etag();
+
+        // Act
+        facetas.alCambiarProducto(guardado(5L, "Muebles", "HP"));
+
+        // Assert
+        assertEquals(List.of("Accesorios", "Electrónicos", "Muebles"), facetas.categorias().valores());
+        assertEquals(3, facetas.marcas().facetas().get(1).productos());
+        assertNotEquals(etagAnterior, facetas.categorias().etag());
+    }
+
+    @Test
+    @DisplayName("alCambiarProducto - Cambiar de categoría debe mover el conteo y quitar valores vacíos")
+    void testAlCambiarProducto_CambioDeCategoria() {
+        // Act
+        facetas.alCambiarProducto(guardado(2L, "Oficina", "Logitech"));
+
+        // Assert
+        assertEquals(List.of(new Faceta("Electrónicos", 2), new Faceta("Oficina", 1)),
+                facetas.categorias().facetas());
+    }
+
+    @Test
+    @DisplayName("alCambiarProducto - Eliminar un producto debe restar de sus facetas")
+    void testAlCambiarProducto_Eliminado() {
+        // Act
+        facetas.alCambiarProducto(ProductoEvento.eliminado(3L));
+
+        // Assert
+        assertEquals(List.of(new Faceta("Accesorios", 1), new Faceta("Electrónicos", 1)),
+                facetas.categorias().facetas());
+        assertEquals(List.of("HP", "Logitech"), facetas.marcas().valores());
+    }
+
+    @Test
+    @DisplayName("alCambiarProducto - El ETag no debe cambiar si la faceta no cambió")
+    void testAlCambiarProducto_EtagEstable() {
+        // Arrange
+        String etagCategorias = facetas.categorias().etag();
+        String etagMarcas = facetas.marcas().etag();
+
+        // Act: mismo producto, solo cambia la marca
+        facetas.alCambiarProducto(guardado(1L, "Electrónicos", "Lenovo"));
+
+        // Assert
+        assertEquals(etagCategorias, facetas.categorias().etag());
+        assertNotEquals(etagMarcas, facetas.marcas().etag());
+        assertTrue(facetas.marcas().valores().contains("Lenovo"));
+    }
+}
@@ -0,0 +1,190 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.ClaveIdempotencia;
+import com.ejemplo.repository.ClaveIdempotenciaRepository;
+import com.ejemplo.service.IdempotenciaService.Reserva;
+import com.ejemplo.service.IdempotenciaService.ResultadoReserva;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para IdempotenciaService
+ * Valida la reserva de claves, la repetición de respuestas y el LRU en memoria
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotenciaService - Pruebas Unitarias")
+class IdempotenciaServiceTest {
+
+    private static final String CLAVE = "clave-hash";
+    private static final String HUELLA = "huella-hash";
+
+    @Mock
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    @InjectMocks
+    private IdempotenciaService idempotenciaService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotenciaService, "ttlHoras", 24L);
+        ReflectionTestUtils.setField(idempotenciaService, "bloqueoSegundos", 60L);
+        ReflectionTestUtils.setField(idempotenciaService, "capacidadCache", 100);
+        idempotenciaService.iniciar();
+    }
+
+    private ClaveIdempotencia registroCompletado(String huella) {
+        ClaveIdempotencia registro = new ClaveIdempotencia();
+        registro.setClave(CLAVE);
+        registro.setHuella(huella);
+        registro.setEstadoHttp(201);
+        registro.setTipoContenido("application/json");
+        registro.setCuerpo("{\"id\":1}");
+        registro.setFechaCreacion(LocalDateTime.now());
+        registro.setFechaExpiracion(LocalDateTime.now().plusHours(1));
+        return registro;
+    }
+
+    // ==================== Tests para reservar ====================
+    @Test
+    @DisplayName("reservar - Debe reservar una clave nueva")
+    void testReservar_Nueva() {
+        // Arrange
+        when(claveIdempotenciaRepository.reservar(eq(CLAVE), eq(HUELLA), anyString(), any(), any())).thenReturn(1);
+
+        // Act
+        Reserva reserva = idempotenciaService.reservar(CLAVE, HUELLA);
+
+        // Assert
+        assertEquals(ResultadoReserva.NUEVA, reserva.resultado());
+        assertNull(reserva.respuesta());
+        assertNotNull(reserva.token());
+    }
+
+    @Test
+    @DisplayName("reservar - Debe devolver la respuesta guardada en base de datos")
+    void testReservar_RepetidaDesdeBaseDeDatos() {
+        // Arrange
+        when(claveIdempotenciaRepository.reservar(eq(CLAVE), eq(HUELLA), anyString(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicada"));
+        when(claveIdempotenciaRepository.findById(CLAVE)).thenReturn(Optional.of(registroCompletado(HUELLA)));
+
+        // Act
+        Reserva reserva = idempotenciaService.reservar(CLAVE, HUELLA);
+
+        // Assert
+        assertEquals(ResultadoReserva.REPETIDA, reserva.resultado());
+        assertEquals(201, reserva.respuesta().estadoHttp());
+        assertEquals("{\"id\":1}", reserva.respuesta().cuerpo());
+    }
+
+    @Test
+    @DisplayName("reservar - Debe detectar la reutilización de la clave con otra solicitud")
+    void testReservar_Conflicto() {
+        // Arrange
+        when(claveIdempotenciaRepository.reservar(eq(CLAVE), eq(HUELLA), anyString(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicada"));
+        when(claveIdempotenciaRepository.findById(CLAVE)).thenReturn(Optional.of(registroCompletado("otra-huella")));
+
+        // Act
+        Reserva reserva = idempotenciaService.reservar(CLAVE, HUELLA);
+
+        // Assert
+        assertEquals(ResultadoReserva.CONFLICTO, reserva.resultado());
+    }
+
+    @Test
+    @DisplayName("reservar - Debe informar que la solicitud original sigue en proceso")
+    void testReservar_EnProceso() {
+        // Arrange
+        ClaveIdempotencia enProceso = registroCompletado(HUELLA);
+        enProceso.setEstadoHttp(null);
+        when(claveIdempotenciaRepository.reservar(eq(CLAVE), eq(HUELLA), anyString(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicada"));
+        when(claveIdempotenciaRepository.findById(CLAVE)).thenReturn(Optional.of(enProceso));
+
+        // Act
+        Reserva reserva = idempotenciaService.reservar(CLAVE, HUELLA);
+
+        // Assert
+        assertEquals(ResultadoReserva.EN_PROCESO, reserva.resultado());
+    }
+
+    @Test
+    @DisplayName("reservar - Debe responder desde el LRU sin consultar la base de datos")
+    void testReservar_DesdeCache() {
+        // Arrange
+        when(claveIdempotenciaRepository.completar(eq(CLAVE), eq("token"), eq(200), any(), any(), any())).thenReturn(1);
+        idempotenciaService.completar(CLAVE, "token", HUELLA, 200, "application/json", "{}");
+
+        // Act
+        Reserva reserva = idempotenciaService.reservar(CLAVE, HUELLA);
+
+        // Assert
+        assertEquals(ResultadoReserva.REPETIDA, reserva.resultado());
+        verify(claveIdempotenciaRepository, never()).reservar(any(), any(), any(), any(), any());
+        verify(claveIdempotenciaRepository, never()).findById(any());
+    }
+
+    // ==================== Tests para completar y liberar ====================
+    @Test
+    @DisplayName("completar - No debe guardar la respuesta si otra solicitud tomó la clave vencida")
+    void testCompletar_ReservaTomadaPorOtraSolicitud() {
+        // Arrange
+        when(claveIdempotenciaRepository.completar(eq(CLAVE), eq("token-vencido"), eq(201), any(), any(), any()))
+                .thenReturn(0);
+
+        // Act
+        boolean guardada = idempotenciaService.completar(CLAVE, "token-vencido", HUELLA, 201, "application/json", "{}");
+
+        // Assert: la clave no queda en el LRU y se consulta la base de datos
+        assertFalse(guardada);
+        when(claveIdempotenciaRepository.reservar(eq(CLAVE), eq(HUELLA), anyString(), any(), any())).thenReturn(1);
+        assertEquals(ResultadoReserva.NUEVA, idempotenciaService.reservar(CLAVE, HUELLA).resultado());
+    }
+
+    @Test
+    @DisplayName("liberar - Debe eliminar solo la reserva del token indicado")
+    void testLiberar() {
+        // Act
+        idempotenciaService.liberar(CLAVE, "token");
+
+        // Assert
+        verify(claveIdempotenciaRepository, times(1)).liberar(CLAVE, "token");
+        verify(claveIdempotenciaRepository, never()).deleteById(any());
+    }
+
+    // ==================== Tests para purgarExpiradas ====================
+    @Test
+    @DisplayName("purgarExpiradas - Debe eliminar las claves vencidas de la base de datos")
+    void testPurgarExpiradas() {
+        // Arrange
+        when(claveIdempotenciaRepository.eliminarExpiradas(any(LocalDateTime.class))).thenReturn(3);
+
+        // Act
+        idempotenciaService.purgarExpiradas();
+
+        // Assert
+        verify(claveIdempotenciaRepository, times(1)).eliminarExpiradas(any(LocalDateTime.class));
+        verify(claveIdempotenciaRepository, never()).completar(anyString(), anyString(), anyInt(), any(), any(), any());
+    }
+}
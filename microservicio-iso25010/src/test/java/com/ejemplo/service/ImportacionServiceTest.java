@@ -0,0 +1,244 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración para ImportacionService
+ * Importa productos en CSV y NDJSON contra la base H2 real a través de POST /productos/import
+ * y valida el reporte por fila, las actualizaciones por ID y la importación en varios lotes
+ * Registra además las filas por segundo de la importación en varios lotes
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("ImportacionService - Pruebas de Integración")
+class ImportacionServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionServiceTest.class);
+
+    private static final String PREFIJO = "Importado ";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AutocompletadoProductos autocompletadoProductos;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM productos WHERE nombre LIKE ?", PREFIJO + "%");
+        // Quita los productos borrados de los índices en memoria compartidos con otras pruebas
+        eventPublisher.publishEvent(new ProductosImportadosEvento(0, 0, LocalDateTime.now()));
+    }
+
+    private ResultActions enviar(String tipo, String cuerpo) throws Exception {
+        return mockMvc.perform(post("/productos/import")
+                .contentType(tipo)
+                .content(cuerpo.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private JsonNode importar(String tipo, String cuerpo) throws Exception {
+        byte[] respuesta = enviar(tipo, cuerpo)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return objectMapper.readTree(respuesta);
+    }
+
+    private List<Producto> importados() {
+        return productoRepository.findAll().stream()
+                .filter(p -> p.getNombre().startsWith(PREFIJO))
+                .toList();
+    }
+
+    // ==================== Tests para CSV ====================
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("CSV - Debe insertar las filas válidas y reportar las inválidas con su línea")
+    void testImportarCsv_ReportePorFila() throws Exception {
+        // Arrange: la línea 3 tiene una descripción con coma, comillas y salto de línea
+        String csv = """
+                nombre,precio,stock,categoria,descripcion
+                Importado Laptop,1500.00,10,Electrónicos,Portátil
+                Importado Mouse,25.50,100,Accesorios,"Inalámbrico, con ""USB""
+                y batería"
+                Importado Caro,abc,1,Accesorios,
+                Importado Negativo,10.00,-1,Accesorios,
+                Importado Corto,10.00,1
+                X,10.00,1,Accesorios,
+                Importado Teclado,45.00,0,,
+                """;
+
+        // Act
+        JsonNode resultado = importar("text/csv", csv);
+
+        // Assert
+        assertEquals(7, resultado.get("filas").asLong());
+        assertEquals(3, resultado.get("insertados").asLong());
+        assertEquals(4, resultado.get("rechazados").asLong());
+        JsonNode errores = resultado.get("errores");
+        assertEquals(5, errores.get(0).get("linea").asLong());
+        assertEquals("Valor inválido para precio: abc", errores.get(0).get("mensaje").asText());
+        assertEquals(6, errores.get(1).get("linea").asLong());
+        assertEquals("El stock no puede ser negativo", errores.get(1).get("mensaje").asText());
+        assertEquals(7, errores.get(2).get("linea").asLong());
+        assertEquals(8, errores.get(3).get("linea").asLong());
+
+        Producto mouse = importados().stream()
+                .filter(p -> p.getNombre().equals("Importado Mouse")).findFirst().orElseThrow();
+        assertEquals("Inalámbrico, con \"USB\"\ny batería", mouse.getDescripcion());
+        assertEquals(new BigDecimal("25.50"), mouse.getPrecio());
+        assertTrue(mouse.getActivo());
+        // Los índices en memoria se reconstruyen al terminar la importación
+        assertEquals("Importado Teclado", autocompletadoProductos.sugerir("importado tec", 5).get(0).nombre());
+    }
+
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    @DisplayName("CSV - Debe escribir muchas filas en varios lotes")
+    void testImportarCsv_VariosLotes() throws Exception {
+        // Arrange
+        int filas = 20_000;
+        StringBuilder csv = new StringBuilder("nombre,descripcion,precio,stock,categoria,marca\n");
+        for (int i = 0; i < filas; i++) {
+            csv.append(PREFIJO).append(i).append(",Producto importado,19.99,").append(i % 50)
+                    .append(",Accesorios,Marca ").append(i % 10).append('\n');
+        }
+
+        // Act
+        JsonNode resultado = importar("text/csv", csv.toString());
+
+        // Assert
+        assertEquals(filas, resultado.get("insertados").asLong());
+        assertEquals(0, resultado.get("rechazados").asLong());
+        assertEquals(filas, importados().size());
+        long duracionMs = Math.max(1, resultado.get("duracionMs").asLong());
+        logger.info("Importación CSV: {} filas en {} ms ({} filas/seg)", filas, duracionMs, filas * 1000 / duracionMs);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("CSV - Una comilla sin cerrar debe rechazar solo el registro que supera el tamaño máximo")
+    void testImportarCsv_RegistroDemasiadoLargo() throws Exception {
+        // Arrange: la comilla de la línea 2 absorbe las filas siguientes hasta superar el máximo
+        StringBuilder csv = new StringBuilder("nombre,precio,stock,descripcion\n")
+                .append(PREFIJO).append("Roto,1.00,1,\"Sin cerrar\n");
+        int filas = 0;
+        while (csv.length() < 2L * ImportacionService.TAMANO_MAXIMO_REGISTRO) {
+            csv.append(PREFIJO).append(filas++).append(",1.00,1,Relleno\n");
+        }
+        csv.append(PREFIJO).append("Final,2.00,3,Última fila\n");
+
+        // Act
+        JsonNode resultado = importar("text/csv", csv.toString());
+
+        // Assert
+        assertEquals(1, resultado.get("rechazados").asLong());
+        JsonNode error = resultado.get("errores").get(0);
+        assertEquals(2, error.get("linea").asLong());
+        assertTrue(error.get("mensaje").asText().startsWith("El registro supera el tamaño máximo"));
+        assertEquals(resultado.get("filas").asLong() - 1, resultado.get("insertados").asLong());
+        assertTrue(resultado.get("insertados").asLong() > 1);
+        assertTrue(importados().stream().anyMatch(p -> p.getNombre().equals(PREFIJO + "Final")));
+        assertTrue(importados().stream().noneMatch(p -> p.getNombre().equals(PREFIJO + "Roto")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("CSV - Debe rechazar un encabezado sin columnas obligatorias")
+    void testImportarCsv_EncabezadoInvalido() throws Exception {
+        // Act & Assert
+        enviar("text/csv", "nombre,stock\nImportado Sin precio,1\n")
+                .andExpect(status().isBadRequest());
+        assertTrue(importados().isEmpty());
+    }
+
+    // ==================== Tests para NDJSON ====================
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("NDJSON - Las filas con id deben reemplazar el producto existente")
+    void testImportarNdjson_Actualizacion() throws Exception {
+        // Arrange
+        Producto existente = productoRepository.save(new Producto(PREFIJO + "Original", new BigDecimal("10.00"), 5));
+        String ndjson = """
+                {"id": %d, "nombre": "Importado Renombrado", "precio": 12.5, "stock": 8, "activo": false}
+
+                {"id": 999999, "nombre": "Importado Fantasma", "precio": 1, "stock": 1}
+                {"nombre": "Importado Nuevo", "precio": "3.00", "stock": 2, "color": "rojo"}
+                {"nombre": "Importado Nuevo", "precio": "3.00", "stock": 2
+                {"nombre": "Importado Webcam", "precio": 30, "stock": 4, "marca": "Logitech"}
+                """.formatted(existente.getId());
+
+        // Act
+        JsonNode resultado = importar("application/x-ndjson", ndjson);
+
+        // Assert
+        assertEquals(5, resultado.get("filas").asLong());
+        assertEquals(1, resultado.get("insertados").asLong());
+        assertEquals(1, resultado.get("actualizados").asLong());
+        assertEquals(3, resultado.get("rechazados").asLong());
+        JsonNode errores = resultado.get("errores");
+        assertEquals(4, errores.get(0).get("linea").asLong());
+        assertEquals("Propiedad desconocida: color", errores.get(0).get("mensaje").asText());
+        assertEquals(5, errores.get(1).get("linea").asLong());
+        assertEquals(3, errores.get(2).get("linea").asLong());
+        assertEquals("Producto no encontrado con ID: 999999", errores.get(2).get("mensaje").asText());
+
+        Producto actualizado = productoRepository.findById(existente.getId()).orElseThrow();
+        assertEquals("Importado Renombrado", actualizado.getNombre());
+        assertEquals(8, actualizado.getStock());
+        assertFalse(actualizado.getActivo());
+        assertNotNull(actualizado.getFechaActualizacion());
+    }
+
+    // ==================== Tests de seguridad ====================
+    @Test
+    @WithMockUser(roles = "CLIENTE")
+    @DisplayName("import - Un cliente no debe poder importar")
+    void testImportar_SinPermiso() throws Exception {
+        // Act & Assert
+        enviar("text/csv", "nombre,precio,stock\nImportado Cliente,1.00,1\n")
+                .andExpect(status().isForbidden());
+        assertTrue(importados().isEmpty());
+    }
+}
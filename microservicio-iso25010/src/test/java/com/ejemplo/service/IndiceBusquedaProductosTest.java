@@ -0,0 +1,131 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.ProductoEvento.Instantanea;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para IndiceBusquedaProductos
+ * Valida la construcción del índice, la coincidencia por subcadena, el orden por
+ * relevancia y la actualización incremental por eventos
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IndiceBusquedaProductos - Pruebas Unitarias")
+class IndiceBusquedaProductosTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private IndiceBusquedaProductos indice;
+
+    private Producto producto(Long id, String nombre, String descripcion, String categoria, String marca) {
+        Producto producto = new Producto(nombre, new BigDecimal("10.00"), 5);
+        producto.setId(id);
+        producto.setDescripcion(descripcion);
+        producto.setCategoria(categoria);
+        producto.setMarca(marca);
+        return producto;
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(productoRepository.findAll()).thenReturn(List.of(
+            producto(1L, "Laptop HP 15", "Portátil para oficina", "Electrónicos", "HP"),
+            producto(2L, "Mouse inalámbrico", "Compatible con laptop", "Accesorios", "Logitech"),
+            producto(3L, "Silla ergonómica", "Silla de oficina", "Muebles", "Herman")));
+        indice.reconstruir();
+    }
+
+    // ==================== Tests para reconstruir ====================
+    @Test
+    @DisplayName("reconstruir - Debe indexar todos los productos y marcar el índice como listo")
+    void testReconstruir() {
+        // Assert
+        assertTrue(indice.estaListo());
+        assertEquals(3, indice.tamano());
+        verify(productoRepository, times(1)).findAll();
+    }
+
+    // ==================== Tests para buscar ====================
+    @Test
+    @DisplayName("buscar - Debe ordenar por relevancia (nombre antes que descripción)")
+    void testBuscar_OrdenPorRelevancia() {
+        // Act
+        List<Long> resultado = indice.buscar("laptop");
+
+        // Assert
+        assertEquals(List.of(1L, 2L), resultado);
+    }
+
+    @Test
+    @DisplayName("buscar - Debe ignorar mayúsculas y acentos")
+    void testBuscar_SinAcentos() {
+        // Act & Assert
+        assertEquals(List.of(1L), indice.buscar("ELECTRONICOS"));
+        assertEquals(List.of(2L), indice.buscar("inalambrico"));
+    }
+
+    @Test
+    @DisplayName("buscar - Debe encontrar subcadenas en medio de una palabra")
+    void testBuscar_Subcadena() {
+        // Act & Assert
+        assertEquals(List.of(3L), indice.buscar("gonóm"));
+        assertEquals(List.of(1L, 3L), indice.buscar("oficina"));
+    }
+
+    @Test
+    @DisplayName("buscar - Debe verificar la coincidencia completa y no solo los trigramas")
+    void testBuscar_TrigramasSinSubcadena() {
+        // "ofi" y "ina" existen en el índice, pero no la secuencia "ofiina"
+        assertTrue(indice.buscar("ofiina").isEmpty());
+    }
+
+    @Test
+    @DisplayName("buscar - Debe resolver consultas de menos de 3 caracteres")
+    void testBuscar_ConsultaCorta() {
+        // Act & Assert
+        assertEquals(List.of(1L), indice.buscar("hp"));
+    }
+
+    // ==================== Tests para alCambiarProducto ====================
+    @Test
+    @DisplayName("alCambiarProducto - Debe reindexar un producto modificado")
+    void testAlCambiarProducto_Modificado() {
+        // Act
+        indice.alCambiarProducto(new ProductoEvento(2L,
+            new Instantanea("Teclado mecánico", null, "Accesorios", "Logitech", true), null));
+
+        // Assert
+        assertTrue(indice.buscar("mouse").isEmpty());
+        assertEquals(List.of(2L), indice.buscar("teclado"));
+        assertEquals(3, indice.tamano());
+    }
+
+    @Test
+    @DisplayName("alCambiarProducto - Debe quitar un producto eliminado")
+    void testAlCambiarProducto_Eliminado() {
+        // Act
+        indice.alCambiarProducto(ProductoEvento.eliminado(1L));
+
+        // Assert
+        assertEquals(List.of(2L), indice.buscar("laptop"));
+        assertEquals(2, indice.tamano());
+    }
+}
@@ -0,0 +1,292 @@
+package com.ejemplo.service;
+
+import com.ejemplo.dto.AjusteStockRequest;
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.StockFraccionRepository;
+import com.ejemplo.util.CursorPaginacion;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración para InventarioFraccionado
+ * Reparte el stock de un producto en varias fracciones contra la base H2 real y valida que
+ * el stock publicado sea la suma de las fracciones, que una reserva mayor que cualquier
+ * fracción se reparta entre varias, que los listados y la exportación publiquen la suma
+ * y que las reservas concurrentes nunca sobrevendan.
+ * Compara además el rendimiento de reducirStock con una y con varias fracciones
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("InventarioFraccionado - Pruebas de Integración")
+class InventarioFraccionadoTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventarioFraccionadoTest.class);
+
+    private static final int STOCK_INICIAL = 200;
+    private static final int HILOS = 16;
+    private static final int INTENTOS_POR_HILO = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private InventarioFraccionado inventarioFraccionado;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private StockFraccionRepository stockFraccionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        producto = productoService.crear(new Producto("Producto fraccionado", new BigDecimal("10.00"), 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productoService.eliminar(producto.getId());
+    }
+
+    private int stockTotal() {
+        return inventarioFraccionado.stockTotal(productoRepository.findById(producto.getId()).orElseThrow());
+    }
+
+    // ==================== Tests para PUT /productos/{id}/fracciones ====================
+    @Test
+    @WithMockUser(roles = "MANAGER")
+    @DisplayName("PUT /productos/{id}/fracciones - Debe repartir el stock y publicar la suma")
+    void testFraccionar() throws Exception {
+        // Act & Assert: 10 unidades en 4 fracciones, el resto queda en la fracción 0
+        mockMvc.perform(put("/productos/" + producto.getId() + "/fracciones").param("cantidad", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock", is(10)))
+                .andExpect(jsonPath("$.fracciones", is(List.of(4, 2, 2, 2))));
+        assertEquals(6, stockFraccionRepository.sumarStock(producto.getId()));
+        mockMvc.perform(get("/productos/" + producto.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock", is(10)));
+
+        mockMvc.perform(put("/productos/" + producto.getId() + "/fracciones").param("cantidad", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/productos/999999/fracciones").param("cantidad", "2"))
+                .andExpect(status().isNotFound());
+
+        // Con una fracción todo el stock vuelve a la fila del producto
+        mockMvc.perform(put("/productos/" + producto.getId() + "/fracciones").param("cantidad", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fracciones", is(List.of(10))));
+        assertFalse(inventarioFraccionado.estaFraccionado(producto.getId()));
+        assertEquals(0, stockFraccionRepository.sumarStock(producto.getId()));
+    }
+
+    // ==================== Tests para las operaciones de stock ====================
+    @Test
+    @DisplayName("reducirStock - Debe repartir entre fracciones una reserva que no cabe en ninguna")
+    void testReducirStock_ReservaRepartida() {
+        // Arrange: fracciones 4, 2, 2, 2
+        inventarioFraccionado.fraccionar(producto.getId(), 4);
+
+        // Act
+        Producto resultado = productoService.reducirStock(producto.getId(), 9);
+
+        // Assert
+        assertEquals(1, resultado.getStock());
+        assertEquals(1, stockTotal());
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> productoService.reducirStock(producto.getId(), 2));
+        assertEquals("Stock insuficiente. Stock actual: 1", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Operaciones de stock - Deben mantener la suma de las fracciones")
+    void testOperacionesDeStock_MantienenLaSuma() {
+        // Arrange
+        inventarioFraccionado.fraccionar(producto.getId(), 3);
+
+        // Act & Assert
+        assertEquals(15, productoService.aumentarStock(producto.getId(), 5).getStock());
+        assertEquals(15, stockTotal());
+        assertEquals(15, productoService.obtenerPorId(producto.getId()).getStock());
+
+        assertEquals(7, productoService.actualizarStock(producto.getId(), 7).getStock());
+        assertEquals(7, stockTotal());
+        assertEquals(4, stockFraccionRepository.sumarStock(producto.getId()));
+
+        productoService.ajustarStock(List.of(AjusteStockRequest.delta(producto.getId(), -6)));
+        assertEquals(1, stockTotal());
+    }
+
+    // ==================== Tests para los listados ====================
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Listados - Deben publicar y filtrar por el stock total aunque la fracción 0 esté vacía")
+    void testListados_StockTotalDeProductoFraccionado() throws Exception {
+        // Arrange: fracciones 4, 2, 2, 2 con la fracción 0 agotada
+        inventarioFraccionado.fraccionar(producto.getId(), 4);
+        jdbcTemplate.update("UPDATE productos SET stock = 0 WHERE id = ?", producto.getId());
+        String cursor = CursorPaginacion.codificar(producto.getId() - 1);
+        String soloProducto = "$[?(@.id == " + producto.getId() + ")]";
+
+        // Act & Assert
+        for (String ruta : List.of("/productos", "/productos/activos", "/productos/con-stock")) {
+            mockMvc.perform(get(ruta).param("cursor", cursor).param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id", is(producto.getId().intValue())))
+                    .andExpect(jsonPath("$[0].stock", is(6)));
+        }
+        mockMvc.perform(get("/productos/sin-stock").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(soloProducto, empty()));
+        // Las listas completas, sin parámetros de paginación, informan el mismo total
+        for (String ruta : List.of("/productos", "/productos/activos", "/productos/con-stock")) {
+            mockMvc.perform(get(ruta))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath(soloProducto + ".stock", contains(6)));
+        }
+        mockMvc.perform(get("/productos/sin-stock"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(soloProducto, empty()));
+
+        MvcResult iniciada = mockMvc.perform(get("/productos/exportar"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult exportada = mockMvc.perform(asyncDispatch(iniciada))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode exportado = null;
+        for (JsonNode fila : objectMapper.readTree(exportada.getResponse().getContentAsByteArray())) {
+            if (fila.get("id").asLong() == producto.getId()) {
+                exportado = fila;
+            }
+        }
+        assertNotNull(exportado);
+        assertEquals(6, exportado.get("stock").asInt());
+        // La exportación no escribe el total en la fila del producto
+        assertEquals(0, productoRepository.findById(producto.getId()).orElseThrow().getStock());
+
+        // Sin stock en ninguna fracción pasa a los productos sin stock
+        productoService.actualizarStock(producto.getId(), 0);
+        mockMvc.perform(get("/productos/sin-stock").param("cursor", cursor).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(producto.getId().intValue())))
+                .andExpect(jsonPath("$[0].stock", is(0)));
+        mockMvc.perform(get("/productos/con-stock").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(soloProducto, empty()));
+    }
+
+    // ==================== Tests de concurrencia ====================
+    @Test
+    @DisplayName("reducirStock concurrente - No debe sobrevender con una ni con varias fracciones")
+    void testReducirStock_ConcurrenciaPorFracciones() throws Exception {
+        // Act: la misma carga con el stock en una sola fila y repartido en 8 fracciones
+        double unaFraccion = medirReservasConcurrentes(1);
+        double ochoFracciones = medirReservasConcurrentes(8);
+
+        // Assert: solo se registra la comparación; en H2 en memoria la diferencia depende del equipo
+        logger.info("Fraccionamiento de stock: pedidos/seg con 1 fracción={}, con 8 fracciones={}",
+                String.format("%.1f", unaFraccion), String.format("%.1f", ochoFracciones));
+    }
+
+    private double medirReservasConcurrentes(int fracciones) throws Exception {
+        Long productoId = producto.getId();
+        productoService.actualizarStock(productoId, STOCK_INICIAL);
+        inventarioFraccionado.fraccionar(productoId, fracciones);
+
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+                    try {
+                        productoService.reducirStock(productoId, 1);
+                        exitosos.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rechazados.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        errores.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long inicioNanos = System.nanoTime();
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        long duracionNanos = System.nanoTime() - inicioNanos;
+        executor.shutdown();
+
+        int stockFinal = stockTotal();
+        logger.info("Reservas con {} fracciones: exitosos={}, rechazados={}, errores={}, stockFinal={}",
+                fracciones, exitosos.get(), rechazados.get(), errores.get(), stockFinal);
+        assertEquals(0, errores.get());
+        assertEquals(STOCK_INICIAL, exitosos.get() + stockFinal,
+                "Cada unidad descontada debe corresponder a una reserva exitosa");
+        assertTrue(productoRepository.findById(productoId).orElseThrow().getStock() >= 0);
+        for (Object[] fila : stockFraccionRepository.bloquear(productoId)) {
+            assertTrue(((Number) fila[1]).intValue() >= 0, "Ninguna fracción debe quedar negativa");
+        }
+        return (HILOS * INTENTOS_POR_HILO) / (duracionNanos / 1_000_000_000.0);
+    }
+}
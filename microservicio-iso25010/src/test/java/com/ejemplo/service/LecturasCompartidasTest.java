@@ -0,0 +1,179 @@
+package com.ejemplo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para LecturasCompartidas
+ * Valida que las llamadas concurrentes con la misma clave compartan una sola carga,
+ * que las excepciones lleguen a todas, que la clave se libere y las métricas
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@DisplayName("LecturasCompartidas - Pruebas Unitarias")
+class LecturasCompartidasTest {
+
+    private static final int HILOS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LecturasCompartidas lecturas;
+    private ExecutorService ejecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lecturas = new LecturasCompartidas(meterRegistry);
+        ejecutor = Executors.newFixedThreadPool(HILOS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Lanza HILOS llamadas con la misma clave; la carga se bloquea hasta que todas
+     * las llamadas están en curso, para que se unan a la primera
+     */
+    private List<Future<String>> lanzarConcurrentes(String clave, AtomicInteger cargas, RuntimeException error)
+            throws InterruptedException {
+        CountDownLatch cargaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarCarga = new CountDownLatch(1);
+        List<Future<String>> resultados = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            resultados.add(ejecutor.submit(() -> lecturas.ejecutar("prueba", clave, () -> {
+                cargas.incrementAndGet();
+                cargaIniciada.countDown();
+                esperar(liberarCarga);
+                if (error != null) {
+                    throw error;
+                }
+                return "valor-" + clave;
+            })));
+        }
+        assertTrue(cargaIniciada.await(5, TimeUnit.SECONDS));
+        // Espera a que el resto de las llamadas se registre como colapsada
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (contador("colapsada") < HILOS - 1 && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        liberarCarga.countDown();
+        return resultados;
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double contador(String resultado) {
+        Counter counter = meterRegistry.find(LecturasCompartidas.METRICA)
+                .tag("operacion", "prueba")
+                .tag("resultado", resultado)
+                .counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    // ==================== Tests para ejecutar ====================
+    @Test
+    @DisplayName("ejecutar - Llamadas concurrentes con la misma clave deben compartir una carga")
+    void testEjecutar_ColapsaConcurrentes() throws Exception {
+        // Arrange
+        AtomicInteger cargas = new AtomicInteger();
+
+        // Act
+        List<Future<String>> resultados = lanzarConcurrentes("1", cargas, null);
+
+        // Assert
+        for (Future<String> resultado : resultados) {
+            assertEquals("valor-1", resultado.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, cargas.get());
+        assertEquals(1.0, contador("carga"));
+        assertEquals(HILOS - 1.0, contador("colapsada"));
+    }
+
+    @Test
+    @DisplayName("ejecutar - La excepción de la carga debe llegar a todas las llamadas unidas")
+    void testEjecutar_PropagaExcepcion() throws Exception {
+        // Arrange
+        AtomicInteger cargas = new AtomicInteger();
+        EntityNotFoundException error = new EntityNotFoundException("Producto no encontrado con ID: 9");
+
+        // Act
+        List<Future<String>> resultados = lanzarConcurrentes("9", cargas, error);
+
+        // Assert
+        for (Future<String> resultado : resultados) {
+            ExecutionException fallo = assertThrows(ExecutionException.class,
+                    () -> resultado.get(5, TimeUnit.SECONDS));
+            assertSame(error, fallo.getCause());
+        }
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    @DisplayName("ejecutar - Al terminar la carga la siguiente llamada debe cargar de nuevo")
+    void testEjecutar_LiberaClave() {
+        // Arrange
+        AtomicInteger cargas = new AtomicInteger();
+
+        // Act
+        lecturas.ejecutar("prueba", 1L, cargas::incrementAndGet);
+        lecturas.ejecutar("prueba", 1L, cargas::incrementAndGet);
+        assertThrows(IllegalStateException.class, () -> lecturas.ejecutar("prueba", 1L, () -> {
+            throw new IllegalStateException("falla");
+        }));
+        int despuesDelError = lecturas.ejecutar("prueba", 1L, cargas::incrementAndGet);
+
+        // Assert
+        assertEquals(3, despuesDelError);
+        assertEquals(0.0, contador("colapsada"));
+        assertEquals(0.0, meterRegistry.get(LecturasCompartidas.METRICA + ".en.curso").gauge().value());
+    }
+
+    @Test
+    @DisplayName("ejecutar - Claves u operaciones distintas no deben compartir la carga")
+    void testEjecutar_ClavesDistintas() throws Exception {
+        // Arrange
+        CountDownLatch ambasIniciadas = new CountDownLatch(2);
+        AtomicInteger cargas = new AtomicInteger();
+
+        // Act
+        Future<Integer> primera = ejecutor.submit(() -> lecturas.ejecutar("prueba", 1L, () -> {
+            ambasIniciadas.countDown();
+            esperar(ambasIniciadas);
+            return cargas.incrementAndGet();
+        }));
+        Future<Integer> segunda = ejecutor.submit(() -> lecturas.ejecutar("otra", 1L, () -> {
+            ambasIniciadas.countDown();
+            esperar(ambasIniciadas);
+            return cargas.incrementAndGet();
+        }));
+
+        // Assert
+        assertNotEquals(primera.get(5, TimeUnit.SECONDS), segunda.get(5, TimeUnit.SECONDS));
+        assertEquals(2, cargas.get());
+    }
+}
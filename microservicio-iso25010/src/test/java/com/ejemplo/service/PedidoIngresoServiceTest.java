@@ -0,0 +1,125 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import com.ejemplo.service.PedidoIngresoService.EstadoSolicitud;
+import com.ejemplo.service.PedidoIngresoService.SeguimientoPedido;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de integración para PedidoIngresoService
+ * Valida el flujo completo de la cola asíncrona contra la base H2 real:
+ * encolado, procesamiento en micro-lotes y consulta del resultado
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("PedidoIngresoService - Pruebas de Integración")
+class PedidoIngresoServiceTest {
+
+    private static final int STOCK_INICIAL = 20;
+    private static final int SOLICITUDES = 30;
+
+    @Autowired
+    private PedidoIngresoService pedidoIngresoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    private Usuario usuario;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setNombre("Cola");
+        usuario.setApellido("Asincrona");
+        usuario.setUsername("ingreso_async");
+        usuario.setEmail("ingreso@example.com");
+        usuario.setPassword("password123");
+        usuario.setFechaCreacion(LocalDateTime.now());
+        usuario = usuarioRepository.save(usuario);
+
+        producto = productoRepository.save(new Producto("Producto async", new BigDecimal("15.00"), STOCK_INICIAL));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll(pedidoRepository.findByUsuarioId(usuario.getId()));
+        productoRepository.deleteById(producto.getId());
+        usuarioRepository.deleteById(usuario.getId());
+    }
+
+    @Test
+    @DisplayName("encolar - Debe crear los pedidos con stock y rechazar el excedente")
+    void testEncolar_ProcesaEnMicroLotes() throws Exception {
+        // Arrange & Act
+        List<String> trackingIds = new ArrayList<>();
+        for (int i = 0; i < SOLICITUDES; i++) {
+            SeguimientoPedido seguimiento = pedidoIngresoService.encolar(usuario.getId(), producto.getId(), 1, null);
+            assertEquals(EstadoSolicitud.EN_COLA, seguimiento.estado());
+            trackingIds.add(seguimiento.trackingId());
+        }
+        Map<String, SeguimientoPedido> resultados = esperarResultados(trackingIds);
+
+        // Assert
+        Map<EstadoSolicitud, Long> porEstado = resultados.values().stream()
+                .collect(Collectors.groupingBy(SeguimientoPedido::estado, Collectors.counting()));
+        assertEquals(STOCK_INICIAL, porEstado.getOrDefault(EstadoSolicitud.COMPLETADO, 0L));
+        assertEquals(SOLICITUDES - STOCK_INICIAL, porEstado.getOrDefault(EstadoSolicitud.RECHAZADO, 0L));
+        assertTrue(resultados.values().stream()
+                .filter(seguimiento -> seguimiento.estado() == EstadoSolicitud.COMPLETADO)
+                .allMatch(seguimiento -> seguimiento.pedidoId() != null));
+
+        assertEquals(0, productoRepository.findById(producto.getId()).orElseThrow().getStock());
+        assertEquals(STOCK_INICIAL, pedidoRepository.findByUsuarioId(usuario.getId()).size());
+    }
+
+    @Test
+    @DisplayName("obtenerSeguimiento - Debe retornar vacío para un ID desconocido")
+    void testObtenerSeguimiento_Desconocido() {
+        assertTrue(pedidoIngresoService.obtenerSeguimiento("no-existe").isEmpty());
+    }
+
+    private Map<String, SeguimientoPedido> esperarResultados(List<String> trackingIds) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 20_000;
+        while (System.currentTimeMillis() < limite) {
+            Map<String, SeguimientoPedido> resultados = trackingIds.stream()
+                    .map(id -> pedidoIngresoService.obtenerSeguimiento(id).orElseThrow())
+                    .collect(Collectors.toMap(SeguimientoPedido::trackingId, Function.identity()));
+            if (resultados.values().stream().noneMatch(seguimiento -> seguimiento.estado() == EstadoSolicitud.EN_COLA)) {
+                return resultados;
+            }
+            Thread.sleep(50);
+        }
+        fail("Las solicitudes no se procesaron a tiempo");
+        return Map.of();
+    }
+}
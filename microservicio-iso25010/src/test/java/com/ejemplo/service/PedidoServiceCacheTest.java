@@ -0,0 +1,128 @@
+package com.ejemplo.service;
+
+import com.ejemplo.config.CacheConfig;
+import com.ejemplo.model.Pedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de integración de la caché de productos en las escrituras de pedidos
+ * Habilita Caffeine (el perfil de test la deshabilita) contra la base H2 real y verifica que
+ * la caché solo refleje stock confirmado: nada de lo leído o invalidado dentro de una
+ * transacción revertida queda en ella
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest(properties = "spring.cache.type=caffeine")
+@ActiveProfiles("test")
+@DisplayName("PedidoService - Caché de productos")
+class PedidoServiceCacheTest {
+
+    private static final int STOCK_INICIAL = 10;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Cache cache;
+    private Usuario usuario;
+    private Producto primero;
+    private Producto segundo;
+
+    @BeforeEach
+    void setUp() {
+        cache = cacheManager.getCache(CacheConfig.PRODUCTOS);
+        cache.clear();
+
+        usuario = new Usuario();
+        usuario.setNombre("Pedido");
+        usuario.setApellido("Cacheado");
+        usuario.setUsername("pedido_cacheado");
+        usuario.setEmail("pedido.cacheado@example.com");
+        usuario.setPassword("password123");
+        usuario.setFechaCreacion(LocalDateTime.now());
+        usuario = usuarioRepository.save(usuario);
+
+        primero = productoRepository.save(new Producto("Producto cacheado A", new BigDecimal("3.00"), STOCK_INICIAL));
+        segundo = productoRepository.save(new Producto("Producto cacheado B", new BigDecimal("4.00"), STOCK_INICIAL));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll(pedidoRepository.findByUsuarioId(usuario.getId()));
+        productoRepository.deleteAllById(List.of(primero.getId(), segundo.getId()));
+        usuarioRepository.deleteById(usuario.getId());
+        cache.clear();
+    }
+
+    private int stock(Producto producto) {
+        return productoRepository.findById(producto.getId()).orElseThrow().getStock();
+    }
+
+    // ==================== Tests para actualizar ====================
+    @Test
+    @DisplayName("actualizar - Un rechazo revertido no debe dejar en caché el stock sin confirmar")
+    void testActualizar_RevertidoNoCacheaStock() {
+        // Arrange
+        Pedido pedido = pedidoService.crear(usuario.getId(), primero.getId(), 2, null);
+        cache.clear();
+
+        // Act: devuelve 2 unidades al producto y rechaza las 20 pedidas, todo se revierte
+        assertThrows(IllegalArgumentException.class,
+                () -> pedidoService.actualizar(pedido.getId(), primero.getId(), 20, null));
+
+        // Assert
+        assertNull(cache.get(primero.getId()));
+        assertEquals(STOCK_INICIAL - 2, stock(primero));
+        assertEquals(STOCK_INICIAL - 2, productoService.obtenerPorId(primero.getId()).getStock());
+    }
+
+    @Test
+    @DisplayName("actualizar - Debe invalidar en caché ambos productos al confirmar el cambio")
+    void testActualizar_InvalidaAlConfirmar() {
+        // Arrange
+        Pedido pedido = pedidoService.crear(usuario.getId(), primero.getId(), 2, null);
+        assertEquals(STOCK_INICIAL - 2, productoService.obtenerPorId(primero.getId()).getStock());
+        assertEquals(STOCK_INICIAL, productoService.obtenerPorId(segundo.getId()).getStock());
+
+        // Act
+        pedidoService.actualizar(pedido.getId(), segundo.getId(), 3, null);
+
+        // Assert
+        assertEquals(STOCK_INICIAL, productoService.obtenerPorId(primero.getId()).getStock());
+        assertEquals(STOCK_INICIAL - 3, productoService.obtenerPorId(segundo.getId()).getStock());
+    }
+}
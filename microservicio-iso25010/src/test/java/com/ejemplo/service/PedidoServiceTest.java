@@ -0,0 +1,472 @@
+package com.ejemplo.service;
+
+import com.ejemplo.config.CacheConfig;
+import com.ejemplo.model.Pedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.model.Usuario;
+import com.ejemplo.repository.PedidoBatchRepository;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoBatchRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.repository.UsuarioRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para PedidoService
+ * Valida que la creación de pedidos use una sola reserva de stock y un solo insert
+ * Cobertura objetivo: 80%+
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PedidoService - Pruebas Unitarias")
+class PedidoServiceTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ProductoBatchRepository productoBatchRepository;
+
+    @Mock
+    private PedidoBatchRepository pedidoBatchRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private ProductoService productoService;
+
+    // Sin productos fraccionados: todas las reservas van al UPDATE condicional de productos
+    @Spy
+    private InventarioFraccionado inventarioFraccionado = new InventarioFraccionado(null, null, null, null);
+
+    @InjectMocks
+    private PedidoService pedidoService;
+
+    private Usuario usuario;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setNombre("Juan");
+        usuario.setApellido("Pérez");
+        usuario.setEmail("juan@example.com");
+
+        producto = new Producto();
+        producto.setId(1L);
+        producto.setNombre("Laptop HP");
+        producto.setPrecio(new BigDecimal("799.99"));
+        producto.setStock(8);
+    }
+
+    // ==================== Tests para crear ====================
+    @Test
+    @DisplayName("crear - Debe reservar stock e insertar el pedido en una transacción")
+    void testCrear_Success() {
+        // Arrange
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoRepository.reservarStock(eq(1L), eq(2), any(LocalDateTime.class))).thenReturn(1);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> {
+            Pedido pedido = invocation.getArgument(0);
+            pedido.setId(10L);
+            return pedido;
+        });
+
+        // Act
+        Pedido resultado = pedidoService.crear(1L, 1L, 2, "Urgente");
+
+        // Assert
+        assertEquals(10L, resultado.getId());
+        assertEquals(new BigDecimal("1599.98"), resultado.getTotal());
+        assertEquals("Urgente", resultado.getObservaciones());
+        verify(productoRepository, times(1)).reservarStock(eq(1L), eq(2), any(LocalDateTime.class));
+        verify(productoRepository, never()).save(any(Producto.class));
+        verify(pedidoRepository, times(1)).save(any(Pedido.class));
+        verify(eventPublisher, times(1)).publishEvent(any(PedidoEvento.class));
+    }
+
+    @Test
+    @DisplayName("crear - Debe invalidar el producto en caché tras reservar su stock")
+    void testCrear_InvalidaCacheProducto() {
+        // Arrange
+        Cache cache = mock(Cache.class);
+        when(cacheManager.getCache(CacheConfig.PRODUCTOS)).thenReturn(cache);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoRepository.reservarStock(eq(1L), eq(2), any(LocalDateTime.class))).thenReturn(1);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(pedidoRepository.save(any(Pedido.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        pedidoService.crear(1L, 1L, 2, null);
+
+        // Assert
+        verify(cache, times(1)).evict(1L);
+    }
+
+    @Test
+    @DisplayName("crear - Debe fallar sin tocar stock cuando el usuario no existe")
+    void testCrear_UsuarioNoExiste() {
+        // Arrange
+        when(usuarioRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> pedidoService.crear(999L, 1L, 2, null));
+        verify(productoRepository, never()).reservarStock(any(), any(), any());
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
+    @Test
+    @DisplayName("crear - Debe fallar con stock insuficiente")
+    void testCrear_StockInsuficiente() {
+        // Arrange
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoRepository.reservarStock(eq(1L), eq(100), any(LocalDateTime.class))).thenReturn(0);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> pedidoService.crear(1L, 1L, 100, null));
+        assertTrue(exception.getMessage().contains("Stock insuficiente"));
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
+    @Test
+    @DisplayName("crear - Debe fallar cuando el producto no existe")
+    void testCrear_ProductoNoExiste() {
+        // Arrange
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoRepository.reservarStock(eq(999L), eq(1), any(LocalDateTime.class))).thenReturn(0);
+        when(productoRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> pedidoService.crear(1L, 999L, 1, null));
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
+    // ==================== Tests para checkout ====================
+    @Test
+    @DisplayName("checkout - Debe reservar en orden ascendente de ID e insertar en lote")
+    @SuppressWarnings("unchecked")
+    void testCheckout_Success() {
+        // Arrange
+        Producto mouse = new Producto();
+        mouse.setId(5L);
+        mouse.setNombre("Mouse");
+        mouse.setPrecio(new BigDecimal("25.00"));
+        mouse.setStock(10);
+
+        Map<Long, Integer> carrito = new LinkedHashMap<>();
+        carrito.put(5L, 3);
+        carrito.put(1L, 1);
+
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoBatchRepository.reservarStock(any(), any(LocalDateTime.class))).thenReturn(new int[] {1, 1});
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto, mouse));
+
+        // Act
+        List<Pedido> resultado = pedidoService.checkout(1L, carrito, "Carrito");
+
+        // Assert
+        ArgumentCaptor<SortedMap<Long, Integer>> captor = ArgumentCaptor.forClass(SortedMap.class);
+        verify(productoBatchRepository, times(1)).reservarStock(captor.capture(), any(LocalDateTime.class));
+        assertEquals(List.of(1L, 5L), List.copyOf(captor.getValue().keySet()));
+
+        assertEquals(2, resultado.size());
+        assertEquals(1L, resultado.get(0).getProducto().getId());
+        assertEquals(new BigDecimal("799.99"), resultado.get(0).getTotal());
+        assertEquals(new BigDecimal("75.00"), resultado.get(1).getTotal());
+        verify(pedidoBatchRepository, times(1)).insertar(resultado);
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
+    @Test
+    @DisplayName("checkout - Debe rechazar el carrito completo si una línea no tiene stock")
+    void testCheckout_StockInsuficiente() {
+        // Arrange
+        Map<Long, Integer> carrito = Map.of(1L, 50);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoBatchRepository.reservarStock(any(), any(LocalDateTime.class))).thenReturn(new int[] {0});
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> pedidoService.checkout(1L, carrito, null));
+        assertTrue(exception.getMessage().contains("Stock insuficiente"));
+        verify(pedidoBatchRepository, never()).insertar(any());
+    }
+
+    @Test
+    @DisplayName("checkout - Debe fallar cuando un producto del carrito no existe")
+    void testCheckout_ProductoNoExiste() {
+        // Arrange
+        Map<Long, Integer> carrito = Map.of(999L, 1);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(productoBatchRepository.reservarStock(any(), any(LocalDateTime.class))).thenReturn(new int[] {0});
+        when(productoRepository.findAllById(any())).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> pedidoService.checkout(1L, carrito, null));
+        verify(pedidoBatchRepository, never()).insertar(any());
+    }
+
+    @Test
+    @DisplayName("checkout - Debe rechazar un carrito vacío")
+    void testCheckout_CarritoVacio() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> pedidoService.checkout(1L, Map.of(), null));
+        verifyNoInteractions(usuarioRepository, productoBatchRepository, pedidoBatchRepository);
+    }
+
+    // ==================== Tests para procesarLote ====================
+    @Test
+    @DisplayName("procesarLote - Debe descontar el stock agrupado con un solo UPDATE por producto")
+    void testProcesarLote_ReservaAgrupada() {
+        // Arrange
+        List<PedidoService.SolicitudPedido> lote = List.of(
+            new PedidoService.SolicitudPedido("t1", 1L, 1L, 2, null),
+            new PedidoService.SolicitudPedido("t2", 1L, 1L, 3, null));
+        when(usuarioRepository.findAllById(any())).thenReturn(List.of(usuario));
+        when(productoRepository.reservarStock(eq(1L), eq(5), any(LocalDateTime.class))).thenReturn(1);
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto));
+
+        // Act
+        PedidoService.ResultadoLote resultado = pedidoService.procesarLote(lote);
+
+        // Assert
+        assertEquals(2, resultado.creados().size());
+        assertTrue(resultado.rechazados().isEmpty());
+        verify(productoRepository, times(1)).reservarStock(any(), anyInt(), any(LocalDateTime.class));
+        verify(pedidoBatchRepository, times(1)).insertar(any());
+    }
+
+    @Test
+    @DisplayName("procesarLote - Debe atender una a una las solicitudes cuando el total agrupado no cabe")
+    void testProcesarLote_ReservaIndividual() {
+        // Arrange
+        List<PedidoService.SolicitudPedido> lote = List.of(
+            new PedidoService.SolicitudPedido("t1", 1L, 1L, 6, null),
+            new PedidoService.SolicitudPedido("t2", 1L, 1L, 5, null));
+        when(usuarioRepository.findAllById(any())).thenReturn(List.of(usuario));
+        when(productoRepository.reservarStock(eq(1L), eq(11), any(LocalDateTime.class))).thenReturn(0);
+        when(productoRepository.reservarStock(eq(1L), eq(6), any(LocalDateTime.class))).thenReturn(1);
+        when(productoRepository.reservarStock(eq(1L), eq(5), any(LocalDateTime.class))).thenReturn(0);
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto));
+
+        // Act
+        PedidoService.ResultadoLote resultado = pedidoService.procesarLote(lote);
+
+        // Assert
+        assertEquals(List.of("t1"), List.copyOf(resultado.creados().keySet()));
+        assertTrue(resultado.rechazados().get("t2").contains("Stock insuficiente"));
+    }
+
+    @Test
+    @DisplayName("procesarLote - Debe rechazar solicitudes de usuarios inexistentes sin tocar stock")
+    void testProcesarLote_UsuarioNoExiste() {
+        // Arrange
+        List<PedidoService.SolicitudPedido> lote = List.of(
+            new PedidoService.SolicitudPedido("t1", 999L, 1L, 1, null));
+        when(usuarioRepository.findAllById(any())).thenReturn(List.of());
+
+        // Act
+        PedidoService.ResultadoLote resultado = pedidoService.procesarLote(lote);
+
+        // Assert
+        assertTrue(resultado.creados().isEmpty());
+        assertTrue(resultado.rechazados().get("t1").contains("Usuario no encontrado"));
+        verify(productoRepository, never()).reservarStock(any(), any(), any());
+    }
+
+    // ==================== Tests para cancelar, cambiarEstado, eliminar y actualizar ====================
+    @Test
+    @DisplayName("cancelar - Debe bloquear el pedido, restaurar su stock y marcarlo cancelado")
+    void testCancelar_Success() {
+        // Arrange
+        Pedido pedido = pedidoPendiente(11L, producto, 2);
+        when(pedidoRepository.bloquear(11L)).thenReturn(Optional.of(pedido));
+        when(pedidoRepository.save(pedido)).thenReturn(pedido);
+
+        // Act
+        Pedido resultado = pedidoService.cancelar(11L);
+
+        // Assert
+        assertEquals(Pedido.EstadoPedido.CANCELADO, resultado.getEstado());
+        verify(pedidoRepository, never()).findById(any());
+        verify(productoService, times(1)).aumentarStock(1L, 2);
+        verify(eventPublisher, times(1)).publishEvent(any(PedidoEvento.class));
+    }
+
+    @Test
+    @DisplayName("cancelar - Un pedido ya cancelado no debe restaurar el stock otra vez")
+    void testCancelar_YaCancelado() {
+        // Arrange: el vencimiento de la reserva lo canceló antes de obtener el bloqueo
+        Pedido pedido = pedidoPendiente(11L, producto, 2);
+        pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
+        when(pedidoRepository.bloquear(11L)).thenReturn(Optional.of(pedido));
+
+        // Act & Assert
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> pedidoService.cancelar(11L));
+        assertEquals("El pedido no puede ser cancelado. Estado actual: CANCELADO", ex.getMessage());
+        verifyNoInteractions(productoService, eventPublisher);
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
+    @Test
+    @DisplayName("cancelar - Debe fallar si el pedido no existe")
+    void testCancelar_NoExiste() {
+        // Arrange
+        when(pedidoRepository.bloquear(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> pedidoService.cancelar(99L));
+    }
+
+    @Test
+    @DisplayName("cambiarEstado - Un pedido cancelado no debe volver a otro estado")
+    void testCambiarEstado_DesdeCancelado() {
+        // Arrange
+        Pedido pedido = pedidoPendiente(11L, producto, 2);
+        pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
+        when(pedidoRepository.bloquear(11L)).thenReturn(Optional.of(pedido));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> pedidoService.cambiarEstado(11L, Pedido.EstadoPedido.CONFIRMADO));
+        assertEquals(Pedido.EstadoPedido.CANCELADO, pedido.getEstado());
+        verify(pedidoRepository, never()).save(any(Pedido.class));
+    }
+
+    @Test
+    @DisplayName("cambiarEstado - Pasar a CANCELADO debe restaurar el stock")
+    void testCambiarEstado_ACanceladoRestauraStock() {
+        // Arrange
+        Pedido pedido = pedidoPendiente(11L, producto, 3);
+        pedido.setEstado(Pedido.EstadoPedido.CONFIRMADO);
+        when(pedidoRepository.bloquear(11L)).thenReturn(Optional.of(pedido));
+        when(pedidoRepository.save(pedido)).thenReturn(pedido);
+
+        // Act
+        Pedido resultado = pedidoService.cambiarEstado(11L, Pedido.EstadoPedido.CANCELADO);
+
+        // Assert
+        assertEquals(Pedido.EstadoPedido.CANCELADO, resultado.getEstado());
+        verify(productoService, times(1)).aumentarStock(1L, 3);
+    }
+
+    @Test
+    @DisplayName("eliminar - Debe restaurar el stock y borrar el pedido bloqueado")
+    void testEliminar_Success() {
+        // Arrange
+        Pedido pedido = pedidoPendiente(11L, producto, 2);
+        when(pedidoRepository.bloquear(11L)).thenReturn(Optional.of(pedido));
+
+        // Act
+        pedidoService.eliminar(11L);
+
+        // Assert
+        verify(productoService, times(1)).aumentarStock(1L, 2);
+        verify(pedidoRepository, times(1)).delete(pedido);
+    }
+
+    @Test
+    @DisplayName("actualizar - Debe fallar sin tocar el stock si el pedido no está pendiente")
+    void testActualizar_NoPendiente() {
+        // Arrange
+        Pedido pedido = pedidoPendiente(11L, producto, 2);
+        pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
+        when(pedidoRepository.bloquear(11L)).thenReturn(Optional.of(pedido));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> pedidoService.actualizar(11L, 1L, 3, null));
+        verifyNoInteractions(productoService);
+    }
+
+    // ==================== Tests para cancelarEnBloque ====================
+    @Test
+    @DisplayName("cancelarEnBloque - Debe cancelar con un UPDATE y restaurar el stock una vez por producto")
+    void testCancelarEnBloque_AgrupaStockPorProducto() {
+        // Arrange
+        Producto otro = new Producto();
+        otro.setId(2L);
+        otro.setPrecio(new BigDecimal("10.00"));
+        List<Pedido> pedidos = List.of(
+            pedidoPendiente(11L, producto, 2), pedidoPendiente(12L, otro, 4), pedidoPendiente(13L, producto, 3));
+        Set<Pedido.EstadoPedido> estados = Set.of(Pedido.EstadoPedido.PENDIENTE);
+        when(pedidoRepository.bloquearCancelables(List.of(11L, 12L, 13L, 14L), estados)).thenReturn(pedidos);
+
+        // Act
+        int cancelados = pedidoService.cancelarEnBloque(List.of(11L, 12L, 13L, 14L), estados);
+
+        // Assert: el pedido 14 ya no estaba pendiente
+        assertEquals(3, cancelados);
+        verify(pedidoRepository, times(1)).cambiarEstado(eq(Set.of(11L, 12L, 13L)),
+                eq(Pedido.EstadoPedido.CANCELADO), any(LocalDateTime.class));
+        verify(productoService, times(1)).aumentarStock(1L, 5);
+        verify(productoService, times(1)).aumentarStock(2L, 4);
+        verifyNoMoreInteractions(productoService);
+        ArgumentCaptor<PedidoEvento> eventos = ArgumentCaptor.forClass(PedidoEvento.class);
+        verify(eventPublisher, times(3)).publishEvent(eventos.capture());
+        assertTrue(eventos.getAllValues().stream()
+                .allMatch(e -> e.anterior().estado() == Pedido.EstadoPedido.PENDIENTE
+                        && e.actual().estado() == Pedido.EstadoPedido.CANCELADO));
+    }
+
+    @Test
+    @DisplayName("cancelarEnBloque - No debe actualizar nada si ningún pedido sigue cancelable")
+    void testCancelarEnBloque_SinCancelables() {
+        // Arrange
+        when(pedidoRepository.bloquearCancelables(any(), any())).thenReturn(List.of());
+
+        // Act
+        int cancelados = pedidoService.cancelarEnBloque(List.of(11L), Set.of(Pedido.EstadoPedido.PENDIENTE));
+
+        // Assert
+        assertEquals(0, cancelados);
+        verify(pedidoRepository, never()).cambiarEstado(any(), any(), any());
+        verifyNoInteractions(productoService, eventPublisher);
+    }
+
+    private Pedido pedidoPendiente(Long id, Producto productoPedido, int cantidad) {
+        Pedido pedido = new Pedido(usuario, productoPedido, cantidad, null);
+        pedido.setId(id);
+        return pedido;
+    }
+}
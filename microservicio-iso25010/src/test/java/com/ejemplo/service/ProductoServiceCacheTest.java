@@ -0,0 +1,176 @@
+package com.ejemplo.service;
+
+import com.ejemplo.config.CacheConfig;
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas de integración de la caché de productos por ID
+ * Habilita Caffeine (el perfil de test la deshabilita) y verifica la lectura a través,
+ * la invalidación en escrituras (diferida al commit de una transacción abierta) y las
+ * métricas publicadas para Actuator
+ */
+@SpringBootTest(properties = "spring.cache.type=caffeine")
+@ActiveProfiles("test")
+@DisplayName("ProductoService - Caché de productos")
+class ProductoServiceCacheTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private ProductoRepository productoRepository;
+
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.PRODUCTOS).clear();
+
+        producto = new Producto();
+        producto.setId(1L);
+        producto.setNombre("Laptop HP");
+        producto.setPrecio(new BigDecimal("799.99"));
+        producto.setStock(10);
+        producto.setActivo(true);
+    }
+
+    @Test
+    @DisplayName("obtenerPorId - La segunda lectura debe servirse desde la caché")
+    void testObtenerPorId_LecturaATraves() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        double aciertosAntes = contador("hit");
+        double fallosAntes = contador("miss");
+
+        // Act
+        Producto primero = productoService.obtenerPorId(1L);
+        Producto segundo = productoService.obtenerPorId(1L);
+
+        // Assert
+        assertEquals("Laptop HP", primero.getNombre());
+        assertSame(primero, segundo);
+        verify(productoRepository, times(1)).findById(1L);
+        assertEquals(1.0, contador("hit") - aciertosAntes);
+        assertEquals(1.0, contador("miss") - fallosAntes);
+    }
+
+    @Test
+    @DisplayName("obtenerPorId - No debe guardar en caché un producto inexistente")
+    void testObtenerPorId_NoCacheaInexistente() {
+        // Arrange
+        when(productoRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> productoService.obtenerPorId(999L));
+        assertThrows(EntityNotFoundException.class, () -> productoService.obtenerPorId(999L));
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCTOS).get(999L));
+        verify(productoRepository, times(2)).findById(999L);
+    }
+
+    @Test
+    @DisplayName("actualizarStock - Debe invalidar la entrada del producto")
+    void testActualizarStock_InvalidaCache() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.save(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        productoService.obtenerPorId(1L);
+
+        // Act
+        productoService.actualizarStock(1L, 25);
+
+        // Assert
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCTOS).get(1L));
+        assertEquals(25, productoService.obtenerPorId(1L).getStock());
+    }
+
+    @Test
+    @DisplayName("reducirStock - Debe invalidar la entrada tras el descuento")
+    void testReducirStock_InvalidaCache() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.reservarStock(eq(1L), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+        productoService.obtenerPorId(1L);
+
+        // Act
+        productoService.reducirStock(1L, 3);
+
+        // Assert
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCTOS).get(1L));
+    }
+
+    @Test
+    @DisplayName("aumentarStock - Dentro de otra transacción debe invalidar recién al commit")
+    void testAumentarStock_InvalidaAlCommit() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.liberarStock(eq(1L), eq(2), any(LocalDateTime.class))).thenReturn(1);
+        productoService.obtenerPorId(1L);
+
+        // Act: como PedidoService al cancelar, la devolución ocurre en una transacción ya abierta
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            productoService.aumentarStock(1L, 2);
+
+            // Assert: hasta el commit la entrada sigue vigente
+            assertNotNull(cacheManager.getCache(CacheConfig.PRODUCTOS).get(1L));
+        });
+
+        // Assert
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCTOS).get(1L));
+    }
+
+    @Test
+    @DisplayName("desactivar - Debe invalidar la entrada del producto")
+    void testDesactivar_InvalidaCache() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.save(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        productoService.obtenerPorId(1L);
+
+        // Act
+        productoService.desactivar(1L);
+
+        // Assert
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCTOS).get(1L));
+        assertFalse(productoService.obtenerPorId(1L).getActivo());
+    }
+
+    private double contador(String resultado) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", CacheConfig.PRODUCTOS)
+                .tag("result", resultado)
+                .functionCounter()
+                .count();
+    }
+}
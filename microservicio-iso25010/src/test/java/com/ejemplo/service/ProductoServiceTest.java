@@ -1,25 +1,47 @@
 package com.ejemplo.service;
 
+import com.ejemplo.dto.AjusteStockRequest;
+import com.ejemplo.dto.ProductoResumenDTO;
 import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoBatchRepository;
 import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.ProductoService.AjusteRechazado;
+import com.ejemplo.service.ProductoService.FiltroCatalogo;
+import com.ejemplo.service.ProductoService.ResultadoAjusteStock;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -34,6 +56,34 @@ class ProductoServiceTest {
     @Mock
     private ProductoRepository productoRepository;
 
+    @Mock
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    @Mock
+    private BusquedaDifusaProductos busquedaDifusa;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductoBatchRepository productoBatchRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private LecturasCompartidas lecturasCompartidas = new LecturasCompartidas(meterRegistry);
+
+    @Spy
+    private RespaldoProductos respaldoProductos =
+            new RespaldoProductos(null, CircuitBreakerRegistry.ofDefaults(), 100, 10);
+
+    // Sin productos fraccionados: todas las reservas van al UPDATE condicional de productos
+    @Spy
+    private InventarioFraccionado inventarioFraccionado = new InventarioFraccionado(null, null, null, null);
+
     @InjectMocks
     private ProductoService productoService;
 
@@ -127,6 +177,7 @@ class ProductoServiceTest {
         assertEquals("Laptop HP", resultado.getNombre());
         assertTrue(resultado.getActivo());
         verify(productoRepository, times(1)).save(any(Producto.class));
+        verify(eventPublisher, times(1)).publishEvent(any(ProductoEvento.class));
     }
 
     @Test
@@ -231,6 +282,39 @@ class ProductoServiceTest {
         verify(productoRepository, times(1)).findByNombreContainingIgnoreCase("Laptop");
     }
 
+    @Test
+    @DisplayName("obtenerPorId - Solicitudes concurrentes por el mismo ID deben compartir una consulta")
+    void testObtenerPorId_ConcurrentesCompartenConsulta() throws Exception {
+        // Arrange
+        CountDownLatch consultaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarConsulta = new CountDownLatch(1);
+        when(productoRepository.findById(1L)).thenAnswer(invocation -> {
+            consultaIniciada.countDown();
+            liberarConsulta.await(5, TimeUnit.SECONDS);
+            return Optional.of(productoMock);
+        });
+        ExecutorService ejecutor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<Producto> primera = ejecutor.submit(() -> productoService.obtenerPorId(1L));
+            assertTrue(consultaIniciada.await(5, TimeUnit.SECONDS));
+            Future<Producto> segunda = ejecutor.submit(() -> productoService.obtenerPorId(1L));
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.find("lecturas.compartidas").tag("resultado", "colapsada").counter() == null
+                    && System.nanoTime() < limite) {
+                Thread.sleep(5);
+            }
+            liberarConsulta.countDown();
+
+            // Assert
+            assertSame(primera.get(5, TimeUnit.SECONDS), segunda.get(5, TimeUnit.SECONDS));
+            verify(productoRepository, times(1)).findById(1L);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
     // ==================== Tests para buscarPorCategoria ====================
     @Test
     @DisplayName("buscarPorCategoria - Debe retornar productos de la categoría")
@@ -316,6 +400,43 @@ class ProductoServiceTest {
         verify(productoRepository, times(1)).findProductosSinStock();
     }
 
+    // ==================== Tests para obtenerPagina ====================
+    @Test
+    @DisplayName("obtenerPagina - Debe iniciar la primera página desde el ID 0")
+    void testObtenerPagina_PrimeraPagina() {
+        // Arrange
+        ProductoResumenDTO resumen = new ProductoResumenDTO(1L, "Laptop HP", new BigDecimal("799.99"), 10, "Electrónicos", "HP", true);
+        when(productoRepository.findPaginaResumen(0L, Limit.of(21))).thenReturn(List.of(resumen));
+
+        // Act
+        List<ProductoResumenDTO> resultado = productoService.obtenerPagina(FiltroCatalogo.TODOS, null, 21);
+
+        // Assert
+        assertEquals(1, resultado.size());
+        verify(productoRepository, times(1)).findPaginaResumen(0L, Limit.of(21));
+        verify(productoRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("obtenerPagina - Debe usar la consulta del filtro a partir del cursor")
+    void testObtenerPagina_PorFiltro() {
+        // Arrange
+        when(productoRepository.findPaginaResumenActivos(5L, Limit.of(3))).thenReturn(Collections.emptyList());
+        when(productoRepository.findPaginaResumenConStock(5L, Limit.of(3))).thenReturn(Collections.emptyList());
+        when(productoRepository.findPaginaResumenSinStock(5L, Limit.of(3))).thenReturn(Collections.emptyList());
+
+        // Act
+        productoService.obtenerPagina(FiltroCatalogo.ACTIVOS, 5L, 3);
+        productoService.obtenerPagina(FiltroCatalogo.CON_STOCK, 5L, 3);
+        productoService.obtenerPagina(FiltroCatalogo.SIN_STOCK, 5L, 3);
+
+        // Assert
+        verify(productoRepository, times(1)).findPaginaResumenActivos(5L, Limit.of(3));
+        verify(productoRepository, times(1)).findPaginaResumenConStock(5L, Limit.of(3));
+        verify(productoRepository, times(1)).findPaginaResumenSinStock(5L, Limit.of(3));
+        verify(productoRepository, never()).findPaginaResumen(anyLong(), any());
+    }
+
     // ==================== Tests para buscarPorRangoPrecios ====================
     @Test
     @DisplayName("buscarPorRangoPrecios - Debe retornar productos en rango de precios")
@@ -366,6 +487,138 @@ class ProductoServiceTest {
         verify(productoRepository, never()).save(any(Producto.class));
     }
 
+    // ==================== Tests para reducirStock/aumentarStock ====================
+    @Test
+    @DisplayName("reducirStock - Debe descontar stock con UPDATE condicional")
+    void testReducirStock_Success() {
+        // Arrange
+        when(productoRepository.reservarStock(eq(1L), eq(3), any(LocalDateTime.class))).thenReturn(1);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(productoMock));
+
+        // Act
+        Producto resultado = productoService.reducirStock(1L, 3);
+
+        // Assert
+        assertNotNull(resultado);
+        verify(productoRepository, times(1)).reservarStock(eq(1L), eq(3), any(LocalDateTime.class));
+        verify(productoRepository, never()).save(any(Producto.class));
+        verify(eventPublisher).publishEvent(any(StockEvento.class));
+    }
+
+    @Test
+    @DisplayName("reducirStock - Debe lanzar excepción cuando el UPDATE no afecta filas")
+    void testReducirStock_StockInsuficiente() {
+        // Arrange
+        when(productoRepository.reservarStock(eq(1L), eq(50), any(LocalDateTime.class))).thenReturn(0);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(productoMock));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> productoService.reducirStock(1L, 50));
+        assertTrue(exception.getMessage().contains("Stock insuficiente"));
+        verify(productoRepository, never()).save(any(Producto.class));
+        verify(eventPublisher, never()).publishEvent(any(StockEvento.class));
+    }
+
+    @Test
+    @DisplayName("reducirStock - Debe rechazar cantidades no positivas sin tocar la BD")
+    void testReducirStock_CantidadInvalida() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> productoService.reducirStock(1L, 0));
+        verify(productoRepository, never()).reservarStock(anyLong(), anyInt(), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("aumentarStock - Debe incrementar stock con una única sentencia")
+    void testAumentarStock_Success() {
+        // Arrange
+        when(productoRepository.liberarStock(eq(1L), eq(5), any(LocalDateTime.class))).thenReturn(1);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(productoMock));
+
+        // Act
+        Producto resultado = productoService.aumentarStock(1L, 5);
+
+        // Assert
+        assertNotNull(resultado);
+        verify(productoRepository, times(1)).liberarStock(eq(1L), eq(5), any(LocalDateTime.class));
+        verify(productoRepository, never()).save(any(Producto.class));
+    }
+
+    @Test
+    @DisplayName("aumentarStock - Debe lanzar excepción cuando producto no existe")
+    void testAumentarStock_NotFound() {
+        // Arrange
+        when(productoRepository.liberarStock(eq(999L), eq(5), any(LocalDateTime.class))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> productoService.aumentarStock(999L, 5));
+    }
+
+    // ==================== Tests para ajustarStock ====================
+    @Test
+    @DisplayName("ajustarStock - Debe aplicar el lote ordenado por ID y reportar los rechazados")
+    @SuppressWarnings("unchecked")
+    void testAjustarStock_Rechazados() {
+        // Arrange
+        Producto conPocoStock = new Producto("Mouse", new BigDecimal("25.00"), 2);
+        conPocoStock.setId(3L);
+        when(productoBatchRepository.ajustarStock(anyList(), any(LocalDateTime.class)))
+                .thenReturn(new int[] {1, 1, 0, 0});
+        when(productoRepository.findAllById(List.of(3L, 9L))).thenReturn(List.of(conPocoStock));
+
+        // Act
+        ResultadoAjusteStock resultado = productoService.ajustarStock(List.of(
+                AjusteStockRequest.delta(3L, -5),
+                AjusteStockRequest.absoluto(1L, 10),
+                AjusteStockRequest.delta(9L, 1),
+                AjusteStockRequest.delta(2L, 4)));
+
+        // Assert
+        assertEquals(2, resultado.aplicados());
+        assertEquals(List.of(
+                new AjusteRechazado(3L, "Stock insuficiente. Stock actual: 2"),
+                new AjusteRechazado(9L, "Producto no encontrado con ID: 9")), resultado.rechazados());
+        ArgumentCaptor<List<AjusteStockRequest>> lote = ArgumentCaptor.forClass(List.class);
+        verify(productoBatchRepository).ajustarStock(lote.capture(), any(LocalDateTime.class));
+        assertEquals(List.of(1L, 2L, 3L, 9L), lote.getValue().stream().map(AjusteStockRequest::getId).toList());
+        verify(productoRepository, never()).save(any(Producto.class));
+    }
+
+    @Test
+    @DisplayName("ajustarStock - Sin rechazados no debe cargar los productos y debe publicar el stock resultante")
+    void testAjustarStock_TodosAplicados() {
+        // Arrange
+        when(productoBatchRepository.ajustarStock(anyList(), any(LocalDateTime.class))).thenReturn(new int[] {1, 1});
+        when(productoRepository.findStockPorIds(Set.of(1L))).thenReturn(List.<Object[]>of(new Object[] {1L, 13}));
+
+        // Act
+        ResultadoAjusteStock resultado = productoService.ajustarStock(List.of(
+                AjusteStockRequest.delta(1L, 5), AjusteStockRequest.delta(1L, -2)));
+
+        // Assert
+        assertEquals(2, resultado.aplicados());
+        assertTrue(resultado.rechazados().isEmpty());
+        verify(productoRepository, never()).findAllById(anyList());
+        ArgumentCaptor<StockEvento> evento = ArgumentCaptor.forClass(StockEvento.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertEquals(1L, evento.getValue().productoId());
+        assertEquals(13, evento.getValue().stock());
+    }
+
+    @Test
+    @DisplayName("ajustarStock - Debe rechazar lotes vacíos o ajustes mal formados sin tocar la BD")
+    void testAjustarStock_LoteInvalido() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> productoService.ajustarStock(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> productoService.ajustarStock(List.of(new AjusteStockRequest(1L, 5, 10))));
+        assertThrows(IllegalArgumentException.class,
+                () -> productoService.ajustarStock(List.of(new AjusteStockRequest(1L, null, null))));
+        assertThrows(IllegalArgumentException.class,
+                () -> productoService.ajustarStock(List.of(new AjusteStockRequest(null, 5, null))));
+        verifyNoInteractions(productoBatchRepository);
+    }
+
     // ==================== Tests para activar/desactivar ====================
     @Test
     @DisplayName("activar - Debe activar producto exitosamente")
@@ -448,4 +701,68 @@ class ProductoServiceTest {
         assertEquals(1, resultado.size());
         verify(productoRepository, times(1)).buscarPorTexto("Laptop");
     }
+
+    @Test
+    @DisplayName("buscarPorTexto - Debe usar el índice y respetar el orden de relevancia")
+    void testBuscarPorTexto_ConIndice() {
+        // Arrange
+        Producto otro = new Producto("Mouse HP", new BigDecimal("10.00"), 5);
+        otro.setId(2L);
+        when(indiceBusqueda.estaListo()).thenReturn(true);
+        when(indiceBusqueda.buscar("hp")).thenReturn(List.of(2L, 1L));
+        when(productoRepository.findAllById(List.of(2L, 1L))).thenReturn(Arrays.asList(productoMock, otro));
+
+        // Act
+        List<Producto> resultado = productoService.buscarPorTexto("hp");
+
+        // Assert
+        assertEquals(List.of(2L, 1L), resultado.stream().map(Producto::getId).toList());
+        verify(productoRepository, never()).buscarPorTexto(anyString());
+    }
+
+    @Test
+    @DisplayName("buscarPorTexto - No debe consultar la base de datos si el índice no encuentra nada")
+    void testBuscarPorTexto_ConIndiceSinResultados() {
+        // Arrange
+        when(indiceBusqueda.estaListo()).thenReturn(true);
+        when(indiceBusqueda.buscar("zzz")).thenReturn(List.of());
+
+        // Act
+        List<Producto> resultado = productoService.buscarPorTexto("zzz");
+
+        // Assert
+        assertTrue(resultado.isEmpty());
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    @DisplayName("buscarPorTextoDifuso - Debe usar el vocabulario con el umbral recibido")
+    void testBuscarPorTextoDifuso() {
+        // Arrange
+        when(busquedaDifusa.estaListo()).thenReturn(true);
+        when(busquedaDifusa.buscar("lptop", 0.8)).thenReturn(List.of(1L));
+        when(productoRepository.findAllById(List.of(1L))).thenReturn(List.of(productoMock));
+
+        // Act
+        List<Producto> resultado = productoService.buscarPorTextoDifuso("lptop", 0.8);
+
+        // Assert
+        assertEquals(1, resultado.size());
+        verify(busquedaDifusa, never()).buscar("lptop");
+        verify(productoRepository, never()).buscarPorTexto(anyString());
+    }
+
+    @Test
+    @DisplayName("buscarPorTextoDifuso - Debe usar la búsqueda exacta si el vocabulario no está listo")
+    void testBuscarPorTextoDifuso_SinVocabulario() {
+        // Arrange
+        when(productoRepository.buscarPorTexto("laptop")).thenReturn(List.of(productoMock));
+
+        // Act
+        List<Producto> resultado = productoService.buscarPorTextoDifuso("laptop", null);
+
+        // Assert
+        assertEquals(1, resultado.size());
+        verify(busquedaDifusa, never()).buscar(anyString());
+    }
 }
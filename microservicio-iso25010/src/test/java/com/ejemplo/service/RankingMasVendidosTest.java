@@ -0,0 +1,177 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.repository.PedidoRepository;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.RankingMasVendidos.MasVendido;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para RankingMasVendidos
+ * Valida el orden del ranking, el mantenimiento de los contadores con eventos de pedidos
+ * y productos, y la reconciliación contra la base de datos
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RankingMasVendidos - Pruebas Unitarias")
+class RankingMasVendidosTest {
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private RankingMasVendidos ranking;
+
+    private static PedidoEvento.Instantanea pedido(Long productoId, int cantidad, EstadoPedido estado) {
+        return new PedidoEvento.Instantanea(productoId, cantidad, estado, BigDecimal.TEN);
+    }
+
+    private static PedidoEvento evento(PedidoEvento.Instantanea anterior, PedidoEvento.Instantanea actual) {
+        return new PedidoEvento(100L, anterior, actual, LocalDateTime.now());
+    }
+
+    private List<Long> ids(int limite) {
+        return ranking.obtener(limite).stream().map(MasVendido::id).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(productoRepository.findDatosRanking()).thenReturn(List.of(
+            new Object[] {1L, "Laptop HP", "Electrónicos", "HP", true},
+            new Object[] {2L, "Mouse", "Accesorios", "Logitech", true},
+            new Object[] {3L, "Teclado", "Accesorios", "Logitech", true},
+            new Object[] {4L, "Monitor", "Electrónicos", "Dell", false}));
+        List<Object[]> ventas = new ArrayList<>();
+        ventas.add(new Object[] {1L, 5L, 2L});
+        ventas.add(new Object[] {2L, 20L, 4L});
+        ventas.add(new Object[] {3L, 5L, 5L});
+        ventas.add(new Object[] {4L, 50L, 1L});
+        when(pedidoRepository.resumirVentasPorProducto(EstadoPedido.CANCELADO)).thenReturn(ventas);
+        ranking.reconstruir();
+    }
+
+    // ==================== Tests para obtener ====================
+    @Test
+    @DisplayName("obtener - Debe ordenar por unidades, desempatar por ID y omitir inactivos")
+    void testObtener_Orden() {
+        // Act
+        List<MasVendido> resultado = ranking.obtener(10);
+
+        // Assert
+        assertEquals(List.of(2L, 1L, 3L), resultado.stream().map(MasVendido::id).toList());
+        assertEquals(new MasVendido(2L, "Mouse", "Accesorios", "Logitech", 20L, 4L), resultado.get(0));
+    }
+
+    @Test
+    @DisplayName("obtener - Debe respetar el límite")
+    void testObtener_Limite() {
+        // Act & Assert
+        assertEquals(List.of(2L), ids(1));
+    }
+
+    @Test
+    @DisplayName("obtener - Debe rechazar un límite fuera de rango")
+    void testObtener_LimiteInvalido() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> ranking.obtener(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> ranking.obtener(RankingMasVendidos.LIMITE_MAXIMO + 1));
+    }
+
+    // ==================== Tests para alCambiarPedido ====================
+    @Test
+    @DisplayName("alCambiarPedido - Un pedido nuevo debe sumar unidades y subir en el ranking")
+    void testAlCambiarPedido_Creado() {
+        // Act
+        ranking.alCambiarPedido(evento(null, pedido(3L, 30, EstadoPedido.PENDIENTE)));
+
+        // Assert
+        MasVendido primero = ranking.obtener(1).get(0);
+        assertEquals(3L, primero.id());
+        assertEquals(35L, primero.unidades());
+        assertEquals(6L, primero.pedidos());
+    }
+
+    @Test
+    @DisplayName("alCambiarPedido - Cancelar un pedido debe descontar sus unidades")
+    void testAlCambiarPedido_Cancelado() {
+        // Act
+        ranking.alCambiarPedido(evento(pedido(1L, 5, EstadoPedido.CONFIRMADO), pedido(1L, 5, EstadoPedido.CANCELADO)));
+
+        // Assert: el producto 1 queda sin unidades y sale del ranking
+        assertEquals(List.of(2L, 3L), ids(10));
+    }
+
+    @Test
+    @DisplayName("alCambiarPedido - Cambiar la cantidad debe ajustar solo la diferencia")
+    void testAlCambiarPedido_CambioDeCantidad() {
+        // Act
+        ranking.alCambiarPedido(evento(pedido(2L, 4, EstadoPedido.PENDIENTE), pedido(2L, 1, EstadoPedido.PENDIENTE)));
+
+        // Assert
+        MasVendido mouse = ranking.obtener(1).get(0);
+        assertEquals(17L, mouse.unidades());
+        assertEquals(4L, mouse.pedidos());
+    }
+
+    // ==================== Tests para alCambiarProducto ====================
+    @Test
+    @DisplayName("alCambiarProducto - Debe reflejar cambios de nombre, desactivación y productos nuevos")
+    void testAlCambiarProducto() {
+        // Act
+        ranking.alCambiarProducto(new ProductoEvento(2L,
+                new ProductoEvento.Instantanea("Mouse inalámbrico", null, "Accesorios", "Logitech", true),
+                LocalDateTime.now()));
+        ranking.alCambiarProducto(new ProductoEvento(1L,
+                new ProductoEvento.Instantanea("Laptop HP", null, "Electrónicos", "HP", false),
+                LocalDateTime.now()));
+        ranking.alCambiarProducto(new ProductoEvento(5L,
+                new ProductoEvento.Instantanea("Webcam", null, "Accesorios", "Logitech", true),
+                LocalDateTime.now()));
+        ranking.alCambiarPedido(evento(null, pedido(5L, 8, EstadoPedido.PENDIENTE)));
+
+        // Assert
+        List<MasVendido> resultado = ranking.obtener(10);
+        assertEquals("Mouse inalámbrico", resultado.get(0).nombre());
+        assertEquals(List.of(2L, 5L, 3L), resultado.stream().map(MasVendido::id).toList());
+    }
+
+    // ==================== Tests para reconciliar ====================
+    @Test
+    @DisplayName("reconciliar - Debe corregir contadores desviados y quitar productos sin ventas")
+    void testReconciliar_CorrigeDesviacion() {
+        // Arrange: desviaciones acumuladas por eventos perdidos
+        ranking.sumar(3L, 100, 1);
+        ranking.sumar(1L, -5, -2);
+        List<Object[]> ventas = new ArrayList<>();
+        ventas.add(new Object[] {1L, 5L, 2L});
+        ventas.add(new Object[] {3L, 5L, 5L});
+        when(pedidoRepository.resumirVentasPorProducto(EstadoPedido.CANCELADO)).thenReturn(ventas);
+
+        // Act
+        ranking.reconciliar();
+
+        // Assert
+        assertEquals(List.of(1L, 3L), ids(10));
+        verify(productoRepository, times(1)).findDatosRanking();
+    }
+}
@@ -0,0 +1,115 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de estrés para ProductoService.reducirStock
+ * Lanza pedidos concurrentes contra la base H2 real y valida que el
+ * UPDATE condicional nunca sobrevenda ni pierda actualizaciones
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("ProductoService - Prueba de Concurrencia de Stock")
+class ReducirStockConcurrenciaTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReducirStockConcurrenciaTest.class);
+
+    private static final int STOCK_INICIAL = 200;
+    private static final int HILOS = 16;
+    private static final int INTENTOS_POR_HILO = 50;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        producto = new Producto("Producto concurrente", new BigDecimal("10.00"), STOCK_INICIAL);
+        producto.setCategoria("Pruebas");
+        producto = productoRepository.save(producto);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteById(producto.getId());
+    }
+
+    @Test
+    @DisplayName("reducirStock concurrente - No debe sobrevender bajo contención")
+    void testReducirStock_SinSobreventa() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+        Long productoId = producto.getId();
+
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+                    try {
+                        productoService.reducirStock(productoId, 1);
+                        exitosos.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        rechazados.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        errores.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Act
+        long inicioNanos = System.nanoTime();
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        long duracionNanos = System.nanoTime() - inicioNanos;
+        executor.shutdown();
+
+        // Assert
+        int stockFinal = productoRepository.findById(productoId).orElseThrow().getStock();
+        double pedidosPorSegundo = (HILOS * INTENTOS_POR_HILO) / (duracionNanos / 1_000_000_000.0);
+        logger.info("Concurrencia reducirStock: exitosos={}, rechazados={}, errores={}, stockFinal={}, pedidos/seg={}",
+                exitosos.get(), rechazados.get(), errores.get(), stockFinal, String.format("%.1f", pedidosPorSegundo));
+
+        assertTrue(stockFinal >= 0, "El stock nunca debe quedar negativo");
+        assertEquals(STOCK_INICIAL, exitosos.get() + stockFinal,
+                "Cada unidad descontada debe corresponder a una reserva exitosa");
+        assertEquals(HILOS * INTENTOS_POR_HILO, exitosos.get() + rechazados.get() + errores.get());
+    }
+}
@@ -0,0 +1,210 @@
+package com.ejemplo.service;
+
+import com.ejemplo.config.RespaldoObsoletoAdvice;
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para RespaldoProductos
+ * Valida el respaldo de productos y consultas, la marca de respuesta obsoleta,
+ * el refresco a través del Circuit Breaker y el header X-Stale-Since
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RespaldoProductos - Pruebas Unitarias")
+class RespaldoProductosTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    private CircuitBreaker circuitBreaker;
+    private RespaldoProductos respaldo;
+    private MockHttpServletRequest request;
+
+    private static Producto producto(Long id, String nombre) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setPrecio(new BigDecimal("100.00"));
+        producto.setStock(5);
+        return producto;
+    }
+
+    @BeforeEach
+    void setUp() {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        circuitBreaker = registry.circuitBreaker(ProductoService.PRODUCTO_SERVICE_CB);
+        respaldo = new RespaldoProductos(productoRepository, registry, 100, 10);
+        request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        respaldo.detener();
+    }
+
+    // ==================== Tests para producto ====================
+    @Test
+    @DisplayName("producto - Debe retornar la última lectura y marcar la solicitud como obsoleta")
+    void testProducto_RespaldadoMarcaObsoleta() {
+        // Arrange
+        Instant antes = Instant.now();
+        respaldo.guardarProducto(producto(1L, "Laptop"));
+
+        // Act
+        Producto respaldado = respaldo.producto(1L).orElseThrow();
+
+        // Assert
+        assertEquals("Laptop", respaldado.getNombre());
+        Instant capturado = (Instant) request.getAttribute(RespaldoProductos.ATRIBUTO_OBSOLETO);
+        assertNotNull(capturado);
+        assertFalse(capturado.isBefore(antes));
+    }
+
+    @Test
+    @DisplayName("producto - Sin respaldo no debe marcar la solicitud")
+    void testProducto_SinRespaldo() {
+        // Act & Assert
+        assertTrue(respaldo.producto(7L).isEmpty());
+        assertNull(request.getAttribute(RespaldoProductos.ATRIBUTO_OBSOLETO));
+    }
+
+    @Test
+    @DisplayName("alCambiarProducto - Un producto eliminado no debe servirse desde el respaldo")
+    void testAlCambiarProducto_Eliminado() {
+        // Arrange
+        respaldo.guardarProducto(producto(1L, "Laptop"));
+
+        // Act
+        respaldo.alCambiarProducto(ProductoEvento.eliminado(1L));
+
+        // Assert
+        assertTrue(respaldo.producto(1L).isEmpty());
+    }
+
+    // ==================== Tests para consulta ====================
+    @Test
+    @DisplayName("consulta - Debe retornar el último resultado de la misma clave")
+    void testConsulta_PorClave() {
+        // Arrange
+        List<Producto> productos = List.of(producto(1L, "Laptop"));
+        respaldo.guardarConsulta("obtenerTodos", productos, () -> productos);
+
+        // Act & Assert
+        assertEquals(productos, respaldo.<Producto>consulta("obtenerTodos").orElseThrow());
+        assertTrue(respaldo.consulta("obtenerPagina:TODOS:null:20").isEmpty());
+    }
+
+    // ==================== Tests para refrescar ====================
+    @Test
+    @DisplayName("refrescar - Debe recargar productos por lote, descartar inexistentes y repetir consultas")
+    void testRefrescar_RecargaTodo() {
+        // Arrange
+        respaldo.guardarProducto(producto(1L, "Laptop"));
+        respaldo.guardarProducto(producto(2L, "Mouse"));
+        AtomicInteger recargas = new AtomicInteger();
+        respaldo.guardarConsulta("obtenerTodos", List.of(), () -> List.of(recargas.incrementAndGet()));
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto(1L, "Laptop Pro")));
+
+        // Act
+        respaldo.refrescar();
+
+        // Assert
+        assertEquals("Laptop Pro", respaldo.producto(1L).orElseThrow().getNombre());
+        assertTrue(respaldo.producto(2L).isEmpty());
+        assertEquals(List.of(1), respaldo.consulta("obtenerTodos").orElseThrow());
+        verify(productoRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("refrescar - Con el Circuit Breaker abierto debe conservar el respaldo")
+    void testRefrescar_CircuitBreakerAbierto() {
+        // Arrange
+        respaldo.guardarProducto(producto(1L, "Laptop"));
+        circuitBreaker.transitionToForcedOpenState();
+
+        // Act
+        respaldo.refrescar();
+
+        // Assert
+        assertEquals("Laptop", respaldo.producto(1L).orElseThrow().getNombre());
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    @DisplayName("refrescar - Al pasar a HALF_OPEN debe refrescar en segundo plano")
+    void testRefrescar_AlPasarAHalfOpen() {
+        // Arrange
+        respaldo.guardarProducto(producto(1L, "Laptop"));
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto(1L, "Laptop Pro")));
+
+        // Act
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+
+        // Assert
+        verify(productoRepository, timeout(5000)).findAllById(List.of(1L));
+    }
+
+    // ==================== Tests para RespaldoObsoletoAdvice ====================
+    @Test
+    @DisplayName("RespaldoObsoletoAdvice - Debe agregar X-Stale-Since y Age a la respuesta obsoleta")
+    void testAdvice_AgregaHeaders() {
+        // Arrange
+        Instant capturado = Instant.now().minusSeconds(30);
+        request.setAttribute(RespaldoProductos.ATRIBUTO_OBSOLETO, capturado);
+        ServletServerHttpResponse response = new ServletServerHttpResponse(new MockHttpServletResponse());
+
+        // Act
+        new RespaldoObsoletoAdvice().beforeBodyWrite("cuerpo", null, MediaType.APPLICATION_JSON, null,
+                new ServletServerHttpRequest(request), response);
+
+        // Assert
+        assertEquals(capturado.toString(), response.getHeaders().getFirst(RespaldoProductos.HEADER_OBSOLETO));
+        assertTrue(Long.parseLong(response.getHeaders().getFirst(HttpHeaders.AGE)) >= 30);
+    }
+
+    @Test
+    @DisplayName("RespaldoObsoletoAdvice - No debe agregar headers a una respuesta actual")
+    void testAdvice_SinRespaldo() {
+        // Arrange
+        ServletServerHttpResponse response = new ServletServerHttpResponse(new MockHttpServletResponse());
+
+        // Act
+        new RespaldoObsoletoAdvice().beforeBodyWrite("cuerpo", null, MediaType.APPLICATION_JSON, null,
+                new ServletServerHttpRequest(request), response);
+
+        // Assert
+        assertFalse(response.getHeaders().containsKey(RespaldoProductos.HEADER_OBSOLETO));
+    }
+}
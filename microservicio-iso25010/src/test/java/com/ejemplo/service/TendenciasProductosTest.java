@@ -0,0 +1,170 @@
+package com.ejemplo.service;
+
+import com.ejemplo.model.Pedido.EstadoPedido;
+import com.ejemplo.model.Producto;
+import com.ejemplo.repository.ProductoRepository;
+import com.ejemplo.service.TendenciasProductos.Tendencia;
+import com.ejemplo.service.TendenciasProductos.Ventana;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para TendenciasProductos
+ * Valida las ventanas deslizantes por intervalos, el resumen space-saving de capacidad
+ * fija con su cota de error y la consulta de productos en tendencia
+ *
+ * @author Estudiante Universidad Mariano Gálvez
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TendenciasProductos - Pruebas Unitarias")
+class TendenciasProductosTest {
+
+    private static final long MINUTO = 60_000L;
+    private static final long INICIO = 1_000 * 60 * MINUTO;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private TendenciasProductos tendencias;
+
+    private static Producto producto(Long id, String nombre, boolean activo) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setMarca("HP");
+        producto.setActivo(activo);
+        return producto;
+    }
+
+    private static PedidoEvento creado(Long productoId, int cantidad, EstadoPedido estado) {
+        return new PedidoEvento(100L, null,
+                new PedidoEvento.Instantanea(productoId, cantidad, estado, BigDecimal.TEN), LocalDateTime.now());
+    }
+
+    private List<Long> ids(Ventana ventana, long ahora) {
+        return tendencias.estimar(ventana, ahora).stream().map(e -> e[0]).toList();
+    }
+
+    // ==================== Tests para estimar ====================
+    @Test
+    @DisplayName("estimar - Debe ordenar por unidades dentro de la ventana")
+    void testEstimar_Orden() {
+        // Arrange
+        tendencias.registrar(1L, 3, INICIO);
+        tendencias.registrar(2L, 5, INICIO + MINUTO);
+        tendencias.registrar(1L, 4, INICIO + 2 * MINUTO);
+
+        // Act
+        List<long[]> estimaciones = tendencias.estimar(Ventana.CINCO_MINUTOS, INICIO + 2 * MINUTO);
+
+        // Assert
+        assertArrayEquals(new long[] {1L, 7L, 0L}, estimaciones.get(0));
+        assertArrayEquals(new long[] {2L, 5L, 0L}, estimaciones.get(1));
+    }
+
+    @Test
+    @DisplayName("estimar - Los pedidos deben salir de cada ventana al vencer su intervalo")
+    void testEstimar_VentanaDeslizante() {
+        // Arrange
+        tendencias.registrar(1L, 10, INICIO);
+        tendencias.registrar(2L, 1, INICIO + 10 * MINUTO);
+
+        // Act & Assert
+        assertEquals(List.of(2L), ids(Ventana.CINCO_MINUTOS, INICIO + 10 * MINUTO));
+        assertEquals(List.of(1L, 2L), ids(Ventana.UNA_HORA, INICIO + 10 * MINUTO));
+        assertEquals(List.of(2L), ids(Ventana.UNA_HORA, INICIO + 65 * MINUTO));
+        assertEquals(List.of(1L, 2L), ids(Ventana.UN_DIA, INICIO + 23 * 60 * MINUTO));
+        assertTrue(ids(Ventana.UN_DIA, INICIO + 25 * 60 * MINUTO).isEmpty());
+    }
+
+    @Test
+    @DisplayName("estimar - Con más productos que capacidad la memoria queda acotada y el error cubre el conteo real")
+    void testEstimar_CapacidadFija() {
+        // Arrange: un producto frecuente entre muchos productos de una sola unidad
+        ReflectionTestUtils.setField(tendencias, "capacidad", 10);
+        for (long id = 1; id <= 1000; id++) {
+            tendencias.registrar(id, 1, INICIO);
+            tendencias.registrar(5000L, 2, INICIO);
+        }
+
+        // Act
+        List<long[]> estimaciones = tendencias.estimar(Ventana.CINCO_MINUTOS, INICIO);
+
+        // Assert
+        assertEquals(10, estimaciones.size());
+        long[] primero = estimaciones.get(0);
+        assertEquals(5000L, primero[0]);
+        assertTrue(primero[1] >= 2000 && primero[1] - primero[2] <= 2000,
+                "El conteo real debe estar entre unidades - error y unidades");
+    }
+
+    // ==================== Tests para alCambiarPedido ====================
+    @Test
+    @DisplayName("alCambiarPedido - Solo deben contar los pedidos creados y no cancelados")
+    void testAlCambiarPedido_SoloCreados() {
+        // Arrange
+        PedidoEvento.Instantanea anterior =
+                new PedidoEvento.Instantanea(3L, 9, EstadoPedido.PENDIENTE, BigDecimal.TEN);
+
+        // Act
+        tendencias.alCambiarPedido(creado(1L, 2, EstadoPedido.PENDIENTE));
+        tendencias.alCambiarPedido(creado(2L, 5, EstadoPedido.CANCELADO));
+        tendencias.alCambiarPedido(new PedidoEvento(101L, anterior,
+                new PedidoEvento.Instantanea(3L, 9, EstadoPedido.CONFIRMADO, BigDecimal.TEN), LocalDateTime.now()));
+
+        // Assert
+        assertEquals(List.of(1L), ids(Ventana.CINCO_MINUTOS, System.currentTimeMillis()));
+    }
+
+    // ==================== Tests para obtener ====================
+    @Test
+    @DisplayName("obtener - Debe completar los datos del producto y omitir inactivos")
+    void testObtener() {
+        // Arrange
+        tendencias.alCambiarPedido(creado(1L, 2, EstadoPedido.PENDIENTE));
+        tendencias.alCambiarPedido(creado(2L, 8, EstadoPedido.PENDIENTE));
+        tendencias.alCambiarPedido(creado(3L, 5, EstadoPedido.PENDIENTE));
+        when(productoRepository.findAllById(anyList())).thenReturn(List.of(
+                producto(1L, "Mouse", true), producto(2L, "Monitor", false), producto(3L, "Laptop", true)));
+
+        // Act
+        List<Tendencia> resultado = tendencias.obtener(Ventana.UNA_HORA, 2);
+
+        // Assert
+        assertEquals(List.of(new Tendencia(3L, "Laptop", "HP", 5L, 0L), new Tendencia(1L, "Mouse", "HP", 2L, 0L)),
+                resultado);
+        verify(productoRepository, times(1)).findAllById(List.of(2L, 3L, 1L));
+    }
+
+    @Test
+    @DisplayName("obtener - Sin pedidos no debe consultar la base de datos")
+    void testObtener_SinPedidos() {
+        // Act & Assert
+        assertTrue(tendencias.obtener(Ventana.UN_DIA, 10).isEmpty());
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    @DisplayName("obtener - Debe rechazar límite o ventana inválidos")
+    void testObtener_ParametrosInvalidos() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> tendencias.obtener(Ventana.UNA_HORA, 0));
+        assertThrows(IllegalArgumentException.class, () -> Ventana.desdeCodigo("2h"));
+        assertEquals(Ventana.UN_DIA, Ventana.desdeCodigo("24H"));
+    }
+}
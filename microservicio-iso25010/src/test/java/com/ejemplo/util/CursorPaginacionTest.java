@@ -0,0 +1,65 @@
+package com.ejemplo.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests unitarios para CursorPaginacion
+ * Verifica la codificación de cursores opacos y la validación del tamaño de página
+ */
+@DisplayName("CursorPaginacion Tests")
+class CursorPaginacionTest {
+
+    @Test
+    @DisplayName("Debe decodificar los mismos valores que se codificaron")
+    void testCodificarYDecodificar() {
+        LocalDateTime fecha = LocalDateTime.of(2024, 5, 1, 10, 30, 15);
+        String cursor = CursorPaginacion.codificar(fecha, 42L);
+
+        String[] valores = CursorPaginacion.decodificar(cursor, 2);
+
+        assertArrayEquals(new String[] {"2024-05-01T10:30:15", "42"}, valores);
+        assertEquals(fecha, LocalDateTime.parse(valores[0]));
+    }
+
+    @Test
+    @DisplayName("Debe generar cursores seguros para URL")
+    void testCursorSeguroParaUrl() {
+        String cursor = CursorPaginacion.codificar("a?b/c+d", 1L);
+
+        assertFalse(cursor.contains("+"));
+        assertFalse(cursor.contains("/"));
+        assertFalse(cursor.contains("="));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar cursores que no son Base64")
+    void testDecodificarCursorInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> CursorPaginacion.decodificar("%%%", 2));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar cursores con un número de valores distinto")
+    void testDecodificarNumeroDeValoresIncorrecto() {
+        String cursor = CursorPaginacion.codificar("solo-uno");
+
+        assertThrows(IllegalArgumentException.class, () -> CursorPaginacion.decodificar(cursor, 2));
+    }
+
+    @Test
+    @DisplayName("Debe usar el límite por defecto y validar el rango")
+    void testValidarLimite() {
+        assertEquals(CursorPaginacion.LIMITE_POR_DEFECTO, CursorPaginacion.validarLimite(null));
+        assertEquals(10, CursorPaginacion.validarLimite(10));
+        assertThrows(IllegalArgumentException.class, () -> CursorPaginacion.validarLimite(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> CursorPaginacion.validarLimite(CursorPaginacion.LIMITE_MAXIMO + 1));
+    }
+}
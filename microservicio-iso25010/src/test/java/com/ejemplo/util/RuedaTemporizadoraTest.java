@@ -0,0 +1,103 @@
+package com.ejemplo.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests unitarios para RuedaTemporizadora
+ * Verifica que cada vencimiento ocurra en su tick, también tras bajar de nivel, y la cancelación
+ */
+@DisplayName("RuedaTemporizadora Tests")
+class RuedaTemporizadoraTest {
+
+    @Test
+    @DisplayName("Debe vencer en el tick del vencimiento y nunca antes")
+    void testVencimientoEnSuTick() {
+        RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(100, 3, 0);
+        rueda.programar("a", 250);
+        rueda.programar("b", 300);
+
+        assertEquals(List.of(), rueda.avanzar(299));
+        assertEquals(List.of("a", "b"), rueda.avanzar(300));
+        assertEquals(0, rueda.tamano());
+    }
+
+    @Test
+    @DisplayName("Debe bajar de nivel los vencimientos lejanos y los que superan el rango")
+    void testCascadaEntreNiveles() {
+        // Rango de 64^2 = 4096 ticks de 1 ms
+        RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(1, 2, 10);
+        rueda.programar("cercano", 15);
+        rueda.programar("segundo-nivel", 1_000);
+        rueda.programar("fuera-de-rango", 20_000);
+
+        assertEquals(List.of("cercano"), rueda.avanzar(999));
+        assertEquals(List.of("segundo-nivel"), rueda.avanzar(1_000));
+        assertEquals(List.of(), rueda.avanzar(19_999));
+        assertEquals(List.of("fuera-de-rango"), rueda.avanzar(20_000));
+    }
+
+    @Test
+    @DisplayName("Debe cancelar y reprogramar en cualquier momento")
+    void testCancelarYReprogramar() {
+        RuedaTemporizadora<Long> rueda = new RuedaTemporizadora<>(10, 3, 0);
+        rueda.programar(1L, 100);
+        rueda.programar(2L, 100);
+        rueda.programar(3L, 100);
+
+        assertTrue(rueda.cancelar(1L));
+        assertFalse(rueda.cancelar(1L));
+        rueda.programar(2L, 5_000);
+        // Un vencimiento ya pasado vence en el siguiente tick
+        rueda.programar(4L, -50);
+
+        assertEquals(List.of(4L), rueda.avanzar(10));
+        assertEquals(List.of(3L), rueda.avanzar(4_999));
+        assertEquals(List.of(2L), rueda.avanzar(5_000));
+    }
+
+    @Test
+    @DisplayName("Debe vencer cada clave en el avance que cruza su vencimiento")
+    void testVencimientosAleatorios() {
+        Random random = new Random(42);
+        RuedaTemporizadora<Integer> rueda = new RuedaTemporizadora<>(1, 3, 0);
+        Map<Integer, Long> vencimientos = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            long vencimiento = 1 + random.nextInt(400_000);
+            vencimientos.put(i, vencimiento);
+            rueda.programar(i, vencimiento);
+        }
+
+        long anterior = 0;
+        int vencidas = 0;
+        while (anterior < 400_000) {
+            long ahora = anterior + 1 + random.nextInt(3_000);
+            for (Integer clave : rueda.avanzar(ahora)) {
+                long vencimiento = vencimientos.get(clave);
+                assertTrue(vencimiento > anterior && vencimiento <= ahora,
+                        "La clave " + clave + " con vencimiento " + vencimiento + " venció en (" + anterior + ", " + ahora + "]");
+                vencidas++;
+            }
+            anterior = ahora;
+        }
+        assertEquals(vencimientos.size(), vencidas);
+        assertEquals(0, rueda.tamano());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una duración de tick inválida")
+    void testParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new RuedaTemporizadora<String>(0, 3, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RuedaTemporizadora<String>(10, 0, 0));
+    }
+}
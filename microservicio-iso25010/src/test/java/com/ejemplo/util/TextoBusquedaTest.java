@@ -0,0 +1,45 @@
+package com.ejemplo.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests unitarios para TextoBusqueda
+ * Verifica la normalización de texto y la extracción de trigramas
+ */
+@DisplayName("TextoBusqueda Tests")
+class TextoBusquedaTest {
+
+    @Test
+    @DisplayName("Debe pasar a minúsculas, quitar acentos y colapsar espacios")
+    void testNormalizar() {
+        assertEquals("electronicos para el hogar", TextoBusqueda.normalizar("  ELECTRÓNICOS   para\tel hogar "));
+        assertEquals("nino", TextoBusqueda.normalizar("Niño"));
+    }
+
+    @Test
+    @DisplayName("Debe devolver cadena vacía para texto nulo")
+    void testNormalizarNulo() {
+        assertEquals("", TextoBusqueda.normalizar(null));
+    }
+
+    @Test
+    @DisplayName("Debe extraer trigramas sin repetir en orden de aparición")
+    void testTrigramas() {
+        Set<String> trigramas = TextoBusqueda.trigramas("aaaab");
+
+        assertEquals(List.of("aaa", "aab"), List.copyOf(trigramas));
+    }
+
+    @Test
+    @DisplayName("Debe devolver un conjunto vacío para textos de menos de 3 caracteres")
+    void testTrigramasTextoCorto() {
+        assertTrue(TextoBusqueda.trigramas("ab").isEmpty());
+    }
+}